@@ -0,0 +1,131 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.common.utils;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A {@link Writer} that forwards at most a given number of characters to the underlying writer.
+ * <p>
+ * Once the limit is reached, the writer is marked as truncated and further characters are either silently discarded
+ * or, if {@code failOnLimit} is set, rejected with a {@link LimitReachedException} so that the producer can stop its
+ * work early.
+ *
+ * @since 7.3
+ */
+public class BoundedWriter extends FilterWriter {
+
+    /**
+     * Exception thrown when the limit of a {@link BoundedWriter} is reached and the writer was configured to fail.
+     */
+    public static class LimitReachedException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        public LimitReachedException(long limit) {
+            super("Limit of " + limit + " characters reached");
+        }
+    }
+
+    protected final long limit;
+
+    protected final boolean failOnLimit;
+
+    protected long count;
+
+    protected boolean truncated;
+
+    /**
+     * Constructs a bounded writer.
+     *
+     * @param out the underlying writer
+     * @param limit the maximum number of characters to forward, or a negative value for no limit
+     * @param failOnLimit whether to throw a {@link LimitReachedException} when the limit is reached
+     */
+    public BoundedWriter(Writer out, long limit, boolean failOnLimit) {
+        super(out);
+        this.limit = limit;
+        this.failOnLimit = failOnLimit;
+    }
+
+    /**
+     * Checks whether some characters were not written because the limit was reached.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Gets the number of characters actually forwarded to the underlying writer.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of characters that can still be written before reaching the limit.
+     */
+    public long getRemaining() {
+        return limit < 0 ? Long.MAX_VALUE : limit - count;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (getRemaining() <= 0) {
+            limitReached();
+            return;
+        }
+        out.write(c);
+        count++;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int n = (int) Math.min(len, getRemaining());
+        if (n > 0) {
+            out.write(cbuf, off, n);
+            count += n;
+        }
+        if (n < len) {
+            limitReached();
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        int n = (int) Math.min(len, getRemaining());
+        if (n > 0) {
+            out.write(str, off, n);
+            count += n;
+        }
+        if (n < len) {
+            limitReached();
+        }
+    }
+
+    protected void limitReached() throws LimitReachedException {
+        truncated = true;
+        if (failOnLimit) {
+            throw new LimitReachedException(limit);
+        }
+    }
+
+}
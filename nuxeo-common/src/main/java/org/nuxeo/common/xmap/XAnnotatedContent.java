@@ -60,6 +60,15 @@ public class XAnnotatedContent extends XAnnotatedMember {
         if (el == null) {
             return null;
         }
+        return getContent(el);
+    }
+
+    /**
+     * Gets the content of the element selected by the member path.
+     *
+     * @since 7.3
+     */
+    protected Object getContent(Element el) {
         el.normalize();
         Node node = el.getFirstChild();
         if (node == null) {
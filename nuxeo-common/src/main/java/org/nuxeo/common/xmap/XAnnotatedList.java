@@ -79,6 +79,16 @@ public class XAnnotatedList extends XAnnotatedMember {
             }
         }
 
+        return toValue(values);
+    }
+
+    /**
+     * Converts the list of values read for this member to the member type.
+     *
+     * @since 7.3
+     */
+    @SuppressWarnings("unchecked")
+    protected Object toValue(List<Object> values) {
         if (isNullByDefault && values.isEmpty()) {
             return null;
         }
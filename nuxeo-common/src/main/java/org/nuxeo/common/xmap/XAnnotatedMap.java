@@ -58,14 +58,7 @@ public class XAnnotatedMap extends XAnnotatedList {
     @SuppressWarnings("unchecked")
     @Override
     protected Object getValue(Context ctx, Element base) {
-        Map<String, Object> values;
-        try {
-            values = (Map) type.newInstance();
-        } catch (InstantiationException e) {
-            throw new IllegalArgumentException(e);
-        } catch (IllegalAccessException e) {
-            throw new IllegalArgumentException(e);
-        }
+        Map<String, Object> values = newMap();
         if (xao != null) {
             DOMHelper.visitMapNodes(ctx, this, base, path, elementMapVisitor, values);
         } else {
@@ -83,6 +76,22 @@ public class XAnnotatedMap extends XAnnotatedList {
         return values;
     }
 
+    /**
+     * Creates an empty map of the member type.
+     *
+     * @since 7.3
+     */
+    @SuppressWarnings("unchecked")
+    protected Map<String, Object> newMap() {
+        try {
+            return (Map<String, Object>) type.newInstance();
+        } catch (InstantiationException e) {
+            throw new IllegalArgumentException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
     @Override
     public void toXML(Object instance, Element parent) {
         Object v = accessor.getValue(instance);
@@ -79,9 +79,25 @@ public class XAnnotatedObject {
     }
 
     public Object newInstance(Context ctx, Element element) {
-        Object ob;
+        Object ob = createInstance();
+        ctx.push(ob);
+
+        // set annotated members
+        for (XAnnotatedMember member : getMembers()) {
+            member.process(ctx, element);
+        }
+
+        return ctx.pop();
+    }
+
+    /**
+     * Creates an empty instance of the object.
+     *
+     * @since 7.3
+     */
+    protected Object createInstance() {
         try {
-            ob = ctor.newInstance();
+            return ctor.newInstance();
         } catch (InstantiationException e) {
             throw new IllegalArgumentException(e);
         } catch (IllegalAccessException e) {
@@ -92,19 +108,19 @@ public class XAnnotatedObject {
             }
             throw new IllegalArgumentException(e);
         }
-        ctx.push(ob);
+    }
 
+    /**
+     * Gets the members in the order in which they are set.
+     *
+     * @since 7.3
+     */
+    protected List<XAnnotatedMember> getMembers() {
         if (sorter != null) {
             Collections.sort(members, sorter);
             sorter = null; // sort only once
         }
-
-        // set annotated members
-        for (XAnnotatedMember member : members) {
-            member.process(ctx, element);
-        }
-
-        return ctx.pop();
+        return members;
     }
 }
 
@@ -74,12 +74,21 @@ import org.xml.sax.SAXException;
  * <li>The XML file is loaded as a DOM document
  * <li>The DOM document is parsed and the nodes mapping is resolved
  * </ul>
+ * When the {@value #STREAMING_PROPERTY} system property is true, XML input streams are instead mapped while they are
+ * read, see {@link XStreamingLoader}.
  *
  * @author <a href="mailto:bs@nuxeo.com">Bogdan Stefanescu</a>
  */
 @SuppressWarnings({ "SuppressionAnnotation" })
 public class XMap {
 
+    /**
+     * System property enabling the streaming mapping of XML input streams, false by default.
+     *
+     * @since 7.3
+     */
+    public static final String STREAMING_PROPERTY = "org.nuxeo.common.xmap.streaming";
+
     private static final DocumentBuilderFactory initFactory() {
         Thread t = Thread.currentThread();
         ClassLoader cl = t.getContextClassLoader();
@@ -160,6 +169,19 @@ public class XMap {
         return roots.values();
     }
 
+    /**
+     * Gets the registered top level object mapped to the given element name, or null if none.
+     *
+     * @since 7.3
+     */
+    public XAnnotatedObject getRootObject(String name) {
+        return roots.get(name);
+    }
+
+    protected static boolean isStreaming() {
+        return Boolean.parseBoolean(System.getProperty(STREAMING_PROPERTY));
+    }
+
     /**
      * Registers a mappable object class.
      * <p>
@@ -259,6 +281,9 @@ public class XMap {
      */
     public Object load(Context ctx, InputStream in) throws IOException {
         try {
+            if (isStreaming()) {
+                return new XStreamingLoader(this).load(ctx, in);
+            }
             DocumentBuilderFactory factory = getFactory();
             DocumentBuilder builder = factory.newDocumentBuilder();
             Document document = builder.parse(in);
@@ -334,6 +359,9 @@ public class XMap {
      */
     public Object[] loadAll(Context ctx, InputStream in) throws IOException {
         try {
+            if (isStreaming()) {
+                return new XStreamingLoader(this).loadAll(ctx, in);
+            }
             DocumentBuilderFactory factory = getFactory();
             DocumentBuilder builder = factory.newDocumentBuilder();
             Document document = builder.parse(in);
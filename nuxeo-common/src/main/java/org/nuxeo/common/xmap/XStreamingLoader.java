@@ -0,0 +1,753 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+
+package org.nuxeo.common.xmap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Maps the XML read from a stream to the registered objects directly from the StAX events, without loading the whole
+ * document as DOM.
+ * <p>
+ * The mapping is the same as the DOM one: each path segment selects the first child element having this name, except
+ * the last segment of lists and maps which selects all of them, and the value of an element is its text content. A DOM
+ * is only built for the elements needed as DOM: the content of {@link org.nuxeo.common.xmap.annotation.XContent}
+ * members and the element of {@link Element} members.
+ * <p>
+ * The members of an object are set when its element ends, in the same order as in DOM mode, so the objects it
+ * contains are filled before it. The contained objects declaring an {@link org.nuxeo.common.xmap.annotation.XParent}
+ * member are the exception: as in DOM mode they must see the members of their parent declared before them, which may
+ * be read from elements following theirs. The element of their parent is then kept as DOM and they are mapped from it
+ * by the DOM mapping, once the preceding members of the parent are set.
+ *
+ * @since 7.3
+ */
+public class XStreamingLoader {
+
+    private static final String REPORT_CDATA = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+    protected static final XMLInputFactory factory = initFactory();
+
+    protected static final List<Handler> NO_HANDLERS = Collections.emptyList();
+
+    protected final XMap xmap;
+
+    protected DocumentBuilder builder;
+
+    private static XMLInputFactory initFactory() {
+        Thread t = Thread.currentThread();
+        ClassLoader cl = t.getContextClassLoader();
+        t.setContextClassLoader(XStreamingLoader.class.getClassLoader());
+        try {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+            factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+            // CDATA sections are kept in the captured DOM
+            if (factory.isPropertySupported(REPORT_CDATA)) {
+                factory.setProperty(REPORT_CDATA, Boolean.TRUE);
+            }
+            return factory;
+        } finally {
+            t.setContextClassLoader(cl);
+        }
+    }
+
+    public XStreamingLoader(XMap xmap) {
+        this.xmap = xmap;
+    }
+
+    /**
+     * Returns the first registered top level object found in the stream, or null if none. The stream is not closed.
+     *
+     * @see XMap#load(Context, Element)
+     */
+    public Object load(Context ctx, InputStream in) throws IOException {
+        RootHandler root = new RootHandler(ctx, false);
+        parse(in, root);
+        return root.result.isEmpty() ? null : root.result.get(0);
+    }
+
+    /**
+     * Returns all the registered top level objects found in the stream. The stream is not closed.
+     *
+     * @see XMap#loadAll(Context, Element)
+     */
+    public Object[] loadAll(Context ctx, InputStream in) throws IOException {
+        RootHandler root = new RootHandler(ctx, true);
+        parse(in, root);
+        return root.result.toArray();
+    }
+
+    protected void parse(InputStream in, RootHandler root) throws IOException {
+        XMLStreamReader reader;
+        try {
+            reader = factory.createXMLStreamReader(in);
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+        try {
+            // the handlers of the current element and of its ancestors
+            List<List<Handler>> stack = new ArrayList<List<Handler>>();
+            List<Handler> current = Collections.<Handler> singletonList(root);
+            while (reader.hasNext() && !root.done) {
+                int event = reader.next();
+                switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    List<Handler> handlers = NO_HANDLERS;
+                    for (Handler handler : current) {
+                        Handler child = handler.startChild(reader);
+                        if (child != null) {
+                            if (handlers == NO_HANDLERS) {
+                                handlers = new ArrayList<Handler>(2);
+                            }
+                            handlers.add(child);
+                        }
+                    }
+                    stack.add(current);
+                    current = handlers;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                case XMLStreamConstants.CDATA:
+                    if (!current.isEmpty()) {
+                        String text = reader.getText();
+                        for (Handler handler : current) {
+                            handler.text(text, event == XMLStreamConstants.CDATA);
+                        }
+                    }
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    if (!current.isEmpty()) {
+                        String text = reader.getText();
+                        for (Handler handler : current) {
+                            handler.comment(text);
+                        }
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    for (int i = current.size() - 1; i >= 0; i--) {
+                        current.get(i).end();
+                    }
+                    current = stack.remove(stack.size() - 1);
+                    break;
+                default:
+                    break;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // do nothing
+            }
+        }
+    }
+
+    protected static String getName(String prefix, String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ':' + localName;
+    }
+
+    protected static String getAttribute(XMLStreamReader reader, String name) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (name.equals(getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    protected static String emptyToNull(String s) {
+        return s == null || s.isEmpty() ? null : s;
+    }
+
+    /**
+     * Creates a DOM element for the current start element, in a new document.
+     */
+    protected Element createRootElement(XMLStreamReader reader) {
+        if (builder == null) {
+            try {
+                builder = XMap.getFactory().newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        Document document = builder.newDocument();
+        Element element = createElement(document, reader);
+        document.appendChild(element);
+        return element;
+    }
+
+    protected static Element createElement(Document document, XMLStreamReader reader) {
+        Element element = document.createElementNS(emptyToNull(reader.getNamespaceURI()),
+                getName(reader.getPrefix(), reader.getLocalName()));
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            String prefix = reader.getNamespacePrefix(i);
+            String name = prefix == null || prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE
+                    : getName(XMLConstants.XMLNS_ATTRIBUTE, prefix);
+            element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, name, reader.getNamespaceURI(i));
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            element.setAttributeNS(emptyToNull(reader.getAttributeNamespace(i)),
+                    getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                    reader.getAttributeValue(i));
+        }
+        return element;
+    }
+
+    /**
+     * Receives the value read for a member.
+     */
+    protected interface Sink {
+
+        void accept(Object value);
+
+    }
+
+    /**
+     * Creates the handler of an element selected by a member path, or returns null if the element content is not
+     * needed.
+     */
+    protected interface Target {
+
+        Handler start(XMLStreamReader reader, Sink sink);
+
+    }
+
+    /**
+     * Handles the events of an element, created when it starts.
+     */
+    protected abstract static class Handler {
+
+        /**
+         * Returns the handler of a child element, or null if the child is not needed.
+         */
+        protected Handler startChild(XMLStreamReader reader) {
+            return null;
+        }
+
+        protected void text(String text, boolean cdata) {
+        }
+
+        protected void comment(String text) {
+        }
+
+        protected void end() {
+        }
+
+    }
+
+    /**
+     * Dispatches the events of an element to several handlers.
+     */
+    protected static class HandlerList extends Handler {
+
+        protected final List<Handler> handlers;
+
+        protected HandlerList(List<Handler> handlers) {
+            this.handlers = handlers;
+        }
+
+        @Override
+        protected Handler startChild(XMLStreamReader reader) {
+            Handler single = null;
+            List<Handler> children = null;
+            for (Handler handler : handlers) {
+                Handler child = handler.startChild(reader);
+                if (child == null) {
+                    continue;
+                }
+                if (single == null) {
+                    single = child;
+                } else {
+                    if (children == null) {
+                        children = new ArrayList<Handler>(handlers.size());
+                        children.add(single);
+                    }
+                    children.add(child);
+                }
+            }
+            return children != null ? new HandlerList(children) : single;
+        }
+
+        @Override
+        protected void text(String text, boolean cdata) {
+            for (Handler handler : handlers) {
+                handler.text(text, cdata);
+            }
+        }
+
+        @Override
+        protected void comment(String text) {
+            for (Handler handler : handlers) {
+                handler.comment(text);
+            }
+        }
+
+        @Override
+        protected void end() {
+            for (int i = handlers.size() - 1; i >= 0; i--) {
+                handlers.get(i).end();
+            }
+        }
+
+    }
+
+    /**
+     * Follows a member path below the element it is attached to.
+     */
+    protected static class PathHandler extends Handler {
+
+        protected final String[] segments;
+
+        protected final int index;
+
+        // select all the elements matching the last segment
+        protected final boolean all;
+
+        protected final Target target;
+
+        protected final Sink sink;
+
+        protected boolean matched;
+
+        protected PathHandler(String[] segments, int index, boolean all, Target target, Sink sink) {
+            this.segments = segments;
+            this.index = index;
+            this.all = all;
+            this.target = target;
+            this.sink = sink;
+        }
+
+        @Override
+        protected Handler startChild(XMLStreamReader reader) {
+            if (!segments[index].equals(getName(reader.getPrefix(), reader.getLocalName()))) {
+                return null;
+            }
+            boolean last = index == segments.length - 1;
+            if (!(last && all)) {
+                // only the first element having this name is selected
+                if (matched) {
+                    return null;
+                }
+                matched = true;
+            }
+            return last ? target.start(reader, sink) : new PathHandler(segments, index + 1, all, target, sink);
+        }
+
+    }
+
+    /**
+     * Collects the text content of an element.
+     */
+    protected static class TextHandler extends Handler {
+
+        protected final StringBuilder buf;
+
+        protected final Sink sink;
+
+        protected TextHandler(StringBuilder buf, Sink sink) {
+            this.buf = buf;
+            this.sink = sink;
+        }
+
+        @Override
+        protected Handler startChild(XMLStreamReader reader) {
+            return new TextHandler(buf, null);
+        }
+
+        @Override
+        protected void text(String text, boolean cdata) {
+            buf.append(text);
+        }
+
+        @Override
+        protected void end() {
+            if (sink != null) {
+                sink.accept(buf.toString());
+            }
+        }
+
+    }
+
+    /**
+     * Builds the DOM of an element.
+     */
+    protected static class DOMHandler extends Handler {
+
+        protected final Element element;
+
+        protected final Sink sink;
+
+        protected DOMHandler(Element element, Sink sink) {
+            this.element = element;
+            this.sink = sink;
+        }
+
+        @Override
+        protected Handler startChild(XMLStreamReader reader) {
+            Element child = createElement(element.getOwnerDocument(), reader);
+            element.appendChild(child);
+            return new DOMHandler(child, null);
+        }
+
+        @Override
+        protected void text(String text, boolean cdata) {
+            Document document = element.getOwnerDocument();
+            element.appendChild(cdata ? document.createCDATASection(text) : document.createTextNode(text));
+        }
+
+        @Override
+        protected void comment(String text) {
+            element.appendChild(element.getOwnerDocument().createComment(text));
+        }
+
+        @Override
+        protected void end() {
+            if (sink != null) {
+                sink.accept(element);
+            }
+        }
+
+    }
+
+    /**
+     * Looks for the top level objects, as {@link XMap#load(Context, Element)} and
+     * {@link XMap#loadAll(Context, Element)} do.
+     */
+    protected class RootHandler extends Handler {
+
+        protected final Context ctx;
+
+        protected final boolean all;
+
+        protected final RootHandler top;
+
+        protected final List<Object> result;
+
+        protected boolean done;
+
+        protected boolean first = true;
+
+        protected RootHandler(Context ctx, boolean all) {
+            this.ctx = ctx;
+            this.all = all;
+            top = this;
+            result = new ArrayList<Object>();
+        }
+
+        protected RootHandler(Context ctx, RootHandler top) {
+            this.ctx = ctx;
+            this.top = top;
+            all = top.all;
+            result = top.result;
+        }
+
+        @Override
+        protected Handler startChild(XMLStreamReader reader) {
+            if (!all) {
+                // only the first child element is looked at
+                if (!first) {
+                    return null;
+                }
+                first = false;
+            }
+            XAnnotatedObject xob = xmap.getRootObject(getName(reader.getPrefix(), reader.getLocalName()));
+            if (xob != null) {
+                return new ObjectHandler(xob, ctx, null, reader, value -> {
+                    result.add(value);
+                    top.done = !all;
+                });
+            }
+            // XMap.load recurses with a default context
+            return new RootHandler(all ? ctx : new Context(), top);
+        }
+
+    }
+
+    /**
+     * Maps an object from its element.
+     */
+    protected class ObjectHandler extends HandlerList {
+
+        protected final Context ctx;
+
+        protected final Object parent;
+
+        protected final Sink sink;
+
+        protected final Object object;
+
+        protected final List<XAnnotatedMember> members;
+
+        // the values read for each member: a value, a list of values or a list of map entries
+        protected final Object[] values;
+
+        // the number of members already set on the object
+        protected int setCount;
+
+        // the element of the object, kept as DOM for the members mapped as in DOM mode
+        protected Element element;
+
+        protected ObjectHandler(XAnnotatedObject xob, Context ctx, Object parent, XMLStreamReader reader, Sink sink) {
+            super(new ArrayList<Handler>());
+            this.ctx = ctx;
+            this.parent = parent;
+            this.sink = sink;
+            object = xob.createInstance();
+            members = xob.getMembers();
+            values = new Object[members.size()];
+            for (int i = 0; i < values.length; i++) {
+                addMember(i, members.get(i), reader);
+            }
+            // the leading members known from the start element are set right away, so that nested objects see them
+            // through their parent as in DOM mode
+            int known = 0;
+            while (known < values.length && isKnownAtStart(members.get(known))) {
+                known++;
+            }
+            setMembers(known);
+        }
+
+        protected boolean hasParentMember(XAnnotatedObject xao) {
+            for (XAnnotatedMember member : xao.getMembers()) {
+                if (member instanceof XAnnotatedParent) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        protected boolean isKnownAtStart(XAnnotatedMember member) {
+            if (member instanceof XAnnotatedParent || member instanceof XAnnotatedContext) {
+                return true;
+            }
+            return !(member instanceof XAnnotatedContent) && !(member instanceof XAnnotatedList)
+                    && !(member instanceof XAnnotatedMap) && member.xao == null && member.path.segments.length == 0
+                    && member.path.attribute != null;
+        }
+
+        protected void addMember(int i, XAnnotatedMember member, XMLStreamReader reader) {
+            Sink set = value -> values[i] = value;
+            if (member instanceof XAnnotatedParent || member instanceof XAnnotatedContext) {
+                // no XML needed
+            } else if (member.xao != null && hasParentMember(member.xao)) {
+                // mapped from the DOM of the object element once the preceding members are set, see getValue
+                if (element == null) {
+                    handlers.add(new DOMHandler(createRootElement(reader), el -> element = (Element) el));
+                }
+            } else if (member instanceof XAnnotatedContent) {
+                XAnnotatedContent content = (XAnnotatedContent) member;
+                select(reader, member.path, false,
+                        (r, s) -> new DOMHandler(createRootElement(r), el -> s.accept(content.getContent((Element) el))),
+                        set);
+            } else if (member instanceof XAnnotatedMap) {
+                List<Object[]> entries = new ArrayList<Object[]>();
+                values[i] = entries;
+                select(reader, member.path, true, getMapEntryTarget((XAnnotatedMap) member),
+                        value -> entries.add((Object[]) value));
+            } else if (member instanceof XAnnotatedList) {
+                List<Object> list = new ArrayList<Object>();
+                values[i] = list;
+                select(reader, member.path, true, getValueTarget(member), value -> list.add(value));
+            } else if (member.xao == null && member.type == Element.class) {
+                // the element of the object itself
+                handlers.add(new DOMHandler(createRootElement(reader), set));
+            } else {
+                select(reader, member.path, false, getValueTarget(member), set);
+            }
+        }
+
+        protected void select(XMLStreamReader reader, Path path, boolean all, Target target, Sink sink) {
+            if (path.segments.length > 0) {
+                handlers.add(new PathHandler(path.segments, 0, all, target, sink));
+            } else if (!all) {
+                Handler handler = target.start(reader, sink);
+                if (handler != null) {
+                    handlers.add(handler);
+                }
+            }
+        }
+
+        /**
+         * Gets the target reading the value of a member from a selected element: an attribute, the text content or a
+         * nested object.
+         */
+        protected Target getValueTarget(XAnnotatedMember member) {
+            if (member.xao != null) {
+                return (r, s) -> new ObjectHandler(member.xao, ctx, object, r, s);
+            } else if (member.path.attribute != null) {
+                String name = member.path.attribute;
+                return (r, s) -> {
+                    String value = getAttribute(r, name);
+                    if (value != null) {
+                        s.accept(value);
+                    }
+                    return null;
+                };
+            } else {
+                return (r, s) -> new TextHandler(new StringBuilder(), s);
+            }
+        }
+
+        protected Target getMapEntryTarget(XAnnotatedMap member) {
+            Target valueTarget = getValueTarget(member);
+            Path key = member.key;
+            return (r, s) -> {
+                // the entry is kept if both key and value are found
+                Object[] entry = new Object[2];
+                List<Handler> entryHandlers = new ArrayList<Handler>(2);
+                Sink keySink = value -> entry[0] = value;
+                Target keyTarget = key.attribute != null ? (r2, s2) -> {
+                    String value = getAttribute(r2, key.attribute);
+                    if (value != null) {
+                        s2.accept(value);
+                    }
+                    return null;
+                } : (r2, s2) -> new TextHandler(new StringBuilder(), s2);
+                if (key.segments.length > 0) {
+                    entryHandlers.add(new PathHandler(key.segments, 0, false, keyTarget, keySink));
+                } else {
+                    Handler handler = keyTarget.start(r, keySink);
+                    if (handler != null) {
+                        entryHandlers.add(handler);
+                    }
+                }
+                Handler handler = valueTarget.start(r, value -> entry[1] = value);
+                if (handler != null) {
+                    entryHandlers.add(handler);
+                }
+                return new HandlerList(entryHandlers) {
+                    @Override
+                    protected void end() {
+                        super.end();
+                        if (entry[0] != null && entry[1] != null) {
+                            s.accept(entry);
+                        }
+                    }
+                };
+            };
+        }
+
+        @Override
+        protected void end() {
+            super.end();
+            setMembers(values.length);
+            sink.accept(object);
+        }
+
+        /**
+         * Sets on the object the members read so far, up to the given index.
+         */
+        protected void setMembers(int to) {
+            if (setCount >= to) {
+                return;
+            }
+            if (parent != null) {
+                ctx.push(parent);
+            }
+            ctx.push(object);
+            try {
+                for (; setCount < to; setCount++) {
+                    XAnnotatedMember member = members.get(setCount);
+                    Object value = getValue(member, values[setCount]);
+                    if (value != null) {
+                        member.setValue(object, value);
+                    }
+                }
+            } finally {
+                ctx.pop();
+                if (parent != null) {
+                    ctx.pop();
+                }
+            }
+        }
+
+        /**
+         * Converts the value read for a member, as the member does from a DOM element.
+         */
+        @SuppressWarnings("unchecked")
+        protected Object getValue(XAnnotatedMember member, Object read) {
+            if (member instanceof XAnnotatedParent || member instanceof XAnnotatedContext) {
+                return member.getValue(ctx, null);
+            } else if (member.xao != null && hasParentMember(member.xao)) {
+                // DOM mapping, the object is on top of the context as the parent of the mapped ones
+                return member.getValue(ctx, element);
+            } else if (member instanceof XAnnotatedContent) {
+                return read;
+            } else if (member instanceof XAnnotatedMap) {
+                XAnnotatedMap map = (XAnnotatedMap) member;
+                Map<String, Object> result = map.newMap();
+                for (Object[] entry : (List<Object[]>) read) {
+                    result.put((String) entry[0], decode(member, entry[1]));
+                }
+                return map.isNullByDefault && result.isEmpty() ? null : result;
+            } else if (member instanceof XAnnotatedList) {
+                List<Object> list = (List<Object>) read;
+                for (int i = 0; i < list.size(); i++) {
+                    list.set(i, decode(member, list.get(i)));
+                }
+                return ((XAnnotatedList) member).toValue(list);
+            } else if (member.xao != null || member.type == Element.class || read == null) {
+                return read;
+            }
+            String value = (String) read;
+            if (member.trim) {
+                value = value.trim();
+            }
+            if (member.valueFactory == null) {
+                throw new NullPointerException("Missing XValueFactory for " + member.type);
+            }
+            return member.valueFactory.deserialize(ctx, value);
+        }
+
+        /**
+         * Decodes a list or map value, attributes are not trimmed.
+         */
+        protected Object decode(XAnnotatedMember member, Object read) {
+            if (member.xao != null) {
+                return read;
+            }
+            String value = (String) read;
+            if (member.trim && member.path.attribute == null) {
+                value = value.trim();
+            }
+            return member.valueFactory != null ? member.valueFactory.deserialize(ctx, value) : value;
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.common.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+import org.nuxeo.common.utils.BoundedWriter.LimitReachedException;
+
+public class TestBoundedWriter {
+
+    @Test
+    public void testUnderLimit() throws Exception {
+        StringWriter sw = new StringWriter();
+        BoundedWriter writer = new BoundedWriter(sw, 10, false);
+        writer.write("abc");
+        writer.write('d');
+        writer.write(new char[] { 'e', 'f' });
+        assertEquals("abcdef", sw.toString());
+        assertEquals(6, writer.getCount());
+        assertFalse(writer.isTruncated());
+    }
+
+    @Test
+    public void testTruncate() throws Exception {
+        StringWriter sw = new StringWriter();
+        BoundedWriter writer = new BoundedWriter(sw, 5, false);
+        writer.write("abc");
+        writer.write("defgh");
+        writer.write('i');
+        assertEquals("abcde", sw.toString());
+        assertEquals(0, writer.getRemaining());
+        assertTrue(writer.isTruncated());
+    }
+
+    @Test
+    public void testFailOnLimit() throws Exception {
+        StringWriter sw = new StringWriter();
+        BoundedWriter writer = new BoundedWriter(sw, 5, true);
+        writer.write("abcd");
+        try {
+            writer.write("efgh");
+            fail();
+        } catch (LimitReachedException e) {
+            // ok
+        }
+        assertEquals("abcde", sw.toString());
+        assertTrue(writer.isTruncated());
+    }
+
+    @Test
+    public void testNoLimit() throws Exception {
+        StringWriter sw = new StringWriter();
+        BoundedWriter writer = new BoundedWriter(sw, -1, true);
+        writer.write("abcdefgh");
+        assertEquals("abcdefgh", sw.toString());
+        assertFalse(writer.isTruncated());
+    }
+
+}
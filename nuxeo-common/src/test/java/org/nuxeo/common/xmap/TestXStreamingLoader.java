@@ -0,0 +1,339 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+
+package org.nuxeo.common.xmap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+import org.nuxeo.common.xmap.annotation.XContent;
+import org.nuxeo.common.xmap.annotation.XNode;
+import org.nuxeo.common.xmap.annotation.XNodeList;
+import org.nuxeo.common.xmap.annotation.XNodeMap;
+import org.nuxeo.common.xmap.annotation.XObject;
+import org.nuxeo.common.xmap.annotation.XParent;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Checks that the streaming mapping gives the same objects as the DOM one.
+ */
+public class TestXStreamingLoader {
+
+    @XObject("component")
+    public static class ComponentDescriptor {
+
+        @XNode("@name")
+        String name;
+
+        @XNode("@version")
+        String version;
+
+        @XNodeList(value = "require", type = ArrayList.class, componentType = String.class)
+        List<String> requires;
+
+        @XNode("implementation@class")
+        String implementation;
+
+        @XContent("documentation")
+        String documentation;
+
+        @XNode(value = "documentation", trim = false)
+        String documentationText;
+
+        @XNodeList(value = "service/provide@interface", type = String[].class, componentType = String.class)
+        String[] services;
+
+        @XNodeMap(value = "property@value", key = "@name", type = HashMap.class, componentType = String.class)
+        Map<String, String> properties;
+
+        @XNodeList(value = "extension-point", type = ArrayList.class, componentType = ExtensionPointDescriptor.class)
+        List<ExtensionPointDescriptor> extensionPoints;
+
+        @XNodeList(value = "extension", type = ArrayList.class, componentType = ExtensionDescriptor.class)
+        List<ExtensionDescriptor> extensions;
+
+    }
+
+    @XObject("extension-point")
+    public static class ExtensionPointDescriptor {
+
+        @XParent
+        ComponentDescriptor component;
+
+        @XNode("@name")
+        String name;
+
+        @XNodeList(value = "object@class", type = ArrayList.class, componentType = String.class)
+        List<String> classes;
+
+        String parentName;
+
+        @XNode("@name")
+        public void setName(String name) {
+            parentName = component.name;
+        }
+
+    }
+
+    @XObject("extension")
+    public static class ExtensionDescriptor {
+
+        @XNode("@target")
+        String target;
+
+        @XNode("@point")
+        String point;
+
+        @XNode("")
+        Element element;
+
+        @XContent("documentation")
+        String documentation;
+
+    }
+
+    @XObject("parent")
+    public static class ParentDescriptor {
+
+        @XNode("title")
+        String title;
+
+        @XNode("child")
+        ChildDescriptor child;
+
+        @XNodeList(value = "children/child", type = ArrayList.class, componentType = ChildDescriptor.class)
+        List<ChildDescriptor> children;
+
+    }
+
+    @XObject("child")
+    public static class ChildDescriptor {
+
+        @XParent
+        ParentDescriptor parent;
+
+        String name;
+
+        String parentTitle;
+
+        @XNode("@name")
+        public void setName(String name) {
+            this.name = name;
+            parentTitle = parent.title;
+        }
+
+    }
+
+    @Test
+    public void testSameMapping() throws Exception {
+        XMap xmap = new XMap();
+        xmap.register(Author.class);
+        xmap.register(InheritedAuthor.class);
+        for (String name : Arrays.asList("test-xmap.xml", "second-test-xmap.xml")) {
+            URL url = Thread.currentThread().getContextClassLoader().getResource(name);
+            Document document = XMap.getFactory().newDocumentBuilder().parse(url.toString());
+            Object[] expected = xmap.loadAll(new Context(), document.getDocumentElement());
+            Object[] actual;
+            try (InputStream in = url.openStream()) {
+                actual = new XStreamingLoader(xmap).loadAll(new Context(), in);
+            }
+            assertTrue(expected.length > 0);
+            assertSameMapping(name, expected, actual);
+        }
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        XMap xmap = new XMap();
+        xmap.register(ExtensionDescriptor.class);
+        String xml = "<doc><extension target='a'/><extension target='b'/></doc>";
+        assertEquals("a", ((ExtensionDescriptor) load(xmap, xml)).target);
+        assertEquals(2, new XStreamingLoader(xmap).loadAll(new Context(), toStream(xml)).length);
+        // only the first element is looked at, as in DOM mode
+        xml = "<doc><other/><extension target='b'/></doc>";
+        assertNull(load(xmap, xml));
+        assertEquals(1, new XStreamingLoader(xmap).loadAll(new Context(), toStream(xml)).length);
+    }
+
+    @Test
+    public void testFirstElementSelected() throws Exception {
+        XMap xmap = new XMap();
+        xmap.register(ComponentDescriptor.class);
+        String xml = "<component><implementation/><implementation class='foo'/>" //
+                + "<service><provide interface='a'/></service><service><provide interface='b'/></service>" //
+                + "</component>";
+        ComponentDescriptor desc = (ComponentDescriptor) load(xmap, xml);
+        // first matching elements only, as in DOM mode
+        assertNull(desc.implementation);
+        assertEquals(Arrays.asList("a"), Arrays.asList(desc.services));
+    }
+
+    @Test
+    public void testParentMemberFromChildElement() throws Exception {
+        XMap xmap = new XMap();
+        xmap.register(ParentDescriptor.class);
+        // the title element follows the children, it is still set on the parent before they are mapped
+        String xml = "<parent><child name='a'/><children><child name='b'/><child name='c'/></children>" //
+                + "<title>The title</title></parent>";
+        Document document = XMap.getFactory().newDocumentBuilder().parse(toStream(xml));
+        ParentDescriptor expected = (ParentDescriptor) xmap.load(new Context(), document.getDocumentElement());
+        ParentDescriptor actual = (ParentDescriptor) load(xmap, xml);
+        assertEquals("The title", expected.child.parentTitle);
+        assertEquals("The title", actual.child.parentTitle);
+        assertEquals("The title", actual.children.get(1).parentTitle);
+        assertSameMapping("parent", expected, actual);
+    }
+
+    protected static InputStream toStream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected static Object load(XMap xmap, String xml) throws IOException {
+        return new XStreamingLoader(xmap).load(new Context(), toStream(xml));
+    }
+
+    protected static void assertSameMapping(String where, Object expected, Object actual) throws Exception {
+        assertSameMapping(where, expected, actual, new IdentityHashMap<Object, Object>());
+    }
+
+    /**
+     * Compares the mapped objects, the {@link XParent} members must reference the enclosing mapped objects.
+     *
+     * @param mapped the enclosing expected objects and their actual counterparts
+     */
+    protected static void assertSameMapping(String where, Object expected, Object actual, Map<Object, Object> mapped)
+            throws Exception {
+        if (expected == null || actual == null) {
+            assertEquals(where, expected, actual);
+        } else if (expected instanceof Node) {
+            assertEquals(where, toCanonicalString((Node) expected), toCanonicalString((Node) actual));
+        } else if (expected instanceof Object[]) {
+            assertSameMapping(where, Arrays.asList((Object[]) expected), Arrays.asList((Object[]) actual), mapped);
+        } else if (expected instanceof double[]) {
+            assertTrue(where, Arrays.equals((double[]) expected, (double[]) actual));
+        } else if (expected instanceof List) {
+            List<?> e = (List<?>) expected;
+            List<?> a = (List<?>) actual;
+            assertEquals(where, e.size(), a.size());
+            for (int i = 0; i < e.size(); i++) {
+                assertSameMapping(where + '[' + i + ']', e.get(i), a.get(i), mapped);
+            }
+        } else if (expected instanceof Collection) {
+            assertEquals(where, expected, actual);
+        } else if (expected instanceof Map) {
+            Map<?, ?> e = (Map<?, ?>) expected;
+            Map<?, ?> a = (Map<?, ?>) actual;
+            assertEquals(where, e.keySet(), a.keySet());
+            for (Object key : e.keySet()) {
+                assertSameMapping(where + '[' + key + ']', e.get(key), a.get(key), mapped);
+            }
+        } else if (expected.getClass().isAnnotationPresent(XObject.class)) {
+            assertEquals(where, expected.getClass(), actual.getClass());
+            mapped.put(expected, actual);
+            for (Class<?> klass = expected.getClass(); klass != Object.class; klass = klass.getSuperclass()) {
+                for (Field field : klass.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    if (field.isAnnotationPresent(XParent.class)) {
+                        Object parent = field.get(expected);
+                        assertSame(where + '/' + field.getName(), parent == null ? null : mapped.get(parent),
+                                field.get(actual));
+                        continue;
+                    }
+                    assertSameMapping(where + '/' + field.getName(), field.get(expected), field.get(actual), mapped);
+                }
+            }
+            mapped.remove(expected);
+        } else {
+            assertEquals(where, expected, actual);
+        }
+    }
+
+    /**
+     * Serializes a node ignoring the namespace declarations, the attribute order and the way texts are split.
+     */
+    protected static String toCanonicalString(Node node) {
+        StringBuilder buf = new StringBuilder();
+        appendCanonical(node, buf);
+        return buf.toString();
+    }
+
+    protected static void appendCanonical(Node node, StringBuilder buf) {
+        switch (node.getNodeType()) {
+        case Node.ELEMENT_NODE:
+            buf.append('<').append(node.getNodeName());
+            NamedNodeMap attributes = node.getAttributes();
+            Map<String, String> sorted = new TreeMap<String, String>();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Node attr = attributes.item(i);
+                if (!attr.getNodeName().startsWith("xmlns")) {
+                    sorted.put(attr.getNodeName(), attr.getNodeValue());
+                }
+            }
+            for (Map.Entry<String, String> es : sorted.entrySet()) {
+                buf.append(' ').append(es.getKey()).append("=\"").append(es.getValue()).append('"');
+            }
+            buf.append('>');
+            appendChildren(node, buf);
+            buf.append("</").append(node.getNodeName()).append('>');
+            break;
+        case Node.TEXT_NODE:
+        case Node.CDATA_SECTION_NODE:
+            buf.append(node.getNodeValue());
+            break;
+        case Node.COMMENT_NODE:
+            buf.append("<!--").append(node.getNodeValue()).append("-->");
+            break;
+        default:
+            appendChildren(node, buf);
+            break;
+        }
+    }
+
+    protected static void appendChildren(Node node, StringBuilder buf) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            appendCanonical(child, buf);
+        }
+    }
+
+}
@@ -214,10 +214,22 @@ public interface CoreSession extends AutoCloseable {
     /**
      * Gets a list of documents given their references.
      * <p>
-     * Documents that are not accessible are skipped.
+     * Documents that do not exist are skipped.
+     *
+     * @throws DocumentSecurityException if one of the documents cannot be read
      */
     DocumentModelList getDocuments(DocumentRef[] docRefs) throws ClientException;
 
+    /**
+     * Gets a list of documents given their references, in the same order.
+     * <p>
+     * Documents that do not exist or that cannot be read are skipped, for instance when the references come from an
+     * index that may be stale.
+     *
+     * @since 7.3
+     */
+    DocumentModelList getReadableDocuments(DocumentRef[] docRefs) throws ClientException;
+
     /**
      * Gets a child document given its name and the parent reference.
      * <p>
@@ -790,6 +802,19 @@ public interface CoreSession extends AutoCloseable {
      */
     DataModel getDataModel(DocumentRef docRef, Schema schema) throws ClientException;
 
+    /**
+     * Retrieves the data models of a schema for several documents, fetching them together from the storage.
+     * <p>
+     * For INTERNAL use by the core.
+     *
+     * @param docRefs the document references
+     * @param schema the schema
+     * @return the data models in the same order as the given docRefs, with elements being {@code null} for the
+     *         documents that are missing or not readable
+     * @since 7.3
+     */
+    DataModel[] getDataModels(DocumentRef[] docRefs, Schema schema) throws ClientException;
+
     // -------- Versioning API ---------------
 
     /**
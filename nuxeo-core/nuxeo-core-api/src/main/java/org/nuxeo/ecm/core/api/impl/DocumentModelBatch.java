@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.api.impl;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.nuxeo.ecm.core.api.ClientException;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DataModel;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.schema.types.Schema;
+
+/**
+ * The documents of a list, whose schemas are loaded together: when a schema is first accessed on one of them, it is
+ * fetched for all the documents of the list that don't have it yet.
+ * <p>
+ * The documents are weakly referenced, so that keeping one of them doesn't keep the whole list.
+ *
+ * @since 7.3
+ */
+public class DocumentModelBatch {
+
+    protected final List<WeakReference<DocumentModelImpl>> docs;
+
+    protected DocumentModelBatch(List<DocumentModelImpl> docs) {
+        this.docs = new ArrayList<WeakReference<DocumentModelImpl>>(docs.size());
+        for (DocumentModelImpl doc : docs) {
+            this.docs.add(new WeakReference<DocumentModelImpl>(doc));
+        }
+    }
+
+    /**
+     * Makes the given documents load their schemas together.
+     */
+    public static void attach(List<DocumentModel> docs) {
+        List<DocumentModelImpl> impls = new ArrayList<DocumentModelImpl>(docs.size());
+        for (DocumentModel doc : docs) {
+            if (doc instanceof DocumentModelImpl) {
+                impls.add((DocumentModelImpl) doc);
+            }
+        }
+        if (impls.size() < 2) {
+            return;
+        }
+        DocumentModelBatch batch = new DocumentModelBatch(impls);
+        for (DocumentModelImpl doc : impls) {
+            doc.batch = batch;
+        }
+    }
+
+    /**
+     * Loads a schema for the given document and for the other documents of the batch that are bound to the same
+     * session and don't have it loaded yet.
+     *
+     * @return the data model of the given document, or {@code null} if it has to be loaded on its own
+     */
+    protected DataModel load(DocumentModelImpl doc, CoreSession session, Schema schema) throws ClientException {
+        String schemaName = schema.getName();
+        List<DocumentModelImpl> toLoad = new ArrayList<DocumentModelImpl>();
+        boolean found = false;
+        for (WeakReference<DocumentModelImpl> reference : docs) {
+            DocumentModelImpl other = reference.get();
+            if (other != null && other.canLoadInBatch(doc.sid, schemaName)) {
+                toLoad.add(other);
+                found = found || other == doc;
+            }
+        }
+        if (!found || toLoad.size() < 2) {
+            return null;
+        }
+        DocumentRef[] refs = new DocumentRef[toLoad.size()];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = toLoad.get(i).ref;
+        }
+        DataModel[] dataModels = session.getDataModels(refs, schema);
+        DataModel dataModel = null;
+        for (int i = 0; i < dataModels.length; i++) {
+            if (dataModels[i] == null) {
+                // missing or not readable, left to the document
+                continue;
+            }
+            DocumentModelImpl other = toLoad.get(i);
+            other.addDataModel(dataModels[i]);
+            if (other == doc) {
+                dataModel = dataModels[i];
+            }
+        }
+        return dataModel;
+    }
+
+}
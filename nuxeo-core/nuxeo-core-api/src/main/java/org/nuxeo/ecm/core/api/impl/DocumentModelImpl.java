@@ -174,6 +174,9 @@ public class DocumentModelImpl implements DocumentModel, Cloneable {
     // the adapters registered for this document - only valid on client
     protected transient ArrayMap<Class<?>, Object> adapters;
 
+    // the documents of the list this document was read with, to load schemas together
+    protected transient DocumentModelBatch batch;
+
     /**
      * Flags: bitwise combination of {@link #F_VERSION}, {@link #F_PROXY}, {@link #F_IMMUTABLE}.
      */
@@ -474,6 +477,12 @@ public class DocumentModelImpl implements DocumentModel, Cloneable {
         DataModel dataModel = new RunWithCoreSession<DataModel>() {
             @Override
             public DataModel run() throws ClientException {
+                if (batch != null) {
+                    DataModel loaded = batch.load(DocumentModelImpl.this, session, schemaType);
+                    if (loaded != null) {
+                        return loaded;
+                    }
+                }
                 return session.getDataModel(ref, schemaType);
             }
         }.execute();
@@ -481,6 +490,16 @@ public class DocumentModelImpl implements DocumentModel, Cloneable {
         return dataModel;
     }
 
+    /**
+     * Checks if the given schema can be loaded from the storage together with the other documents of a batch.
+     *
+     * @since 7.3
+     */
+    protected boolean canLoadInBatch(String sid, String schema) {
+        return sid != null && sid.equals(this.sid) && ref != null && schemas.contains(schema)
+                && schemasOrig.contains(schema) && !isSchemaLoaded(schema);
+    }
+
     @Override
     public DataModel getDataModel(String schema) throws ClientException {
         DataModel dataModel = dataModels.get(schema);
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.api.model.impl;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.nuxeo.ecm.core.api.model.Property;
+import org.nuxeo.ecm.core.api.model.PropertyException;
+import org.nuxeo.ecm.core.schema.types.Field;
+import org.nuxeo.ecm.core.schema.types.Schema;
+
+/**
+ * A document part keeping the values read from the storage in an array indexed by field position, and creating the
+ * child properties only when they are accessed.
+ * <p>
+ * Values are stored as accepted by {@link Property#init}: scalars, arrays, maps for complex properties and lists of
+ * maps for complex lists. Once a child property is created, it holds the value and the array slot is released.
+ *
+ * @since 7.3
+ */
+public class CompactDocumentPartImpl extends DocumentPartImpl {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Field positions by schema name, rebuilt when the schema changes. */
+    protected static final Map<String, Layout> LAYOUTS = new ConcurrentHashMap<String, Layout>();
+
+    protected transient Layout layout;
+
+    /** Values not yet materialized as child properties, null until read. */
+    protected Serializable[] values;
+
+    public CompactDocumentPartImpl(Schema schema) {
+        super(schema);
+    }
+
+    /**
+     * The position of the fields of a schema.
+     */
+    protected static class Layout {
+
+        protected final Schema schema;
+
+        protected final Map<String, Integer> positions;
+
+        protected Layout(Schema schema) {
+            this.schema = schema;
+            Collection<Field> fields = schema.getFields();
+            positions = new HashMap<String, Integer>(fields.size() * 2);
+            for (Field field : fields) {
+                positions.put(field.getName().getPrefixedName(), Integer.valueOf(positions.size()));
+            }
+        }
+
+        protected int getPosition(Field field) {
+            Integer position = positions.get(field.getName().getPrefixedName());
+            return position == null ? -1 : position.intValue();
+        }
+
+    }
+
+    protected Layout getLayout() {
+        if (layout == null) {
+            Layout l = LAYOUTS.get(schema.getName());
+            if (l == null || l.schema != schema) {
+                l = new Layout(schema);
+                LAYOUTS.put(schema.getName(), l);
+            }
+            layout = l;
+        }
+        return layout;
+    }
+
+    /**
+     * Initializes the value of a field, as read from the storage. The child property is created when accessed.
+     */
+    public void initValue(Field field, Serializable value) {
+        Layout l = getLayout();
+        int i = l.getPosition(field);
+        if (i == -1) {
+            throw new IllegalArgumentException("No field " + field.getName() + " in schema " + getName());
+        }
+        if (values == null) {
+            values = new Serializable[l.positions.size()];
+        }
+        values[i] = value;
+    }
+
+    /**
+     * Checks whether the part has child properties not yet created.
+     */
+    public boolean hasPendingValues() {
+        if (values != null) {
+            for (Serializable value : values) {
+                if (value != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected Property internalGetChild(Field field) {
+        if (values == null) {
+            return null;
+        }
+        int i = getLayout().getPosition(field);
+        if (i == -1) {
+            return null;
+        }
+        Serializable value = values[i];
+        boolean complex = field.getType().isComplexType();
+        if (value == null && !complex) {
+            return null;
+        }
+        values[i] = null;
+        Property property = createProperty(this, field, IS_PHANTOM);
+        property.init(value);
+        if (complex) {
+            // complex properties read from the storage are never phantoms
+            ((AbstractProperty) property).removePhantomFlag();
+        }
+        return property;
+    }
+
+    /**
+     * Creates all the child properties, for the operations that work on the cached ones.
+     */
+    protected void materialize() {
+        if (values != null && children.size() < getType().getFieldsCount()) {
+            getNonPhantomChildren();
+        }
+    }
+
+    @Override
+    public void setValue(Object value) throws PropertyException {
+        materialize();
+        super.setValue(value);
+    }
+
+    @Override
+    public Set<Entry<String, Property>> entrySet() {
+        materialize();
+        return super.entrySet();
+    }
+
+    @Override
+    public Property get(Object key) {
+        materialize();
+        return super.get(key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        materialize();
+        return super.isEmpty();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        materialize();
+        return super.keySet();
+    }
+
+    @Override
+    public Collection<Property> values() {
+        materialize();
+        return super.values();
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        CompactDocumentPartImpl clone = (CompactDocumentPartImpl) super.clone();
+        if (values != null) {
+            clone.values = values.clone();
+        }
+        return clone;
+    }
+
+    @Override
+    public String toString() {
+        materialize();
+        return super.toString();
+    }
+
+}
@@ -33,6 +33,7 @@ import org.nuxeo.ecm.core.api.model.Property;
 import org.nuxeo.ecm.core.api.model.impl.ArrayProperty;
 import org.nuxeo.ecm.core.api.validation.ConstraintViolation.PathNode;
 import org.nuxeo.ecm.core.schema.DocumentType;
+import org.nuxeo.ecm.core.schema.FieldPath;
 import org.nuxeo.ecm.core.schema.SchemaManager;
 import org.nuxeo.ecm.core.schema.types.ComplexType;
 import org.nuxeo.ecm.core.schema.types.Field;
@@ -155,7 +156,8 @@ public class DocumentValidationServiceImpl extends DefaultComponent implements D
     @Override
     public DocumentValidationReport validate(String xpath, Object value) throws IllegalArgumentException {
         SchemaManager tm = Framework.getService(SchemaManager.class);
-        Field field = tm.getField(xpath);
+        // compiled so that the xpaths of all the items of a list share one cache entry
+        Field field = tm.getField(FieldPath.compile(xpath));
         if (field == null) {
             throw new IllegalArgumentException("Invalid xpath " + xpath);
         }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.api.model.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.ecm.core.api.model.DocumentPart;
+import org.nuxeo.ecm.core.api.model.Property;
+import org.nuxeo.ecm.core.schema.SchemaManager;
+import org.nuxeo.ecm.core.schema.types.Field;
+import org.nuxeo.ecm.core.schema.types.Schema;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.test.NXRuntimeTestCase;
+
+public class TestCompactDocumentPart extends NXRuntimeTestCase {
+
+    protected Schema schema;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        deployBundle("org.nuxeo.ecm.core.schema");
+        deployContrib("org.nuxeo.ecm.core.api.tests", "OSGI-INF/test-propmodel-types-contrib.xml");
+        schema = Framework.getService(SchemaManager.class).getSchema("test");
+    }
+
+    protected static HashMap<String, Serializable> getStoredValues(int i) {
+        HashMap<String, Serializable> name = new HashMap<String, Serializable>();
+        name.put("firstName", "John" + i);
+        name.put("lastName", "Doe");
+        HashMap<String, Serializable> author = new HashMap<String, Serializable>();
+        author.put("name", name);
+        author.put("age", Long.valueOf(40));
+        HashMap<String, Serializable> values = new HashMap<String, Serializable>();
+        values.put("book:title", "Title " + i);
+        values.put("book:authors", new ArrayList<Serializable>(Arrays.asList(author)));
+        values.put("book:keywords", new String[] { "a", "b" });
+        // read from the storage with no value
+        values.put("book:file", new HashMap<String, Serializable>());
+        return values;
+    }
+
+    /**
+     * Reads values as the storage does, see TestSQLRepositoryCompactParts for reads from a repository.
+     */
+    protected static void read(DocumentPart part, HashMap<String, Serializable> values) {
+        if (part instanceof CompactDocumentPartImpl) {
+            for (Field field : part.getType().getFields()) {
+                ((CompactDocumentPartImpl) part).initValue(field, values.get(field.getName().getPrefixedName()));
+            }
+        } else {
+            for (Property property : part) {
+                Serializable value = values.get(property.getName());
+                property.init(value);
+                if (property.isComplex() && !property.isList()) {
+                    ((ComplexProperty) property).removePhantomFlag();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLazyChildren() throws Exception {
+        CompactDocumentPartImpl part = new CompactDocumentPartImpl(schema);
+        read(part, getStoredValues(0));
+        assertTrue(part.hasPendingValues());
+        assertEquals(0, part.children.size());
+
+        assertEquals("Title 0", part.getValue("book:title"));
+        assertEquals(1, part.children.size());
+        assertEquals("John0", part.getValue("book:authors/0/name/firstName"));
+        assertEquals(2, part.children.size());
+        // not stored
+        assertNull(part.getValue("book:creationDate"));
+        assertTrue(part.get("book:creationDate").isPhantom());
+        // complex properties are never phantoms once read
+        assertFalse(part.get("book:file").isPhantom());
+        assertFalse(part.isDirty());
+    }
+
+    @Test
+    public void testSameValues() throws Exception {
+        DocumentPartImpl expected = new DocumentPartImpl(schema);
+        read(expected, getStoredValues(1));
+        CompactDocumentPartImpl part = new CompactDocumentPartImpl(schema);
+        read(part, getStoredValues(1));
+
+        assertEquals(expected.getValue("book:title"), part.getValue("book:title"));
+        assertEquals(expected.getValue("book:authors"), part.getValue("book:authors"));
+        assertEquals(expected.getValue("book:file"), part.getValue("book:file"));
+        assertEquals(expected.getValue("book:price"), part.getValue("book:price"));
+        assertTrue(Arrays.equals((Object[]) expected.getValue("book:keywords"),
+                (Object[]) part.getValue("book:keywords")));
+        assertEquals(expected.getNonPhantomChildren().size(), part.getNonPhantomChildren().size());
+        assertFalse(part.hasPendingValues());
+        assertEquals(schema.getFieldsCount(), part.keySet().size());
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        CompactDocumentPartImpl part = new CompactDocumentPartImpl(schema);
+        read(part, getStoredValues(2));
+        part.setValue("book:title", "New title");
+        assertTrue(part.isDirty());
+        Iterator<Property> it = part.getDirtyChildren();
+        assertTrue(it.hasNext());
+        assertEquals("book:title", it.next().getName());
+        assertFalse(it.hasNext());
+
+        // removing the part removes the values not yet created
+        part.clearDirtyFlags();
+        part.setValue(null);
+        assertNull(part.getValue("book:title"));
+        assertTrue(part.get("book:authors").isRemoved());
+    }
+
+    /**
+     * Compares the memory retained by the parts of a page of documents once a column is read from each: the compact
+     * parts only create the accessed property.
+     */
+    @Test
+    public void testMemory() throws Exception {
+        int count = 1000;
+        long standard = measure(count, false);
+        long compact = measure(count, true);
+        assertTrue(String.format("compact parts retain %d bytes, standard parts %d bytes", compact, standard),
+                compact < standard);
+    }
+
+    protected long measure(int count, boolean compact) {
+        List<DocumentPart> parts = new ArrayList<DocumentPart>(count);
+        long before = usedMemory();
+        for (int i = 0; i < count; i++) {
+            DocumentPart part = compact ? new CompactDocumentPartImpl(schema) : new DocumentPartImpl(schema);
+            read(part, getStoredValues(i));
+            part.getValue("book:title");
+            parts.add(part);
+        }
+        long used = usedMemory() - before;
+        assertEquals(count, parts.size());
+        for (DocumentPart part : parts) {
+            // only the accessed property is created
+            assertEquals(compact ? 1 : schema.getFieldsCount(), ((ComplexProperty) part).children.size());
+        }
+        return used;
+    }
+
+    protected static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -25,6 +25,17 @@ import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
  */
 public interface ConversionService {
 
+    /**
+     * Conversion parameter holding the maximum number of characters a text extraction converter should produce.
+     * <p>
+     * Converters supporting it stop extracting once the limit is reached, which bounds the memory and time used for
+     * very large source documents. The parameter is not part of the conversion cache key: truncated results are not
+     * cached, and a cached complete result may be returned, so callers still have to bound what they read.
+     *
+     * @since 7.3
+     */
+    String MAX_TEXT_LENGTH = "maxTextLength";
+
     /**
      * Gets the convertName given a source and destination MimeType.
      */
@@ -22,6 +22,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.inject.Inject;
 
 import org.junit.Ignore;
@@ -91,6 +95,20 @@ public class TestConverters extends SimpleConverterTest {
         assertTrue(textContent.contains("d\u00e9j\u00e0"));
     }
 
+    @Test
+    public void testOOWriterConverterWithMaxTextLength() throws Exception {
+        BlobHolder holder = getBlobFromPath("test-docs/hello.odt");
+        Map<String, Serializable> parameters = new HashMap<>();
+        parameters.put(ConversionService.MAX_TEXT_LENGTH, Long.valueOf(20));
+        String truncated = cs.convert("oo2text", holder, parameters).getBlob().getString();
+        assertEquals(20, truncated.length());
+
+        // the truncated text was not cached as the complete conversion
+        String textContent = cs.convert("oo2text", holder, null).getBlob().getString();
+        assertTrue(textContent.length() > 20);
+        assertEquals(textContent.substring(0, 20), truncated);
+    }
+
     @Test
     public void testOOWriterArabicConverter() throws Exception {
         doTestArabicTextConverter("application/vnd.oasis.opendocument.text", "oo2text", "wikipedia-internet-ar.odt");
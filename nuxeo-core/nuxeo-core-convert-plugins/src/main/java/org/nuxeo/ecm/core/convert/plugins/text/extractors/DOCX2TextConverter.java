@@ -34,15 +34,26 @@ public class DOCX2TextConverter extends XmlZip2TextConverter {
 
     private static final String WORD_DOCUMENT_ZIP_ENTRY_NAME = "word/document.xml";
 
+    @Override
     protected void readXmlZipContent(ZipInputStream zis, XMLReader reader, StringBuilder sb) throws IOException,
             SAXException {
+        readXmlZipContent(zis, reader, sb, -1);
+    }
+
+    @Override
+    protected void readXmlZipContent(ZipInputStream zis, XMLReader reader, StringBuilder sb, long maxLength)
+            throws IOException, SAXException {
 
         ZipEntry zipEntry = zis.getNextEntry();
         while (zipEntry != null) {
             if (WORD_DOCUMENT_ZIP_ENTRY_NAME.equals(zipEntry.getName())) {
-                OpenXmlContentHandler contentHandler = new OpenXmlContentHandler();
+                OpenXmlContentHandler contentHandler = new OpenXmlContentHandler(maxLength);
                 reader.setContentHandler(contentHandler);
-                reader.parse(new InputSource(zis));
+                try {
+                    reader.parse(new InputSource(zis));
+                } catch (TextLimitReachedException e) {
+                    // keep the text read so far
+                }
                 sb.append(contentHandler.getContent());
                 break;
             }
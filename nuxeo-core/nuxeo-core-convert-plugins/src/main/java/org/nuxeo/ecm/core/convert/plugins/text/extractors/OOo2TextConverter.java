@@ -33,15 +33,26 @@ public class OOo2TextConverter extends XmlZip2TextConverter {
 
     private static final String CONTENT_ZIP_ENTRY_NAME = "content.xml";
 
+    @Override
     protected void readXmlZipContent(ZipInputStream zis, XMLReader reader, StringBuilder sb) throws IOException,
             SAXException {
+        readXmlZipContent(zis, reader, sb, -1);
+    }
+
+    @Override
+    protected void readXmlZipContent(ZipInputStream zis, XMLReader reader, StringBuilder sb, long maxLength)
+            throws IOException, SAXException {
 
         ZipEntry zipEntry = zis.getNextEntry();
         while (zipEntry != null) {
             if (CONTENT_ZIP_ENTRY_NAME.equals(zipEntry.getName())) {
-                OOoXmlContentHandler contentHandler = new OOoXmlContentHandler();
+                OOoXmlContentHandler contentHandler = new OOoXmlContentHandler(maxLength);
                 reader.setContentHandler(contentHandler);
-                reader.parse(new InputSource(zis));
+                try {
+                    reader.parse(new InputSource(zis));
+                } catch (TextLimitReachedException e) {
+                    // keep the text read so far
+                }
                 sb.append(contentHandler.getContent());
                 break;
             }
@@ -39,6 +39,20 @@ public class OOoXmlContentHandler extends DefaultHandler {
 
     protected boolean isSpreadSheet = false;
 
+    protected final long maxLength;
+
+    public OOoXmlContentHandler() {
+        this(-1);
+    }
+
+    /**
+     * @param maxLength the maximum number of characters to read, or -1 for no limit
+     * @since 7.3
+     */
+    public OOoXmlContentHandler(long maxLength) {
+        this.maxLength = maxLength;
+    }
+
     public String getContent() {
         return sb.toString();
     }
@@ -60,7 +74,7 @@ public class OOoXmlContentHandler extends DefaultHandler {
         // If the heading's outline level is > 1 (not the document title), add
         // an extra new line.
         if (qName.equals("text:h")) {
-            sb.append("\n");
+            append("\n");
             String outlineLevelAtt = atts.getValue("text:outline-level");
             if (!StringUtils.isEmpty(outlineLevelAtt)) {
                 int outlineLevel = -1;
@@ -70,18 +84,18 @@ public class OOoXmlContentHandler extends DefaultHandler {
                     log.warn("Attribute 'text:outline-level' on element 'text:h' has a non integer value.");
                 }
                 if (outlineLevel > 1) {
-                    sb.append("\n");
+                    append("\n");
                 }
             }
         }
         // Paragraph: add a new line
         if (!isSpreadSheet && qName.equals("text:p")) {
-            sb.append("\n");
+            append("\n");
         }
 
         // Page (Impress only): add a new line if not the first one
         if (qName.equals("draw:page") && !"page1".equals(atts.getValue("draw:name"))) {
-            sb.append("\n");
+            append("\n");
         }
     }
 
@@ -89,7 +103,7 @@ public class OOoXmlContentHandler extends DefaultHandler {
     public void characters(char[] ch, int start, int length) throws SAXException {
         if (dumpText) {
             String content = String.valueOf(ch, start, length);
-            sb.append(content);
+            append(content);
         }
     }
 
@@ -105,19 +119,32 @@ public class OOoXmlContentHandler extends DefaultHandler {
 
             // End of table row: add a blank line
             if (qName.equals("table:table-row")) {
-                sb.append("\n\n");
+                append("\n\n");
             }
 
             // End of table cell: add a separator
             if (qName.equals("table:table-cell")) {
-                sb.append(" ");
+                append(" ");
             }
 
             // End of paragraph: add a white space
             if (qName.equals("text:p")) {
-                sb.append(" ");
+                append(" ");
             }
         }
     }
 
+    /**
+     * Appends some text, stopping the parsing once the maximum length is reached.
+     *
+     * @since 7.3
+     */
+    protected void append(String text) throws SAXException {
+        sb.append(text);
+        if (maxLength >= 0 && sb.length() >= maxLength) {
+            sb.setLength((int) maxLength);
+            throw new XmlZip2TextConverter.TextLimitReachedException(maxLength);
+        }
+    }
+
 }
@@ -32,6 +32,20 @@ public class OpenXmlContentHandler extends DefaultHandler {
 
     protected boolean dumpText = false;
 
+    protected final long maxLength;
+
+    public OpenXmlContentHandler() {
+        this(-1);
+    }
+
+    /**
+     * @param maxLength the maximum number of characters to read, or -1 for no limit
+     * @since 7.3
+     */
+    public OpenXmlContentHandler(long maxLength) {
+        this.maxLength = maxLength;
+    }
+
     public String getContent() {
         return sb.toString();
     }
@@ -47,12 +61,12 @@ public class OpenXmlContentHandler extends DefaultHandler {
         // but not the document title), add a new line.
         if (qName.equals("w:pStyle") && !"style0".equals(atts.getValue("w:val"))
                 && !"style1".equals(atts.getValue("w:val"))) {
-            sb.append("\n");
+            append("\n");
 
         }
         // Paragraph: add a new line
         if (qName.equals("w:p") || qName.equals("a:p")) {
-            sb.append("\n");
+            append("\n");
         }
     }
 
@@ -60,7 +74,7 @@ public class OpenXmlContentHandler extends DefaultHandler {
     public void characters(char[] ch, int start, int length) throws SAXException {
         if (dumpText) {
             String content = String.valueOf(ch, start, length);
-            sb.append(content);
+            append(content);
         }
     }
 
@@ -72,4 +86,17 @@ public class OpenXmlContentHandler extends DefaultHandler {
         }
     }
 
+    /**
+     * Appends some text, stopping the parsing once the maximum length is reached.
+     *
+     * @since 7.3
+     */
+    protected void append(String text) throws SAXException {
+        sb.append(text);
+        if (maxLength >= 0 && sb.length() >= maxLength) {
+            sb.setLength((int) maxLength);
+            throw new XmlZip2TextConverter.TextLimitReachedException(maxLength);
+        }
+    }
+
 }
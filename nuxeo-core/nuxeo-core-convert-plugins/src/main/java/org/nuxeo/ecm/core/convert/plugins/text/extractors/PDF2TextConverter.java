@@ -17,12 +17,15 @@
  */
 package org.nuxeo.ecm.core.convert.plugins.text.extractors;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Serializable;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.util.HashSet;
 import java.util.List;
@@ -38,6 +41,8 @@ import org.apache.pdfbox.util.PDFOperator;
 import org.apache.pdfbox.util.PDFStreamEngine;
 import org.apache.pdfbox.util.PDFTextStripper;
 import org.apache.pdfbox.util.operator.OperatorProcessor;
+import org.nuxeo.common.utils.BoundedWriter;
+import org.nuxeo.common.utils.BoundedWriter.LimitReachedException;
 import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.Blobs;
 import org.nuxeo.ecm.core.api.ClientException;
@@ -46,6 +51,7 @@ import org.nuxeo.ecm.core.convert.api.ConversionException;
 import org.nuxeo.ecm.core.convert.cache.SimpleCachableBlobHolder;
 import org.nuxeo.ecm.core.convert.extension.Converter;
 import org.nuxeo.ecm.core.convert.extension.ConverterDescriptor;
+import org.nuxeo.ecm.core.convert.service.ConversionParametersHelper;
 
 public class PDF2TextConverter implements Converter {
 
@@ -117,7 +123,7 @@ public class PDF2TextConverter implements Converter {
 
         PDDocument document = null;
         File f = null;
-        OutputStream fas = null;
+        Writer writer = null;
         try {
             document = PDDocument.load(blobHolder.getBlob().getStream());
             // NXP-1556: if document is protected an IOException will be raised
@@ -135,12 +141,18 @@ public class PDF2TextConverter implements Converter {
                 // right-to-left languages.
                 textStripper.setSortByPosition(true);
 
-                String text = textStripper.getText(document);
-                // replace non breaking space by regular spaces (why?)
-                // text = text.replace("\u00a0", " ");
+                // stream the text directly to a file instead of building it in memory,
+                // stopping early if the caller asked for a bounded extraction
                 f = File.createTempFile("pdfboplugin", ".txt");
-                fas = new FileOutputStream(f);
-                fas.write(text.getBytes("UTF-8"));
+                writer = new BoundedWriter(new OutputStreamWriter(new FileOutputStream(f), UTF_8),
+                        ConversionParametersHelper.getMaxTextLength(parameters), true);
+                try {
+                    textStripper.writeText(document, writer);
+                } catch (LimitReachedException e) {
+                    log.debug("Truncated text extraction of PDF: " + e.getMessage());
+                }
+                writer.close();
+                writer = null;
                 try (FileInputStream is = new FileInputStream(f)) {
                     Blob blob = Blobs.createBlob(is, "text/plain", "UTF-8");
                     return new SimpleCachableBlobHolder(blob);
@@ -158,9 +170,9 @@ public class PDF2TextConverter implements Converter {
                     log.error("Error while closing PDFBox document", e);
                 }
             }
-            if (fas != null) {
+            if (writer != null) {
                 try {
-                    fas.close();
+                    writer.close();
                 } catch (IOException e) {
                     log.error(e);
                 }
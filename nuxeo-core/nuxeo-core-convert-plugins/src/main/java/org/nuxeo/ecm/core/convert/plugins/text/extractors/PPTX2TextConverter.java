@@ -44,8 +44,15 @@ public class PPTX2TextConverter extends XmlZip2TextConverter {
 
     private static final String PRESENTATION_SLIDE_ZIP_ENTRY_NAME_PREFIX = "ppt/slides/slide";
 
+    @Override
     protected void readXmlZipContent(ZipInputStream zis, XMLReader reader, StringBuilder sb) throws IOException,
             SAXException {
+        readXmlZipContent(zis, reader, sb, -1);
+    }
+
+    @Override
+    protected void readXmlZipContent(ZipInputStream zis, XMLReader reader, StringBuilder sb, long maxLength)
+            throws IOException, SAXException {
 
         Set<PresentationSlide> slides = new TreeSet<PresentationSlide>();
 
@@ -62,9 +69,14 @@ public class PPTX2TextConverter extends XmlZip2TextConverter {
                     log.warn("Slide number is not an non integer, won't take this slide into account.");
                 }
                 if (slideNumber > -1) {
-                    OpenXmlContentHandler contentHandler = new OpenXmlContentHandler();
+                    // slides are not ordered in the zip, so each one may come first and is read up to the limit
+                    OpenXmlContentHandler contentHandler = new OpenXmlContentHandler(maxLength);
                     reader.setContentHandler(contentHandler);
-                    reader.parse(new InputSource(new ByteArrayInputStream(IOUtils.toByteArray(zis))));
+                    try {
+                        reader.parse(new InputSource(new ByteArrayInputStream(IOUtils.toByteArray(zis))));
+                    } catch (TextLimitReachedException e) {
+                        // keep the text read so far
+                    }
                     slides.add(new PresentationSlide(contentHandler.getContent(), slideNumber));
                 }
             }
@@ -72,7 +84,7 @@ public class PPTX2TextConverter extends XmlZip2TextConverter {
         }
         if (!slides.isEmpty()) {
             Iterator<PresentationSlide> slidesIt = slides.iterator();
-            while (slidesIt.hasNext()) {
+            while (slidesIt.hasNext() && (maxLength < 0 || sb.length() < maxLength)) {
                 PresentationSlide slide = slidesIt.next();
                 sb.append(slide.getContent());
                 sb.append("\n");
@@ -34,44 +34,105 @@ import org.nuxeo.ecm.core.convert.api.ConversionException;
 import org.nuxeo.ecm.core.convert.cache.SimpleCachableBlobHolder;
 import org.nuxeo.ecm.core.convert.extension.Converter;
 import org.nuxeo.ecm.core.convert.extension.ConverterDescriptor;
+import org.nuxeo.ecm.core.convert.service.ConversionParametersHelper;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * XML zip to text converter: parses the XML zip entries to read their content.
  */
 public abstract class XmlZip2TextConverter implements Converter {
 
-    public BlobHolder convert(BlobHolder blobHolder, Map<String, Serializable> parameters) throws ConversionException {
+    /**
+     * Thrown by the content handlers to stop parsing once the maximum text length is reached.
+     *
+     * @since 7.3
+     */
+    public static class TextLimitReachedException extends SAXException {
 
-        SAXParserFactory parserFactory = SAXParserFactory.newInstance();
-        parserFactory.setValidating(false);
+        private static final long serialVersionUID = 1L;
 
-        try {
-            SAXParser parser = parserFactory.newSAXParser();
-            XMLReader reader = parser.getXMLReader();
-            reader.setFeature("http://xml.org/sax/features/validation", false);
-            reader.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-            reader.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        public TextLimitReachedException(long maxLength) {
+            super("Text limit reached: " + maxLength);
+        }
+    }
+
+    protected static final DefaultHandler NULL_HANDLER = new DefaultHandler();
 
-            StringBuilder sb = new StringBuilder();
-            UnclosableZipInputStream zis = new UnclosableZipInputStream(blobHolder.getBlob().getStream());
-            // ZipInputStream zis = new ZipInputStream(
-            // blobHolder.getBlob().getStream());
+    // SAX readers are costly to create and not thread-safe, but can be reused for successive parses
+    protected static final ThreadLocal<XMLReader> xmlReaders = new ThreadLocal<XMLReader>();
+
+    public BlobHolder convert(BlobHolder blobHolder, Map<String, Serializable> parameters) throws ConversionException {
+        try {
+            XMLReader reader = getXMLReader();
+            boolean reusable = false;
             try {
-                readXmlZipContent(zis, reader, sb);
+                long maxTextLength = ConversionParametersHelper.getMaxTextLength(parameters);
+                StringBuilder sb = new StringBuilder();
+                UnclosableZipInputStream zis = new UnclosableZipInputStream(blobHolder.getBlob().getStream());
+                try {
+                    readXmlZipContent(zis, reader, sb, maxTextLength);
+                } finally {
+                    zis.doClose();
+                }
+                // subclasses not supporting the limit still return a bounded text
+                if (maxTextLength >= 0 && sb.length() > maxTextLength) {
+                    sb.setLength((int) maxTextLength);
+                }
+                reusable = true;
+                return new SimpleCachableBlobHolder(Blobs.createBlob(sb.toString()));
             } finally {
-                zis.doClose();
+                if (reusable) {
+                    // don't keep a reference to the extracted text
+                    reader.setContentHandler(NULL_HANDLER);
+                } else {
+                    // the reader state is unknown after a failed parse
+                    xmlReaders.remove();
+                }
             }
-            return new SimpleCachableBlobHolder(Blobs.createBlob(sb.toString()));
         } catch (ClientException | IOException | ParserConfigurationException | SAXException e) {
             throw new ConversionException("Error during OpenXml2Text conversion", e);
         }
     }
 
+    /**
+     * Gets a non validating SAX reader for the current thread.
+     *
+     * @since 7.3
+     */
+    protected static XMLReader getXMLReader() throws ParserConfigurationException, SAXException {
+        XMLReader reader = xmlReaders.get();
+        if (reader == null) {
+            SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+            parserFactory.setValidating(false);
+            SAXParser parser = parserFactory.newSAXParser();
+            reader = parser.getXMLReader();
+            reader.setFeature("http://xml.org/sax/features/validation", false);
+            reader.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            reader.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            xmlReaders.set(reader);
+        }
+        return reader;
+    }
+
     public void init(ConverterDescriptor descriptor) {
     }
 
     protected abstract void readXmlZipContent(ZipInputStream zis, XMLReader reader, StringBuilder sb)
             throws IOException, SAXException;
+
+    /**
+     * Reads the XML zip content, appending at most {@code maxLength} characters to the given builder.
+     * <p>
+     * The default implementation reads the full content, subclasses should override it to stop early.
+     *
+     * @param maxLength the maximum number of characters to read, or -1 for no limit
+     * @since 7.3
+     */
+    protected void readXmlZipContent(ZipInputStream zis, XMLReader reader, StringBuilder sb, long maxLength)
+            throws IOException, SAXException {
+        readXmlZipContent(zis, reader, sb);
+    }
+
 }
@@ -17,6 +17,7 @@ import java.util.Map;
 
 import org.nuxeo.ecm.core.api.ClientException;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
+import org.nuxeo.ecm.core.convert.api.ConversionService;
 
 /**
  * Simple helper to handle cache key generation.
@@ -43,6 +44,10 @@ public class CacheKeyGenerator {
 
         if (parameters != null) {
             for (String key : parameters.keySet()) {
+                if (ConversionService.MAX_TEXT_LENGTH.equals(key)) {
+                    // an extraction budget doesn't change the conversion itself, see ConversionServiceImpl#convert
+                    continue;
+                }
                 sb.append(":").append(key);
                 sb.append(":").append(String.valueOf(parameters.get(key)));
             }
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ *
+ */
+package org.nuxeo.ecm.core.convert.service;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.convert.api.ConversionService;
+
+/**
+ * Helper to read the well-known conversion parameters.
+ *
+ * @since 7.3
+ */
+public class ConversionParametersHelper {
+
+    private static final Log log = LogFactory.getLog(ConversionParametersHelper.class);
+
+    // Utility class.
+    private ConversionParametersHelper() {
+    }
+
+    /**
+     * Gets the maximum number of characters to extract from the conversion parameters, or -1 for no limit.
+     *
+     * @see ConversionService#MAX_TEXT_LENGTH
+     */
+    public static long getMaxTextLength(Map<String, Serializable> parameters) {
+        Serializable value = parameters == null ? null : parameters.get(ConversionService.MAX_TEXT_LENGTH);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value instanceof String) {
+            try {
+                return Long.parseLong((String) value);
+            } catch (NumberFormatException e) {
+                log.warn("Invalid " + ConversionService.MAX_TEXT_LENGTH + ": " + value);
+            }
+        }
+        return -1;
+    }
+
+}
@@ -189,7 +189,7 @@ public class ConversionServiceImpl extends DefaultComponent implements Conversio
             Converter converter = desc.getConverterInstance();
             result = converter.convert(blobHolder, parameters);
 
-            if (config.isCacheEnabled()) {
+            if (config.isCacheEnabled() && !isMaybeTruncated(result, parameters)) {
                 ConversionCacheHolder.addToCache(cacheKey, result);
             }
         }
@@ -202,6 +202,30 @@ public class ConversionServiceImpl extends DefaultComponent implements Conversio
         return result;
     }
 
+    /**
+     * Checks if a conversion result may have been cut by the {@link ConversionService#MAX_TEXT_LENGTH} budget, in
+     * which case it must not be cached as the complete result of the conversion.
+     *
+     * @since 7.3
+     */
+    protected boolean isMaybeTruncated(BlobHolder result, Map<String, Serializable> parameters) {
+        long maxTextLength = ConversionParametersHelper.getMaxTextLength(parameters);
+        if (maxTextLength < 0 || result == null) {
+            return false;
+        }
+        try {
+            Blob blob = result.getBlob();
+            if (blob == null) {
+                return false;
+            }
+            // the length is in bytes, never less than the number of characters of a truncated text
+            long length = blob.getLength();
+            return length < 0 || length >= maxTextLength;
+        } catch (ClientException e) {
+            return true;
+        }
+    }
+
     protected void updateResultBlobMimeType(BlobHolder resultBh, ConverterDescriptor desc) {
         Blob mainBlob = resultBh.getBlob();
         String mimeType = mainBlob.getMimeType();
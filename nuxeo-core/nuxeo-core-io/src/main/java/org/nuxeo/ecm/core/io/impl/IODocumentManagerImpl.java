@@ -38,6 +38,7 @@ import org.nuxeo.ecm.core.io.impl.plugins.DocumentTreeReader;
 import org.nuxeo.ecm.core.io.impl.plugins.DocumentsListReader;
 import org.nuxeo.ecm.core.io.impl.plugins.NuxeoArchiveReader;
 import org.nuxeo.ecm.core.io.impl.plugins.NuxeoArchiveWriter;
+import org.nuxeo.runtime.api.Framework;
 
 /**
  * IODocumentManager basic implementation.
@@ -48,6 +49,17 @@ public class IODocumentManagerImpl implements IODocumentManager {
 
     private static final long serialVersionUID = -3131999198524020179L;
 
+    /**
+     * Property enabling the export to archives through a {@link ParallelDocumentPipeImpl}, so that the next documents
+     * are read while the previous ones are written to the archive.
+     * <p>
+     * Imports are not affected: they write through the session and transaction of a single {@link DocumentModelWriter},
+     * which cannot be shared by several writer threads.
+     *
+     * @since 7.3
+     */
+    public static final String PARALLEL_EXPORT_PROPERTY = "org.nuxeo.ecm.core.io.export.parallel";
+
     @Override
     public DocumentTranslationMap importDocuments(InputStream in, String repo, DocumentRef root)
             throws ImportDocumentException, ClientException {
@@ -108,7 +120,7 @@ public class IODocumentManagerImpl implements IODocumentManager {
         DocumentReader reader = null;
         DocumentWriter writer = null;
         try (CoreSession coreSession = CoreInstance.openCoreSessionSystem(repo)) {
-            DocumentPipe pipe = new DocumentPipeImpl(10);
+            DocumentPipe pipe = createExportPipe();
             // XXX check format before creating writer
             writer = new NuxeoArchiveWriter(out);
             pipe.setWriter(writer);
@@ -148,7 +160,7 @@ public class IODocumentManagerImpl implements IODocumentManager {
         DocumentWriter writer = null;
 
         try {
-            DocumentPipe pipe = new DocumentPipeImpl(10);
+            DocumentPipe pipe = createExportPipe();
             // XXX check format before creating writer
             writer = new NuxeoArchiveWriter(out);
             pipe.setWriter(writer);
@@ -191,4 +203,19 @@ public class IODocumentManagerImpl implements IODocumentManager {
         }
     }
 
+    /**
+     * Creates the pipe used to export documents to an archive.
+     * <p>
+     * The parallel pipe reads the documents on the calling thread and writes the archive on a single writer thread,
+     * which only works because the archive writer does not use the session of the reader.
+     *
+     * @since 7.3
+     */
+    protected DocumentPipe createExportPipe() {
+        if (Framework.isBooleanPropertyTrue(PARALLEL_EXPORT_PROPERTY)) {
+            return new ParallelDocumentPipeImpl(10, 1, 1, 4, false);
+        }
+        return new DocumentPipeImpl(10);
+    }
+
 }
@@ -0,0 +1,405 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.io.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.common.utils.Path;
+import org.nuxeo.ecm.core.io.DocumentReader;
+import org.nuxeo.ecm.core.io.DocumentTranslationMap;
+import org.nuxeo.ecm.core.io.DocumentWriter;
+import org.nuxeo.ecm.core.io.DocumentWriterFactory;
+import org.nuxeo.ecm.core.io.ExportedDocument;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * Document pipe running its stages concurrently.
+ * <p>
+ * Documents are read in batches by the calling thread, transformed by a pool of transformer threads, and written by a
+ * configurable number of writer threads. Stages are connected through bounded queues so that a slow writer applies
+ * backpressure to the reader.
+ * <p>
+ * Batches reach the writers in reading order, and a batch is written only once the batches holding the parents of its
+ * documents have been written (and committed, in transactional mode), so that parent-before-child ordering is kept
+ * even with several writers.
+ * <p>
+ * With more than one writer thread, a {@link DocumentWriterFactory} must be set so that each writer thread gets its
+ * own {@link DocumentWriter}. Transformers are shared by the transformer threads and must therefore be thread-safe.
+ *
+ * @since 7.3
+ */
+public class ParallelDocumentPipeImpl extends DocumentPipeImpl {
+
+    private static final Log log = LogFactory.getLog(ParallelDocumentPipeImpl.class);
+
+    /** Marks the end of the batches for a writer thread. */
+    protected static final Batch END = new Batch(new ExportedDocument[0], Collections.<Batch> emptySet());
+
+    protected final int batchSize;
+
+    protected final int transformerThreads;
+
+    protected final int writerThreads;
+
+    protected final int queueSize;
+
+    protected final boolean transactional;
+
+    protected DocumentWriterFactory writerFactory;
+
+    protected Map<String, Object> writerFactoryParams;
+
+    protected final AtomicLong readCount = new AtomicLong();
+
+    protected final AtomicLong transformedCount = new AtomicLong();
+
+    protected final AtomicLong writtenCount = new AtomicLong();
+
+    protected final AtomicLong batchCount = new AtomicLong();
+
+    protected final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    protected final AtomicInteger activeWriters = new AtomicInteger();
+
+    /** Batches not yet written, by path of their documents. */
+    protected final Map<String, Batch> pendingByPath = new ConcurrentHashMap<>();
+
+    protected long startTime;
+
+    protected long endTime;
+
+    /**
+     * A batch of documents flowing through the pipe.
+     */
+    protected static class Batch {
+
+        protected final ExportedDocument[] docs;
+
+        /** Batches that must be written before this one. */
+        protected final Set<Batch> dependencies;
+
+        protected final CountDownLatch written = new CountDownLatch(1);
+
+        /** Completion of the transformation of the batch. */
+        protected Future<?> transformed;
+
+        protected Batch(ExportedDocument[] docs, Set<Batch> dependencies) {
+            this.docs = docs;
+            this.dependencies = dependencies;
+        }
+    }
+
+    /**
+     * Constructs a parallel pipe.
+     *
+     * @param batchSize the number of documents read, transformed and written (and committed) together
+     * @param transformerThreads the number of transformer threads
+     * @param writerThreads the number of writer threads
+     * @param queueSize the maximum number of batches waiting between stages
+     * @param transactional whether each written batch is done in its own transaction
+     */
+    public ParallelDocumentPipeImpl(int batchSize, int transformerThreads, int writerThreads, int queueSize,
+            boolean transactional) {
+        super(batchSize);
+        if (batchSize <= 0 || transformerThreads <= 0 || writerThreads <= 0 || queueSize <= 0) {
+            throw new IllegalArgumentException("Batch size, thread counts and queue size must be positive");
+        }
+        this.batchSize = batchSize;
+        this.transformerThreads = transformerThreads;
+        this.writerThreads = writerThreads;
+        this.queueSize = queueSize;
+        this.transactional = transactional;
+    }
+
+    /**
+     * Sets the factory used to create one {@link DocumentWriter} per writer thread.
+     */
+    public void setWriterFactory(DocumentWriterFactory writerFactory, Map<String, Object> params) {
+        this.writerFactory = writerFactory;
+        writerFactoryParams = params == null ? new HashMap<String, Object>() : params;
+    }
+
+    public long getReadCount() {
+        return readCount.get();
+    }
+
+    public long getTransformedCount() {
+        return transformedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Gets the number of documents written per second since the pipe was started.
+     */
+    public double getThroughput() {
+        long end = endTime == 0 ? System.currentTimeMillis() : endTime;
+        long elapsed = Math.max(1, end - startTime);
+        return writtenCount.get() * 1000.0 / elapsed;
+    }
+
+    @Override
+    public DocumentTranslationMap run() throws IOException {
+        if (getReader() == null) {
+            throw new IllegalArgumentException("Pipe reader cannot be null");
+        }
+        if (writerFactory == null) {
+            if (getWriter() == null) {
+                throw new IllegalArgumentException("Pipe writer cannot be null");
+            }
+            if (writerThreads > 1) {
+                throw new IllegalArgumentException("A writer factory is needed to use several writer threads");
+            }
+        }
+        List<DocumentTranslationMap> maps = Collections.synchronizedList(new ArrayList<DocumentTranslationMap>());
+        startTime = System.currentTimeMillis();
+        try {
+            readAndWriteDocs(maps);
+        } finally {
+            endTime = System.currentTimeMillis();
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Pipe done: %s docs read, %s written in %s batches, %.1f docs/s",
+                        readCount.get(), writtenCount.get(), batchCount.get(), getThroughput()));
+            }
+        }
+        Throwable t = error.get();
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        } else if (t != null) {
+            throw new IOException(t);
+        }
+        return DocumentTranslationMapImpl.merge(maps);
+    }
+
+    @Override
+    protected void readAndWriteDocs(List<DocumentTranslationMap> maps) throws IOException {
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueSize);
+        ExecutorService transformers = Executors.newFixedThreadPool(transformerThreads,
+                new NamedThreadFactory("Nuxeo-Pipe-Transformer-"));
+        ExecutorService writers = Executors.newFixedThreadPool(writerThreads,
+                new NamedThreadFactory("Nuxeo-Pipe-Writer-"));
+        try {
+            activeWriters.set(writerThreads);
+            for (int i = 0; i < writerThreads; i++) {
+                writers.execute(() -> writeLoop(queue, maps));
+            }
+            DocumentReader reader = getReader();
+            ExportedDocument[] docs;
+            while (error.get() == null && (docs = reader.read(batchSize)) != null) {
+                if (docs.length == 0) {
+                    continue;
+                }
+                readCount.addAndGet(docs.length);
+                Batch batch = newBatch(docs);
+                batch.transformed = transformers.submit(() -> transform(batch));
+                enqueue(queue, batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error.compareAndSet(null, e);
+        } catch (IOException | RuntimeException e) {
+            error.compareAndSet(null, e);
+        } finally {
+            try {
+                for (int i = 0; i < writerThreads; i++) {
+                    enqueue(queue, END);
+                }
+                transformers.shutdown();
+                writers.shutdown();
+                writers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error.compareAndSet(null, e);
+                transformers.shutdownNow();
+                writers.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Puts an element in the queue, waiting for space unless no writer thread is left to consume it.
+     */
+    protected void enqueue(BlockingQueue<Batch> queue, Batch batch) throws InterruptedException {
+        while (!queue.offer(batch, 1, TimeUnit.SECONDS)) {
+            if (activeWriters.get() == 0) {
+                error.compareAndSet(null, new IllegalStateException("No writer thread left"));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Creates a batch and registers it as the pending batch for the paths of its documents. Called from the reader
+     * thread, in reading order.
+     */
+    protected Batch newBatch(ExportedDocument[] docs) {
+        Set<Batch> dependencies = new LinkedHashSet<>();
+        for (ExportedDocument doc : docs) {
+            Path path = doc.getPath();
+            if (path == null || path.segmentCount() == 0) {
+                continue;
+            }
+            Batch parent = pendingByPath.get(pathKey(path.removeLastSegments(1)));
+            if (parent != null) {
+                dependencies.add(parent);
+            }
+        }
+        Batch batch = new Batch(docs, dependencies);
+        for (ExportedDocument doc : docs) {
+            Path path = doc.getPath();
+            if (path != null) {
+                pendingByPath.put(pathKey(path), batch);
+            }
+        }
+        // documents of the batch may be parents of each other, they are written in order by the same writer
+        batch.dependencies.remove(batch);
+        return batch;
+    }
+
+    protected static String pathKey(Path path) {
+        return path.removeTrailingSeparator().toString();
+    }
+
+    /**
+     * Transforms a batch. Errors are recorded rather than thrown so that the batch still reaches a writer, which
+     * releases the batches depending on it.
+     */
+    protected Batch transform(Batch batch) {
+        if (error.get() == null) {
+            try {
+                applyTransforms(batch.docs);
+                transformedCount.addAndGet(batch.docs.length);
+            } catch (IOException | RuntimeException e) {
+                error.compareAndSet(null, e);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Writes the batches taken from the queue. A batch is always marked as written once taken, even when its
+     * transformation or its write failed, so that the batches depending on it are released; the error is recorded and
+     * thrown by {@link #run()}.
+     */
+    protected void writeLoop(BlockingQueue<Batch> queue, List<DocumentTranslationMap> maps) {
+        DocumentWriter writer = null;
+        boolean txStarted = false;
+        try {
+            if (transactional) {
+                txStarted = TransactionHelper.startTransaction();
+            }
+            writer = writerFactory == null ? getWriter() : writerFactory.createDocWriter(writerFactoryParams);
+            for (;;) {
+                Batch batch = queue.take();
+                if (batch == END) {
+                    break;
+                }
+                try {
+                    batch.transformed.get();
+                    for (Batch dependency : batch.dependencies) {
+                        dependency.written.await();
+                    }
+                    if (error.get() != null) {
+                        // drain the queue without writing
+                        continue;
+                    }
+                    DocumentTranslationMap map = writer.write(batch.docs);
+                    if (map != null) {
+                        maps.add(map);
+                    }
+                    if (transactional) {
+                        TransactionHelper.commitOrRollbackTransaction();
+                        txStarted = TransactionHelper.startTransaction();
+                    }
+                    writtenCount.addAndGet(batch.docs.length);
+                    batchCount.incrementAndGet();
+                } catch (ExecutionException e) {
+                    error.compareAndSet(null, e.getCause());
+                } catch (IOException | RuntimeException e) {
+                    error.compareAndSet(null, e);
+                    if (transactional) {
+                        TransactionHelper.setTransactionRollbackOnly();
+                        TransactionHelper.commitOrRollbackTransaction();
+                        txStarted = TransactionHelper.startTransaction();
+                    }
+                } finally {
+                    batch.written.countDown();
+                    for (ExportedDocument doc : batch.docs) {
+                        if (doc.getPath() != null) {
+                            pendingByPath.remove(pathKey(doc.getPath()), batch);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error.compareAndSet(null, e);
+        } catch (RuntimeException | Error e) {
+            error.compareAndSet(null, e);
+        } finally {
+            activeWriters.decrementAndGet();
+            if (writer != null && writerFactory != null) {
+                writer.close();
+            }
+            if (txStarted) {
+                TransactionHelper.commitOrRollbackTransaction();
+            }
+        }
+    }
+
+    protected static class NamedThreadFactory implements ThreadFactory {
+
+        protected final AtomicInteger count = new AtomicInteger();
+
+        protected final String prefix;
+
+        protected NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
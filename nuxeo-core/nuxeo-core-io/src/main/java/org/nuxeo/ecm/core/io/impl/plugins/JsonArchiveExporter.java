@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.io.impl.plugins;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+import static org.nuxeo.ecm.core.io.registry.MarshallingConstants.WILDCARD_VALUE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentTreeIterator;
+import org.nuxeo.ecm.core.api.model.DocumentPart;
+import org.nuxeo.ecm.core.api.model.Property;
+import org.nuxeo.ecm.core.api.model.impl.primitives.BlobProperty;
+import org.nuxeo.ecm.core.io.marshallers.json.document.DocumentModelJsonWriter;
+import org.nuxeo.ecm.core.io.marshallers.json.enrichers.ACLJsonEnricher;
+import org.nuxeo.ecm.core.io.registry.MarshallerRegistry;
+import org.nuxeo.ecm.core.io.registry.MarshallingException;
+import org.nuxeo.ecm.core.io.registry.Writer;
+import org.nuxeo.ecm.core.io.registry.context.RenderingContext;
+import org.nuxeo.ecm.core.io.registry.context.RenderingContext.CtxBuilder;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Exports a document tree as a zip of Json documents, streaming each document and blob to the output as soon as it is
+ * read.
+ * <p>
+ * Documents are written in tree order (parents first) using the registered {@link DocumentModelJsonWriter}, one zip
+ * entry per document under {@value #DOCUMENTS_PREFIX}. The blobs of a document are written before it under
+ * {@value #BLOBS_PREFIX}, named by their digest (which is present in the document Json), and each distinct digest is
+ * written only once. Nothing is buffered beyond the current document, so memory use does not depend on the size of the
+ * tree. Blobs without a digest cannot be referenced and are not exported.
+ * <p>
+ * The lifecycle state is part of the document Json and the ACLs are added by the {@value ACLJsonEnricher#NAME}
+ * enricher. Versions are not exported and proxies are skipped, as the Json of a proxy cannot be told from the one of
+ * its target.
+ * <p>
+ * The archive can be read back with {@link JsonArchiveImporter}.
+ *
+ * @since 7.3
+ */
+public class JsonArchiveExporter implements Closeable {
+
+    private static final Log log = LogFactory.getLog(JsonArchiveExporter.class);
+
+    public static final String DOCUMENTS_PREFIX = "documents/";
+
+    public static final String BLOBS_PREFIX = "blobs/";
+
+    public static final String JSON_SUFFIX = ".json";
+
+    protected final CoreSession session;
+
+    protected final ZipOutputStream zip;
+
+    protected final RenderingContext ctx;
+
+    protected final Writer<DocumentModel> writer;
+
+    protected final Set<String> writtenDigests = new HashSet<String>();
+
+    protected long count;
+
+    public JsonArchiveExporter(CoreSession session, OutputStream out) {
+        this.session = session;
+        zip = new ZipOutputStream(out);
+        ctx = CtxBuilder.session(session).properties(WILDCARD_VALUE).enrichDoc(ACLJsonEnricher.NAME).get();
+        MarshallerRegistry registry = Framework.getService(MarshallerRegistry.class);
+        writer = registry.getWriter(ctx, DocumentModel.class, APPLICATION_JSON_TYPE);
+        if (writer == null) {
+            throw new MarshallingException("No Json writer available for documents");
+        }
+    }
+
+    /**
+     * Exports the given document and all its descendants.
+     *
+     * @return the number of exported documents
+     */
+    public long export(DocumentModel root) throws IOException {
+        DocumentTreeIterator it = new DocumentTreeIterator(session, root, false);
+        try {
+            while (it.hasNext()) {
+                DocumentModel doc = it.next();
+                if (doc.isProxy()) {
+                    log.warn("Skipping proxy: " + doc.getPathAsString());
+                    continue;
+                }
+                write(doc);
+            }
+        } finally {
+            it.reset();
+        }
+        zip.flush();
+        return count;
+    }
+
+    /**
+     * Writes one document, after its not yet written blobs.
+     */
+    public void write(DocumentModel doc) throws IOException {
+        for (DocumentPart part : doc.getParts()) {
+            writeBlobs(part);
+        }
+        zip.putNextEntry(new ZipEntry(DOCUMENTS_PREFIX + String.format("%010d", Long.valueOf(count++)) + JSON_SUFFIX));
+        writer.write(doc, DocumentModel.class, DocumentModel.class, APPLICATION_JSON_TYPE, zip);
+        zip.closeEntry();
+    }
+
+    protected void writeBlobs(Property property) throws IOException {
+        if (property instanceof BlobProperty) {
+            Blob blob = (Blob) property.getValue();
+            if (blob != null) {
+                writeBlob(blob);
+            }
+        } else if (property.isContainer()) {
+            for (Property child : property.getChildren()) {
+                writeBlobs(child);
+            }
+        }
+    }
+
+    protected void writeBlob(Blob blob) throws IOException {
+        String digest = blob.getDigest();
+        if (digest == null) {
+            log.warn("Cannot export blob without digest: " + blob.getFilename());
+            return;
+        }
+        if (!writtenDigests.add(digest)) {
+            return;
+        }
+        zip.putNextEntry(new ZipEntry(BLOBS_PREFIX + digest));
+        try (InputStream in = blob.getStream()) {
+            IOUtils.copy(in, zip);
+        }
+        zip.closeEntry();
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.io.impl.plugins;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+import static org.nuxeo.ecm.core.io.impl.plugins.JsonArchiveExporter.BLOBS_PREFIX;
+import static org.nuxeo.ecm.core.io.impl.plugins.JsonArchiveExporter.DOCUMENTS_PREFIX;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.lang.reflect.ParameterizedType;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.lang3.reflect.TypeUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.node.ArrayNode;
+import org.codehaus.jackson.node.NullNode;
+import org.codehaus.jackson.node.ObjectNode;
+import org.nuxeo.common.collections.ScopeType;
+import org.nuxeo.common.utils.Path;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.model.Property;
+import org.nuxeo.ecm.core.api.security.ACE;
+import org.nuxeo.ecm.core.api.security.ACL;
+import org.nuxeo.ecm.core.api.security.ACP;
+import org.nuxeo.ecm.core.api.security.impl.ACLImpl;
+import org.nuxeo.ecm.core.api.security.impl.ACPImpl;
+import org.nuxeo.ecm.core.io.marshallers.json.InputStreamWithJsonNode;
+import org.nuxeo.ecm.core.io.marshallers.json.JsonFactoryProvider;
+import org.nuxeo.ecm.core.io.marshallers.json.enrichers.ACLJsonEnricher;
+import org.nuxeo.ecm.core.io.registry.MarshallerRegistry;
+import org.nuxeo.ecm.core.io.registry.MarshallingException;
+import org.nuxeo.ecm.core.io.registry.Reader;
+import org.nuxeo.ecm.core.io.registry.context.RenderingContext;
+import org.nuxeo.ecm.core.io.registry.context.RenderingContext.CtxBuilder;
+import org.nuxeo.ecm.core.versioning.VersioningService;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Imports a zip of Json documents written by {@link JsonArchiveExporter}.
+ * <p>
+ * Zip entries are processed one at a time: blobs are spooled to temporary files and documents are parsed and created
+ * as soon as they are read, their properties being decoded by the registered Json property reader. Only the blobs
+ * (as file references) are kept across entries, so memory use does not depend on the number of documents. The
+ * temporary files are deleted once the import is done.
+ * <p>
+ * The documents are created with their facets, properties and lifecycle state, and their local ACL is restored.
+ * Versions and proxies are not exported, so they are not imported either.
+ *
+ * @since 7.3
+ */
+public class JsonArchiveImporter {
+
+    private static final Log log = LogFactory.getLog(JsonArchiveImporter.class);
+
+    protected static final Set<String> BLOB_FIELDS = new HashSet<String>(Arrays.asList("name", "mime-type",
+            "encoding", "digest", "length", "data"));
+
+    protected final CoreSession session;
+
+    protected final Path parentPath;
+
+    protected final RenderingContext ctx;
+
+    protected final Reader<List<Property>> propertiesReader;
+
+    protected final ParameterizedType propertiesType = TypeUtils.parameterize(List.class, Property.class);
+
+    protected final Map<String, Blob> blobs = new HashMap<String, Blob>();
+
+    protected int saveInterval = 100;
+
+    protected Path sourceRootParent;
+
+    protected long count;
+
+    /**
+     * @param session the session in which documents are created
+     * @param parentPath the path of the document under which the exported tree is recreated
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public JsonArchiveImporter(CoreSession session, String parentPath) {
+        this.session = session;
+        this.parentPath = new Path(parentPath);
+        ctx = CtxBuilder.session(session).get();
+        MarshallerRegistry registry = Framework.getService(MarshallerRegistry.class);
+        propertiesReader = (Reader) registry.getReader(ctx, List.class, propertiesType, APPLICATION_JSON_TYPE);
+        if (propertiesReader == null) {
+            throw new MarshallingException("No Json reader available for document properties");
+        }
+    }
+
+    /**
+     * Sets the number of created documents after which the session is saved.
+     */
+    public void setSaveInterval(int saveInterval) {
+        this.saveInterval = saveInterval;
+    }
+
+    /**
+     * Imports all the documents of the archive.
+     *
+     * @return the number of imported documents
+     */
+    public long importArchive(InputStream in) throws IOException {
+        try {
+            ZipInputStream zip = new ZipInputStream(in);
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (name.startsWith(BLOBS_PREFIX)) {
+                    String digest = name.substring(BLOBS_PREFIX.length());
+                    blobs.put(digest, Blobs.createBlob(new CloseShieldInputStream(zip)));
+                } else if (name.startsWith(DOCUMENTS_PREFIX)) {
+                    JsonNode jn;
+                    try (JsonParser jp = JsonFactoryProvider.get().createJsonParser(new CloseShieldInputStream(zip))) {
+                        jn = jp.readValueAsTree();
+                    }
+                    importDocument(jn);
+                }
+                zip.closeEntry();
+            }
+            session.save();
+        } finally {
+            deleteSpooledBlobs();
+        }
+        return count;
+    }
+
+    /**
+     * Deletes the temporary files of the archived blobs, which are stored once the documents are saved.
+     */
+    protected void deleteSpooledBlobs() {
+        for (Blob blob : blobs.values()) {
+            File file = blob.getFile();
+            if (file != null && !file.delete()) {
+                log.warn("Cannot delete temporary file: " + file);
+            }
+        }
+        blobs.clear();
+    }
+
+    protected DocumentModel importDocument(JsonNode jn) throws IOException {
+        Path sourcePath = new Path(jn.get("path").getTextValue());
+        if (sourceRootParent == null) {
+            sourceRootParent = sourcePath.removeLastSegments(1);
+        }
+        Path relativePath = sourcePath.removeFirstSegments(sourceRootParent.segmentCount());
+        String parent = parentPath.append(relativePath.removeLastSegments(1)).toString();
+        String type = jn.get("type").getTextValue();
+        DocumentModel doc = session.createDocumentModel(parent, sourcePath.lastSegment(), type);
+
+        // set lifecycle state at creation
+        String state = getText(jn, "state");
+        if (state != null) {
+            doc.putContextData("initialLifecycleState", state);
+        }
+
+        JsonNode facets = jn.get("facets");
+        if (facets != null && facets.isArray()) {
+            for (JsonNode facet : facets) {
+                if (!doc.hasFacet(facet.getTextValue())) {
+                    doc.addFacet(facet.getTextValue());
+                }
+            }
+        }
+
+        JsonNode properties = jn.get("properties");
+        if (properties != null && properties.isObject()) {
+            Map<String, Blob> docBlobs = new HashMap<String, Blob>();
+            extractBlobs(properties, "", docBlobs);
+            List<Property> props = propertiesReader.read(List.class, propertiesType, APPLICATION_JSON_TYPE,
+                    new InputStreamWithJsonNode(properties));
+            for (Property property : props) {
+                doc.setPropertyValue(property.getName(), property.getValue());
+            }
+            for (Entry<String, Blob> es : docBlobs.entrySet()) {
+                doc.setPropertyValue(es.getKey(), (Serializable) es.getValue());
+            }
+        }
+
+        if (doc.hasSchema("uid")) {
+            doc.putContextData(ScopeType.REQUEST, VersioningService.SKIP_VERSIONING, Boolean.TRUE);
+        }
+
+        doc = session.createDocument(doc);
+        importLocalACL(doc, jn);
+        if (++count % saveInterval == 0) {
+            session.save();
+        }
+        return doc;
+    }
+
+    /**
+     * Restores the local ACL of the document, exported by the {@value ACLJsonEnricher#NAME} enricher.
+     */
+    protected void importLocalACL(DocumentModel doc, JsonNode jn) {
+        JsonNode contextParameters = jn.get("contextParameters");
+        JsonNode acls = contextParameters == null ? null : contextParameters.get(ACLJsonEnricher.NAME);
+        if (acls == null || !acls.isArray()) {
+            return;
+        }
+        for (JsonNode aclNode : acls) {
+            if (!ACL.LOCAL_ACL.equals(getText(aclNode, "name"))) {
+                continue;
+            }
+            JsonNode aces = aclNode.get("ace");
+            if (aces == null || !aces.isArray() || aces.size() == 0) {
+                return;
+            }
+            ACL acl = new ACLImpl(ACL.LOCAL_ACL);
+            for (JsonNode ace : aces) {
+                acl.add(new ACE(getText(ace, "username"), getText(ace, "permission"),
+                        ace.path("granted").getBooleanValue()));
+            }
+            ACP acp = new ACPImpl();
+            acp.addACL(acl);
+            session.setACP(doc.getRef(), acp, false);
+            return;
+        }
+    }
+
+    /**
+     * Removes the blob nodes from the properties, collecting the corresponding archived blobs by xpath.
+     */
+    protected void extractBlobs(JsonNode node, String xpath, Map<String, Blob> docBlobs) throws IOException {
+        if (node.isObject()) {
+            Iterator<Entry<String, JsonNode>> it = node.getFields();
+            while (it.hasNext()) {
+                Entry<String, JsonNode> es = it.next();
+                String childPath = xpath.isEmpty() ? es.getKey() : xpath + '/' + es.getKey();
+                if (isBlob(es.getValue())) {
+                    addBlob(es.getValue(), childPath, docBlobs);
+                    it.remove();
+                } else {
+                    extractBlobs(es.getValue(), childPath, docBlobs);
+                }
+            }
+        } else if (node.isArray()) {
+            ArrayNode array = (ArrayNode) node;
+            for (int i = 0; i < array.size(); i++) {
+                String childPath = xpath + '/' + i;
+                if (isBlob(array.get(i))) {
+                    addBlob(array.get(i), childPath, docBlobs);
+                    array.set(i, NullNode.getInstance());
+                } else {
+                    extractBlobs(array.get(i), childPath, docBlobs);
+                }
+            }
+        }
+    }
+
+    protected boolean isBlob(JsonNode node) {
+        if (!node.isObject() || node.size() != BLOB_FIELDS.size()) {
+            return false;
+        }
+        Iterator<String> names = ((ObjectNode) node).getFieldNames();
+        while (names.hasNext()) {
+            if (!BLOB_FIELDS.contains(names.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected void addBlob(JsonNode node, String xpath, Map<String, Blob> docBlobs) throws IOException {
+        JsonNode digest = node.get("digest");
+        Blob archived = digest == null || digest.isNull() ? null : blobs.get(digest.getTextValue());
+        if (archived == null) {
+            return;
+        }
+        Blob blob = Blobs.createBlob(archived.getFile(), getText(node, "mime-type"), getText(node, "encoding"),
+                getText(node, "name"));
+        docBlobs.put(xpath, blob);
+    }
+
+    protected static String getText(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.getTextValue();
+    }
+
+}
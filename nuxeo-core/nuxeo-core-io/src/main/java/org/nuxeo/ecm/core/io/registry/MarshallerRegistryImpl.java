@@ -18,9 +18,13 @@
 package org.nuxeo.ecm.core.io.registry;
 
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
@@ -42,6 +46,11 @@ import org.nuxeo.runtime.model.DefaultComponent;
  * This implementation is based on {@link MarshallerInspector} class which is able to create marshaller instance and
  * inject properties. This class also manage marshaller's priorities.
  * </p>
+ * <p>
+ * The inspectors matching a given (class, generic type, media type) request are computed once and kept in a dispatch
+ * table until the next registry change, so only {@link Marshaller#accept(Class, Type, MediaType)} is evaluated for
+ * each marshalling call.
+ * </p>
  *
  * @since 7.2
  */
@@ -74,6 +83,72 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
      */
     private static final Map<Class<?>, MarshallerInspector> marshallersByType = new ConcurrentHashMap<Class<?>, MarshallerInspector>();
 
+    /**
+     * Maximum number of entries kept in the dispatch table, protects against generic types without proper equality.
+     *
+     * @since 7.3
+     */
+    private static final int MAX_DISPATCH_TABLE_SIZE = 10000;
+
+    /**
+     * Candidate {@link MarshallerInspector}s, ordered by priority, that statically match a marshalling request. The
+     * table is filled on demand and replaced by an empty one each time the registry changes.
+     *
+     * @since 7.3
+     */
+    private static volatile Map<DispatchKey, List<MarshallerInspector>> dispatchTable = new ConcurrentHashMap<DispatchKey, List<MarshallerInspector>>();
+
+    /**
+     * Serializes the changes of the registry, the dispatch table being replaced once each change is complete.
+     *
+     * @since 7.3
+     */
+    private static final Object registryLock = new Object();
+
+    /**
+     * Key of the dispatch table.
+     *
+     * @since 7.3
+     */
+    private static final class DispatchKey {
+
+        private final boolean writer;
+
+        private final Class<?> clazz;
+
+        private final Type genericType;
+
+        private final MediaType mediatype;
+
+        private final int hash;
+
+        private DispatchKey(boolean writer, Class<?> clazz, Type genericType, MediaType mediatype) {
+            this.writer = writer;
+            this.clazz = clazz;
+            this.genericType = genericType;
+            this.mediatype = mediatype;
+            hash = Objects.hash(Boolean.valueOf(writer), clazz, genericType, mediatype);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof DispatchKey)) {
+                return false;
+            }
+            DispatchKey other = (DispatchKey) obj;
+            return writer == other.writer && clazz.equals(other.clazz) && Objects.equals(genericType, other.genericType)
+                    && Objects.equals(mediatype, other.mediatype);
+        }
+    }
+
     @Override
     public void activate(ComponentContext context) {
         super.activate(context);
@@ -121,33 +196,37 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
                     "The marshaller registry just supports Writer and Reader for now. You have to implement "
                             + Writer.class.getName() + " or " + Reader.class.getName());
         }
-        if (marshallersByType.get(marshaller) != null) {
-            log.warn("The marshaller " + marshaller.getName() + " is already registered.");
-            return;
-        } else {
-            marshallersByType.put(marshaller, inspector);
-        }
-        if (inspector.isWriter()) {
-            writers.add(inspector);
-            for (MediaType mediaType : inspector.getSupports()) {
-                Set<MarshallerInspector> inspectors = writersByMediaType.get(mediaType);
-                if (inspectors == null) {
-                    inspectors = new ConcurrentSkipListSet<MarshallerInspector>();
-                    writersByMediaType.put(mediaType, inspectors);
+        synchronized (registryLock) {
+            if (marshallersByType.get(marshaller) != null) {
+                log.warn("The marshaller " + marshaller.getName() + " is already registered.");
+                return;
+            } else {
+                marshallersByType.put(marshaller, inspector);
+            }
+            if (inspector.isWriter()) {
+                writers.add(inspector);
+                for (MediaType mediaType : inspector.getSupports()) {
+                    Set<MarshallerInspector> inspectors = writersByMediaType.get(mediaType);
+                    if (inspectors == null) {
+                        inspectors = new ConcurrentSkipListSet<MarshallerInspector>();
+                        writersByMediaType.put(mediaType, inspectors);
+                    }
+                    inspectors.add(inspector);
                 }
-                inspectors.add(inspector);
             }
-        }
-        if (inspector.isReader()) {
-            readers.add(inspector);
-            for (MediaType mediaType : inspector.getSupports()) {
-                Set<MarshallerInspector> inspectors = readersByMediaType.get(mediaType);
-                if (inspectors == null) {
-                    inspectors = new ConcurrentSkipListSet<MarshallerInspector>();
-                    readersByMediaType.put(mediaType, inspectors);
+            if (inspector.isReader()) {
+                readers.add(inspector);
+                for (MediaType mediaType : inspector.getSupports()) {
+                    Set<MarshallerInspector> inspectors = readersByMediaType.get(mediaType);
+                    if (inspectors == null) {
+                        inspectors = new ConcurrentSkipListSet<MarshallerInspector>();
+                        readersByMediaType.put(mediaType, inspectors);
+                    }
+                    inspectors.add(inspector);
                 }
-                inspectors.add(inspector);
             }
+            // after the changes, so that a dispatch table filled meanwhile is discarded
+            invalidateDispatchTable();
         }
     }
 
@@ -163,47 +242,46 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
                     "The marshaller registry just supports Writer and Reader for now. You have to implement "
                             + Writer.class.getName() + " or " + Reader.class.getName());
         }
-        marshallersByType.remove(marshaller);
-        if (inspector.isWriter()) {
-            writers.remove(inspector);
-            for (MediaType mediaType : inspector.getSupports()) {
-                Set<MarshallerInspector> inspectors = writersByMediaType.get(mediaType);
-                if (inspectors != null) {
-                    inspectors.remove(inspector);
+        synchronized (registryLock) {
+            marshallersByType.remove(marshaller);
+            if (inspector.isWriter()) {
+                writers.remove(inspector);
+                for (MediaType mediaType : inspector.getSupports()) {
+                    Set<MarshallerInspector> inspectors = writersByMediaType.get(mediaType);
+                    if (inspectors != null) {
+                        inspectors.remove(inspector);
+                    }
                 }
             }
-        }
-        if (inspector.isReader()) {
-            readers.remove(inspector);
-            for (MediaType mediaType : inspector.getSupports()) {
-                Set<MarshallerInspector> inspectors = readersByMediaType.get(mediaType);
-                if (inspectors != null) {
-                    inspectors.remove(inspector);
+            if (inspector.isReader()) {
+                readers.remove(inspector);
+                for (MediaType mediaType : inspector.getSupports()) {
+                    Set<MarshallerInspector> inspectors = readersByMediaType.get(mediaType);
+                    if (inspectors != null) {
+                        inspectors.remove(inspector);
+                    }
                 }
             }
+            invalidateDispatchTable();
         }
     }
 
     @Override
     public <T> Writer<T> getWriter(RenderingContext ctx, Class<T> marshalledClazz, Type genericType, MediaType mediatype) {
-        Set<MarshallerInspector> candidates = writersByMediaType.get(mediatype);
-        return (Writer<T>) getMarshaller(ctx, marshalledClazz, genericType, mediatype, candidates, writers, false);
+        return (Writer<T>) dispatch(ctx, true, marshalledClazz, genericType, mediatype, false);
     }
 
     @Override
     public <T> Writer<T> getUniqueWriter(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
             MediaType mediatype) {
-        Set<MarshallerInspector> candidates = writersByMediaType.get(mediatype);
-        return (Writer<T>) getMarshaller(ctx, marshalledClazz, genericType, mediatype, candidates, writers, true);
+        return (Writer<T>) dispatch(ctx, true, marshalledClazz, genericType, mediatype, true);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> Collection<Writer<T>> getAllWriters(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
             MediaType mediatype) {
-        Set<MarshallerInspector> candidates = writersByMediaType.get(mediatype);
-        Collection<Marshaller<T>> founds = getAllMarshallers(ctx, marshalledClazz, genericType, mediatype, candidates,
-                writers);
+        Collection<Marshaller<T>> founds = dispatchAll(ctx, true, marshalledClazz, genericType, mediatype);
         return (Collection<Writer<T>>) (Collection<?>) founds;
     }
 
@@ -214,24 +292,20 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
 
     @Override
     public <T> Reader<T> getReader(RenderingContext ctx, Class<T> marshalledClazz, Type genericType, MediaType mediatype) {
-        Set<MarshallerInspector> candidates = readersByMediaType.get(mediatype);
-        return (Reader<T>) getMarshaller(ctx, marshalledClazz, genericType, mediatype, candidates, readers, false);
+        return (Reader<T>) dispatch(ctx, false, marshalledClazz, genericType, mediatype, false);
     }
 
     @Override
     public <T> Reader<T> getUniqueReader(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
             MediaType mediatype) {
-        Set<MarshallerInspector> candidates = readersByMediaType.get(mediatype);
-        return (Reader<T>) getMarshaller(ctx, marshalledClazz, genericType, mediatype, candidates, readers, true);
+        return (Reader<T>) dispatch(ctx, false, marshalledClazz, genericType, mediatype, true);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> Collection<Reader<T>> getAllReaders(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
             MediaType mediatype) {
-        Set<MarshallerInspector> candidates = readersByMediaType.get(mediatype);
-        Collection<Marshaller<T>> founds = getAllMarshallers(ctx, marshalledClazz, genericType, mediatype, candidates,
-                readers);
+        Collection<Marshaller<T>> founds = dispatchAll(ctx, false, marshalledClazz, genericType, mediatype);
         return (Collection<Reader<T>>) (Collection<?>) founds;
     }
 
@@ -240,72 +314,25 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
         return getReader(ctx, marshalledClazz, marshalledClazz, mediatype);
     }
 
+    /**
+     * @deprecated since 7.3, use {@link #getWriter} or {@link #getReader}, which cache the candidates
+     */
+    @Deprecated
     public <T> Marshaller<T> getMarshaller(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
             MediaType mediatype, Set<MarshallerInspector> customs, Set<MarshallerInspector> wildcards,
             boolean forceInstantiation) {
-        if (customs != null) {
-            Marshaller<T> found = searchCandidate(ctx, marshalledClazz, genericType, mediatype, customs,
-                    forceInstantiation);
-            if (found != null) {
-                return found;
-            }
-        }
-        return searchCandidate(ctx, marshalledClazz, genericType, mediatype, wildcards, forceInstantiation);
+        Collection<MarshallerInspector> candidates = findCandidates(marshalledClazz, genericType, customs, wildcards);
+        return dispatch(ctx, candidates, marshalledClazz, genericType, mediatype, forceInstantiation);
     }
 
+    /**
+     * @deprecated since 7.3, use {@link #getAllWriters} or {@link #getAllReaders}, which cache the candidates
+     */
+    @Deprecated
     public <T> Collection<Marshaller<T>> getAllMarshallers(RenderingContext ctx, Class<T> marshalledClazz,
             Type genericType, MediaType mediatype, Set<MarshallerInspector> customs, Set<MarshallerInspector> wildcards) {
-        Map<MarshallerInspector, Marshaller<T>> result = new HashMap<MarshallerInspector, Marshaller<T>>();
-        if (customs != null) {
-            result.putAll(searchAllCandidates(ctx, marshalledClazz, genericType, mediatype, customs));
-        }
-        result.putAll(searchAllCandidates(ctx, marshalledClazz, genericType, mediatype, wildcards));
-        return result.values();
-    }
-
-    @SuppressWarnings("unchecked")
-    private <T> Marshaller<T> searchCandidate(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
-            MediaType mediatype, Set<MarshallerInspector> candidates, boolean forceInstantiation) {
-        for (MarshallerInspector inspector : candidates) {
-            // checks the managed class is compatible
-            if (inspector.getMarshalledType().isAssignableFrom(marshalledClazz)) {
-                // checks the generic type is compatible
-                if (genericType == null || marshalledClazz.equals(inspector.getGenericType())
-                        || TypeUtils.isAssignable(genericType, inspector.getGenericType())) {
-                    Marshaller<T> marshaller = null;
-                    if (forceInstantiation) {
-                        marshaller = (Marshaller<T>) inspector.getNewInstance(ctx, false);
-                    } else {
-                        marshaller = inspector.getInstance(ctx);
-                    }
-                    // checks the marshaller accepts the request
-                    if (marshaller.accept(marshalledClazz, genericType, mediatype)) {
-                        return marshaller;
-                    }
-                }
-            }
-        }
-        return null;
-    }
-
-    private <T> Map<MarshallerInspector, Marshaller<T>> searchAllCandidates(RenderingContext ctx,
-            Class<T> marshalledClazz, Type genericType, MediaType mediatype, Set<MarshallerInspector> candidates) {
-        Map<MarshallerInspector, Marshaller<T>> result = new HashMap<MarshallerInspector, Marshaller<T>>();
-        for (MarshallerInspector inspector : candidates) {
-            // checks the managed class is compatible
-            if (inspector.getMarshalledType().isAssignableFrom(marshalledClazz)) {
-                // checks the generic type is compatible
-                if (genericType == null || marshalledClazz.equals(inspector.getGenericType())
-                        || TypeUtils.isAssignable(genericType, inspector.getGenericType())) {
-                    // checks the marshaller accepts the request
-                    Marshaller<T> marshaller = inspector.getInstance(ctx);
-                    if (marshaller.accept(marshalledClazz, genericType, mediatype)) {
-                        result.put(inspector, marshaller);
-                    }
-                }
-            }
-        }
-        return result;
+        Collection<MarshallerInspector> candidates = findCandidates(marshalledClazz, genericType, customs, wildcards);
+        return dispatchAll(ctx, candidates, marshalledClazz, genericType, mediatype);
     }
 
     @Override
@@ -330,11 +357,114 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
 
     @Override
     public void clear() {
-        marshallersByType.clear();
-        writersByMediaType.clear();
-        writers.clear();
-        readersByMediaType.clear();
-        readers.clear();
+        synchronized (registryLock) {
+            marshallersByType.clear();
+            writersByMediaType.clear();
+            writers.clear();
+            readersByMediaType.clear();
+            readers.clear();
+            invalidateDispatchTable();
+        }
+    }
+
+    private static void invalidateDispatchTable() {
+        dispatchTable = new ConcurrentHashMap<DispatchKey, List<MarshallerInspector>>();
+    }
+
+    /**
+     * Gets the inspectors whose managed class and generic type are compatible with the request, custom ones (declaring
+     * the requested media type) first, then the others, each group ordered by priority.
+     *
+     * @since 7.3
+     */
+    private List<MarshallerInspector> getCandidates(boolean writer, Class<?> marshalledClazz, Type genericType,
+            MediaType mediatype) {
+        Map<DispatchKey, List<MarshallerInspector>> table = dispatchTable;
+        DispatchKey key = new DispatchKey(writer, marshalledClazz, genericType, mediatype);
+        List<MarshallerInspector> candidates = table.get(key);
+        if (candidates == null) {
+            Set<MarshallerInspector> customs = writer ? writersByMediaType.get(mediatype)
+                    : readersByMediaType.get(mediatype);
+            Set<MarshallerInspector> wildcards = writer ? writers : readers;
+            Set<MarshallerInspector> found = findCandidates(marshalledClazz, genericType, customs, wildcards);
+            candidates = Collections.unmodifiableList(new ArrayList<MarshallerInspector>(found));
+            if (table.size() < MAX_DISPATCH_TABLE_SIZE) {
+                table.put(key, candidates);
+            }
+        }
+        return candidates;
+    }
+
+    private Set<MarshallerInspector> findCandidates(Class<?> marshalledClazz, Type genericType,
+            Set<MarshallerInspector> customs, Set<MarshallerInspector> wildcards) {
+        Set<MarshallerInspector> found = new LinkedHashSet<MarshallerInspector>();
+        if (customs != null) {
+            addCandidates(marshalledClazz, genericType, customs, found);
+        }
+        addCandidates(marshalledClazz, genericType, wildcards, found);
+        return found;
+    }
+
+    private void addCandidates(Class<?> marshalledClazz, Type genericType, Set<MarshallerInspector> inspectors,
+            Set<MarshallerInspector> found) {
+        for (MarshallerInspector inspector : inspectors) {
+            if (isCandidate(inspector, marshalledClazz, genericType)) {
+                found.add(inspector);
+            }
+        }
+    }
+
+    private boolean isCandidate(MarshallerInspector inspector, Class<?> marshalledClazz, Type genericType) {
+        // checks the managed class is compatible
+        if (!inspector.getMarshalledType().isAssignableFrom(marshalledClazz)) {
+            return false;
+        }
+        // checks the generic type is compatible
+        return genericType == null || marshalledClazz.equals(inspector.getGenericType())
+                || TypeUtils.isAssignable(genericType, inspector.getGenericType());
+    }
+
+    private <T> Marshaller<T> dispatch(RenderingContext ctx, boolean writer, Class<T> marshalledClazz,
+            Type genericType, MediaType mediatype, boolean forceInstantiation) {
+        return dispatch(ctx, getCandidates(writer, marshalledClazz, genericType, mediatype), marshalledClazz,
+                genericType, mediatype, forceInstantiation);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Marshaller<T> dispatch(RenderingContext ctx, Collection<MarshallerInspector> candidates,
+            Class<T> marshalledClazz, Type genericType, MediaType mediatype, boolean forceInstantiation) {
+        for (MarshallerInspector inspector : candidates) {
+            Marshaller<T> marshaller;
+            if (forceInstantiation) {
+                marshaller = (Marshaller<T>) inspector.getNewInstance(ctx, false);
+            } else {
+                marshaller = inspector.getInstance(ctx);
+            }
+            // checks the marshaller accepts the request
+            if (marshaller.accept(marshalledClazz, genericType, mediatype)) {
+                return marshaller;
+            }
+        }
+        return null;
+    }
+
+    private <T> Collection<Marshaller<T>> dispatchAll(RenderingContext ctx, boolean writer, Class<T> marshalledClazz,
+            Type genericType, MediaType mediatype) {
+        return dispatchAll(ctx, getCandidates(writer, marshalledClazz, genericType, mediatype), marshalledClazz,
+                genericType, mediatype);
+    }
+
+    private <T> Collection<Marshaller<T>> dispatchAll(RenderingContext ctx, Collection<MarshallerInspector> candidates,
+            Class<T> marshalledClazz, Type genericType, MediaType mediatype) {
+        List<Marshaller<T>> result = new ArrayList<Marshaller<T>>();
+        for (MarshallerInspector inspector : candidates) {
+            Marshaller<T> marshaller = inspector.getInstance(ctx);
+            // checks the marshaller accepts the request
+            if (marshaller.accept(marshalledClazz, genericType, mediatype)) {
+                result.add(marshaller);
+            }
+        }
+        return result;
     }
 
 }
@@ -18,6 +18,9 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Collections;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -106,20 +109,7 @@ public class TestExportImportZipArchive {
         reader.close();
 
         // check the zip contents
-        ZipInputStream zin = new ZipInputStream(new FileInputStream(archive));
-        ZipEntry entry = zin.getNextEntry();
-        int nbDocs = 0;
-        int nbBlobs = 0;
-        while (entry != null) {
-            if (entry.getName().endsWith(ExportConstants.DOCUMENT_FILE)) {
-                nbDocs++;
-            } else if (entry.getName().endsWith(".blob")) {
-                nbBlobs++;
-            }
-            entry = zin.getNextEntry();
-        }
-        assertEquals(2, nbDocs);
-        assertEquals(1, nbBlobs);
+        checkArchive(archive);
 
         // now wipe DB
         Framework.getService(EventService.class).waitForAsyncCompletion();
@@ -156,4 +146,37 @@ public class TestExportImportZipArchive {
         assertTrue(importedDocument.hasFacet("HiddenInNavigation"));
     }
 
+    protected void checkArchive(File archive) throws Exception {
+        try (ZipInputStream zin = new ZipInputStream(new FileInputStream(archive))) {
+            ZipEntry entry = zin.getNextEntry();
+            int nbDocs = 0;
+            int nbBlobs = 0;
+            while (entry != null) {
+                if (entry.getName().endsWith(ExportConstants.DOCUMENT_FILE)) {
+                    nbDocs++;
+                } else if (entry.getName().endsWith(".blob")) {
+                    nbBlobs++;
+                }
+                entry = zin.getNextEntry();
+            }
+            assertEquals(2, nbDocs);
+            assertEquals(1, nbBlobs);
+        }
+    }
+
+    @Test
+    public void testParallelExport() throws Exception {
+        createDocs();
+        Framework.getProperties().put(IODocumentManagerImpl.PARALLEL_EXPORT_PROPERTY, "true");
+        File archive = File.createTempFile("core-io-archive", "zip");
+        try (OutputStream out = new FileOutputStream(archive)) {
+            new IODocumentManagerImpl().exportDocuments(out, session.getRepositoryName(),
+                    Collections.singletonList(workspace.getRef()), true, null);
+        } finally {
+            Framework.getProperties().remove(IODocumentManagerImpl.PARALLEL_EXPORT_PROPERTY);
+        }
+        checkArchive(archive);
+        archive.delete();
+    }
+
 }
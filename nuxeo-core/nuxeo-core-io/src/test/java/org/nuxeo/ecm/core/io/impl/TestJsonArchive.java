@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.io.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.PathRef;
+import org.nuxeo.ecm.core.api.security.ACE;
+import org.nuxeo.ecm.core.api.security.ACL;
+import org.nuxeo.ecm.core.api.security.ACP;
+import org.nuxeo.ecm.core.api.security.SecurityConstants;
+import org.nuxeo.ecm.core.api.security.impl.ACLImpl;
+import org.nuxeo.ecm.core.api.security.impl.ACPImpl;
+import org.nuxeo.ecm.core.io.impl.plugins.JsonArchiveExporter;
+import org.nuxeo.ecm.core.io.impl.plugins.JsonArchiveImporter;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+@Deploy("org.nuxeo.ecm.core.io")
+public class TestJsonArchive {
+
+    @Inject
+    protected CoreSession session;
+
+    @Test
+    public void testExportAndReimport() throws Exception {
+        DocumentModel workspace = session.createDocumentModel("/", "ws1", "Workspace");
+        workspace.setPropertyValue("dc:title", "test WS");
+        workspace = session.createDocument(workspace);
+        for (int i = 0; i < 3; i++) {
+            DocumentModel file = session.createDocumentModel("/ws1", "file" + i, "File");
+            file.setPropertyValue("dc:title", "MyDoc" + i);
+            Blob blob = Blobs.createBlob("SomeDummyContent");
+            blob.setFilename("dummyBlob" + i + ".txt");
+            file.setPropertyValue("file:content", (Serializable) blob);
+            session.createDocument(file);
+        }
+        DocumentModel file0 = session.getDocument(new PathRef("/ws1/file0"));
+        session.followTransition(file0.getRef(), "approve");
+        ACP acp = new ACPImpl();
+        ACL acl = new ACLImpl(ACL.LOCAL_ACL);
+        acl.add(new ACE("bob", SecurityConstants.READ, true));
+        acp.addACL(acl);
+        session.setACP(file0.getRef(), acp, false);
+        DocumentModel section = session.createDocumentModel("/ws1", "section", "Folder");
+        section = session.createDocument(section);
+        // the proxy is skipped
+        session.publishDocument(file0, section);
+        session.save();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonArchiveExporter exporter = new JsonArchiveExporter(session, out)) {
+            assertEquals(5, exporter.export(workspace));
+        }
+
+        // same content, blob archived only once
+        int nbDocs = 0;
+        int nbBlobs = 0;
+        try (ZipInputStream zin = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zin.getNextEntry()) != null) {
+                if (entry.getName().startsWith(JsonArchiveExporter.DOCUMENTS_PREFIX)) {
+                    nbDocs++;
+                } else if (entry.getName().startsWith(JsonArchiveExporter.BLOBS_PREFIX)) {
+                    nbBlobs++;
+                }
+            }
+        }
+        assertEquals(5, nbDocs);
+        assertEquals(1, nbBlobs);
+
+        session.removeDocument(workspace.getRef());
+        session.save();
+        assertTrue(session.getChildren(session.getRootDocument().getRef()).isEmpty());
+
+        JsonArchiveImporter importer = new JsonArchiveImporter(session, "/");
+        assertEquals(5, importer.importArchive(new ByteArrayInputStream(out.toByteArray())));
+
+        DocumentModel ws = session.getDocument(new PathRef("/ws1"));
+        assertEquals("test WS", ws.getTitle());
+        DocumentModel file = session.getDocument(new PathRef("/ws1/file2"));
+        assertEquals("MyDoc2", file.getTitle());
+        Blob blob = (Blob) file.getPropertyValue("file:content");
+        assertNotNull(blob);
+        assertEquals("dummyBlob2.txt", blob.getFilename());
+        assertEquals("SomeDummyContent", blob.getString());
+
+        // lifecycle state and local ACL restored
+        file0 = session.getDocument(new PathRef("/ws1/file0"));
+        assertEquals("approved", file0.getCurrentLifeCycleState());
+        assertEquals("project", file.getCurrentLifeCycleState());
+        ACL localACL = session.getACP(file0.getRef()).getACL(ACL.LOCAL_ACL);
+        assertNotNull(localACL);
+        assertEquals(1, localACL.size());
+        assertEquals("bob", localACL.get(0).getUsername());
+        assertEquals(0, session.getChildren(new PathRef("/ws1/section")).size());
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.io.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+import org.nuxeo.common.utils.Path;
+import org.nuxeo.ecm.core.io.DocumentTranslationMap;
+import org.nuxeo.ecm.core.io.DocumentWriter;
+import org.nuxeo.ecm.core.io.ExportedDocument;
+
+/**
+ * Tests the parallel pipe with in-memory readers and writers.
+ */
+public class TestParallelDocumentPipe {
+
+    /** Reads a tree of depth 3 with the given fan-out, parents first. */
+    protected static class TreeReader extends AbstractDocumentReader {
+
+        protected final List<ExportedDocument> docs = new ArrayList<>();
+
+        protected int index;
+
+        protected TreeReader(int fanOut) {
+            add(new Path("/root"), 0, fanOut);
+        }
+
+        protected void add(Path path, int depth, int fanOut) {
+            ExportedDocumentImpl doc = new ExportedDocumentImpl();
+            doc.setId(path.toString());
+            doc.setPath(path);
+            docs.add(doc);
+            if (depth < 3) {
+                for (int i = 0; i < fanOut; i++) {
+                    add(path.append("doc" + i), depth + 1, fanOut);
+                }
+            }
+        }
+
+        @Override
+        public ExportedDocument read() {
+            return index < docs.size() ? docs.get(index++) : null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /** Checks that each document is written after its parent. */
+    protected static class CheckingWriter implements DocumentWriter {
+
+        protected final Set<String> written;
+
+        protected CheckingWriter(Set<String> written) {
+            this.written = written;
+        }
+
+        @Override
+        public DocumentTranslationMap write(ExportedDocument doc) throws IOException {
+            Path path = doc.getPath();
+            if (path.segmentCount() > 1 && !written.contains(path.removeLastSegments(1).toString())) {
+                throw new IOException("Parent not written for " + path);
+            }
+            written.add(path.toString());
+            return null;
+        }
+
+        @Override
+        public DocumentTranslationMap write(ExportedDocument[] docs) throws IOException {
+            return write(Arrays.asList(docs));
+        }
+
+        @Override
+        public DocumentTranslationMap write(Collection<ExportedDocument> docs) throws IOException {
+            for (ExportedDocument doc : docs) {
+                write(doc);
+            }
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testParentsBeforeChildren() throws Exception {
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        TreeReader reader = new TreeReader(5);
+        ParallelDocumentPipeImpl pipe = new ParallelDocumentPipeImpl(3, 4, 4, 2, false);
+        pipe.setReader(reader);
+        pipe.setWriterFactory(params -> new CheckingWriter(written), null);
+        pipe.addTransformer(doc -> true);
+        pipe.run();
+        int total = reader.docs.size();
+        assertEquals(total, written.size());
+        assertEquals(total, pipe.getReadCount());
+        assertEquals(total, pipe.getTransformedCount());
+        assertEquals(total, pipe.getWrittenCount());
+        assertTrue(pipe.getThroughput() > 0);
+    }
+
+    @Test
+    public void testSingleWriter() throws Exception {
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        TreeReader reader = new TreeReader(3);
+        ParallelDocumentPipeImpl pipe = new ParallelDocumentPipeImpl(2, 2, 1, 1, false);
+        pipe.setReader(reader);
+        pipe.setWriter(new CheckingWriter(written));
+        pipe.run();
+        assertEquals(reader.docs.size(), written.size());
+    }
+
+    @Test
+    public void testErrorStopsPipe() throws Exception {
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        TreeReader reader = new TreeReader(3);
+        ParallelDocumentPipeImpl pipe = new ParallelDocumentPipeImpl(2, 2, 2, 2, false);
+        pipe.setReader(reader);
+        pipe.setWriterFactory(params -> new CheckingWriter(written) {
+            @Override
+            public DocumentTranslationMap write(ExportedDocument doc) throws IOException {
+                if (doc.getPath().segmentCount() == 3) {
+                    throw new IOException("fail");
+                }
+                return super.write(doc);
+            }
+        }, null);
+        try {
+            pipe.run();
+            fail();
+        } catch (IOException e) {
+            assertEquals("fail", e.getMessage());
+        }
+        assertTrue(pipe.getWrittenCount() < reader.docs.size());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailedTransformReleasesDependentBatches() throws Exception {
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        TreeReader reader = new TreeReader(3);
+        ParallelDocumentPipeImpl pipe = new ParallelDocumentPipeImpl(1, 2, 2, 2, false);
+        pipe.setReader(reader);
+        pipe.setWriterFactory(params -> new CheckingWriter(written), null);
+        pipe.addTransformer(doc -> {
+            if (doc.getPath().segmentCount() == 1) {
+                // not caught by the transformer thread, fails the transformation future
+                throw new AssertionError("root");
+            }
+            return true;
+        });
+        try {
+            pipe.run();
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof AssertionError);
+        }
+        assertEquals(0, pipe.getWrittenCount());
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.schema;
+
+import java.io.Serializable;
+
+/**
+ * A compiled field xpath, such as {@code dc:title} or {@code files:files/0/file}.
+ * <p>
+ * The xpath is split once and its list indexes are replaced by {@code *}, as they don't change the resolved field.
+ * Resolving a compiled path with {@link SchemaManager#getField(FieldPath)} caches the field by this key, so that the
+ * xpaths of all the items of a list share one cache entry. Callers resolving the same xpath many times should compile
+ * it once.
+ *
+ * @since 7.3
+ */
+public final class FieldPath implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String ANY_INDEX = "*";
+
+    private final String xpath;
+
+    private final String[] segments;
+
+    private final String key;
+
+    private FieldPath(String xpath, String[] segments, String key) {
+        this.xpath = xpath;
+        this.segments = segments;
+        this.key = key;
+    }
+
+    /**
+     * Compiles the given xpath.
+     */
+    public static FieldPath compile(String xpath) {
+        if (xpath == null) {
+            throw new IllegalArgumentException("Invalid null xpath");
+        }
+        String[] segments = xpath.split("/");
+        StringBuilder buf = new StringBuilder(xpath.length());
+        for (int i = 0; i < segments.length; i++) {
+            String segment = isIndex(segments[i]) ? ANY_INDEX : segments[i];
+            segments[i] = segment;
+            if (i > 0) {
+                buf.append('/');
+            }
+            buf.append(segment);
+        }
+        return new FieldPath(xpath, segments, buf.toString());
+    }
+
+    /**
+     * Checks if a path segment is a list index, either {@code *} or a number.
+     */
+    public static boolean isIndex(String segment) {
+        if (ANY_INDEX.equals(segment)) {
+            return true;
+        }
+        int len = segment.length();
+        if (len == 0 || len > 11) {
+            return false;
+        }
+        char c = segment.charAt(0);
+        if ((c < '0' || c > '9') && c != '-' && c != '+') {
+            return false;
+        }
+        try {
+            Integer.parseInt(segment);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the xpath this path was compiled from.
+     */
+    public String getXPath() {
+        return xpath;
+    }
+
+    /**
+     * Gets the segments of the path, list indexes being replaced by {@code *}.
+     */
+    public String[] getSegments() {
+        return segments.clone();
+    }
+
+    /**
+     * Gets the number of segments of the path.
+     */
+    public int getSegmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * Gets the segment at the given position, a list index being returned as {@code *}.
+     */
+    public String getSegment(int i) {
+        return segments[i];
+    }
+
+    /**
+     * Gets the xpath where list indexes are replaced by {@code *}, identifying the resolved field.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof FieldPath)) {
+            return false;
+        }
+        return xpath.equals(((FieldPath) obj).xpath);
+    }
+
+    @Override
+    public int hashCode() {
+        return xpath.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return xpath;
+    }
+
+}
@@ -27,6 +27,13 @@ public interface SchemaManager extends TypeProvider {
      */
     Field getField(String xpath);
 
+    /**
+     * Returns the field with given compiled xpath, or null if not found.
+     *
+     * @since 7.3
+     */
+    Field getField(FieldPath path);
+
     /**
      * Returns the field with given parent field and sub name, or null if not found.
      *
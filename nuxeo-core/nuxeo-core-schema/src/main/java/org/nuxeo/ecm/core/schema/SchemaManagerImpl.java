@@ -109,8 +109,11 @@ public class SchemaManagerImpl implements SchemaManager {
     /** Effective proxy schema names. */
     protected Set<String> proxySchemaNames = new HashSet<String>();
 
-    /** Fields computed lazily. */
-    private Map<String, Field> fields = new ConcurrentHashMap<String, Field>();
+    /** Top-level fields by prefixed xpath, rebuilt on recompute, with interned keys. */
+    protected volatile Map<String, Field> fieldIndex = Collections.emptyMap();
+
+    /** Fields of complex xpaths by xpath or compiled path key, filled lazily. */
+    protected final Map<String, Field> pathFields = new ConcurrentHashMap<String, Field>();
 
     private File schemaDir;
 
@@ -272,7 +275,7 @@ public class SchemaManagerImpl implements SchemaManager {
         recomputeFacets(); // depend on schemas
         recomputeDocumentTypes(); // depend on schemas and facets
         recomputeProxies(); // depend on schemas
-        fields.clear(); // re-filled lazily
+        recomputeFields(); // depend on schemas
     }
 
     /*
@@ -671,41 +674,103 @@ public class SchemaManagerImpl implements SchemaManager {
      * ===== Fields =====
      */
 
+    protected void recomputeFields() {
+        Map<String, Field> index = new HashMap<String, Field>();
+        // prefixes have precedence over schema names
+        for (Schema schema : schemas.values()) {
+            indexFields(index, schema.getName(), schema);
+        }
+        for (Schema schema : schemas.values()) {
+            String prefix = schema.getNamespace().prefix;
+            if (!StringUtils.isBlank(prefix)) {
+                indexFields(index, prefix, schema);
+            }
+        }
+        fieldIndex = Collections.unmodifiableMap(index);
+        pathFields.clear(); // re-filled lazily
+    }
+
+    protected void indexFields(Map<String, Field> index, String prefix, Schema schema) {
+        for (Field field : schema.getFields()) {
+            index.put((prefix + ':' + field.getName().getLocalName()).intern(), field);
+        }
+    }
+
     @Override
     public Field getField(String xpath) {
         checkDirty();
-        Field field = null;
-        if (xpath != null && xpath.contains("/")) {
-            // need to resolve subfields
-            String[] properties = xpath.split("/");
-            Field resolvedField = getField(properties[0]);
-            for (int x = 1; x < properties.length; x++) {
-                if (resolvedField == null) {
-                    break;
-                }
-                resolvedField = getField(resolvedField, properties[x], x == properties.length - 1);
-            }
-            if (resolvedField != null) {
-                field = resolvedField;
-            }
-        } else {
-            field = fields.get(xpath);
-            if (field == null) {
-                QName qname = QName.valueOf(xpath);
-                String prefix = qname.getPrefix();
-                Schema schema = getSchemaFromPrefix(prefix);
-                if (schema == null) {
-                    // try using the name
-                    schema = getSchema(prefix);
-                }
-                if (schema != null) {
-                    field = schema.getField(qname.getLocalName());
-                    if (field != null) {
-                        // map is concurrent so parallelism is ok
-                        fields.put(xpath, field);
-                    }
-                }
+        if (xpath == null) {
+            return null;
+        }
+        Field field = fieldIndex.get(xpath);
+        if (field != null) {
+            return field;
+        }
+        if (xpath.indexOf('/') == -1) {
+            return getTopLevelField(xpath);
+        }
+        field = pathFields.get(xpath);
+        if (field != null) {
+            return field;
+        }
+        field = resolveField(xpath.split("/"));
+        if (field != null) {
+            // map is concurrent so parallelism is ok
+            pathFields.put(xpath, field);
+        }
+        return field;
+    }
+
+    @Override
+    public Field getField(FieldPath path) {
+        checkDirty();
+        Field field = fieldIndex.get(path.getKey());
+        if (field != null) {
+            return field;
+        }
+        field = pathFields.get(path.getKey());
+        if (field != null) {
+            return field;
+        }
+        field = resolveField(path.getSegments());
+        if (field != null && path.getSegmentCount() > 1) {
+            // map is concurrent so parallelism is ok
+            pathFields.put(path.getKey(), field);
+        }
+        return field;
+    }
+
+    /**
+     * Resolves the field of an xpath split into segments, list indexes being numbers or {@code *}.
+     */
+    protected Field resolveField(String[] segments) {
+        Field resolvedField = getTopLevelField(segments[0]);
+        for (int x = 1; x < segments.length; x++) {
+            if (resolvedField == null) {
+                break;
             }
+            resolvedField = getField(resolvedField, segments[x], x == segments.length - 1);
+        }
+        return resolvedField;
+    }
+
+    /**
+     * Resolves an xpath without subfields that is not in the index.
+     */
+    protected Field getTopLevelField(String xpath) {
+        Field field = fieldIndex.get(xpath);
+        if (field != null) {
+            return field;
+        }
+        QName qname = QName.valueOf(xpath);
+        String prefix = qname.getPrefix();
+        Schema schema = getSchemaFromPrefix(prefix);
+        if (schema == null) {
+            // try using the name
+            schema = getSchema(prefix);
+        }
+        if (schema != null) {
+            field = schema.getField(qname.getLocalName());
         }
         return field;
     }
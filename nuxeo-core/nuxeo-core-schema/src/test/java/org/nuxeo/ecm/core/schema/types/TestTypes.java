@@ -21,6 +21,7 @@ import org.junit.Before;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
+import org.nuxeo.ecm.core.schema.FieldPath;
 import org.nuxeo.ecm.core.schema.Namespace;
 import org.nuxeo.ecm.core.schema.SchemaManager;
 import org.nuxeo.ecm.core.schema.SchemaNames;
@@ -341,6 +342,28 @@ public class TestTypes extends NXRuntimeTestCase {
         assertEquals("stringList", field.getType().getName());
     }
 
+    @Test
+    public void testFieldFromCompiledXpath() throws Exception {
+        deployTestContrib("org.nuxeo.ecm.core.schema", "OSGI-INF/test-advanced-schema.xml");
+        SchemaManager sm = Framework.getService(SchemaManager.class);
+        FieldPath path = FieldPath.compile("tp:complexList/0/stringItem");
+        assertEquals("tp:complexList/*/stringItem", path.getKey());
+        assertEquals(3, path.getSegmentCount());
+        assertEquals("*", path.getSegment(1));
+        assertEquals("tp:complexList/0/stringItem", path.getXPath());
+        for (String xpath : new String[] { "tp:foo", "dc:title", "dublincore:title", "tp:stringArray/1",
+                "tp:complexChain/complexItem", "tp:complexList/12/stringItem", "tp:listOfLists/*/stringListItem/0",
+                "tp:listOfLists/stringListItem", "tp:complexList/-/stringItem", "/dc:title", "0" }) {
+            Field field = sm.getField(xpath);
+            assertSame(xpath, field, sm.getField(FieldPath.compile(xpath)));
+            // cached
+            assertSame(xpath, field, sm.getField(xpath));
+        }
+        assertSame(sm.getField("dc:title"), sm.getField("dublincore:title"));
+        assertNull(sm.getField("title"));
+        assertNull(sm.getField((String) null));
+    }
+
     @Test
     public void testSchemaFromType() throws Exception {
         deployTestContrib("org.nuxeo.ecm.core.schema", "OSGI-INF/test-advanced-schema.xml");
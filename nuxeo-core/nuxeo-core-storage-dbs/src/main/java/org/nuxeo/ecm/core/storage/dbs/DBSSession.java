@@ -337,6 +337,23 @@ public class DBSSession implements Session {
         throw new NoSuchDocumentException(id);
     }
 
+    @Override
+    public List<Document> getDocumentsByUUID(List<String> ids, String schema) throws DocumentException {
+        // the states hold all the schemas, read them at once
+        // ids may come from a stale index, missing documents are expected
+        List<DBSDocumentState> docStates = transaction.getStatesForUpdate(ids, true);
+        Map<String, DBSDocumentState> statesById = new HashMap<String, DBSDocumentState>(docStates.size());
+        for (DBSDocumentState docState : docStates) {
+            statesById.put(docState.getId(), docState);
+        }
+        List<Document> docs = new ArrayList<Document>(ids.size());
+        for (String id : ids) {
+            // null if not found
+            docs.add(getDocument(statesById.get(id)));
+        }
+        return docs;
+    }
+
     @Override
     public Document getRootDocument() throws DocumentException {
         return getDocument(getRootId());
@@ -173,6 +173,18 @@ public class DBSTransactionState {
      * modified).
      */
     public List<DBSDocumentState> getStatesForUpdate(List<String> ids) {
+        return getStatesForUpdate(ids, false);
+    }
+
+    /**
+     * Returns states and marks them transient, because they're about to be returned to user code (where they may be
+     * modified).
+     *
+     * @param ids the ids of the states
+     * @param ignoreMissing whether ids not found are expected and silently skipped
+     * @since 7.3
+     */
+    public List<DBSDocumentState> getStatesForUpdate(List<String> ids, boolean ignoreMissing) {
         // check which ones we have to fetch from repository
         List<String> idsToFetch = new LinkedList<String>();
         for (String id : ids) {
@@ -196,7 +208,7 @@ public class DBSTransactionState {
             DBSDocumentState docState = transientStates.get(id);
             if (docState != null) {
                 docStates.add(docState);
-            } else {
+            } else if (!ignoreMissing) {
                 log.warn("Cannot fetch document with id: " + id, new Throwable("debug stack trace"));
             }
         }
@@ -189,6 +189,11 @@ public class ConnectionImpl implements Session {
         return getSession().getNodesByIds(ids);
     }
 
+    @Override
+    public void prefetchSchema(List<Node> nodes, String schemaName) throws StorageException {
+        getSession().prefetchSchema(nodes, schemaName);
+    }
+
     @Override
     public Node getNodeByPath(String path, Node node) throws StorageException {
         return getSession().getNodeByPath(path, node);
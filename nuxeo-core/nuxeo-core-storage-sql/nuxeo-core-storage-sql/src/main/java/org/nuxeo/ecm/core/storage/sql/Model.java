@@ -364,6 +364,9 @@ public class Model {
     /** Column ordering for collections. */
     private final Map<String, String> collectionOrderBy;
 
+    /** Collection table names whose values are indexed. */
+    private final Set<String> indexedCollectionTables;
+
     // -------------------------------------------------------
 
     /**
@@ -459,6 +462,7 @@ public class Model {
 
         collectionTables = new HashMap<String, PropertyType>();
         collectionOrderBy = new HashMap<String, String>();
+        indexedCollectionTables = new HashSet<String>();
 
         schemaFragments = new HashMap<String, Set<String>>();
         typeFragments = new HashMap<String, Set<String>>();
@@ -1044,6 +1048,15 @@ public class Model {
         return collectionTables.containsKey(fragmentName);
     }
 
+    /**
+     * Checks if the values of a collection fragment are indexed.
+     *
+     * @since 7.3
+     */
+    public boolean isCollectionFragmentIndexed(String fragmentName) {
+        return indexedCollectionTables.contains(fragmentName);
+    }
+
     public String getCollectionOrderBy(String fragmentName) {
         return collectionOrderBy.get(fragmentName);
     }
@@ -1095,6 +1108,15 @@ public class Model {
         return docTypePrefetchedFragments.get(typeName);
     }
 
+    /**
+     * Gets the simple+collection fragments for a schema.
+     *
+     * @since 7.3
+     */
+    public Set<String> getSchemaFragments(String schemaName) {
+        return schemaFragments.get(schemaName);
+    }
+
     /**
      * Checks if we have a type (doctype or complex type).
      */
@@ -1562,7 +1584,7 @@ public class Model {
                                             + " as largetext, using CLOB for it");
                                 }
                                 columnType = ColumnType.CLOB;
-                            } else {
+                            } else if (fieldDescriptor.type != null) {
                                 log.warn("  Field '" + propertyName + "' specified but not successfully mapped");
                             }
                         }
@@ -1581,6 +1603,10 @@ public class Model {
                             addPropertyInfo(complexType, propertyName, propertyType, fragmentName, fragmentKey, false,
                                     null, columnType);
                             addFieldFragment(field, fragmentName);
+                            if (Boolean.TRUE.equals(fieldDescriptor.indexed)) {
+                                log.warn("  Field '" + propertyName + "' index specification is ignored since"
+                                        + " it is stored in an array column");
+                            }
                         } else {
                             /*
                              * Array: use a collection table.
@@ -1593,6 +1619,9 @@ public class Model {
                             keysType.put(COLL_TABLE_POS_KEY, ColumnType.INTEGER);
                             keysType.put(COLL_TABLE_VALUE_KEY, columnType);
                             addCollectionFragmentInfos(fragmentName, propertyType, COLL_TABLE_POS_KEY, keysType);
+                            if (fieldDescriptor != null && Boolean.TRUE.equals(fieldDescriptor.indexed)) {
+                                indexedCollectionTables.add(fragmentName);
+                            }
 
                             fragmentNames.add(fragmentName);
                             addFieldFragment(field, fragmentName);
@@ -115,6 +115,7 @@ public class RepositoryDescriptor {
             field = other.field;
             table = other.table;
             column = other.column;
+            indexed = other.indexed;
         }
 
         public static List<FieldDescriptor> copyList(List<FieldDescriptor> other) {
@@ -138,6 +139,9 @@ public class RepositoryDescriptor {
             if (other.column != null) {
                 column = other.column;
             }
+            if (other.indexed != null) {
+                indexed = other.indexed;
+            }
         }
 
         @XNode("@type")
@@ -164,10 +168,18 @@ public class RepositoryDescriptor {
         @XNode("@column")
         public String column;
 
+        /**
+         * Whether the values of a list field stored in a collection table are indexed, to query its members.
+         *
+         * @since 7.3
+         */
+        @XNode("@indexed")
+        public Boolean indexed;
+
         @Override
         public String toString() {
             return this.getClass().getSimpleName() + '(' + field + ",type=" + type + ",table=" + table + ",column="
-                    + column + ")";
+                    + column + ",indexed=" + indexed + ")";
         }
     }
 
@@ -99,6 +99,17 @@ public interface Session extends Connection {
      */
     List<Node> getNodesByIds(List<Serializable> ids) throws StorageException;
 
+    /**
+     * Fetches together the simple and collection fragments of a schema for several nodes, so that reading the schema
+     * on each of them is then done from the cache.
+     *
+     * @param nodes the nodes
+     * @param schemaName the schema name
+     * @throws StorageException
+     * @since 7.3
+     */
+    void prefetchSchema(List<Node> nodes, String schemaName) throws StorageException;
+
     /**
      * Gets a node given its absolute path, or given an existing node and a relative path.
      *
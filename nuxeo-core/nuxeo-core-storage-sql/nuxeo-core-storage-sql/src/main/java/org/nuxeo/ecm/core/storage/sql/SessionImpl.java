@@ -751,6 +751,23 @@ public class SessionImpl implements Session, XAResource {
         return getNodesByIds(ids, true);
     }
 
+    @Override
+    public void prefetchSchema(List<Node> nodes, String schemaName) throws StorageException {
+        checkLive();
+        Set<String> fragmentNames = model.getSchemaFragments(schemaName);
+        if (fragmentNames == null || fragmentNames.isEmpty() || nodes.isEmpty()) {
+            return;
+        }
+        List<RowId> rowIds = new ArrayList<RowId>(nodes.size() * fragmentNames.size());
+        for (Node node : nodes) {
+            for (String fragmentName : fragmentNames) {
+                rowIds.add(new RowId(fragmentName, node.getId()));
+            }
+        }
+        // the fragments are recorded in the context, where the nodes will find them
+        context.getMulti(rowIds, true);
+    }
+
     @Override
     public Node getParentNode(Node node) throws StorageException {
         checkLive();
@@ -214,6 +214,34 @@ public class SQLSession implements Session {
         return doc;
     }
 
+    @Override
+    public List<Document> getDocumentsByUUID(List<String> uuids, String schema) throws DocumentException {
+        List<Serializable> ids = new ArrayList<Serializable>(uuids.size());
+        for (String uuid : uuids) {
+            ids.add(idFromString(uuid));
+        }
+        try {
+            List<Node> nodes = session.getNodesByIds(ids);
+            List<Document> docs = new ArrayList<Document>(nodes.size());
+            List<Node> schemaNodes = new ArrayList<Node>(nodes.size());
+            for (Node node : nodes) {
+                Document doc = newDocument(node);
+                docs.add(doc);
+                if (doc != null) {
+                    // the schema of a proxy is read from its target
+                    Document target = doc.isProxy() ? ((SQLDocumentProxy) doc).getTargetDocument() : doc;
+                    schemaNodes.add(((SQLDocument) target).getNode());
+                }
+            }
+            if (schema != null) {
+                session.prefetchSchema(schemaNodes, schema);
+            }
+            return docs;
+        } catch (StorageException e) {
+            throw new DocumentException("Failed to get documents: " + uuids, e);
+        }
+    }
+
     @Override
     public Document resolvePath(String path) throws DocumentException {
         if (path.endsWith("/") && path.length() > 1) {
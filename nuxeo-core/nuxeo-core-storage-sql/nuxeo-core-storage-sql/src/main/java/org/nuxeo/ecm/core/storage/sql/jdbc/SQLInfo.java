@@ -755,6 +755,9 @@ public class SQLInfo {
         }
         maker.newColumn(model.MAIN_KEY, type);
         maker.newFragmentFields();
+        if (model.isCollectionFragmentIndexed(tableName)) {
+            maker.table.addIndex(model.COLL_TABLE_VALUE_KEY);
+        }
         maker.postProcess();
         // if (isMain)
         // maker.postProcessIdGeneration();
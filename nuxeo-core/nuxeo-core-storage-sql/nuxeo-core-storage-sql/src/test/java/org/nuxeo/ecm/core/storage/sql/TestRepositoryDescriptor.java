@@ -121,6 +121,7 @@ public class TestRepositoryDescriptor {
         assertEquals("xyz", fd.type);
         assertNull(fd.table);
         assertNull(fd.column);
+        assertNull(fd.indexed);
         fd = desc.schemaFields.get(2);
         assertEquals("bar", fd.field);
         assertEquals("bartype", fd.type);
@@ -154,6 +155,7 @@ public class TestRepositoryDescriptor {
         fd = desc.schemaFields.get(1);
         assertEquals("foo", fd.field);
         assertEquals("xyz", fd.type);
+        assertEquals(Boolean.TRUE, fd.indexed);
         fd = desc.schemaFields.get(2);
         assertEquals("bar", fd.field);
         assertEquals("bartype2", fd.type);
@@ -43,6 +43,7 @@ import org.nuxeo.ecm.core.api.model.Delta;
 import org.nuxeo.ecm.core.api.model.Property;
 import org.nuxeo.ecm.core.api.model.PropertyException;
 import org.nuxeo.ecm.core.api.model.PropertyNotFoundException;
+import org.nuxeo.ecm.core.api.model.impl.CompactDocumentPartImpl;
 import org.nuxeo.ecm.core.api.model.impl.ComplexProperty;
 import org.nuxeo.ecm.core.api.model.impl.ScalarProperty;
 import org.nuxeo.ecm.core.api.model.impl.primitives.BlobProperty;
@@ -622,6 +623,14 @@ public abstract class BaseDocument<T extends StateAccessor> implements Document
             complexProperty.init((Serializable) blob);
             return;
         }
+        if (complexProperty instanceof CompactDocumentPartImpl) {
+            // values only, the properties are created on access
+            CompactDocumentPartImpl part = (CompactDocumentPartImpl) complexProperty;
+            for (Field field : part.getType().getFields()) {
+                part.initValue(field, readValueField(state, field));
+            }
+            return;
+        }
         for (Property property : complexProperty) {
             String name = property.getField().getName().getPrefixedName();
             name = internalName(name);
@@ -663,6 +672,57 @@ public abstract class BaseDocument<T extends StateAccessor> implements Document
         }
     }
 
+    /**
+     * Reads the value of a field from the state, as accepted by {@link Property#init}.
+     *
+     * @since 7.3
+     */
+    protected Serializable readValueField(T state, Field field) throws PropertyException {
+        String name = internalName(field.getName().getPrefixedName());
+        Type type = field.getType();
+        if (type.isSimpleType()) {
+            Object value = state.getSingle(name);
+            if (value instanceof Delta) {
+                value = ((Delta) value).getFullValue();
+            }
+            return (Serializable) value;
+        } else if (type.isComplexType()) {
+            T childState = getChild(state, name, type);
+            return readValueComplex(childState, (ComplexType) type);
+        } else {
+            ListType listType = (ListType) type;
+            Type fieldType = listType.getFieldType();
+            if (fieldType.isSimpleType()) {
+                // array
+                return typedArray(fieldType, state.getArray(name));
+            } else {
+                // complex list
+                List<T> childStates = getChildAsList(state, name);
+                ArrayList<Serializable> list = new ArrayList<>(childStates.size());
+                for (T childState : childStates) {
+                    list.add(readValueComplex(childState, (ComplexType) fieldType));
+                }
+                return list;
+            }
+        }
+    }
+
+    protected Serializable readValueComplex(T state, ComplexType complexType) throws PropertyException {
+        if (TypeConstants.isContentType(complexType)) {
+            return state == null ? null : (Serializable) getValueBlob(state);
+        }
+        HashMap<String, Serializable> map = new HashMap<>();
+        if (state != null) {
+            for (Field field : complexType.getFields()) {
+                Serializable value = readValueField(state, field);
+                if (value != null) {
+                    map.put(field.getName().getPrefixedName(), value);
+                }
+            }
+        }
+        return map;
+    }
+
     protected static class BlobWriteContext<T extends StateAccessor> implements WriteContext {
 
         public final Map<BaseDocument<T>, List<Pair<T, Blob>>> blobWriteInfosPerDoc = new HashMap<>();
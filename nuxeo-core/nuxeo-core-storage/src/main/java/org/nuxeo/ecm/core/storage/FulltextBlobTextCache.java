@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.core.storage;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.runtime.api.Framework;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Bounded cache of the text extracted from blobs, keyed by blob digest.
+ * <p>
+ * When the same file is attached to many documents (or proxies, or versions), the {@link FulltextExtractorWork} for
+ * each of them finds the text already extracted. Concurrent extractions of the same digest are coalesced: only one
+ * thread runs the converters, the others wait for its result.
+ * <p>
+ * The cache is bounded by the total number of characters it holds, configured through
+ * {@value #MAX_CHARS_PROP}, and entries expire after {@value #EXPIRE_MINUTES_PROP} minutes.
+ *
+ * @since 7.3
+ */
+public class FulltextBlobTextCache {
+
+    private static final Log log = LogFactory.getLog(FulltextBlobTextCache.class);
+
+    public static final String MAX_CHARS_PROP = "org.nuxeo.fulltext.extractor.cache.maxChars";
+
+    public static final String EXPIRE_MINUTES_PROP = "org.nuxeo.fulltext.extractor.cache.expireMinutes";
+
+    public static final long DEFAULT_MAX_CHARS = 20 * 1024 * 1024;
+
+    public static final long DEFAULT_EXPIRE_MINUTES = 10;
+
+    private static volatile FulltextBlobTextCache instance;
+
+    protected final Cache<String, String> cache;
+
+    public static FulltextBlobTextCache getInstance() {
+        if (instance == null) {
+            synchronized (FulltextBlobTextCache.class) {
+                if (instance == null) {
+                    instance = new FulltextBlobTextCache(getLongProperty(MAX_CHARS_PROP, DEFAULT_MAX_CHARS),
+                            getLongProperty(EXPIRE_MINUTES_PROP, DEFAULT_EXPIRE_MINUTES));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Resets the shared instance, so that it is recreated from the current configuration.
+     */
+    public static void reset() {
+        instance = null;
+    }
+
+    protected static long getLongProperty(String name, long def) {
+        String value = Framework.getProperty(name);
+        if (StringUtils.isBlank(value)) {
+            return def;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            log.error("Invalid value for " + name + ": " + value);
+            return def;
+        }
+    }
+
+    public FulltextBlobTextCache(long maxChars, long expireMinutes) {
+        cache = CacheBuilder.newBuilder() //
+                            .maximumWeight(maxChars) //
+                            .weigher(new Weigher<String, String>() {
+                                @Override
+                                public int weigh(String key, String value) {
+                                    return value.length();
+                                }
+                            }) //
+                            .expireAfterAccess(expireMinutes, TimeUnit.MINUTES) //
+                            .build();
+    }
+
+    /**
+     * Gets the text for the given key, computing it with the given extractor if it is not cached yet.
+     *
+     * @param key the cache key, derived from the blob digest
+     * @param extractor the extractor to call if the text is not cached
+     * @return the extracted text
+     * @throws IOException if the extractor failed with an {@link IOException} or another checked exception
+     */
+    public String get(String key, Callable<String> extractor) throws IOException {
+        try {
+            return cache.get(key, extractor);
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            // unwrap the failure of the extractor, which is not cached
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+}
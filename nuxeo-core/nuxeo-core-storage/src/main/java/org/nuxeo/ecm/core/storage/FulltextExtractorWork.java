@@ -12,13 +12,22 @@
  */
 package org.nuxeo.ecm.core.storage;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.io.IOException;
-import java.util.LinkedList;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.nuxeo.common.utils.BoundedWriter;
 import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.ClientException;
 import org.nuxeo.ecm.core.api.DocumentModel;
@@ -56,6 +65,19 @@ public abstract class FulltextExtractorWork extends AbstractWork {
 
     protected static final String TITLE = "fulltextExtractor";
 
+    /**
+     * Framework property holding the maximum number of characters extracted from the blobs of a document for one
+     * fulltext index. A negative value, the default, means no limit.
+     *
+     * @since 7.3
+     */
+    public static final String MAX_TEXT_LENGTH_PROP = "org.nuxeo.fulltext.extractor.maxTextLength";
+
+    /** @since 7.3 */
+    public static final long DEFAULT_MAX_TEXT_LENGTH = -1;
+
+    protected static final int BUFFER_SIZE = 8192;
+
     protected final boolean excludeProxies;
 
     protected transient FulltextConfiguration fulltextConfiguration;
@@ -122,7 +144,7 @@ public abstract class FulltextExtractorWork extends AbstractWork {
 
         // Iterate on each index to set the binaryText column
         BlobsExtractor extractor = new BlobsExtractor();
-        List<IndexAndText> indexesAndText = new LinkedList<IndexAndText>();
+        List<IndexAndText> indexesAndText = new ArrayList<IndexAndText>();
         for (String indexName : fulltextConfiguration.indexNames) {
             if (!fulltextConfiguration.indexesAllBinary.contains(indexName)
                     && fulltextConfiguration.propPathsByIndexBinary.get(indexName) == null) {
@@ -152,24 +174,52 @@ public abstract class FulltextExtractorWork extends AbstractWork {
     }
 
     protected String blobsToText(List<Blob> blobs, String docId) {
-        List<String> strings = new LinkedList<String>();
+        StringWriter sw = new StringWriter();
+        BoundedWriter writer = new BoundedWriter(sw, getMaxTextLength(), false);
+        blobsToText(blobs, docId, writer);
+        if (writer.isTruncated()) {
+            log.debug("Fulltext of document: " + docId + " truncated to " + writer.getCount() + " characters");
+        }
+        return sw.toString();
+    }
+
+    /**
+     * Extracts the text of the blobs and streams it to the given writer, blob texts being separated by a space.
+     * <p>
+     * Extraction stops as soon as the writer has reached its limit, and the remaining space is passed to the
+     * converters so that they can stop early as well.
+     * <p>
+     * The text of blobs having a digest is shared through the {@link FulltextBlobTextCache}, so that a file attached to
+     * many documents is only extracted once. The mime type is part of the key as it selects the converter.
+     *
+     * @since 7.3
+     */
+    protected void blobsToText(List<Blob> blobs, String docId, BoundedWriter writer) {
+        FulltextBlobTextCache cache = getBlobTextCache();
+        long maxTextLength = getMaxTextLength();
         for (Blob blob : blobs) {
+            if (writer.getRemaining() <= 0) {
+                break;
+            }
+            boolean separator = writer.getCount() > 0;
             try {
-                SimpleBlobHolder bh = new SimpleBlobHolder(blob);
-                BlobHolder result = convert(bh);
-                if (result == null) {
-                    continue;
-                }
-                blob = result.getBlob();
-                if (blob == null) {
+                String digest = blob.getDigest();
+                if (digest == null) {
+                    blobToText(blob, writer, separator);
                     continue;
                 }
-                String string = new String(blob.getByteArray(), "UTF-8");
-                // strip '\0 chars from text
-                if (string.indexOf('\0') >= 0) {
-                    string = string.replace("\0", " ");
+                String key = digest + ':' + blob.getMimeType() + ':' + maxTextLength;
+                String text = cache.get(key, () -> {
+                    StringWriter sw = new StringWriter();
+                    blobToText(blob, new BoundedWriter(sw, maxTextLength, false), false);
+                    return sw.toString();
+                });
+                if (!text.isEmpty()) {
+                    if (separator) {
+                        writer.write(' ');
+                    }
+                    writer.write(text);
                 }
-                strings.add(string);
             } catch (ClientException | IOException e) {
                 String msg = "Could not extract fulltext of file '" + blob.getFilename() + "' for document: " + docId
                         + ": " + e;
@@ -178,16 +228,91 @@ public abstract class FulltextExtractorWork extends AbstractWork {
                 continue;
             }
         }
-        return StringUtils.join(strings, " ");
+    }
+
+    /**
+     * Gets the cache sharing the text extracted from blobs.
+     *
+     * @since 7.3
+     */
+    protected FulltextBlobTextCache getBlobTextCache() {
+        return FulltextBlobTextCache.getInstance();
+    }
+
+    /**
+     * Converts one blob to text and streams the result to the given writer.
+     *
+     * @param separator whether to write a separating space before the text
+     * @return {@code true} if some text was written
+     * @since 7.3
+     */
+    protected boolean blobToText(Blob blob, BoundedWriter writer, boolean separator) throws IOException {
+        SimpleBlobHolder bh = new SimpleBlobHolder(blob);
+        Map<String, Serializable> parameters = new HashMap<String, Serializable>();
+        if (writer.getRemaining() != Long.MAX_VALUE) {
+            parameters.put(ConversionService.MAX_TEXT_LENGTH, Long.valueOf(writer.getRemaining()));
+        }
+        BlobHolder result = convert(bh, parameters);
+        if (result == null) {
+            return false;
+        }
+        Blob text = result.getBlob();
+        if (text == null) {
+            return false;
+        }
+        if (separator) {
+            writer.write(' ');
+        }
+        char[] buf = new char[BUFFER_SIZE];
+        try (Reader reader = new InputStreamReader(text.getStream(), UTF_8)) {
+            int n;
+            while (writer.getRemaining() > 0 && (n = reader.read(buf)) != -1) {
+                // strip '\0 chars from text
+                for (int i = 0; i < n; i++) {
+                    if (buf[i] == '\0') {
+                        buf[i] = ' ';
+                    }
+                }
+                writer.write(buf, 0, n);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the maximum number of characters of binary fulltext extracted for one index of a document, or -1 for no
+     * limit.
+     *
+     * @since 7.3
+     */
+    protected long getMaxTextLength() {
+        String max = Framework.getProperty(MAX_TEXT_LENGTH_PROP);
+        if (StringUtils.isBlank(max)) {
+            return DEFAULT_MAX_TEXT_LENGTH;
+        }
+        try {
+            return Long.parseLong(max.trim());
+        } catch (NumberFormatException e) {
+            log.error("Invalid value for " + MAX_TEXT_LENGTH_PROP + ": " + max);
+            return DEFAULT_MAX_TEXT_LENGTH;
+        }
     }
 
     protected BlobHolder convert(BlobHolder blobHolder) throws ConversionException {
+        return convert(blobHolder, null);
+    }
+
+    /**
+     * @since 7.3
+     */
+    protected BlobHolder convert(BlobHolder blobHolder, Map<String, Serializable> parameters)
+            throws ConversionException {
         ConversionService conversionService = Framework.getLocalService(ConversionService.class);
         if (conversionService == null) {
             log.debug("No ConversionService available");
             return null;
         }
-        return conversionService.convert(ANY2TEXT, blobHolder, null);
+        return conversionService.convert(ANY2TEXT, blobHolder, parameters);
     }
 
 }
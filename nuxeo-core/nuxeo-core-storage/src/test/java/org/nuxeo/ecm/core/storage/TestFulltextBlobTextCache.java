@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.core.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TestFulltextBlobTextCache {
+
+    @Test
+    public void testExtractOncePerDigest() throws Exception {
+        FulltextBlobTextCache cache = new FulltextBlobTextCache(1000, 10);
+        AtomicInteger count = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            String text = cache.get("digest1", () -> {
+                count.incrementAndGet();
+                return "some text";
+            });
+            assertEquals("some text", text);
+        }
+        assertEquals(1, count.get());
+        cache.get("digest2", () -> {
+            count.incrementAndGet();
+            return "other text";
+        });
+        assertEquals(2, count.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testBoundedByChars() throws Exception {
+        FulltextBlobTextCache cache = new FulltextBlobTextCache(10, 10);
+        cache.get("digest1", () -> "0123456789");
+        cache.get("digest2", () -> "0123456789");
+        assertTrue(cache.size() < 2);
+    }
+
+    @Test
+    public void testFailureNotCached() throws Exception {
+        FulltextBlobTextCache cache = new FulltextBlobTextCache(1000, 10);
+        try {
+            cache.get("digest1", () -> {
+                throw new IOException("broken");
+            });
+            fail();
+        } catch (IOException e) {
+            assertEquals("broken", e.getMessage());
+        }
+        assertEquals(0, cache.size());
+        assertEquals("ok", cache.get("digest1", () -> "ok"));
+    }
+
+}
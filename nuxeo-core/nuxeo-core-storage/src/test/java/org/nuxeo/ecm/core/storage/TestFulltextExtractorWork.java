@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.core.storage;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.nuxeo.common.utils.BoundedWriter;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
+import org.nuxeo.ecm.core.api.blobholder.SimpleBlobHolder;
+import org.nuxeo.ecm.core.api.impl.blob.StringBlob;
+
+public class TestFulltextExtractorWork {
+
+    /**
+     * Extractor work counting the conversions, with no runtime needed.
+     */
+    protected static class CountingExtractorWork extends FulltextExtractorWork {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final FulltextBlobTextCache cache;
+
+        protected final AtomicInteger conversions;
+
+        public CountingExtractorWork(String docId, FulltextBlobTextCache cache, AtomicInteger conversions) {
+            super("test", docId, "extract:" + docId, false);
+            this.cache = cache;
+            this.conversions = conversions;
+        }
+
+        @Override
+        protected FulltextBlobTextCache getBlobTextCache() {
+            return cache;
+        }
+
+        @Override
+        protected long getMaxTextLength() {
+            return 1000;
+        }
+
+        @Override
+        protected BlobHolder convert(BlobHolder blobHolder, Map<String, Serializable> parameters) {
+            conversions.incrementAndGet();
+            try {
+                Blob blob = blobHolder.getBlob();
+                return new SimpleBlobHolder(new StringBlob(blob.getMimeType() + " " + blob.getString(), "text/plain",
+                        "UTF-8"));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        public String extract(Blob... blobs) {
+            StringWriter sw = new StringWriter();
+            blobsToText(Arrays.asList(blobs), docId, new BoundedWriter(sw, getMaxTextLength(), false));
+            return sw.toString();
+        }
+    }
+
+    protected static Blob newBlob(String content, String mimeType, String digest) {
+        StringBlob blob = new StringBlob(content, mimeType, "UTF-8");
+        blob.setDigest(digest);
+        return blob;
+    }
+
+    @Test
+    public void testBlobSharedByDocumentsExtractedOnce() throws Exception {
+        FulltextBlobTextCache cache = new FulltextBlobTextCache(1000, 10);
+        AtomicInteger conversions = new AtomicInteger();
+        Blob shared = newBlob("hello", "text/html", "digest1");
+        for (int i = 0; i < 5; i++) {
+            CountingExtractorWork work = new CountingExtractorWork("doc" + i, cache, conversions);
+            // each document has its own blob instance for the same stored file
+            String text = work.extract(newBlob("hello", "text/html", "digest1"), newBlob("doc" + i, "text/plain",
+                    null));
+            assertEquals("text/html hello text/plain doc" + i, text);
+        }
+        // the shared file was converted once, the blob with no digest each time
+        assertEquals(1 + 5, conversions.get());
+        assertEquals(1, cache.size());
+
+        // the same content read with another mime type is converted again
+        CountingExtractorWork work = new CountingExtractorWork("other", cache, conversions);
+        assertEquals("text/plain hello", work.extract(newBlob("hello", "text/plain", "digest1")));
+        assertEquals(7, conversions.get());
+        assertEquals("text/html hello", work.extract(shared));
+        assertEquals(7, conversions.get());
+    }
+
+}
@@ -58,6 +58,7 @@ import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.DocumentModelIterator;
 import org.nuxeo.ecm.core.api.DocumentModelList;
 import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.DocumentSecurityException;
 import org.nuxeo.ecm.core.api.Filter;
 import org.nuxeo.ecm.core.api.IdRef;
 import org.nuxeo.ecm.core.api.IterableQueryResult;
@@ -934,6 +935,62 @@ public class TestSQLRepositoryAPI {
         assertEquals("Folder", doc.getType());
     }
 
+    @Test
+    public void testGetDocumentsSkipsMissing() throws ClientException {
+        DocumentModel doc1 = session.createDocumentModel("/", "doc1", "File");
+        doc1 = session.createDocument(doc1);
+        DocumentModel doc2 = session.createDocumentModel("/", "doc2", "File");
+        doc2 = session.createDocument(doc2);
+        DocumentModel doc3 = session.createDocumentModel("/", "doc3", "File");
+        doc3 = session.createDocument(doc3);
+        session.save();
+        // ids from a stale index may reference removed documents
+        session.removeDocument(doc2.getRef());
+        session.save();
+
+        DocumentModelList docs = session.getDocuments(new DocumentRef[] { doc3.getRef(), doc2.getRef(),
+                new PathRef("/doc1") });
+        assertEquals(2, docs.size());
+        assertEquals(doc3.getId(), docs.get(0).getId());
+        assertEquals(doc1.getId(), docs.get(1).getId());
+    }
+
+    @Test
+    public void testGetDocumentsUnreadable() throws ClientException {
+        DocumentModel root = session.getRootDocument();
+        ACP acp = new ACPImpl();
+        ACL acl = new ACLImpl();
+        acl.add(new ACE("Administrator", "Everything", true));
+        acl.add(new ACE("bob", "Everything", true));
+        acp.addACL(acl);
+        root.setACP(acp, true);
+        DocumentModel doc1 = session.createDocumentModel("/", "doc1", "File");
+        doc1 = session.createDocument(doc1);
+        DocumentModel doc2 = session.createDocumentModel("/", "doc2", "File");
+        doc2 = session.createDocument(doc2);
+        // block bob on doc2
+        acp = new ACPImpl();
+        acl = new ACLImpl();
+        acl.add(new ACE("Administrator", "Everything", true));
+        acl.add(ACE.BLOCK);
+        acp.addACL(acl);
+        doc2.setACP(acp, true);
+        session.save();
+
+        DocumentRef[] refs = new DocumentRef[] { doc2.getRef(), doc1.getRef() };
+        try (CoreSession bobSession = openSessionAs("bob")) {
+            try {
+                bobSession.getDocuments(refs);
+                fail("bob should not read doc2");
+            } catch (DocumentSecurityException e) {
+                // ok
+            }
+            DocumentModelList docs = bobSession.getReadableDocuments(refs);
+            assertEquals(1, docs.size());
+            assertEquals(doc1.getId(), docs.get(0).getId());
+        }
+    }
+
     // TODO: fix this test.
     @Test
     @Ignore
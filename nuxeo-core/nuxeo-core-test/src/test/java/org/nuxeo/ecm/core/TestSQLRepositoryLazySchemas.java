@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import javax.inject.Inject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentModelFactory;
+import org.nuxeo.ecm.core.api.DocumentModelList;
+import org.nuxeo.ecm.core.api.PathRef;
+import org.nuxeo.ecm.core.api.impl.DocumentModelImpl;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.TransactionalFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+
+/**
+ * Tests that with lazy schemas, a schema accessed on a document of a list is loaded for all the documents of the list.
+ */
+@RunWith(FeaturesRunner.class)
+@Features({ TransactionalFeature.class, CoreFeature.class })
+@RepositoryConfig(cleanup = Granularity.METHOD)
+public class TestSQLRepositoryLazySchemas {
+
+    @Inject
+    protected CoreSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        Framework.getProperties().put(DocumentModelFactory.LAZY_SCHEMAS_PROPERTY, "true");
+        DocumentModel folder = session.createDocumentModel("/", "folder", "Folder");
+        session.createDocument(folder);
+        for (int i = 0; i < 3; i++) {
+            DocumentModel doc = session.createDocumentModel("/folder", "doc" + i, "File");
+            doc.setPropertyValue("dc:title", "title" + i);
+            session.createDocument(doc);
+        }
+        session.save();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Framework.getProperties().remove(DocumentModelFactory.LAZY_SCHEMAS_PROPERTY);
+    }
+
+    protected static boolean isSchemaLoaded(DocumentModel doc, String schema) {
+        return ((DocumentModelImpl) doc).isSchemaLoaded(schema);
+    }
+
+    protected void checkBatchLoading(DocumentModelList docs) throws Exception {
+        assertEquals(3, docs.size());
+        for (DocumentModel doc : docs) {
+            assertFalse(isSchemaLoaded(doc, "dublincore"));
+            assertFalse(isSchemaLoaded(doc, "file"));
+        }
+        assertEquals("title0", docs.get(0).getDataModel("dublincore").getData("title"));
+        for (DocumentModel doc : docs) {
+            assertTrue(isSchemaLoaded(doc, "dublincore"));
+            // untouched schemas stay unloaded
+            assertFalse(isSchemaLoaded(doc, "file"));
+        }
+        assertEquals("title1", docs.get(1).getDataModel("dublincore").getData("title"));
+        assertEquals("title2", docs.get(2).getDataModel("dublincore").getData("title"));
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        checkBatchLoading(session.query("SELECT * FROM File ORDER BY dc:title"));
+    }
+
+    @Test
+    public void testChildren() throws Exception {
+        DocumentModelList docs = session.getChildren(new PathRef("/folder"));
+        Collections.sort(docs, (a, b) -> a.getName().compareTo(b.getName()));
+        checkBatchLoading(docs);
+    }
+
+    @Test
+    public void testSingleDocument() throws Exception {
+        DocumentModel doc = session.getDocument(new PathRef("/folder/doc1"));
+        assertFalse(isSchemaLoaded(doc, "dublincore"));
+        assertEquals("title1", doc.getDataModel("dublincore").getData("title"));
+    }
+
+}
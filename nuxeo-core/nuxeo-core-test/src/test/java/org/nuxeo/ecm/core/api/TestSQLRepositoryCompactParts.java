@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.api;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.model.impl.CompactDocumentPartImpl;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+
+/**
+ * Tests that documents read from the repository into compact parts have the same values as with standard parts.
+ */
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+public class TestSQLRepositoryCompactParts {
+
+    @Inject
+    protected CoreSession session;
+
+    protected DocumentRef docRef;
+
+    @Before
+    public void setUp() throws Exception {
+        DocumentModel doc = session.createDocumentModel("/", "doc", "File");
+        doc.setPropertyValue("dc:title", "title");
+        doc.setPropertyValue("dc:subjects", new String[] { "a", "b" });
+        Blob blob = Blobs.createBlob("hello");
+        blob.setFilename("hello.txt");
+        doc.setPropertyValue("file:content", (Serializable) blob);
+        Map<String, Serializable> item = new HashMap<String, Serializable>();
+        Blob itemBlob = Blobs.createBlob("item");
+        itemBlob.setFilename("item.txt");
+        item.put("file", (Serializable) itemBlob);
+        item.put("filename", "item.txt");
+        List<Map<String, Serializable>> files = new ArrayList<Map<String, Serializable>>();
+        files.add(item);
+        doc.setPropertyValue("files:files", (Serializable) files);
+        docRef = session.createDocument(doc).getRef();
+        session.save();
+        setCompactParts("true");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        setCompactParts(null);
+    }
+
+    protected static void setCompactParts(String value) {
+        if (value == null) {
+            Framework.getProperties().remove(DocumentModelFactory.COMPACT_PARTS_PROPERTY);
+        } else {
+            Framework.getProperties().put(DocumentModelFactory.COMPACT_PARTS_PROPERTY, value);
+        }
+        // the property is read once
+        DocumentModelFactory.resetCompactParts();
+    }
+
+    protected void checkValues(DocumentModel doc) throws Exception {
+        assertEquals("title", doc.getPropertyValue("dc:title"));
+        assertArrayEquals(new String[] { "a", "b" }, (Object[]) doc.getPropertyValue("dc:subjects"));
+        Blob blob = (Blob) doc.getPropertyValue("file:content");
+        assertEquals("hello.txt", blob.getFilename());
+        assertEquals("hello", blob.getString());
+        assertEquals("item.txt", doc.getPropertyValue("files:files/0/filename"));
+        Blob itemBlob = (Blob) doc.getPropertyValue("files:files/0/file");
+        assertEquals("item.txt", itemBlob.getFilename());
+        assertEquals("item", itemBlob.getString());
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        DocumentModel doc = session.getDocument(docRef);
+        for (String schema : doc.getSchemas()) {
+            assertTrue(schema, doc.getPart(schema) instanceof CompactDocumentPartImpl);
+        }
+        checkValues(doc);
+        assertFalse(doc.isDirty());
+
+        // same values as read into standard parts
+        setCompactParts(null);
+        DocumentModel expected = session.getDocument(docRef);
+        assertFalse(expected.getPart("dublincore") instanceof CompactDocumentPartImpl);
+        for (String xpath : new String[] { "dc:title", "dc:creator", "dc:created", "dc:description",
+                "files:files/0/filename" }) {
+            assertEquals(xpath, expected.getPropertyValue(xpath), doc.getPropertyValue(xpath));
+        }
+        assertArrayEquals((Object[]) expected.getPropertyValue("dc:contributors"),
+                (Object[]) doc.getPropertyValue("dc:contributors"));
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        DocumentModel doc = session.getDocument(docRef);
+        doc.setPropertyValue("dc:description", "description");
+        doc = session.saveDocument(doc);
+        session.save();
+
+        setCompactParts(null);
+        doc = session.getDocument(docRef);
+        assertEquals("description", doc.getPropertyValue("dc:description"));
+        // the values not accessed before the write are kept
+        checkValues(doc);
+    }
+
+    @Test
+    public void testRepositoryNotListed() throws Exception {
+        setCompactParts("otherrepo");
+        DocumentModel doc = session.getDocument(docRef);
+        assertFalse(doc.getPart("dublincore") instanceof CompactDocumentPartImpl);
+        checkValues(doc);
+    }
+
+}
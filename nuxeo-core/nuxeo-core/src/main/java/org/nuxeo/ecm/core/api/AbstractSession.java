@@ -43,6 +43,7 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -58,6 +59,7 @@ import org.nuxeo.ecm.core.api.event.CoreEventConstants;
 import org.nuxeo.ecm.core.api.event.DocumentEventCategories;
 import org.nuxeo.ecm.core.api.event.DocumentEventTypes;
 import org.nuxeo.ecm.core.api.facet.VersioningDocument;
+import org.nuxeo.ecm.core.api.impl.DocumentModelBatch;
 import org.nuxeo.ecm.core.api.impl.DocumentModelChildrenIterator;
 import org.nuxeo.ecm.core.api.impl.DocumentModelListImpl;
 import org.nuxeo.ecm.core.api.impl.FacetFilter;
@@ -384,6 +386,18 @@ public abstract class AbstractSession implements CoreSession, Serializable {
         }
     }
 
+    /**
+     * Makes the documents of a list load their schemas together, if lazy schemas are enabled.
+     *
+     * @since 7.3
+     */
+    protected DocumentModelList batchSchemas(DocumentModelList docs) {
+        if (DocumentModelFactory.isLazySchemas()) {
+            DocumentModelBatch.attach(docs);
+        }
+        return docs;
+    }
+
     protected DocumentModel writeModel(Document doc, DocumentModel docModel) throws DocumentException, ClientException {
         return DocumentModelFactory.writeDocumentModel(docModel, doc);
     }
@@ -921,7 +935,7 @@ public abstract class AbstractSession implements CoreSession, Serializable {
             if (sorter != null) {
                 Collections.sort(docs, sorter);
             }
-            return docs;
+            return batchSchemas(docs);
         } catch (DocumentException e) {
             throw new ClientException("Failed to get children for " + parent.toString(), e);
         }
@@ -977,19 +991,60 @@ public abstract class AbstractSession implements CoreSession, Serializable {
 
     @Override
     public DocumentModelList getDocuments(DocumentRef[] docRefs) throws ClientException {
+        return getDocuments(docRefs, false);
+    }
+
+    @Override
+    public DocumentModelList getReadableDocuments(DocumentRef[] docRefs) throws ClientException {
+        return getDocuments(docRefs, true);
+    }
+
+    /**
+     * Gets the documents, skipping the missing ones, and the unreadable ones if requested.
+     *
+     * @since 7.3
+     */
+    protected DocumentModelList getDocuments(DocumentRef[] docRefs, boolean skipUnreadable) throws ClientException {
+        // id references are resolved together
+        List<String> ids = new ArrayList<String>(docRefs.length);
+        for (DocumentRef docRef : docRefs) {
+            if (docRef.type() == DocumentRef.ID) {
+                ids.add((String) docRef.reference());
+            }
+        }
+        Iterator<Document> byIds;
+        try {
+            byIds = getSession().getDocumentsByUUID(ids, null).iterator();
+        } catch (DocumentException e) {
+            // a single unreadable document fails the whole batch, resolve them one by one to skip it
+            log.debug("Failed to get documents " + ids + ", resolving them separately", e);
+            byIds = null;
+        }
         List<DocumentModel> docs = new ArrayList<DocumentModel>(docRefs.length);
         for (DocumentRef docRef : docRefs) {
-            Document doc;
+            Document doc = docRef.type() == DocumentRef.ID && byIds != null ? byIds.next() : null;
             try {
-                doc = resolveReference(docRef);
-                checkPermission(doc, READ);
+                if (docRef.type() != DocumentRef.ID || byIds == null) {
+                    doc = resolveReference(docRef);
+                }
+                if (doc == null) {
+                    // missing
+                    continue;
+                }
+                if (skipUnreadable) {
+                    if (!hasPermission(doc, READ)) {
+                        continue;
+                    }
+                } else {
+                    checkPermission(doc, READ);
+                }
             } catch (DocumentException e) {
-                // no permission, or other low-level error
+                // low-level error
                 continue;
             }
             docs.add(readModel(doc));
         }
-        return new DocumentModelListImpl(docs);
+        return batchSchemas(new DocumentModelListImpl(docs));
     }
 
     @Override
@@ -1245,7 +1300,7 @@ public abstract class AbstractSession implements CoreSession, Serializable {
 
             if (!postFilter) {
                 // the backend has done all the needed filtering
-                return dms;
+                return batchSchemas(dms);
             }
 
             // post-filter the results "by hand", the backend couldn't do it
@@ -1282,7 +1337,7 @@ public abstract class AbstractSession implements CoreSession, Serializable {
             if (countUpTo != 0) {
                 docs.setTotalSize(n);
             }
-            return docs;
+            return batchSchemas(docs);
         } catch (ClientException | QueryException e) {
             throw new ClientException("Failed to execute query: " + tryToExtractMeaningfulErrMsg(e), e);
         }
@@ -2183,6 +2238,39 @@ public abstract class AbstractSession implements CoreSession, Serializable {
         }
     }
 
+    @Override
+    public DataModel[] getDataModels(DocumentRef[] docRefs, Schema schema) throws ClientException {
+        // id references are resolved together
+        List<String> ids = new ArrayList<String>(docRefs.length);
+        for (DocumentRef docRef : docRefs) {
+            if (docRef.type() == DocumentRef.ID) {
+                ids.add((String) docRef.reference());
+            }
+        }
+        try {
+            Iterator<Document> docs = getSession().getDocumentsByUUID(ids, schema.getName()).iterator();
+            DataModel[] dataModels = new DataModel[docRefs.length];
+            for (int i = 0; i < docRefs.length; i++) {
+                Document doc;
+                if (docRefs[i].type() == DocumentRef.ID) {
+                    doc = docs.next();
+                } else {
+                    try {
+                        doc = resolveReference(docRefs[i]);
+                    } catch (NoSuchDocumentException e) {
+                        doc = null;
+                    }
+                }
+                if (doc != null && hasPermission(doc, READ)) {
+                    dataModels[i] = DocumentModelFactory.createDataModel(doc, schema);
+                }
+            }
+            return dataModels;
+        } catch (DocumentException e) {
+            throw new ClientException("Failed to get data models for " + Arrays.asList(docRefs) + ':' + schema, e);
+        }
+    }
+
     protected Object getDataModelField(DocumentRef docRef, String schema, String field) throws ClientException {
         try {
             Document doc = resolveReference(docRef);
@@ -21,6 +21,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.nuxeo.common.utils.Path;
@@ -29,6 +30,7 @@ import org.nuxeo.ecm.core.api.impl.DataModelImpl;
 import org.nuxeo.ecm.core.api.impl.DocumentModelImpl;
 import org.nuxeo.ecm.core.api.model.DocumentPart;
 import org.nuxeo.ecm.core.api.model.PropertyException;
+import org.nuxeo.ecm.core.api.model.impl.CompactDocumentPartImpl;
 import org.nuxeo.ecm.core.api.model.impl.DocumentPartImpl;
 import org.nuxeo.ecm.core.lifecycle.LifeCycleException;
 import org.nuxeo.ecm.core.model.Document;
@@ -52,6 +54,25 @@ public class DocumentModelFactory {
 
     private static final Log log = LogFactory.getLog(DocumentModelFactory.class);
 
+    /**
+     * Property listing the repositories whose documents are read into {@link CompactDocumentPartImpl}, as a comma
+     * separated list of repository names, or {@code true} for all repositories.
+     *
+     * @since 7.3
+     */
+    public static final String COMPACT_PARTS_PROPERTY = "org.nuxeo.ecm.core.compact.parts";
+
+    /** The repositories configured by {@link #COMPACT_PARTS_PROPERTY}, read on first use. */
+    protected static volatile Set<String> compactPartsRepositories;
+
+    /**
+     * Property enabling the lazy loading of schemas: the prefetched schemas are not read as data models when a document
+     * is read, and a schema first accessed on a document of a list is read for all the documents of the list.
+     *
+     * @since 7.3
+     */
+    public static final String LAZY_SCHEMAS_PROPERTY = "org.nuxeo.ecm.core.lazy.schemas";
+
     // Utility class.
     private DocumentModelFactory() {
     }
@@ -137,7 +158,7 @@ public class DocumentModelFactory {
 
         // populate datamodels
         List<String> loadSchemas = new LinkedList<String>();
-        if (schemas == null) {
+        if (schemas == null && !isLazySchemas()) {
             schemas = prefetchSchemas;
         }
         if (schemas != null) {
@@ -217,7 +238,7 @@ public class DocumentModelFactory {
      * Creates a data model from a document and a schema. If the document is null, just creates empty data models.
      */
     public static DataModel createDataModel(Document doc, Schema schema) throws DocumentException {
-        DocumentPart part = new DocumentPartImpl(schema);
+        DocumentPart part = doc == null ? new DocumentPartImpl(schema) : createDocumentPart(doc, schema);
         if (doc != null) {
             try {
                 doc.readDocumentPart(part);
@@ -228,6 +249,52 @@ public class DocumentModelFactory {
         return new DataModelImpl(part);
     }
 
+    /**
+     * Creates the document part into which a document schema is read, compact if configured for its repository.
+     *
+     * @since 7.3
+     */
+    protected static DocumentPart createDocumentPart(Document doc, Schema schema) {
+        if (isCompactParts(doc.getRepositoryName())) {
+            return new CompactDocumentPartImpl(schema);
+        }
+        return new DocumentPartImpl(schema);
+    }
+
+    /**
+     * Forgets the repositories configured by {@link #COMPACT_PARTS_PROPERTY}, so that the property is read again on
+     * next use. Called when the repositories are shut down.
+     *
+     * @since 7.3
+     */
+    public static void resetCompactParts() {
+        compactPartsRepositories = null;
+    }
+
+    protected static boolean isCompactParts(String repositoryName) {
+        Set<String> repositories = compactPartsRepositories;
+        if (repositories == null) {
+            repositories = new HashSet<String>();
+            String value = Framework.getProperty(COMPACT_PARTS_PROPERTY);
+            if (!StringUtils.isBlank(value) && !"false".equals(value)) {
+                for (String name : value.split(",")) {
+                    repositories.add(name.trim());
+                }
+            }
+            compactPartsRepositories = repositories;
+        }
+        return repositories.contains("true") || repositories.contains(repositoryName);
+    }
+
+    /**
+     * Checks if the schemas of the documents are only read when accessed, together for the documents of a list.
+     *
+     * @since 7.3
+     */
+    public static boolean isLazySchemas() {
+        return Framework.isBooleanPropertyTrue(LAZY_SCHEMAS_PROPERTY);
+    }
+
     /**
      * Writes a document model to a document. Returns the re-read document model.
      */
@@ -311,7 +378,7 @@ public class DocumentModelFactory {
             TypeProvider typeProvider = Framework.getLocalService(SchemaManager.class);
             DocumentPart[] parts = new DocumentPart[schemas.length];
             for (int i = 0; i < schemas.length; i++) {
-                DocumentPart part = new DocumentPartImpl(typeProvider.getSchema(schemas[i]));
+                DocumentPart part = createDocumentPart(doc, typeProvider.getSchema(schemas[i]));
                 doc.readDocumentPart(part);
                 parts[i] = part;
             }
@@ -14,6 +14,7 @@ package org.nuxeo.ecm.core.model;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import org.nuxeo.ecm.core.api.CoreSession;
@@ -106,6 +107,17 @@ public interface Session {
      */
     Document getDocumentByUUID(String uuid) throws DocumentException;
 
+    /**
+     * Gets several documents given their ids, fetching together from the storage the data of the given schema.
+     *
+     * @param uuids the document ids
+     * @param schema the name of the schema to fetch, or {@code null}
+     * @return the documents, in the same order as the ids, with elements being {@code null} if not found
+     * @throws DocumentException if any error occurs
+     * @since 7.3
+     */
+    List<Document> getDocumentsByUUID(List<String> uuids, String schema) throws DocumentException;
+
     /**
      * Gets the root document in this repository.
      *
@@ -24,6 +24,7 @@ import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.api.ClientException;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentException;
+import org.nuxeo.ecm.core.api.DocumentModelFactory;
 import org.nuxeo.ecm.core.api.UnrestrictedSessionRunner;
 import org.nuxeo.ecm.core.api.local.LocalException;
 import org.nuxeo.ecm.core.api.local.LocalSession;
@@ -60,6 +61,7 @@ public class RepositoryService extends DefaultComponent {
             }
             repositories.clear();
         }
+        DocumentModelFactory.resetCompactParts();
     }
 
     @Override
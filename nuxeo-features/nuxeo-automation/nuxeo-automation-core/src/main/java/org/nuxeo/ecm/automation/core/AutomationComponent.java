@@ -83,6 +83,13 @@ public class AutomationComponent extends DefaultComponent {
 
     public static final String XP_CONTEXT_HELPER = "contextHelpers";
 
+    /**
+     * Set to false to disable the compilation of the registered chains in background at startup.
+     *
+     * @since 7.3
+     */
+    public static final String PRECOMPILE_CHAINS_PROPERTY = "org.nuxeo.automation.chains.precompile";
+
     protected OperationServiceImpl service;
 
     protected EventHandlerRegistry handlers;
@@ -259,5 +266,30 @@ public class AutomationComponent extends DefaultComponent {
                 }
             }
         });
+        if (!Framework.isBooleanPropertyFalse(PRECOMPILE_CHAINS_PROPERTY)) {
+            precompileChains();
+        }
+    }
+
+    /**
+     * Compiles the registered chains in a background thread, so that their first run does not pay it.
+     *
+     * @since 7.3
+     */
+    protected void precompileChains() {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    long t0 = System.currentTimeMillis();
+                    int count = service.precompileChains();
+                    log.debug("Compiled " + count + " chains in " + (System.currentTimeMillis() - t0) + "ms");
+                } catch (RuntimeException e) {
+                    log.warn("Failed to compile chains", e);
+                }
+            }
+        }, "Nuxeo-Automation-Chains-Compiler");
+        thread.setDaemon(true);
+        thread.start();
     }
 }
@@ -161,6 +161,31 @@ public class Constants {
     // key for setting chain runtime variables on the operation context
     public static final String VAR_RUNTIME_CHAIN = "ChainParameters";
 
+    /**
+     * Key for enabling the parallel iteration of iterable operation methods: the number of input elements per batch,
+     * each batch being run with its own session and transaction. While a transaction is active, {@link
+     * #VAR_PARALLEL_COMMIT} must also be set, otherwise the elements are iterated in the current transaction.
+     *
+     * @since 7.3
+     */
+    public static final String VAR_PARALLEL_BATCH_SIZE = "ParallelBatchSize";
+
+    /**
+     * Key for setting the maximum number of threads used by the parallel iteration of iterable operation methods.
+     *
+     * @since 7.3
+     */
+    public static final String VAR_PARALLEL_THREADS = "ParallelThreads";
+
+    /**
+     * Key allowing the parallel iteration of iterable operation methods to split the current transaction: when true,
+     * the current transaction is committed before the batches run and each batch commits its own changes, so a
+     * failure only rolls back the failing batch.
+     *
+     * @since 7.3
+     */
+    public static final String VAR_PARALLEL_COMMIT = "ParallelCommit";
+
     /**
      * Key for setting mvel expression result to keep when trace mode enabled
      *
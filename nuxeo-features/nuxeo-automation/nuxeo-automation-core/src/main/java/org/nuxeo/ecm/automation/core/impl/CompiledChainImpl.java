@@ -103,6 +103,20 @@ class CompiledChainImpl implements CompiledChain {
         return false;
     }
 
+    /**
+     * Checks if this chain invokes the operation or chain with the given id.
+     *
+     * @since 7.3
+     */
+    public boolean uses(String operationId) {
+        for (CompiledChainImpl chain = this; chain != null; chain = chain.next) {
+            if (chain.op != null && operationId.equals(chain.op.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @OperationMethod
     public Object run() throws OperationException {
         return invoke(context);
@@ -11,16 +11,37 @@
  */
 package org.nuxeo.ecm.automation.core.impl;
 
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.nuxeo.ecm.automation.OperationContext;
 import org.nuxeo.ecm.automation.OperationException;
 import org.nuxeo.ecm.automation.OperationType;
 import org.nuxeo.ecm.automation.OutputCollector;
+import org.nuxeo.ecm.automation.core.Constants;
 import org.nuxeo.ecm.automation.core.annotations.OperationMethod;
+import org.nuxeo.ecm.core.api.CoreInstance;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.runtime.transaction.TransactionHelper;
 
 /**
  * A method proxy which accept as input only iterable inputs. At invocation time it iterates over the input elements and
@@ -36,11 +57,41 @@ import org.nuxeo.ecm.automation.core.annotations.OperationMethod;
  * <p>
  * To correctly generate the operation documentation the {@link OperationTypeImpl} is checking if the method is iterable
  * or not through {@link #isIterable()} to declare the correct consume type.
+ * <p>
+ * When the context variable {@link Constants#VAR_PARALLEL_BATCH_SIZE} is set, list inputs larger than one batch are
+ * split into batches run concurrently (at most {@link Constants#VAR_PARALLEL_THREADS} at a time, 4 by default). Each
+ * batch opens its own session and transaction on a copy of the context variables, and fetches the input documents
+ * again in its session. The batches cannot take part in the current transaction: while one is active, the parallel
+ * iteration is only used if {@link Constants#VAR_PARALLEL_COMMIT} is also set, in which case the current transaction
+ * is committed first for the batches to see its changes and the changes of each batch are committed with it, so the
+ * iteration is no longer atomic. Otherwise the elements are iterated sequentially in the current transaction. Outputs
+ * are collected in input order once all the batches are done. Operations used this way must not rely on state shared
+ * between the elements of their input.
  *
  * @author <a href="mailto:bs@nuxeo.com">Bogdan Stefanescu</a>
  */
 public class InvokableIteratorMethod extends InvokableMethod {
 
+    public static final int DEFAULT_PARALLEL_THREADS = 4;
+
+    /**
+     * Pool shared by the parallel iterations, made of daemon threads kept alive a moment for reuse.
+     *
+     * @since 7.3
+     */
+    protected static final ExecutorService EXECUTOR = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L,
+            TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+
+                protected final AtomicInteger threadNumber = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Nuxeo-Automation-Iterator-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
     @SuppressWarnings("rawtypes")
     protected Class<? extends OutputCollector> collector;
 
@@ -92,6 +143,18 @@ public class InvokableIteratorMethod extends InvokableMethod {
             throw new IllegalStateException("An iterable method was called in a non iterable context");
         }
         OutputCollector list = collector.newInstance();
+        int batchSize = getIntVar(ctx, Constants.VAR_PARALLEL_BATCH_SIZE, 0);
+        if (batchSize > 0 && input instanceof List && ((List<?>) input).size() > batchSize
+                && ctx.getCoreSession() != null
+                && (!TransactionHelper.isTransactionActive() || isTrue(ctx.get(Constants.VAR_PARALLEL_COMMIT)))) {
+            List<?> inputs = (List<?>) input;
+            List<Object> outputs = doInvokeInParallel(ctx, args, inputs, batchSize);
+            for (int i = 0; i < outputs.size(); i++) {
+                ctx.setInput(inputs.get(i));
+                list.collect(ctx, outputs.get(i));
+            }
+            return list.getOutput();
+        }
         Iterable<?> iterable = (Iterable<?>) input;
         Iterator<?> it = iterable.iterator();
         while (it.hasNext()) {
@@ -103,4 +166,150 @@ public class InvokableIteratorMethod extends InvokableMethod {
         return list.getOutput();
     }
 
+    /**
+     * Invokes the method on each element of the input, by batches run concurrently each in its own session and
+     * transaction.
+     *
+     * @return the outputs, in input order
+     * @since 7.3
+     */
+    protected List<Object> doInvokeInParallel(OperationContext ctx, Map<String, Object> args, List<?> inputs,
+            int batchSize) throws OperationException {
+        CoreSession session = ctx.getCoreSession();
+        String repositoryName = session.getRepositoryName();
+        Principal principal = session.getPrincipal();
+        Map<String, Object> vars = new HashMap<String, Object>(ctx.getVars());
+        // no nested parallel iteration
+        vars.remove(Constants.VAR_PARALLEL_BATCH_SIZE);
+        vars.remove(Constants.VAR_PARALLEL_THREADS);
+        vars.remove(Constants.VAR_PARALLEL_COMMIT);
+        // make the current changes visible to the batches, the caller allowed the split of its transaction
+        if (TransactionHelper.isTransactionActive()) {
+            session.save();
+            TransactionHelper.commitOrRollbackTransaction();
+            TransactionHelper.startTransaction();
+        }
+        int nbBatches = (inputs.size() + batchSize - 1) / batchSize;
+        int nbThreads = Math.min(nbBatches, getIntVar(ctx, Constants.VAR_PARALLEL_THREADS, DEFAULT_PARALLEL_THREADS));
+        final List<Callable<List<Object>>> batches = new ArrayList<Callable<List<Object>>>(nbBatches);
+        for (int i = 0; i < inputs.size(); i += batchSize) {
+            List<?> batch = inputs.subList(i, Math.min(i + batchSize, inputs.size()));
+            // the documents are bound to the current session, pass their refs to fetch them in the batch session
+            List<DocumentRef> refs = new ArrayList<DocumentRef>(batch.size());
+            for (Object in : batch) {
+                refs.add(in instanceof DocumentModel ? ((DocumentModel) in).getRef() : null);
+            }
+            batches.add(newBatch(repositoryName, principal, vars, args, batch, refs));
+        }
+        // at most nbThreads workers of the shared pool take the batches in turn
+        final AtomicInteger nextBatch = new AtomicInteger();
+        final AtomicReferenceArray<List<Object>> batchOutputs = new AtomicReferenceArray<List<Object>>(nbBatches);
+        List<Future<Void>> workers = new ArrayList<Future<Void>>(nbThreads);
+        try {
+            for (int i = 0; i < Math.max(nbThreads, 1); i++) {
+                workers.add(EXECUTOR.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        int b;
+                        while ((b = nextBatch.getAndIncrement()) < batches.size()) {
+                            batchOutputs.set(b, batches.get(b).call());
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> worker : workers) {
+                worker.get();
+            }
+            List<Object> outputs = new ArrayList<Object>(inputs.size());
+            for (int b = 0; b < nbBatches; b++) {
+                outputs.addAll(batchOutputs.get(b));
+            }
+            return outputs;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationException("Interrupted while iterating " + op.getId(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InvocationTargetException) {
+                cause = ((InvocationTargetException) cause).getTargetException();
+            }
+            if (cause instanceof OperationException) {
+                throw (OperationException) cause;
+            }
+            throw new OperationException("Failed to invoke operation " + op.getId(), cause);
+        } finally {
+            // on failure, the other workers do not start new batches
+            nextBatch.set(nbBatches);
+        }
+    }
+
+    /**
+     * Creates a batch invoking the method on the given inputs in its own session and transaction. The inputs having a
+     * non null ref are documents, fetched again in the batch session.
+     *
+     * @since 7.3
+     */
+    protected Callable<List<Object>> newBatch(final String repositoryName, final Principal principal,
+            final Map<String, Object> vars, final Map<String, Object> args, final List<?> batch,
+            final List<DocumentRef> refs) {
+        return new Callable<List<Object>>() {
+            @Override
+            public List<Object> call() throws Exception {
+                List<Object> outputs = new ArrayList<Object>(batch.size());
+                boolean tx = TransactionHelper.startTransaction();
+                boolean ok = false;
+                try (CoreSession session = CoreInstance.openCoreSession(repositoryName, principal)) {
+                    OperationContext batchCtx = new OperationContext(session, new HashMap<String, Object>(vars));
+                    // operations may add to their arguments, do not share them between threads
+                    Map<String, Object> batchArgs = args == null ? null : new HashMap<String, Object>(args);
+                    for (int i = 0; i < batch.size(); i++) {
+                        DocumentRef ref = refs.get(i);
+                        Object in = ref != null ? session.getDocument(ref) : batch.get(i);
+                        batchCtx.setInput(in);
+                        Object out = InvokableIteratorMethod.super.doInvoke(batchCtx, batchArgs, in);
+                        if (out instanceof DocumentModel) {
+                            // keep the output usable once the batch session is closed
+                            ((DocumentModel) out).detach(true);
+                        }
+                        outputs.add(out);
+                    }
+                    session.save();
+                    batchCtx.dispose();
+                    ok = true;
+                } finally {
+                    if (tx) {
+                        if (!ok) {
+                            TransactionHelper.setTransactionRollbackOnly();
+                        }
+                        TransactionHelper.commitOrRollbackTransaction();
+                    }
+                }
+                return outputs;
+            }
+        };
+    }
+
+    protected static boolean isTrue(Object value) {
+        if (value instanceof Boolean) {
+            return ((Boolean) value).booleanValue();
+        }
+        return value != null && Boolean.parseBoolean(value.toString().trim());
+    }
+
+    protected static int getIntVar(OperationContext ctx, String name, int defaultValue) {
+        Object value = ctx.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
 }
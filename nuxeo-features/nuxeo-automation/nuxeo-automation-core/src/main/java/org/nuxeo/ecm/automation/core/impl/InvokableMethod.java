@@ -11,9 +11,13 @@
  */
 package org.nuxeo.ecm.automation.core.impl;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.commons.logging.Log;
@@ -45,6 +49,13 @@ public class InvokableMethod implements Comparable<InvokableMethod> {
 
     protected Method method;
 
+    /**
+     * Handle on {@link #method} typed as {@code (Object[, Object])Object}, invoked instead of reflection.
+     *
+     * @since 7.3
+     */
+    protected MethodHandle handle;
+
     protected Class<?> produce;
 
     protected Class<?> consume;
@@ -69,6 +80,7 @@ public class InvokableMethod implements Comparable<InvokableMethod> {
             priority += USER_PRIORITY;
         }
         consume = p.length == 0 ? Void.TYPE : p[0];
+        handle = createHandle(method);
     }
 
     public InvokableMethod(OperationType op, Method method) {
@@ -83,6 +95,60 @@ public class InvokableMethod implements Comparable<InvokableMethod> {
             priority += USER_PRIORITY;
         }
         consume = p.length == 0 ? Void.TYPE : p[0];
+        handle = createHandle(method);
+    }
+
+    /**
+     * Creates a generic handle on the method, or returns {@code null} if the method cannot be accessed that way, in
+     * which case it is invoked through reflection.
+     *
+     * @since 7.3
+     */
+    protected static MethodHandle createHandle(Method method) {
+        try {
+            if (!method.isAccessible()) {
+                method.setAccessible(true);
+            }
+            MethodHandle mh = MethodHandles.lookup().unreflect(method);
+            return mh.asType(MethodType.genericMethodType(mh.type().parameterCount()));
+        } catch (ReflectiveOperationException | SecurityException e) {
+            log.debug("Cannot create method handle for " + method + ", using reflection", e);
+            return null;
+        }
+    }
+
+    /**
+     * Invokes the operation method without argument on the target, wrapping any exception it throws in an
+     * {@link InvocationTargetException} as reflection does.
+     *
+     * @since 7.3
+     */
+    protected Object invokeMethod(Object target) throws ReflectiveOperationException {
+        if (handle == null) {
+            return method.invoke(target);
+        }
+        try {
+            return handle.invokeExact(target);
+        } catch (Throwable t) { // NOSONAR: thrown by the operation method
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /**
+     * Invokes the operation method on the target with the given input.
+     *
+     * @since 7.3
+     * @see #invokeMethod(Object)
+     */
+    protected Object invokeMethod(Object target, Object input) throws ReflectiveOperationException {
+        if (handle == null) {
+            return method.invoke(target, input);
+        }
+        try {
+            return handle.invokeExact(target, input);
+        } catch (Throwable t) { // NOSONAR: thrown by the operation method
+            throw new InvocationTargetException(t);
+        }
     }
 
     public boolean isIterable() {
@@ -129,20 +195,24 @@ public class InvokableMethod implements Comparable<InvokableMethod> {
         Object target = op.newInstance(ctx, args);
         if (consume == Void.TYPE) {
             // preserve last output for void methods
-            Object out = method.invoke(target);
+            Object out = invokeMethod(target);
             return produce == Void.TYPE ? input : out;
         } else {
             if (input != null && !consume.isAssignableFrom(input.getClass())) {
                 // try to adapt
                 input = op.getService().getAdaptedValue(ctx, input, consume);
             }
-            return method.invoke(target, input);
+            return invokeMethod(target, input);
         }
     }
 
+    /**
+     * Invokes the operation. The arguments are copied, as the compiled chains holding them are cached and shared while
+     * operations such as the scripted ones add their runtime parameters to them.
+     */
     public Object invoke(OperationContext ctx, Map<String, Object> args) throws OperationException {
         try {
-            return doInvoke(ctx, args, ctx.getInput());
+            return doInvoke(ctx, args == null ? null : new HashMap<>(args), ctx.getInput());
         } catch (OperationException e) {
             throw e;
         } catch (InvocationTargetException e) {
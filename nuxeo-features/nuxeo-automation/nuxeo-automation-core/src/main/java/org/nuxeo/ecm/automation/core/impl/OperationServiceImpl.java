@@ -23,8 +23,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -50,6 +53,9 @@ import org.nuxeo.ecm.automation.core.Constants;
 import org.nuxeo.ecm.automation.core.exception.CatchChainException;
 import org.nuxeo.ecm.automation.core.exception.ChainExceptionRegistry;
 import org.nuxeo.ecm.automation.core.trace.TracerFactory;
+import org.nuxeo.ecm.automation.core.util.BlobList;
+import org.nuxeo.ecm.core.api.impl.DocumentModelImpl;
+import org.nuxeo.ecm.core.api.impl.DocumentModelListImpl;
 import org.nuxeo.ecm.platform.forms.layout.api.WidgetDefinition;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.transaction.TransactionHelper;
@@ -69,7 +75,19 @@ public class OperationServiceImpl implements AutomationService, AutomationAdmin
 
     protected final AutomationFilterRegistry automationFilterRegistry;
 
-    protected Map<CacheKey, CompiledChainImpl> compiledChains = new HashMap<CacheKey, CompiledChainImpl>();
+    /**
+     * Registered chains compiled by input type. Entries are dropped when the chain or one of its operations is
+     * registered again or removed.
+     */
+    protected final ConcurrentMap<CacheKey, CompiledChainImpl> compiledChains = new ConcurrentHashMap<>();
+
+    /**
+     * Single operation chains, by operation id and input type. An entry is only reused while its operation type is
+     * the registered one.
+     *
+     * @since 7.3
+     */
+    protected final ConcurrentMap<CacheKey, CompiledChainImpl> compiledOperations = new ConcurrentHashMap<>();
 
     /**
      * Adapter registry.
@@ -104,8 +122,7 @@ public class OperationServiceImpl implements AutomationService, AutomationAdmin
     }
 
     /**
-     * TODO avoid creating a temporary chain and then compile it. try to find a way to execute the single operation
-     * without compiling it. (for optimization)
+     * Runs a single operation through a chain of one operation, compiled once per input type.
      */
     @Override
     public Object run(OperationContext ctx, String operationId, Map<String, Object> runtimeParameters)
@@ -193,15 +210,13 @@ public class OperationServiceImpl implements AutomationService, AutomationAdmin
                 CacheKey cacheKey = new CacheKey(operationType.getId(), inputType.getName());
                 chain = compiledChains.get(cacheKey);
                 if (chain == null) {
-                    chain = (CompiledChainImpl) operationType.newInstance(ctx, params);
+                    chain = CompiledChainImpl.buildChain(this, inputType, ((ChainTypeImpl) operationType).operations);
                     // Registered Chains are the only ones that can be cached
                     // Runtime ones can update their operations, model...
-                    if (hasOperation(operationType.getId())) {
-                        compiledChains.put(cacheKey, chain);
-                    }
+                    chain = cacheCompiledChain(compiledChains, cacheKey, operationType, chain);
                 }
             } else {
-                chain = CompiledChainImpl.buildChain(inputType, toParams(operationType.getId()));
+                chain = getCompiledOperation(operationType, inputType);
             }
             Object ret = chain.invoke(ctx);
             tracer.onOutput(ret);
@@ -236,6 +251,143 @@ public class OperationServiceImpl implements AutomationService, AutomationAdmin
         }
     }
 
+    /**
+     * Input types for which registered chains are compiled at startup: the most common runtime input classes.
+     *
+     * @since 7.3
+     */
+    public static final Class<?>[] PRECOMPILED_INPUT_TYPES = { Void.TYPE, DocumentModelImpl.class,
+            DocumentModelListImpl.class, BlobList.class };
+
+    /**
+     * Compiles all the registered chains for the {@link #PRECOMPILED_INPUT_TYPES}.
+     *
+     * @return the number of compiled chains
+     * @since 7.3
+     */
+    public int precompileChains() {
+        return precompileChains(PRECOMPILED_INPUT_TYPES);
+    }
+
+    /**
+     * Compiles all the registered chains for the given input types, ignoring the types a chain does not accept.
+     *
+     * @return the number of compiled chains
+     * @since 7.3
+     */
+    public int precompileChains(Class<?>... inputTypes) {
+        int count = 0;
+        for (OperationType type : getOperations()) {
+            if (!(type instanceof ChainTypeImpl)) {
+                continue;
+            }
+            ChainTypeImpl chainType = (ChainTypeImpl) type;
+            for (Class<?> inputType : inputTypes) {
+                CacheKey cacheKey = new CacheKey(chainType.getId(), inputType.getName());
+                if (compiledChains.containsKey(cacheKey)) {
+                    continue;
+                }
+                CompiledChainImpl chain;
+                try {
+                    chain = CompiledChainImpl.buildChain(this, inputType, chainType.operations);
+                } catch (OperationException e) {
+                    // chain not accepting this input type, or invalid
+                    continue;
+                }
+                // skip if the chain changed in between
+                cacheCompiledChain(compiledChains, cacheKey, chainType, chain);
+                if (compiledChains.get(cacheKey) == chain) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Drops the compiled chains of the given chain or operation id, and those of the chains using it.
+     *
+     * @since 7.3
+     */
+    protected void invalidateCompiledChains(String id) {
+        invalidateCompiledChains(compiledChains, id);
+        invalidateCompiledChains(compiledOperations, id);
+    }
+
+    protected static void invalidateCompiledChains(Map<CacheKey, CompiledChainImpl> cache, String id) {
+        Iterator<Map.Entry<CacheKey, CompiledChainImpl>> it = cache.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<CacheKey, CompiledChainImpl> entry = it.next();
+            if (id.equals(entry.getKey().operationId) || entry.getValue().uses(id)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Gets the chain made of the single given operation for the input type, compiling it on first use.
+     *
+     * @since 7.3
+     */
+    protected CompiledChainImpl getCompiledOperation(OperationType operationType, Class<?> inputType)
+            throws OperationException {
+        CacheKey cacheKey = new CacheKey(operationType.getId(), inputType.getName());
+        CompiledChainImpl cached = compiledOperations.get(cacheKey);
+        if (cached != null && cached.op == operationType) {
+            return cached;
+        }
+        if (cached != null) {
+            // compiled for another operation type with the same id
+            compiledOperations.remove(cacheKey, cached);
+        }
+        CompiledChainImpl chain = CompiledChainImpl.buildChain(this, inputType, toParams(operationType.getId()));
+        if (chain.op == operationType) {
+            chain = cacheCompiledChain(compiledOperations, cacheKey, operationType, chain);
+        }
+        return chain;
+    }
+
+    /**
+     * Caches a compiled chain, unless the given operation type or one of the operations of the chain is no longer the
+     * registered one. As the cached chains are invalidated once an operation is replaced, the chain is checked again
+     * after being stored, in case it was replaced in between.
+     *
+     * @return the cached chain, which may have been stored by another thread, or the given one
+     * @since 7.3
+     */
+    protected CompiledChainImpl cacheCompiledChain(ConcurrentMap<CacheKey, CompiledChainImpl> cache,
+            CacheKey cacheKey, OperationType operationType, CompiledChainImpl chain) {
+        if (!isRegistered(operationType, chain)) {
+            return chain;
+        }
+        CompiledChainImpl cached = cache.putIfAbsent(cacheKey, chain);
+        if (cached != null) {
+            return cached;
+        }
+        if (!isRegistered(operationType, chain)) {
+            cache.remove(cacheKey, chain);
+        }
+        return chain;
+    }
+
+    /**
+     * Checks that the operation type and the operations of the compiled chain are the registered ones.
+     *
+     * @since 7.3
+     */
+    protected boolean isRegistered(OperationType operationType, CompiledChainImpl chain) {
+        Map<String, OperationType> lookup = operations.lookup();
+        if (lookup.get(operationType.getId()) != operationType) {
+            return false;
+        }
+        for (CompiledChainImpl link = chain; link != null; link = link.next) {
+            if (link.op != null && lookup.get(link.op.getId()) != link.op) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * @since 5.7.3 Fetch the right chain id to run when catching exception for given chain failure.
      */
@@ -313,6 +465,7 @@ public class OperationServiceImpl implements AutomationService, AutomationAdmin
         OperationChain chain = new OperationChain(id);
         OperationType docChainType = new ChainTypeImpl(this, chain);
         operations.removeContribution(docChainType);
+        invalidateCompiledChains(id);
     }
 
     @Override
@@ -339,6 +492,7 @@ public class OperationServiceImpl implements AutomationService, AutomationAdmin
     @Override
     public synchronized void flushCompiledChains() {
         compiledChains.clear();
+        compiledOperations.clear();
     }
 
     @Override
@@ -368,6 +522,7 @@ public class OperationServiceImpl implements AutomationService, AutomationAdmin
     @Override
     public synchronized void putOperation(OperationType op, boolean replace) throws OperationException {
         operations.addContribution(op, replace);
+        invalidateCompiledChains(op.getId());
     }
 
     @Override
@@ -383,6 +538,7 @@ public class OperationServiceImpl implements AutomationService, AutomationAdmin
     @Override
     public synchronized void removeOperation(OperationType type) {
         operations.removeContribution(type);
+        invalidateCompiledChains(type.getId());
     }
 
     @Override
@@ -11,6 +11,9 @@
  */
 package org.nuxeo.ecm.automation.core.impl;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.URL;
@@ -87,6 +90,27 @@ public class OperationTypeImpl implements OperationType {
      */
     protected List<Field> injectableFields;
 
+    /**
+     * Pre-resolved injection of the {@link #params}, in the same order.
+     *
+     * @since 7.3
+     */
+    protected List<ParamInjector> paramInjectors;
+
+    /**
+     * Generic setters of the {@link #injectableFields}, in the same order.
+     *
+     * @since 7.3
+     */
+    protected List<MethodHandle> contextSetters;
+
+    /**
+     * Handle on the operation no-arg constructor, typed as {@code ()Object}.
+     *
+     * @since 7.3
+     */
+    protected MethodHandle constructor;
+
     protected String contributingComponent;
 
     protected List<WidgetDefinition> widgetDefinitionList;
@@ -121,8 +145,11 @@ public class OperationTypeImpl implements OperationType {
         params = new HashMap<String, Field>();
         methods = new ArrayList<InvokableMethod>();
         injectableFields = new ArrayList<Field>();
+        paramInjectors = new ArrayList<ParamInjector>();
+        contextSetters = new ArrayList<MethodHandle>();
         initMethods();
         initFields();
+        constructor = createConstructor(type);
     }
 
     public OperationTypeImpl() {
@@ -149,6 +176,71 @@ public class OperationTypeImpl implements OperationType {
         }
     }
 
+    /**
+     * A {@link Param} field with its annotation and setter resolved once.
+     *
+     * @since 7.3
+     */
+    protected static class ParamInjector {
+
+        protected final String name;
+
+        protected final String[] aliases;
+
+        protected final boolean required;
+
+        protected final Class<?> type;
+
+        protected final MethodHandle setter;
+
+        protected ParamInjector(String name, Field field) {
+            Param param = field.getAnnotation(Param.class);
+            this.name = name;
+            aliases = param.alias();
+            required = param.required();
+            type = field.getType();
+            setter = createSetter(field);
+        }
+    }
+
+    /**
+     * Returns a setter typed as {@code (Object, Object)void} for the given accessible field.
+     *
+     * @since 7.3
+     */
+    protected static MethodHandle createSetter(Field field) {
+        try {
+            return MethodHandles.lookup().unreflectSetter(field).asType(
+                    MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access field: " + field, e);
+        }
+    }
+
+    /**
+     * Returns a handle on the no-arg constructor, or {@code null} to fall back on {@link Class#newInstance()}.
+     *
+     * @since 7.3
+     */
+    protected static MethodHandle createConstructor(Class<?> type) {
+        try {
+            return MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class)).asType(
+                    MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    protected static void setField(MethodHandle setter, Object target, Object value) throws OperationException {
+        try {
+            setter.invokeExact(target, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) { // NOSONAR: setters only throw unchecked exceptions
+            throw new OperationException(t);
+        }
+    }
+
     @Override
     public AutomationService getService() {
         return service;
@@ -195,9 +287,11 @@ public class OperationTypeImpl implements OperationType {
             if (param != null) {
                 field.setAccessible(true);
                 params.put(param.name(), field);
+                paramInjectors.add(new ParamInjector(param.name(), field));
             } else if (field.isAnnotationPresent(Context.class)) {
                 field.setAccessible(true);
                 injectableFields.add(field);
+                contextSetters.add(createSetter(field));
             }
         }
     }
@@ -206,9 +300,13 @@ public class OperationTypeImpl implements OperationType {
     public Object newInstance(OperationContext ctx, Map<String, Object> args) throws OperationException {
         Object obj;
         try {
-            obj = type.newInstance();
+            obj = constructor != null ? (Object) constructor.invokeExact() : type.newInstance();
         } catch (ReflectiveOperationException e) {
             throw new OperationException(e);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) { // NOSONAR: checked exception thrown by the constructor
+            throw new OperationException(t);
         }
         inject(ctx, args, obj);
         return obj;
@@ -233,47 +331,35 @@ public class OperationTypeImpl implements OperationType {
     }
 
     public void inject(OperationContext ctx, Map<String, Object> args, Object target) throws OperationException {
-        for (Map.Entry<String, Field> entry : params.entrySet()) {
-            Object obj = resolveObject(ctx, entry.getKey(), args);
+        for (ParamInjector param : paramInjectors) {
+            Object obj = resolveObject(ctx, param.name, args);
             if (obj == null) {
                 // We did not resolve object according to its param name, let's
                 // check with potential alias
-                String[] aliases = entry.getValue().getAnnotation(Param.class).alias();
-                if (aliases != null) {
-                    for (String alias : entry.getValue().getAnnotation(Param.class).alias()) {
-                        obj = resolveObject(ctx, alias, args);
-                        if (obj != null) {
-                            break;
-                        }
+                for (String alias : param.aliases) {
+                    obj = resolveObject(ctx, alias, args);
+                    if (obj != null) {
+                        break;
                     }
                 }
             }
             if (obj == null) {
-                if (entry.getValue().getAnnotation(Param.class).required()) {
-                    throw new OperationException("Failed to inject parameter '" + entry.getKey()
+                if (param.required) {
+                    throw new OperationException("Failed to inject parameter '" + param.name
                             + "'. Seems it is missing from the context. Operation: " + getId());
                 } // else do nothing
             } else {
-                Field field = entry.getValue();
                 Class<?> cl = obj.getClass();
-                if (!field.getType().isAssignableFrom(cl)) {
+                if (!param.type.isAssignableFrom(cl)) {
                     // try to adapt
-                    obj = service.getAdaptedValue(ctx, obj, field.getType());
-                }
-                try {
-                    field.set(target, obj);
-                } catch (ReflectiveOperationException e) {
-                    throw new OperationException(e);
+                    obj = service.getAdaptedValue(ctx, obj, param.type);
                 }
+                setField(param.setter, target, obj);
             }
         }
-        for (Field field : injectableFields) {
-            Object obj = ctx.getAdapter(field.getType());
-            try {
-                field.set(target, obj);
-            } catch (ReflectiveOperationException e) {
-                throw new OperationException(e);
-            }
+        for (int i = 0; i < injectableFields.size(); i++) {
+            Object obj = ctx.getAdapter(injectableFields.get(i).getType());
+            setField(contextSetters.get(i), target, obj);
         }
     }
 
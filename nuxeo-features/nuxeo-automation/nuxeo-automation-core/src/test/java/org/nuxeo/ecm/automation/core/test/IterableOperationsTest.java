@@ -22,6 +22,7 @@ import org.junit.runner.RunWith;
 import org.nuxeo.ecm.automation.AutomationService;
 import org.nuxeo.ecm.automation.OperationChain;
 import org.nuxeo.ecm.automation.OperationContext;
+import org.nuxeo.ecm.automation.core.Constants;
 import org.nuxeo.ecm.automation.core.operations.blob.AttachBlob;
 import org.nuxeo.ecm.automation.core.operations.document.LockDocument;
 import org.nuxeo.ecm.automation.core.operations.document.SetDocumentProperty;
@@ -122,6 +123,57 @@ public class IterableOperationsTest {
         assertEquals("mydesc", out.get(1).getPropertyValue("dc:description"));
     }
 
+    /**
+     * Same as before with a parallel, batched iteration
+     */
+    @Test
+    public void testParallelIteration() throws Exception {
+        DocumentModelListImpl docs = new DocumentModelListImpl();
+        for (int i = 0; i < 10; i++) {
+            docs.add(createFile(src, "file" + i, "File " + i));
+        }
+        OperationContext ctx = new OperationContext(session);
+        ctx.put(Constants.VAR_PARALLEL_BATCH_SIZE, "3");
+        ctx.put(Constants.VAR_PARALLEL_THREADS, Integer.valueOf(2));
+        ctx.put(Constants.VAR_PARALLEL_COMMIT, Boolean.TRUE);
+        ctx.setInput(docs);
+
+        OperationChain chain = new OperationChain("testChain");
+        chain.add(SetDocumentProperty.ID).set("xpath", "dc:description").set("value", "mydesc");
+
+        DocumentModelList out = (DocumentModelList) service.run(ctx, chain);
+        assertEquals(10, out.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(docs.get(i).getRef(), out.get(i).getRef());
+            assertEquals("mydesc", out.get(i).getPropertyValue("dc:description"));
+            assertEquals("mydesc", session.getDocument(docs.get(i).getRef()).getPropertyValue("dc:description"));
+        }
+    }
+
+    /**
+     * Without the parallel commit, the iteration stays in the current transaction and session
+     */
+    @Test
+    public void testParallelIterationKeepsTransaction() throws Exception {
+        DocumentModelListImpl docs = new DocumentModelListImpl();
+        for (int i = 0; i < 10; i++) {
+            docs.add(createFile(src, "file" + i, "File " + i));
+        }
+        OperationContext ctx = new OperationContext(session);
+        ctx.put(Constants.VAR_PARALLEL_BATCH_SIZE, "3");
+        ctx.setInput(docs);
+
+        OperationChain chain = new OperationChain("testChain");
+        chain.add(SetDocumentProperty.ID).set("xpath", "dc:description").set("value", "mydesc");
+
+        DocumentModelList out = (DocumentModelList) service.run(ctx, chain);
+        assertEquals(10, out.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(session.getSessionId(), out.get(i).getSessionId());
+            assertEquals("mydesc", out.get(i).getPropertyValue("dc:description"));
+        }
+    }
+
     /**
      * The same as before but use doc ref as input
      *
@@ -101,6 +101,21 @@ public class OperationAliasTest {
         assertNotNull(result);
     }
 
+    /**
+     * Call the same operation several times, its compiled chain is reused but parameters must not be.
+     *
+     * @since 7.3
+     */
+    @Test
+    public void testRepeatedOperationCalls() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            OperationContext ctx = new OperationContext(session);
+            Map<String, Object> params = new HashMap<String, Object>();
+            params.put(i % 2 == 0 ? "paramName" : ParamNameWithAliasOperation.ALIAS2, HELLO_WORLD + i);
+            assertEquals(HELLO_WORLD + i, service.run(ctx, ParamNameWithAliasOperation.ID, params));
+        }
+    }
+
     /**
      * Call a chain with its alias.
      *
@@ -24,7 +24,10 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.nuxeo.ecm.automation.AutomationService;
 import org.nuxeo.ecm.automation.OperationChain;
+import org.nuxeo.ecm.automation.OperationContext;
 import org.nuxeo.ecm.automation.OperationParameters;
+import org.nuxeo.ecm.automation.core.impl.OperationServiceImpl;
+import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.test.CoreFeature;
 import org.nuxeo.runtime.test.runner.Deploy;
 import org.nuxeo.runtime.test.runner.Features;
@@ -45,6 +48,9 @@ public class OperationChainRegistrationTest {
     @Inject
     AutomationService service;
 
+    @Inject
+    CoreSession session;
+
     /**
      * Check chain properties when using escaped params in operations
      */
@@ -59,4 +65,27 @@ public class OperationChainRegistrationTest {
                 params.map().get("query"));
     }
 
+    /**
+     * Check a compiled chain is dropped when the chain is registered again
+     */
+    @Test
+    public void testReplacedChainIsRecompiled() throws Exception {
+        service.putOperation(ParamNameWithAliasOperation.class, true);
+        OperationChain chain = new OperationChain("replacedChain");
+        chain.add(ParamNameWithAliasOperation.ID).set("paramName", "v1");
+        service.putOperationChain(chain);
+        try {
+            ((OperationServiceImpl) service).precompileChains();
+            assertEquals("v1", service.run(new OperationContext(session), "replacedChain"));
+
+            chain = new OperationChain("replacedChain");
+            chain.add(ParamNameWithAliasOperation.ID).set("paramName", "v2");
+            service.putOperationChain(chain, true);
+            assertEquals("v2", service.run(new OperationContext(session), "replacedChain"));
+        } finally {
+            service.removeOperationChain("replacedChain");
+            service.removeOperation(ParamNameWithAliasOperation.class);
+        }
+    }
+
 }
@@ -139,6 +139,22 @@ public class TestScriptRunnerInfrastructure {
         assertEquals("Bonjour John", result.toString());
     }
 
+    @Test
+    public void scriptingOperationParametersShouldNotLeakToNextCall() throws Exception {
+        OperationContext ctx = new OperationContext(session);
+        Map<String, Object> params = new HashMap<>();
+        params.put("greeting", "Hello");
+        ctx.setInput("John");
+        Object result = automationService.run(ctx, "Scripting.Greet", params);
+        assertEquals("Hello John", result.toString());
+
+        // same cached operation, without the parameter
+        ctx = new OperationContext(session);
+        ctx.setInput("John");
+        result = automationService.run(ctx, "Scripting.Greet", new HashMap<String, Object>());
+        assertEquals("Hi John", result.toString());
+    }
+
     @Test
     public void runOperationOnSubTree() throws Exception {
 
@@ -29,6 +29,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.logging.Log;
@@ -130,13 +131,26 @@ public class ESAuditBackend extends AbstractAuditBackend implements AuditBackend
 
     @Override
     public void deactivate() {
+        super.deactivate();
         if (esClient != null) {
             esClient.close();
         }
     }
 
+    @Override
+    protected long getHistoryCacheQuietPeriod() {
+        // the written entries are searchable once the index is refreshed
+        return TimeUnit.SECONDS.toMillis(1);
+    }
+
     @Override
     public List<LogEntry> getLogEntriesFor(String uuid, Map<String, FilterMapEntry> filterMap, boolean doDefaultSort) {
+        return getCachedLogEntriesFor(uuid, filterMap, doDefaultSort,
+                () -> searchLogEntriesFor(uuid, filterMap, doDefaultSort));
+    }
+
+    protected List<LogEntry> searchLogEntriesFor(String uuid, Map<String, FilterMapEntry> filterMap,
+            boolean doDefaultSort) {
         SearchRequestBuilder builder = getSearchRequestBuilder();
         TermFilterBuilder docFilter = FilterBuilders.termFilter("docUUID", uuid);
         FilterBuilder filter;
@@ -331,6 +345,8 @@ public class ESAuditBackend extends AbstractAuditBackend implements AuditBackend
             }
         } catch (IOException e) {
             throw new ClientException("Error while indexing Audit entries", e);
+        } finally {
+            invalidateHistory(entries);
         }
 
     }
@@ -178,7 +178,7 @@ public class ElasticSearchComponent extends DefaultComponent implements ElasticS
         }
         indexingMonitor = new IndexingMonitor();
         esa = new ElasticSearchAdminImpl(localConfig, remoteConfig, indexConfig);
-        esi = new ElasticSearchIndexingImpl(esa, jsonESDocumentWriter);
+        esi = new ElasticSearchIndexingImpl(esa, jsonESDocumentWriter, indexingMonitor);
         ess = new ElasticSearchServiceImpl(esa);
         initListenerThreadPool();
         processStackedCommands();
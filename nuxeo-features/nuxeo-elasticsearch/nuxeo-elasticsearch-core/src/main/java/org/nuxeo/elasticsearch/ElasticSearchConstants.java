@@ -94,6 +94,35 @@ final public class ElasticSearchConstants {
 
     public static final String REINDEX_BUCKET_WRITE_PROPERTY = "elasticsearch.reindex.bucketWriteSize";
 
+    /**
+     * Target duration in milliseconds of the indexing of a write bucket, the write bucket size is adapted to stay
+     * around it. 0 keeps a fixed size.
+     *
+     * @since 7.3
+     */
+    public static final String REINDEX_BUCKET_WRITE_LATENCY_PROPERTY = "elasticsearch.reindex.bucketWriteLatency";
+
+    /**
+     * Maximum number of documents of a bulk index request.
+     *
+     * @since 7.3
+     */
+    public static final String INDEXING_BULK_SIZE_PROPERTY = "elasticsearch.indexing.bulkSize";
+
+    /**
+     * Maximum estimated size in bytes of a bulk index request.
+     *
+     * @since 7.3
+     */
+    public static final String INDEXING_BULK_BYTES_PROPERTY = "elasticsearch.indexing.bulkBytes";
+
+    /**
+     * Maximum number of bulk index requests sent and not yet completed while the next one is built.
+     *
+     * @since 7.3
+     */
+    public static final String INDEXING_BULK_CONCURRENCY_PROPERTY = "elasticsearch.indexing.bulkConcurrency";
+
     public static final String REINDEX_ON_STARTUP_PROPERTY = "elastcisearch.reindex.onStartup";
 
     public static final String DISABLE_AUTO_INDEXING = "disableAutoIndexing";
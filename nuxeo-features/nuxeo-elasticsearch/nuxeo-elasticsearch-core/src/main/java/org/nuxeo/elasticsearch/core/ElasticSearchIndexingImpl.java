@@ -21,15 +21,23 @@ package org.nuxeo.elasticsearch.core;
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 import static org.nuxeo.elasticsearch.ElasticSearchConstants.CHILDREN_FIELD;
 import static org.nuxeo.elasticsearch.ElasticSearchConstants.DOC_TYPE;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.INDEXING_BULK_BYTES_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.INDEXING_BULK_CONCURRENCY_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.INDEXING_BULK_SIZE_PROPERTY;
 import static org.nuxeo.elasticsearch.ElasticSearchConstants.PATH_FIELD;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.JsonGenerator;
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequestBuilder;
@@ -38,11 +46,13 @@ import org.elasticsearch.action.deletebyquery.DeleteByQueryResponse;
 import org.elasticsearch.action.deletebyquery.IndexDeleteByQueryResponse;
 import org.elasticsearch.action.get.GetRequestBuilder;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.query.FilterBuilders;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.rest.RestStatus;
 import org.nuxeo.ecm.automation.jaxrs.io.documents.JsonESDocumentWriter;
 import org.nuxeo.ecm.core.api.ClientException;
 import org.nuxeo.ecm.core.api.DocumentModel;
@@ -64,6 +74,32 @@ import com.codahale.metrics.Timer.Context;
 public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
     private static final Log log = LogFactory.getLog(ElasticSearchIndexingImpl.class);
 
+    private static final String DEFAULT_BULK_SIZE = "500";
+
+    private static final String DEFAULT_BULK_BYTES = "5242880";
+
+    private static final String DEFAULT_BULK_CONCURRENCY = "1";
+
+    private static final int MAX_BULK_RETRIES = 3;
+
+    private static final long BULK_RETRY_DELAY_MS = 100;
+
+    /**
+     * A bulk request sent and not yet completed.
+     */
+    protected static class PendingBulk {
+
+        protected final BulkRequest request;
+
+        protected final ActionFuture<BulkResponse> response;
+
+        protected PendingBulk(BulkRequest request, ActionFuture<BulkResponse> response) {
+            this.request = request;
+            this.response = response;
+        }
+
+    }
+
     private final ElasticSearchAdminImpl esa;
 
     private final Timer deleteTimer;
@@ -74,6 +110,8 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
 
     private JsonESDocumentWriter jsonESDocumentWriter;
 
+    private IndexingMonitor monitor;
+
     public ElasticSearchIndexingImpl(ElasticSearchAdminImpl esa) {
         this.esa = esa;
         MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
@@ -81,6 +119,7 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
         deleteTimer = registry.timer(MetricRegistry.name("nuxeo", "elasticsearch", "service", "delete"));
         bulkIndexTimer = registry.timer(MetricRegistry.name("nuxeo", "elasticsearch", "service", "bulkIndex"));
         this.jsonESDocumentWriter = new JsonESDocumentWriter();// default writer
+        this.monitor = new IndexingMonitor();
     }
 
     /**
@@ -91,6 +130,15 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
         this.jsonESDocumentWriter = jsonESDocumentWriter;
     }
 
+    /**
+     * @since 7.3
+     */
+    public ElasticSearchIndexingImpl(ElasticSearchAdminImpl esa, JsonESDocumentWriter jsonESDocumentWriter,
+            IndexingMonitor monitor) {
+        this(esa, jsonESDocumentWriter);
+        this.monitor = monitor;
+    }
+
     @Override
     public void runIndexingWorker(List<IndexingCommand> cmds) {
         throw new UnsupportedOperationException("Not implemented");
@@ -136,35 +184,122 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
         }
     }
 
+    /**
+     * Sends the index commands by bulk requests bounded in number of documents and in bytes. The next bulk request is
+     * built while the previous ones are processed, up to a configured number of pending requests.
+     */
     void processBulkIndexCommands(List<IndexingCommand> cmds) throws ClientException {
-        BulkRequestBuilder bulkRequest = esa.getClient().prepareBulk();
-        for (IndexingCommand cmd : cmds) {
-            if (cmd.getType() == Type.DELETE) {
-                continue;
-            }
-            try {
-                IndexRequestBuilder idxRequest = buildEsIndexingRequest(cmd);
-                if (idxRequest != null) {
-                    bulkRequest.add(idxRequest);
+        int bulkSize = Integer.parseInt(Framework.getProperty(INDEXING_BULK_SIZE_PROPERTY, DEFAULT_BULK_SIZE));
+        long bulkBytes = Long.parseLong(Framework.getProperty(INDEXING_BULK_BYTES_PROPERTY, DEFAULT_BULK_BYTES));
+        int concurrency = Math.max(1, Integer.parseInt(Framework.getProperty(INDEXING_BULK_CONCURRENCY_PROPERTY,
+                DEFAULT_BULK_CONCURRENCY)));
+        Deque<PendingBulk> pending = new ArrayDeque<>(concurrency);
+        try {
+            BulkRequestBuilder bulkRequest = esa.getClient().prepareBulk();
+            for (IndexingCommand cmd : cmds) {
+                if (cmd.getType() == Type.DELETE) {
+                    continue;
                 }
-            } catch (ClientException | IllegalArgumentException e) {
-                if (e.getCause() instanceof NoSuchDocumentException) {
-                    log.info("Skip indexing command to bulk, doc does not exists anymore: " + cmd);
-                } else {
-                    log.error("Skip indexing command to bulk, fail to create request: " + cmd, e);
+                try {
+                    IndexRequestBuilder idxRequest = buildEsIndexingRequest(cmd);
+                    if (idxRequest != null) {
+                        bulkRequest.add(idxRequest);
+                    }
+                } catch (ClientException | IllegalArgumentException e) {
+                    if (e.getCause() instanceof NoSuchDocumentException) {
+                        log.info("Skip indexing command to bulk, doc does not exists anymore: " + cmd);
+                    } else {
+                        log.error("Skip indexing command to bulk, fail to create request: " + cmd, e);
+                    }
+                }
+                if (bulkRequest.numberOfActions() >= bulkSize
+                        || bulkRequest.request().estimatedSizeInBytes() >= bulkBytes) {
+                    if (pending.size() >= concurrency) {
+                        completeBulk(pending.poll());
+                    }
+                    pending.add(sendBulk(bulkRequest));
+                    bulkRequest = esa.getClient().prepareBulk();
+                }
+            }
+            if (bulkRequest.numberOfActions() > 0) {
+                pending.add(sendBulk(bulkRequest));
+            }
+            while (!pending.isEmpty()) {
+                completeBulk(pending.poll());
+            }
+        } finally {
+            // don't leave requests in flight when one of them failed
+            while (!pending.isEmpty()) {
+                try {
+                    completeBulk(pending.poll());
+                } catch (RuntimeException e) {
+                    log.error("Fail to complete bulk request", e);
                 }
             }
         }
-        if (bulkRequest.numberOfActions() > 0) {
-            if (log.isDebugEnabled()) {
-                log.debug(String.format(
-                        "Index %d docs in bulk request: curl -XPOST 'http://localhost:9200/_bulk' -d '%s'",
-                        bulkRequest.numberOfActions(), bulkRequest.request().requests().toString()));
+    }
+
+    protected PendingBulk sendBulk(BulkRequestBuilder bulkRequest) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Index %d docs in bulk request: curl -XPOST 'http://localhost:9200/_bulk' -d '%s'",
+                    bulkRequest.numberOfActions(), bulkRequest.request().requests().toString()));
+        }
+        BulkRequest request = bulkRequest.request();
+        return new PendingBulk(request, executeBulk(request));
+    }
+
+    /**
+     * Sends a bulk request asynchronously.
+     *
+     * @since 7.3
+     */
+    protected ActionFuture<BulkResponse> executeBulk(BulkRequest request) {
+        return esa.getClient().bulk(request);
+    }
+
+    /**
+     * Waits for a bulk request, retrying with a growing delay the documents rejected because Elasticsearch was
+     * overloaded.
+     */
+    protected void completeBulk(PendingBulk bulk) {
+        BulkRequest request = bulk.request;
+        BulkResponse response = bulk.response.actionGet();
+        for (int retry = 0;; retry++) {
+            BulkRequest rejected = new BulkRequest();
+            int failed = 0;
+            long indexedBytes = 0;
+            for (BulkItemResponse item : response.getItems()) {
+                IndexRequest itemRequest = (IndexRequest) request.requests().get(item.getItemId());
+                if (!item.isFailed()) {
+                    indexedBytes += itemRequest.source().length();
+                    continue;
+                }
+                failed++;
+                if (item.getFailure().getStatus() == RestStatus.TOO_MANY_REQUESTS) {
+                    rejected.add(itemRequest);
+                }
             }
-            BulkResponse response = bulkRequest.execute().actionGet();
-            if (response.hasFailures()) {
+            monitor.markIndexed(request.numberOfActions() - failed, indexedBytes);
+            monitor.markRejected(rejected.numberOfActions());
+            boolean retrying = rejected.numberOfActions() > 0 && retry < MAX_BULK_RETRIES;
+            if (failed > (retrying ? rejected.numberOfActions() : 0)) {
                 log.error(response.buildFailureMessage());
             }
+            if (!retrying) {
+                return;
+            }
+            try {
+                Thread.sleep(BULK_RETRY_DELAY_MS << retry);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error(String.format("Interrupted, %d rejected docs not retried", rejected.numberOfActions()));
+                return;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Retry %d rejected docs in bulk request", rejected.numberOfActions()));
+            }
+            request = rejected;
+            response = executeBulk(request).actionGet();
         }
     }
 
@@ -225,6 +360,7 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
                     request.request().toString()));
         }
         request.execute().actionGet();
+        monitor.markIndexed(1, request.request().source().length());
     }
 
     void processDeleteCommand(IndexingCommand cmd) {
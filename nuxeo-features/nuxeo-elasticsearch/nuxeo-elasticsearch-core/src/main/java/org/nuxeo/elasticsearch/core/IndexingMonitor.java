@@ -19,6 +19,13 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
 /**
  * Monitor indexing state
  *
@@ -34,6 +41,19 @@ public class IndexingMonitor {
 
     public static final Condition indexingDone = lock.newCondition();
 
+    private final Meter indexedDocs;
+
+    private final Meter indexedBytes;
+
+    private final Counter rejectedDocs;
+
+    public IndexingMonitor() {
+        MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        indexedDocs = registry.meter(MetricRegistry.name("nuxeo", "elasticsearch", "service", "indexedDocs"));
+        indexedBytes = registry.meter(MetricRegistry.name("nuxeo", "elasticsearch", "service", "indexedBytes"));
+        rejectedDocs = registry.counter(MetricRegistry.name("nuxeo", "elasticsearch", "service", "rejectedDocs"));
+    }
+
     public int getTotalWorkerCount() {
         return totalWorkerCounter.get();
     }
@@ -87,4 +107,50 @@ public class IndexingMonitor {
             lock.unlock();
         }
     }
+
+    /**
+     * Records documents indexed by a bulk request.
+     *
+     * @since 7.3
+     */
+    public void markIndexed(long docs, long bytes) {
+        indexedDocs.mark(docs);
+        indexedBytes.mark(bytes);
+    }
+
+    /**
+     * Records documents rejected by Elasticsearch because it was overloaded.
+     *
+     * @since 7.3
+     */
+    public void markRejected(long docs) {
+        rejectedDocs.inc(docs);
+    }
+
+    /**
+     * Returns the number of documents indexed per second over the last minute.
+     *
+     * @since 7.3
+     */
+    public double getIndexedDocsRate() {
+        return indexedDocs.getOneMinuteRate();
+    }
+
+    /**
+     * Returns the number of bytes indexed per second over the last minute.
+     *
+     * @since 7.3
+     */
+    public double getIndexedBytesRate() {
+        return indexedBytes.getOneMinuteRate();
+    }
+
+    /**
+     * Returns the number of documents rejected by Elasticsearch, retried or not.
+     *
+     * @since 7.3
+     */
+    public long getRejectedCount() {
+        return rejectedDocs.getCount();
+    }
 }
@@ -17,8 +17,6 @@
 package org.nuxeo.elasticsearch.fetcher;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,24 +26,44 @@ import org.elasticsearch.search.SearchHit;
 import org.nuxeo.ecm.core.api.CoreInstance;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.api.impl.DocumentModelBatch;
 import org.nuxeo.ecm.core.api.impl.DocumentModelListImpl;
-import org.nuxeo.ecm.core.query.sql.NXQL;
 
 /**
+ * Fetches the documents of the hits from the repositories, by chunks of ids read together, and returns them in the
+ * order of the hits.
+ * <p>
+ * The schemas of a prefetch profile are loaded together for all the documents, the other schemas are loaded on first
+ * access.
+ *
  * @since 6.0
  */
 public class VcsFetcher extends Fetcher {
 
     private static final int CHUNK_SIZE = 100;
 
+    private final String[] prefetchSchemas;
+
     public VcsFetcher(CoreSession session, SearchResponse response, Map<String, String> repoNames) {
+        this(session, response, repoNames, null);
+    }
+
+    /**
+     * @param prefetchSchemas the schemas to load together for all the documents, or {@code null}
+     * @since 7.3
+     */
+    public VcsFetcher(CoreSession session, SearchResponse response, Map<String, String> repoNames,
+            String[] prefetchSchemas) {
         super(session, response, repoNames);
+        this.prefetchSchemas = prefetchSchemas;
     }
 
     @Override
     public DocumentModelListImpl fetchDocuments() {
         Map<String, List<String>> repoHits = getHitsPerRepository();
-        List<DocumentModel> docs = new ArrayList<>();
+        Map<String, DocumentModel> docs = new HashMap<>();
         String openSessionRepository = getSession().getRepositoryName();
         boolean closeSession;
         CoreSession session;
@@ -58,17 +76,23 @@ public class VcsFetcher extends Fetcher {
                 closeSession = true;
             }
             try {
-                docs.addAll(fetchFromVcs(repoHits.get(repo), session));
+                List<DocumentModel> repoDocs = fetchFromVcs(repoHits.get(repo), session);
+                for (DocumentModel doc : repoDocs) {
+                    docs.put(repo + doc.getId(), doc);
+                }
             } finally {
                 if (closeSession) {
                     session.close();
                 }
             }
         }
-        sortResults(docs);
+        // keep the order of the hits
         DocumentModelListImpl ret = new DocumentModelListImpl(docs.size());
-        if (!docs.isEmpty()) {
-            ret.addAll(docs);
+        for (SearchHit hit : getResponse().getHits()) {
+            DocumentModel doc = docs.get(getRepoForIndex(hit.getIndex()) + hit.getId());
+            if (doc != null) {
+                ret.add(doc);
+            }
         }
         return ret;
     }
@@ -88,55 +112,37 @@ public class VcsFetcher extends Fetcher {
     }
 
     private List<DocumentModel> fetchFromVcs(List<String> ids, CoreSession session) {
-        List<DocumentModel> ret = null;
-        int size = ids.size();
-        int start = 0;
-        int end = Math.min(CHUNK_SIZE, size);
-        boolean done = false;
-        while (!done) {
-            List<DocumentModel> docs = fetchFromVcsChunk(ids.subList(start, end), session);
-            if (ret == null) {
-                ret = docs;
-            } else {
-                ret.addAll(docs);
-            }
-            if (end >= ids.size()) {
-                done = true;
-            } else {
-                start = end;
-                end = Math.min(start + CHUNK_SIZE, size);
-            }
+        List<DocumentModel> ret = new ArrayList<>(ids.size());
+        for (int start = 0; start < ids.size(); start += CHUNK_SIZE) {
+            ret.addAll(fetchFromVcsChunk(ids.subList(start, Math.min(start + CHUNK_SIZE, ids.size())), session));
         }
+        prefetchSchemas(ret);
         return ret;
     }
 
-    private List<DocumentModel> fetchFromVcsChunk(final List<String> ids, CoreSession session)
-    {
-        StringBuilder sb = new StringBuilder();
-        sb.append("SELECT * FROM Document, Relation WHERE ecm:uuid IN (");
-        for (int i = 0; i < ids.size(); i++) {
-            sb.append(NXQL.escapeString(ids.get(i)));
-            if (i < ids.size() - 1) {
-                sb.append(", ");
-            }
+    private List<DocumentModel> fetchFromVcsChunk(final List<String> ids, CoreSession session) {
+        // multi-get, the missing and unreadable documents are skipped
+        DocumentRef[] refs = new DocumentRef[ids.size()];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = new IdRef(ids.get(i));
         }
-        sb.append(")");
-        return session.query(sb.toString());
+        return session.getReadableDocuments(refs);
     }
 
-    private void sortResults(List<DocumentModel> docs) {
-        final List<String> ids = new ArrayList<>();
-        for (SearchHit hit : getResponse().getHits()) {
-            ids.add(getRepoForIndex(hit.getIndex()) + hit.getId());
+    private void prefetchSchemas(List<DocumentModel> docs) {
+        if (prefetchSchemas == null || docs.isEmpty()) {
+            return;
         }
-
-        Collections.sort(docs, new Comparator<DocumentModel>() {
-            @Override
-            public int compare(DocumentModel a, DocumentModel b) {
-                return ids.indexOf(a.getRepositoryName() + a.getId()) - ids.indexOf(b.getRepositoryName() + b.getId());
+        DocumentModelBatch.attach(docs);
+        for (String schema : prefetchSchemas) {
+            for (DocumentModel doc : docs) {
+                if (doc.hasSchema(schema)) {
+                    // loads the schema for all the documents of the batch having it
+                    doc.getDataModel(schema);
+                    break;
+                }
             }
-        });
-
+        }
     }
 
 }
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.elasticsearch.index.query.QueryBuilder;
@@ -55,6 +56,13 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
 
     public static final String SEARCH_ON_ALL_REPOSITORIES_PROPERTY = "searchAllRepositories";
 
+    /**
+     * Property listing the comma separated schemas to load together for the documents of a page.
+     *
+     * @since 7.3
+     */
+    public static final String PREFETCH_SCHEMAS_PROPERTY = "prefetchSchemas";
+
     protected static final Log log = LogFactory.getLog(ElasticSearchNxqlPageProvider.class);
 
     private static final long serialVersionUID = 1L;
@@ -91,6 +99,10 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
             if (searchOnAllRepositories()) {
                 nxQuery.searchOnAllRepositories();
             }
+            String[] prefetchSchemas = getPrefetchSchemas();
+            if (prefetchSchemas != null) {
+                nxQuery.prefetchSchemas(prefetchSchemas);
+            }
             EsResult ret = ess.queryAndAggregate(nxQuery);
             DocumentModelList dmList = ret.getDocuments();
             currentAggregates = new HashMap<>(ret.getAggregates().size());
@@ -160,6 +172,14 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
         return Boolean.valueOf(value);
     }
 
+    protected String[] getPrefetchSchemas() {
+        String value = (String) getProperties().get(PREFETCH_SCHEMAS_PROPERTY);
+        if (StringUtils.isBlank(value)) {
+            return null;
+        }
+        return StringUtils.split(value.replace(" ", ""), ',');
+    }
+
     @Override
     public boolean hasAggregateSupport() {
         return true;
@@ -93,6 +93,8 @@ public class NxQueryBuilder {
 
     private boolean esOnly = false;
 
+    private String[] prefetchSchemas;
+
     public NxQueryBuilder(CoreSession coreSession) {
         session = coreSession;
         repositories.add(coreSession.getRepositoryName());
@@ -180,6 +182,17 @@ public class NxQueryBuilder {
         return this;
     }
 
+    /**
+     * Loads the given schemas together for all the documents fetched from the database, the other schemas being
+     * loaded on first access.
+     *
+     * @since 7.3
+     */
+    public NxQueryBuilder prefetchSchemas(String... schemas) {
+        prefetchSchemas = schemas;
+        return this;
+    }
+
     public NxQueryBuilder addAggregate(AggregateEsBase<? extends Bucket> aggregate) {
         aggregates.add(aggregate);
         return this;
@@ -391,7 +404,7 @@ public class NxQueryBuilder {
         if (isFetchFromElasticsearch()) {
             return new EsFetcher(session, response, repoNames);
         }
-        return new VcsFetcher(session, response, repoNames);
+        return new VcsFetcher(session, response, repoNames, prefetchSchemas);
     }
 
     /**
@@ -33,6 +33,9 @@ public abstract class BaseIndexingWorker extends AbstractWork {
 
     protected transient IndexingMonitor monitor;
 
+    // set when the work is suspended after being counted down, so that it is counted again once resumed
+    protected boolean resumed;
+
     BaseIndexingWorker(IndexingMonitor monitor) {
         monitor.incrementWorker();
         this.monitor = monitor;
@@ -45,10 +48,17 @@ public abstract class BaseIndexingWorker extends AbstractWork {
 
     @Override
     public void work() {
+        if (resumed) {
+            resumed = false;
+            getMonitor().incrementWorker();
+        }
         getMonitor().incrementRunningWorker();
         try {
             doWork();
         } finally {
+            if (isWorkInstanceSuspended()) {
+                resumed = true;
+            }
             getMonitor().decrementWorker();
         }
     }
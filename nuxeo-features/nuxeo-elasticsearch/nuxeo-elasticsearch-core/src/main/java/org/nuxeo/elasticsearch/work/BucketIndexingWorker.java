@@ -17,6 +17,7 @@
 
 package org.nuxeo.elasticsearch.work;
 
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_BUCKET_WRITE_LATENCY_PROPERTY;
 import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_BUCKET_WRITE_PROPERTY;
 
 import java.util.ArrayList;
@@ -36,7 +37,10 @@ import org.nuxeo.elasticsearch.core.IndexingMonitor;
 import org.nuxeo.runtime.api.Framework;
 
 /**
- * œ Worker to index a bucket of documents
+ * Worker to index a bucket of documents
+ * <p>
+ * The documents are indexed by write buckets whose size is adapted to the observed indexing duration. When the work
+ * manager is suspended, the documents not yet indexed are kept so that a resumed worker only indexes them.
  *
  * @since 7.1
  */
@@ -47,6 +51,8 @@ public class BucketIndexingWorker extends BaseIndexingWorker implements Work {
 
     private static final String DEFAULT_BUCKET_SIZE = "50";
 
+    private static final String DEFAULT_BUCKET_LATENCY = "1000";
+
     private final boolean warnAtEnd;
 
     private final int documentCount;
@@ -67,18 +73,26 @@ public class BucketIndexingWorker extends BaseIndexingWorker implements Work {
     protected void doWork() {
         ElasticSearchIndexing esi = Framework.getLocalService(ElasticSearchIndexing.class);
         CoreSession session = initSession(repositoryName);
-        int bucketSize = Math.min(documentCount, getBucketSize());
-        List<String> ids = new ArrayList<>(bucketSize);
+        List<String> remaining = new ArrayList<>(documentCount);
         for (DocumentLocation doc : getDocuments()) {
-            ids.add(doc.getIdRef().value);
-            if ((ids.size() % bucketSize) == 0) {
-                esi.indexNonRecursive(getIndexingCommands(session, ids));
-                ids.clear();
-            }
+            remaining.add(doc.getIdRef().value);
         }
-        if (!ids.isEmpty()) {
+        int maxBucketSize = Math.min(remaining.size(), getBucketSize());
+        int bucketSize = maxBucketSize;
+        long latency = getBucketLatency();
+        int pos = 0;
+        while (pos < remaining.size()) {
+            if (isSuspending()) {
+                // keep the documents not yet indexed
+                setDocuments(repositoryName, remaining.subList(pos, remaining.size()));
+                suspended();
+                return;
+            }
+            List<String> ids = remaining.subList(pos, Math.min(pos + bucketSize, remaining.size()));
+            long start = System.currentTimeMillis();
             esi.indexNonRecursive(getIndexingCommands(session, ids));
-            ids.clear();
+            pos += ids.size();
+            bucketSize = adaptBucketSize(bucketSize, maxBucketSize, System.currentTimeMillis() - start, latency);
         }
         if (warnAtEnd) {
             log.warn(String.format("Re-indexing job: %s completed.", getSchedulePath().getParentPath()));
@@ -114,4 +128,28 @@ public class BucketIndexingWorker extends BaseIndexingWorker implements Work {
         return Integer.parseInt(value);
     }
 
+    protected long getBucketLatency() {
+        String value = Framework.getProperty(REINDEX_BUCKET_WRITE_LATENCY_PROPERTY, DEFAULT_BUCKET_LATENCY);
+        return Long.parseLong(value);
+    }
+
+    /**
+     * Computes the size of the next write bucket: halved when the last one took longer than the target latency, grown
+     * by half when it took less than half of it.
+     *
+     * @since 7.3
+     */
+    protected static int adaptBucketSize(int bucketSize, int maxBucketSize, long duration, long latency) {
+        if (latency <= 0) {
+            return bucketSize;
+        }
+        if (duration > latency) {
+            return Math.max(1, bucketSize / 2);
+        }
+        if (duration < latency / 2) {
+            return Math.min(maxBucketSize, bucketSize + Math.max(1, bucketSize / 2));
+        }
+        return bucketSize;
+    }
+
 }
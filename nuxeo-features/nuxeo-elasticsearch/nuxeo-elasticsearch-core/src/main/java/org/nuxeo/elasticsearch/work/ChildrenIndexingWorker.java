@@ -17,6 +17,9 @@
 
 package org.nuxeo.elasticsearch.work;
 
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_BUCKET_WRITE_PROPERTY;
+
+import java.util.ArrayList;
 import java.util.List;
 
 import org.nuxeo.ecm.core.api.ClientException;
@@ -39,6 +42,8 @@ public class ChildrenIndexingWorker extends AbstractIndexingWorker implements Wo
 
     private static final long serialVersionUID = 724369727479693496L;
 
+    private static final String DEFAULT_BUCKET_SIZE = "50";
+
     public ChildrenIndexingWorker(IndexingMonitor monitor,  IndexingCommand cmd) {
         super(monitor, cmd);
     }
@@ -58,6 +63,8 @@ public class ChildrenIndexingWorker extends AbstractIndexingWorker implements Wo
         if (doc == null) {
             return;
         }
+        int bucketSize = getBucketSize();
+        List<IndexingCommand> bucket = new ArrayList<>(bucketSize);
         DocumentModelIterator iter = session.getChildrenIterator(doc.getRef());
         while (iter.hasNext()) {
             // Add a session save to process cache invalidation
@@ -67,7 +74,12 @@ public class ChildrenIndexingWorker extends AbstractIndexingWorker implements Wo
             IndexingCommand childCommand = cmd.clone(child);
 
             if (!esi.isAlreadyScheduled(childCommand)) {
-                esi.indexNonRecursive(childCommand);
+                // the children are sent by bulk requests
+                bucket.add(childCommand);
+                if (bucket.size() >= bucketSize) {
+                    esi.indexNonRecursive(bucket);
+                    bucket = new ArrayList<>(bucketSize);
+                }
             }
             if (child.isFolder()) {
                 ChildrenIndexingWorker subWorker = new ChildrenIndexingWorker(monitor, childCommand);
@@ -75,7 +87,15 @@ public class ChildrenIndexingWorker extends AbstractIndexingWorker implements Wo
                 wm.schedule(subWorker);
             }
         }
+        if (!bucket.isEmpty()) {
+            esi.indexNonRecursive(bucket);
+        }
+
+    }
 
+    protected int getBucketSize() {
+        String value = Framework.getProperty(REINDEX_BUCKET_WRITE_PROPERTY, DEFAULT_BUCKET_SIZE);
+        return Math.max(1, Integer.parseInt(value));
     }
 
     private DocumentModel getDocument(IndexingCommand cmd) {
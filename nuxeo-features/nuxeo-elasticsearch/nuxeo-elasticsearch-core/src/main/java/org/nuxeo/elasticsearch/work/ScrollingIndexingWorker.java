@@ -24,12 +24,15 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.IterableQueryResult;
 import org.nuxeo.ecm.core.query.sql.NXQL;
+import org.nuxeo.ecm.core.query.sql.SQLQueryParser;
 import org.nuxeo.ecm.core.work.api.Work;
 import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.elasticsearch.core.IndexingMonitor;
@@ -37,6 +40,10 @@ import org.nuxeo.runtime.api.Framework;
 
 /**
  * Worker to reindex a large amount of document
+ * <p>
+ * The document ids are scrolled and scheduled by buckets to {@link BucketIndexingWorker}s, which are run concurrently
+ * by the indexing queue, each one with its own session. The ids are scrolled ordered by {@code ecm:uuid}: when the work
+ * manager is suspended, the last id scheduled is kept so that a resumed worker continues after it.
  *
  * @since 7.1
  */
@@ -49,12 +56,19 @@ public class ScrollingIndexingWorker extends BaseIndexingWorker implements Work
 
     private static final long WARN_DOC_COUNT = 500;
 
+    private static final Pattern WHERE_PATTERN = Pattern.compile("\\sWHERE\\s", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern ORDER_BY_PATTERN = Pattern.compile("\\sORDER\\s+BY\\s", Pattern.CASE_INSENSITIVE);
+
     protected final String nxql;
 
     protected transient WorkManager workManager;
 
     protected long documentCount = 0;
 
+    // the last id scheduled, the checkpoint of a suspended worker
+    protected String lastId;
+
     public ScrollingIndexingWorker(IndexingMonitor monitor, String repositoryName, String nxql) {
         super(monitor);
         this.repositoryName = repositoryName;
@@ -73,8 +87,11 @@ public class ScrollingIndexingWorker extends BaseIndexingWorker implements Work
             log.debug(String.format("Re-indexing job: %s started, NXQL: %s on repository: %s", jobName, nxql,
                     repositoryName));
         }
+        if (lastId != null) {
+            log.info(String.format("Re-indexing job: %s resumed after %d documents", jobName, documentCount));
+        }
         CoreSession session = initSession(repositoryName);
-        IterableQueryResult res = session.queryAndFetch(nxql, NXQL.NXQL);
+        IterableQueryResult res = session.queryAndFetch(getScrollQuery(), NXQL.NXQL);
         int bucketCount = 0;
         boolean warnAtEnd = false;
         try {
@@ -86,8 +103,14 @@ public class ScrollingIndexingWorker extends BaseIndexingWorker implements Work
                 ids.add((String) it.next().get(NXQL.ECM_UUID));
                 if (ids.size() == bucketSize) {
                     scheduleBucketWorker(ids, false);
+                    lastId = ids.get(ids.size() - 1);
                     ids = new ArrayList<>(bucketSize);
                     bucketCount += 1;
+                    if (isSuspending()) {
+                        // lastId is the checkpoint
+                        suspended();
+                        return;
+                    }
                 }
             }
             if (documentCount > WARN_DOC_COUNT) {
@@ -111,6 +134,36 @@ public class ScrollingIndexingWorker extends BaseIndexingWorker implements Work
         }
     }
 
+    /**
+     * Gets the query scrolling the ids ordered by {@code ecm:uuid}, restricted to the ids following the checkpoint of a
+     * resumed worker. An ORDER BY of the original query is replaced.
+     *
+     * @since 7.3
+     */
+    protected String getScrollQuery() {
+        String query = nxql;
+        if (SQLQueryParser.parse(nxql).orderBy != null) {
+            // ORDER BY is the last clause, string literals can only be found before
+            Matcher m = ORDER_BY_PATTERN.matcher(query);
+            int start = -1;
+            while (m.find()) {
+                start = m.start();
+            }
+            query = query.substring(0, start);
+        }
+        if (lastId != null) {
+            String after = NXQL.ECM_UUID + " > " + NXQL.escapeString(lastId);
+            // the FROM clause only holds types, the first WHERE is the clause
+            Matcher m = WHERE_PATTERN.matcher(query);
+            if (m.find()) {
+                query = query.substring(0, m.end()) + "(" + query.substring(m.end()) + ") AND " + after;
+            } else {
+                query += " WHERE " + after;
+            }
+        }
+        return query + " ORDER BY " + NXQL.ECM_UUID;
+    }
+
     protected void scheduleBucketWorker(List<String> bucket, boolean isLast) {
         if (bucket.isEmpty()) {
             return;
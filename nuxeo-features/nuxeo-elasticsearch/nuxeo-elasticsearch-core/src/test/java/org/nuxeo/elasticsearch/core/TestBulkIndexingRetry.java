@@ -0,0 +1,128 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * Contributors:
+ *     Nuxeo
+ */
+package org.nuxeo.elasticsearch.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Assert;
+import org.junit.Test;
+import org.nuxeo.ecm.automation.jaxrs.io.documents.JsonESDocumentWriter;
+
+/**
+ * Checks the bulk responses handling without an Elasticsearch node.
+ *
+ * @since 7.3
+ */
+public class TestBulkIndexingRetry {
+
+    protected static class RecordingMonitor extends IndexingMonitor {
+
+        protected long indexedDocs;
+
+        protected long indexedBytes;
+
+        @Override
+        public void markIndexed(long docs, long bytes) {
+            super.markIndexed(docs, bytes);
+            indexedDocs += docs;
+            indexedBytes += bytes;
+        }
+    }
+
+    /**
+     * Answers the retried bulk requests with the given responses.
+     */
+    protected static class StubbedIndexing extends ElasticSearchIndexingImpl {
+
+        protected final List<BulkRequest> retried = new ArrayList<>();
+
+        protected final List<BulkResponse> responses;
+
+        protected StubbedIndexing(IndexingMonitor monitor, List<BulkResponse> responses) {
+            super(null, new JsonESDocumentWriter(), monitor);
+            this.responses = responses;
+        }
+
+        @Override
+        protected ActionFuture<BulkResponse> executeBulk(BulkRequest request) {
+            retried.add(request);
+            return done(responses.remove(0));
+        }
+    }
+
+    protected static ActionFuture<BulkResponse> done(BulkResponse response) {
+        PlainActionFuture<BulkResponse> future = PlainActionFuture.newFuture();
+        future.onResponse(response);
+        return future;
+    }
+
+    protected static IndexRequest indexRequest(String id, String source) {
+        return new IndexRequest("nxutest", "doc", id).source(source);
+    }
+
+    protected static BulkItemResponse indexed(int itemId, String id) {
+        return new BulkItemResponse(itemId, "index", new IndexResponse("nxutest", "doc", id, 1, true));
+    }
+
+    protected static BulkItemResponse failed(int itemId, String id, RestStatus status) {
+        return new BulkItemResponse(itemId, "index", new BulkItemResponse.Failure("nxutest", "doc", id,
+                status.name(), status));
+    }
+
+    @Test
+    public void shouldRetryRejectedDocuments() throws Exception {
+        String source1 = "{\"dc:title\":\"doc1\"}";
+        String source2 = "{\"dc:title\":\"document2\"}";
+        String source3 = "{\"dc:title\":\"the third document\"}";
+        BulkRequest request = new BulkRequest();
+        request.add(indexRequest("1", source1));
+        request.add(indexRequest("2", source2));
+        request.add(indexRequest("3", source3));
+
+        // the 2nd document is rejected by an overloaded node, the 3rd one fails for good
+        BulkResponse response = new BulkResponse(new BulkItemResponse[] { indexed(0, "1"),
+                failed(1, "2", RestStatus.TOO_MANY_REQUESTS), failed(2, "3", RestStatus.BAD_REQUEST) }, 1);
+        List<BulkResponse> retryResponses = new ArrayList<>();
+        retryResponses.add(new BulkResponse(new BulkItemResponse[] { indexed(0, "2") }, 1));
+
+        RecordingMonitor monitor = new RecordingMonitor();
+        long rejectedBefore = monitor.getRejectedCount();
+        StubbedIndexing esi = new StubbedIndexing(monitor, retryResponses);
+        esi.completeBulk(new ElasticSearchIndexingImpl.PendingBulk(request, done(response)));
+
+        // only the rejected document is sent again
+        Assert.assertEquals(1, esi.retried.size());
+        BulkRequest retry = esi.retried.get(0);
+        Assert.assertEquals(1, retry.numberOfActions());
+        Assert.assertEquals("2", ((IndexRequest) retry.requests().get(0)).id());
+        Assert.assertEquals(1, monitor.getRejectedCount() - rejectedBefore);
+
+        // the failed document is not accounted, the retried one is accounted once
+        Assert.assertEquals(2, monitor.indexedDocs);
+        Assert.assertEquals(source1.length() + source2.length(), monitor.indexedBytes);
+    }
+
+}
@@ -12,7 +12,9 @@ import org.junit.runner.RunWith;
 import org.nuxeo.ecm.core.api.ClientException;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentModelFactory;
 import org.nuxeo.ecm.core.api.DocumentModelList;
+import org.nuxeo.ecm.core.api.impl.DocumentModelImpl;
 import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.elasticsearch.api.ElasticSearchAdmin;
 import org.nuxeo.elasticsearch.api.ElasticSearchService;
@@ -99,6 +101,35 @@ public class TestFetchDocumentsFromEs {
 
     }
 
+    @Test
+    public void shouldLoadDocumentFromDatabaseInHitOrder() throws Exception {
+        buildAndIndexTree();
+        // no schema is read with the documents, only the prefetched ones are loaded by the fetcher
+        Framework.getProperties().put(DocumentModelFactory.LAZY_SCHEMAS_PROPERTY, "true");
+        try {
+            DocumentModelList docs = ess.query(new NxQueryBuilder(session).nxql(
+                    "select * from Document order by dc:title desc").limit(20));
+            Assert.assertEquals(10, docs.size());
+            for (DocumentModel doc : docs) {
+                Assert.assertFalse(((DocumentModelImpl) doc).isSchemaLoaded("dublincore"));
+            }
+
+            docs = ess.query(new NxQueryBuilder(session).nxql("select * from Document order by dc:title desc").limit(
+                    20).prefetchSchemas("dublincore"));
+            Assert.assertEquals(10, docs.size());
+            // the fetcher only accesses the schema of the first document, the others are loaded in the same batch
+            for (DocumentModel doc : docs) {
+                Assert.assertTrue(((DocumentModelImpl) doc).isSchemaLoaded("dublincore"));
+                Assert.assertFalse(((DocumentModelImpl) doc).isSchemaLoaded("common"));
+            }
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals("Folder" + (9 - i), docs.get(i).getTitle());
+            }
+        } finally {
+            Framework.getProperties().remove(DocumentModelFactory.LAZY_SCHEMAS_PROPERTY);
+        }
+    }
+
     @Test
     public void checkNotFetch() throws Exception {
         buildAndIndexTree();
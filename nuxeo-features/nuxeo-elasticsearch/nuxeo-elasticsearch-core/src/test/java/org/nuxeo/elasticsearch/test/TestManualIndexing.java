@@ -17,11 +17,17 @@
 
 package org.nuxeo.elasticsearch.test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
+import org.apache.commons.lang.reflect.FieldUtils;
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -29,6 +35,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.nuxeo.ecm.automation.jaxrs.io.documents.JsonESDocumentWriter;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.work.api.WorkManager;
@@ -38,6 +45,9 @@ import org.nuxeo.elasticsearch.api.ElasticSearchIndexing;
 import org.nuxeo.elasticsearch.api.ElasticSearchService;
 import org.nuxeo.elasticsearch.commands.IndexingCommand;
 import org.nuxeo.elasticsearch.commands.IndexingCommand.Type;
+import org.nuxeo.elasticsearch.core.ElasticSearchAdminImpl;
+import org.nuxeo.elasticsearch.core.ElasticSearchIndexingImpl;
+import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.test.runner.Features;
 import org.nuxeo.runtime.test.runner.FeaturesRunner;
 import org.nuxeo.runtime.test.runner.LocalDeploy;
@@ -130,6 +140,50 @@ public class TestManualIndexing {
         Assert.assertEquals(1, searchResponse.getHits().getTotalHits());
     }
 
+    @Test
+    public void checkBoundedBulkIndexing() throws Exception {
+        Framework.getProperties().setProperty(ElasticSearchConstants.INDEXING_BULK_SIZE_PROPERTY, "2");
+        Framework.getProperties().setProperty(ElasticSearchConstants.INDEXING_BULK_CONCURRENCY_PROPERTY, "2");
+        try {
+            startTransaction();
+            List<IndexingCommand> cmds = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                DocumentModel doc = session.createDocumentModel("/", "testDoc" + i, "File");
+                doc.putContextData(ElasticSearchConstants.DISABLE_AUTO_INDEXING, Boolean.TRUE);
+                doc = session.createDocument(doc);
+                cmds.add(new IndexingCommand(doc, Type.INSERT, false, false));
+            }
+            session.save();
+
+            // record the bulk requests sent by an indexer sharing the service client
+            ElasticSearchAdminImpl admin = (ElasticSearchAdminImpl) FieldUtils.readField(esa, "esa", true);
+            List<BulkRequest> sent = new ArrayList<>();
+            ElasticSearchIndexingImpl indexing = new ElasticSearchIndexingImpl(admin, new JsonESDocumentWriter(),
+                    esa.getIndexingMonitor()) {
+                @Override
+                protected ActionFuture<BulkResponse> executeBulk(BulkRequest request) {
+                    sent.add(request);
+                    return super.executeBulk(request);
+                }
+            };
+            indexing.indexNonRecursive(cmds);
+            assertNumberOfCommandProcessed(5);
+            // sent by 3 bulk requests
+            Assert.assertEquals(3, sent.size());
+            Assert.assertEquals(2, sent.get(0).numberOfActions());
+            Assert.assertEquals(2, sent.get(1).numberOfActions());
+            Assert.assertEquals(1, sent.get(2).numberOfActions());
+            esa.refresh();
+            SearchResponse searchResponse = esa.getClient().prepareSearch(IDX_NAME).setTypes(TYPE_NAME).setFrom(0).setSize(
+                    60).execute().actionGet();
+            Assert.assertEquals(5, searchResponse.getHits().getTotalHits());
+            Assert.assertEquals(0, esa.getIndexingMonitor().getRejectedCount());
+        } finally {
+            Framework.getProperties().remove(ElasticSearchConstants.INDEXING_BULK_SIZE_PROPERTY);
+            Framework.getProperties().remove(ElasticSearchConstants.INDEXING_BULK_CONCURRENCY_PROPERTY);
+        }
+    }
+
     @Test
     public void checkManualAsyncIndexing() throws Exception {
         DocumentModel doc0 = session.createDocumentModel("/", "testNote", "Note");
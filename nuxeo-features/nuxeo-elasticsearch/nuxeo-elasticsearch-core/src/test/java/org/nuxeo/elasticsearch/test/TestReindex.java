@@ -17,11 +17,19 @@
 
 package org.nuxeo.elasticsearch.test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
+import org.apache.commons.lang.SerializationUtils;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -34,13 +42,17 @@ import org.nuxeo.ecm.core.api.PathRef;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
 import org.nuxeo.ecm.core.api.impl.blob.StringBlob;
 import org.nuxeo.ecm.core.trash.TrashService;
+import org.nuxeo.ecm.core.work.WorkManagerImpl;
 import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.ecm.platform.tag.TagService;
 import org.nuxeo.elasticsearch.api.ElasticSearchAdmin;
 import org.nuxeo.elasticsearch.api.ElasticSearchIndexing;
 import org.nuxeo.elasticsearch.api.ElasticSearchService;
+import org.nuxeo.elasticsearch.core.IndexingMonitor;
 import org.nuxeo.elasticsearch.listener.ElasticSearchInlineListener;
 import org.nuxeo.elasticsearch.query.NxQueryBuilder;
+import org.nuxeo.elasticsearch.work.BucketIndexingWorker;
+import org.nuxeo.elasticsearch.work.ScrollingIndexingWorker;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.test.runner.Deploy;
 import org.nuxeo.runtime.test.runner.Features;
@@ -85,6 +97,44 @@ public class TestReindex {
 
     private int commandProcessed;
 
+    /**
+     * Scrolls by buckets of 2 ids and records them instead of scheduling their indexing. Blocks after the first
+     * bucket until the test has requested its suspension.
+     */
+    protected static class SuspendingScrollingWorker extends ScrollingIndexingWorker {
+
+        private static final long serialVersionUID = 1L;
+
+        protected static final List<String> scheduledIds = Collections.synchronizedList(new ArrayList<String>());
+
+        protected static final CountDownLatch firstBucket = new CountDownLatch(1);
+
+        protected static final CountDownLatch resume = new CountDownLatch(1);
+
+        public SuspendingScrollingWorker(IndexingMonitor monitor, String repositoryName, String nxql) {
+            super(monitor, repositoryName, nxql);
+        }
+
+        @Override
+        protected int getBucketSize() {
+            return 2;
+        }
+
+        @Override
+        protected void scheduleBucketWorker(List<String> bucket, boolean isLast) {
+            scheduledIds.addAll(bucket);
+            if (firstBucket.getCount() > 0) {
+                firstBucket.countDown();
+                try {
+                    resume.await(20, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+
     // Number of processed command since the startTransaction
     public void assertNumberOfCommandProcessed(int processed) throws Exception {
         Assert.assertEquals(processed, esa.getTotalCommandProcessed() - commandProcessed);
@@ -154,6 +204,59 @@ public class TestReindex {
 
     }
 
+    @Test
+    public void shouldResumeSuspendedReindexingAfterLastId() throws Exception {
+        buildDocs();
+        startTransaction();
+
+        String nxql = "SELECT * FROM Document, Relation order by ecm:uuid";
+        DocumentModelList coreDocs = session.query(nxql);
+        List<String> coreIds = new ArrayList<>();
+        for (DocumentModel doc : coreDocs) {
+            coreIds.add(doc.getId());
+        }
+        esa.initIndexes(true);
+        esa.refresh();
+        // the ORDER BY of the query is replaced by an ecm:uuid one
+        String query = "SELECT * FROM Document, Relation WHERE ecm:uuid <> 'foo' ORDER BY ecm:name";
+        SuspendingScrollingWorker worker = new SuspendingScrollingWorker(esa.getIndexingMonitor(),
+                session.getRepositoryName(), query);
+        workManager.schedule(worker);
+        Assert.assertTrue(SuspendingScrollingWorker.firstBucket.await(20, TimeUnit.SECONDS));
+
+        // shut down the indexing queue while the worker is running
+        String queueId = workManager.getCategoryQueueId(worker.getCategory());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> shutdown = executor.submit(() -> workManager.shutdownQueue(queueId, 20, TimeUnit.SECONDS));
+            for (int i = 0; i < 200 && !worker.isSuspending(); i++) {
+                Thread.sleep(100);
+            }
+            Assert.assertTrue(worker.isSuspending());
+            SuspendingScrollingWorker.resume.countDown();
+            Assert.assertTrue(shutdown.get(20, TimeUnit.SECONDS).booleanValue());
+        } finally {
+            executor.shutdown();
+        }
+        // suspended after the first bucket
+        Assert.assertTrue(worker.isWorkInstanceSuspended());
+        Assert.assertEquals(coreIds.subList(0, 2), SuspendingScrollingWorker.scheduledIds);
+
+        // restart the queue and resume the worker as saved by a persistent queuing
+        ((WorkManagerImpl) workManager).activateQueue(workManager.getWorkQueueDescriptor(queueId));
+        workManager.schedule((ScrollingIndexingWorker) SerializationUtils.clone(worker));
+        waitForCompletion();
+        Assert.assertEquals(coreIds, SuspendingScrollingWorker.scheduledIds);
+        Assert.assertEquals(0, esa.getPendingWorkerCount());
+
+        // the scheduled ids index all the documents
+        workManager.schedule(new BucketIndexingWorker(esa.getIndexingMonitor(), session.getRepositoryName(),
+                new ArrayList<>(SuspendingScrollingWorker.scheduledIds), false));
+        waitForCompletion();
+        DocumentModelList docs = ess.query(new NxQueryBuilder(session).nxql(nxql).limit(100));
+        Assert.assertEquals(getDigest(coreDocs), getDigest(docs));
+    }
+
     private void buildDocs() throws Exception {
         startTransaction();
 
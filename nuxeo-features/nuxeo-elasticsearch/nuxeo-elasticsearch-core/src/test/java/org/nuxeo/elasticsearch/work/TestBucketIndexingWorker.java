@@ -0,0 +1,60 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * Contributors:
+ *     Nuxeo
+ */
+package org.nuxeo.elasticsearch.work;
+
+import static org.nuxeo.elasticsearch.work.BucketIndexingWorker.adaptBucketSize;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the adaptation of the write bucket size to the indexing duration.
+ *
+ * @since 7.3
+ */
+public class TestBucketIndexingWorker {
+
+    @Test
+    public void testBucketSizeUnchangedWithoutLatency() {
+        Assert.assertEquals(10, adaptBucketSize(10, 50, 5000, 0));
+        Assert.assertEquals(10, adaptBucketSize(10, 50, 0, -1));
+    }
+
+    @Test
+    public void testBucketSizeHalvedWhenSlow() {
+        Assert.assertEquals(25, adaptBucketSize(50, 50, 1001, 1000));
+        Assert.assertEquals(1, adaptBucketSize(3, 50, 2000, 1000));
+        // never below one document
+        Assert.assertEquals(1, adaptBucketSize(1, 50, 2000, 1000));
+    }
+
+    @Test
+    public void testBucketSizeGrownWhenFast() {
+        Assert.assertEquals(15, adaptBucketSize(10, 50, 100, 1000));
+        // grown by at least one document
+        Assert.assertEquals(2, adaptBucketSize(1, 50, 100, 1000));
+        // never above the max
+        Assert.assertEquals(50, adaptBucketSize(40, 50, 100, 1000));
+    }
+
+    @Test
+    public void testBucketSizeKeptWithinLatency() {
+        Assert.assertEquals(10, adaptBucketSize(10, 50, 500, 1000));
+        Assert.assertEquals(10, adaptBucketSize(10, 50, 1000, 1000));
+    }
+
+}
@@ -16,8 +16,13 @@
  */
 package org.nuxeo.elasticsearch.seqgen;
 
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.engine.VersionConflictEngineException;
+import org.nuxeo.ecm.platform.uidgen.AbstractUIDSequencer;
 import org.nuxeo.ecm.platform.uidgen.UIDSequencer;
 import org.nuxeo.elasticsearch.api.ElasticSearchAdmin;
 import org.nuxeo.runtime.api.Framework;
@@ -29,10 +34,12 @@ import org.nuxeo.runtime.api.Framework;
  * of the version attribute as described in the <a href=
  * "http://blogs.perl.org/users/clinton_gormley/2011/10/elasticsearchsequence---a-blazing-fast-ticket-server.html"
  * >ElasticSearch::Sequence - a blazing fast ticket server</a> blog post.
+ * <p>
+ * Blocks of values are reserved by setting an external version, retrying if another server reserved values meanwhile.
  *
  * @since 7.3
  */
-public class ESUIDSequencer implements UIDSequencer {
+public class ESUIDSequencer extends AbstractUIDSequencer {
 
     public static final String SEQUENCER_CONTRIB = "esSequencer";
 
@@ -52,16 +59,33 @@ public class ESUIDSequencer implements UIDSequencer {
 
     @Override
     public void dispose() {
+        super.dispose();
         if (esClient != null) {
             esClient.close();
         }
     }
 
     @Override
-    public int getNext(String sequenceName) {
+    protected int reserve(String sequenceName, int count) {
         String source = "{ \"ts\" : " + System.currentTimeMillis() + "}";
-        IndexResponse res = getClient().prepareIndex(IDX_NAME, IDX_TYPE, sequenceName).setSource(source).execute().actionGet();
-        return (int) res.getVersion();
+        if (count == 1) {
+            IndexResponse res = getClient().prepareIndex(IDX_NAME, IDX_TYPE, sequenceName).setSource(source).execute().actionGet();
+            return (int) res.getVersion();
+        }
+        for (;;) {
+            GetResponse current = getClient().prepareGet(IDX_NAME, IDX_TYPE, sequenceName).execute().actionGet();
+            long last = (current.isExists() ? current.getVersion() : 0) + count;
+            try {
+                getClient().prepareIndex(IDX_NAME, IDX_TYPE, sequenceName).setSource(source).setVersion(last).setVersionType(
+                        VersionType.EXTERNAL).execute().actionGet();
+                return (int) last;
+            } catch (RuntimeException e) {
+                if (!(ExceptionsHelper.unwrapCause(e) instanceof VersionConflictEngineException)) {
+                    throw e;
+                }
+                // values reserved by another server, retry
+            }
+        }
     }
 
     @Override
@@ -81,4 +81,21 @@ public class TestSequenceGeneratorWithElasticSearch {
         Assert.assertEquals(nbCalls + 1, seq.getNext(seqName));
     }
 
+    @Test
+    public void testBlocks() throws Exception {
+        ESUIDSequencer seq = new ESUIDSequencer();
+        seq.setBlockSize(10);
+        for (int i = 1; i <= 25; i++) {
+            Assert.assertEquals(i, seq.getNext("blockseq"));
+        }
+        // a third block was reserved
+        UIDSequencer other = uidGeneratorService.getSequencer(ESUIDSequencer.SEQUENCER_CONTRIB);
+        Assert.assertEquals(31, other.getNext("blockseq"));
+        // the next block starts after the values reserved meanwhile
+        for (int i = 26; i <= 30; i++) {
+            Assert.assertEquals(i, seq.getNext("blockseq"));
+        }
+        Assert.assertEquals(32, seq.getNext("blockseq"));
+    }
+
 }
@@ -41,6 +41,7 @@ import javax.persistence.TemporalType;
 import javax.persistence.Transient;
 
 import org.apache.commons.lang.builder.ToStringBuilder;
+import org.hibernate.annotations.Index;
 import org.nuxeo.ecm.core.api.DocumentRef;
 import org.nuxeo.ecm.platform.audit.api.ExtendedInfo;
 import org.nuxeo.ecm.platform.audit.api.LogEntry;
@@ -59,6 +60,9 @@ import org.nuxeo.ecm.platform.audit.api.comment.UIAuditComment;
         @NamedQuery(name = "LogEntry.countEventsById", query = "select count(log.eventId) from LogEntry log where log.eventId=:eventId"),
         @NamedQuery(name = "LogEntry.findEventIds", query = "select distinct log.eventId from LogEntry log") })
 @Table(name = "NXP_LOGS")
+// the history of a document is read by document and date
+@org.hibernate.annotations.Table(appliesTo = "NXP_LOGS", indexes = { @Index(name = "NXP_LOGS_DOC_UUID_DATE_IDX", columnNames = {
+        "LOG_DOC_UUID", "LOG_EVENT_DATE" }) })
 public class LogEntryImpl implements LogEntry {
 
     private static final long serialVersionUID = 3037187381843636097L;
@@ -18,6 +18,8 @@ package org.nuxeo.ecm.platform.audit.service;
 
 import static org.nuxeo.ecm.core.schema.FacetNames.SYSTEM_DOCUMENT;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.security.Principal;
 import java.util.ArrayList;
@@ -29,12 +31,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import javax.el.ELException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.jboss.el.ExpressionFactoryImpl;
+import org.nuxeo.common.Environment;
 import org.nuxeo.ecm.core.api.ClientException;
 import org.nuxeo.ecm.core.api.CoreInstance;
 import org.nuxeo.ecm.core.api.CoreSession;
@@ -62,6 +67,7 @@ import org.nuxeo.ecm.platform.audit.service.extension.AdapterDescriptor;
 import org.nuxeo.ecm.platform.audit.service.extension.ExtendedInfoDescriptor;
 import org.nuxeo.ecm.platform.el.ExpressionContext;
 import org.nuxeo.ecm.platform.el.ExpressionEvaluator;
+import org.nuxeo.runtime.api.Framework;
 
 /**
  * Abstract class to share code between {@link AuditBackend} implementations
@@ -72,11 +78,185 @@ public abstract class AbstractAuditBackend implements AuditBackend {
 
     protected static final Log log = LogFactory.getLog(AbstractAuditBackend.class);
 
+    /**
+     * Property enabling the writing of the log entries in batches from a background thread, through a spool file.
+     *
+     * @since 7.3
+     */
+    public static final String SPOOL_ENABLED_PROPERTY = "audit.spool.enabled";
+
+    /**
+     * Property holding the path of the spool file, by default in the data directory.
+     *
+     * @since 7.3
+     */
+    public static final String SPOOL_FILE_PROPERTY = "audit.spool.file";
+
+    /**
+     * Property holding the size of the spool file in megabytes.
+     *
+     * @since 7.3
+     */
+    public static final String SPOOL_SIZE_PROPERTY = "audit.spool.size";
+
+    /**
+     * Property holding the maximum number of log entries written together.
+     *
+     * @since 7.3
+     */
+    public static final String SPOOL_BATCH_SIZE_PROPERTY = "audit.spool.batchSize";
+
+    /**
+     * Property holding the maximum delay in milliseconds before the log entries are written.
+     *
+     * @since 7.3
+     */
+    public static final String SPOOL_FLUSH_INTERVAL_PROPERTY = "audit.spool.flushInterval";
+
+    /**
+     * Property holding the maximum delay in milliseconds to wait for room in a full spool, before writing the log
+     * entries directly.
+     *
+     * @since 7.3
+     */
+    public static final String SPOOL_OFFER_TIMEOUT_PROPERTY = "audit.spool.offerTimeout";
+
+    /**
+     * Property holding the maximum delay in milliseconds before the log entries appended to the spool are written to
+     * the disk.
+     *
+     * @since 7.3
+     */
+    public static final String SPOOL_FORCE_INTERVAL_PROPERTY = "audit.spool.forceInterval";
+
+    /**
+     * Property holding the maximum number of documents whose history is cached, 0 disabling the cache.
+     *
+     * @since 7.3
+     */
+    public static final String HISTORY_CACHE_SIZE_PROPERTY = "audit.history.cache.size";
+
+    /**
+     * Property holding the delay in seconds after which a cached document history expires.
+     *
+     * @since 7.3
+     */
+    public static final String HISTORY_CACHE_TTL_PROPERTY = "audit.history.cache.ttl";
+
     protected NXAuditEventsService component;
 
+    protected AuditBulker bulker;
+
+    protected AuditHistoryCache historyCache;
+
     @Override
     public void activate(NXAuditEventsService component) {
         this.component = component;
+        int historyCacheSize = Integer.parseInt(Framework.getProperty(HISTORY_CACHE_SIZE_PROPERTY, "0"));
+        if (historyCacheSize > 0) {
+            long ttl = Long.parseLong(Framework.getProperty(HISTORY_CACHE_TTL_PROPERTY, "60"));
+            historyCache = new AuditHistoryCache(historyCacheSize, TimeUnit.SECONDS.toMillis(ttl),
+                    getHistoryCacheQuietPeriod());
+        }
+        if (Framework.isBooleanPropertyTrue(SPOOL_ENABLED_PROPERTY)) {
+            bulker = newBulker();
+            bulker.start();
+        }
+    }
+
+    @Override
+    public void deactivate() {
+        if (bulker != null) {
+            bulker.stop();
+            bulker = null;
+        }
+        historyCache = null;
+    }
+
+    /**
+     * Gets the delay in milliseconds after which the written entries are returned by the queries.
+     *
+     * @since 7.3
+     */
+    protected long getHistoryCacheQuietPeriod() {
+        return 0;
+    }
+
+    /**
+     * Gets the history of a document from the cache, or queries it and caches it if it's not filtered.
+     *
+     * @since 7.3
+     */
+    protected List<LogEntry> getCachedLogEntriesFor(String uuid, Map<String, FilterMapEntry> filterMap,
+            boolean doDefaultSort, Supplier<List<LogEntry>> query) {
+        AuditHistoryCache cache = historyCache;
+        if (cache == null || uuid == null || (filterMap != null && !filterMap.isEmpty())) {
+            return query.get();
+        }
+        List<LogEntry> entries = cache.get(uuid, doDefaultSort);
+        if (entries == null) {
+            long generation = cache.getGeneration();
+            entries = query.get();
+            cache.put(uuid, doDefaultSort, entries, generation);
+        }
+        return entries;
+    }
+
+    /**
+     * Invalidates the cached history of the documents of the given entries, to be called when they are written.
+     *
+     * @since 7.3
+     */
+    protected void invalidateHistory(List<LogEntry> entries) {
+        AuditHistoryCache cache = historyCache;
+        if (cache != null) {
+            cache.invalidate(entries);
+        }
+    }
+
+    /**
+     * Invalidates all the cached histories.
+     *
+     * @since 7.3
+     */
+    protected void invalidateHistory() {
+        AuditHistoryCache cache = historyCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    protected AuditBulker newBulker() {
+        String path = Framework.getProperty(SPOOL_FILE_PROPERTY);
+        File file = path == null ? new File(Environment.getDefault().getData(), "audit/audit.spool") : new File(path);
+        long size = Long.parseLong(Framework.getProperty(SPOOL_SIZE_PROPERTY, "64"));
+        int batchSize = Integer.parseInt(Framework.getProperty(SPOOL_BATCH_SIZE_PROPERTY, "1000"));
+        long flushInterval = Long.parseLong(Framework.getProperty(SPOOL_FLUSH_INTERVAL_PROPERTY, "1000"));
+        long offerTimeout = Long.parseLong(Framework.getProperty(SPOOL_OFFER_TIMEOUT_PROPERTY, "5000"));
+        long forceInterval = Long.parseLong(Framework.getProperty(SPOOL_FORCE_INTERVAL_PROPERTY, "1000"));
+        AuditSpool spool;
+        try {
+            spool = new AuditSpool(file, size * 1024L * 1024L);
+        } catch (IOException e) {
+            throw new AuditRuntimeException("Cannot open audit spool " + file, e);
+        }
+        return new AuditBulker(this, spool, batchSize, flushInterval, offerTimeout, forceInterval);
+    }
+
+    /**
+     * Writes log entries, or queues them to be written in batches if the spool is enabled.
+     *
+     * @since 7.3
+     */
+    protected void queueLogEntries(List<LogEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (bulker != null) {
+            bulker.offer(entries);
+        } else {
+            addLogEntries(entries);
+        }
     }
 
     protected final ExpressionEvaluator expressionEvaluator = new ExpressionEvaluator(new ExpressionFactoryImpl());
@@ -368,9 +548,15 @@ public abstract class AbstractAuditBackend implements AuditBackend {
         if (!processEvents) {
             return;
         }
+        // all the entries of the bundle are written together
+        List<LogEntry> entries = new ArrayList<>();
         for (Event event : eventBundle) {
-            logEvent(event);
+            LogEntry entry = buildEntryFromEvent(event);
+            if (entry != null) {
+                entries.add(entry);
+            }
         }
+        queueLogEntries(entries);
     }
 
     @Override
@@ -379,7 +565,7 @@ public abstract class AbstractAuditBackend implements AuditBackend {
         if (entry != null) {
             List<LogEntry> entries = new ArrayList<>();
             entries.add(entry);
-            addLogEntries(entries);
+            queueLogEntries(entries);
         }
     }
 
@@ -0,0 +1,252 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.audit.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.platform.audit.api.AuditRuntimeException;
+import org.nuxeo.ecm.platform.audit.api.LogEntry;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * Writes the log entries to the backend in batches, from a background thread.
+ * <p>
+ * The entries are first appended to an {@link AuditSpool}, and removed from it once written, so that the entries not
+ * yet written when the process stops are written after the next start. An entry may therefore be written twice if the
+ * process stops right after writing a batch.
+ * <p>
+ * When the spool is full, the threads logging events wait for the background thread to make room, and write their
+ * entries themselves if it doesn't in time.
+ * <p>
+ * The appends are not written to the disk by the threads logging events: the background thread forces the spool after
+ * each batch and at most every force interval, so that a system crash loses at most the entries appended during that
+ * interval and not yet written to the backend.
+ *
+ * @since 7.3
+ */
+public class AuditBulker {
+
+    private static final Log log = LogFactory.getLog(AuditBulker.class);
+
+    protected final AuditBackend backend;
+
+    protected final AuditSpool spool;
+
+    protected final int batchSize;
+
+    protected final long flushInterval;
+
+    protected final long offerTimeout;
+
+    protected final long forceInterval;
+
+    protected long lastForce;
+
+    protected volatile boolean stopped;
+
+    protected Thread thread;
+
+    /**
+     * @param backend the backend writing the entries
+     * @param spool the spool
+     * @param batchSize the maximum number of entries written together
+     * @param flushInterval the maximum delay in milliseconds before the entries are written
+     * @param offerTimeout the maximum delay in milliseconds to wait for room in the spool
+     */
+    public AuditBulker(AuditBackend backend, AuditSpool spool, int batchSize, long flushInterval, long offerTimeout) {
+        this(backend, spool, batchSize, flushInterval, offerTimeout, flushInterval);
+    }
+
+    /**
+     * @param backend the backend writing the entries
+     * @param spool the spool
+     * @param batchSize the maximum number of entries written together
+     * @param flushInterval the maximum delay in milliseconds before the entries are written
+     * @param offerTimeout the maximum delay in milliseconds to wait for room in the spool
+     * @param forceInterval the maximum delay in milliseconds before the appended entries are written to the disk
+     */
+    public AuditBulker(AuditBackend backend, AuditSpool spool, int batchSize, long flushInterval, long offerTimeout,
+            long forceInterval) {
+        this.backend = backend;
+        this.spool = spool;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.offerTimeout = offerTimeout;
+        this.forceInterval = forceInterval;
+    }
+
+    public void start() {
+        int pending = spool.size();
+        if (pending > 0) {
+            log.info("Recovering " + pending + " audit entries from " + spool.getFile());
+        }
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                flushLoop();
+            }
+        }, "Nuxeo-Audit-Bulker");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the background thread once the current batch is written. The entries not yet written stay in the spool.
+     */
+    public void stop() {
+        stopped = true;
+        spool.close();
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    /**
+     * Queues entries to be written by the background thread.
+     */
+    public void offer(List<LogEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<byte[]> records = new ArrayList<byte[]>(entries.size());
+        for (LogEntry entry : entries) {
+            records.add(serialize(entry));
+        }
+        boolean appended;
+        try {
+            appended = spool.append(records, offerTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            appended = false;
+        } catch (IllegalArgumentException e) {
+            log.debug(e.getMessage());
+            appended = false;
+        }
+        if (!appended) {
+            log.warn("Audit spool full or stopped, writing " + entries.size() + " entries directly");
+            backend.addLogEntries(entries);
+        }
+    }
+
+    /**
+     * Waits until all the queued entries are written.
+     *
+     * @return {@code true} if all the entries are written
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return spool.awaitEmpty(timeout, unit);
+    }
+
+    protected void flushLoop() {
+        while (!stopped) {
+            try {
+                List<byte[]> records = spool.peek(batchSize, Math.min(flushInterval, forceInterval),
+                        TimeUnit.MILLISECONDS);
+                // entries waiting for a slow or failing backend are not kept only in memory
+                forceIfDue();
+                if (records.isEmpty()) {
+                    continue;
+                }
+                List<LogEntry> entries = new ArrayList<LogEntry>(records.size());
+                for (byte[] record : records) {
+                    LogEntry entry = deserialize(record);
+                    if (entry != null) {
+                        entries.add(entry);
+                    }
+                }
+                if (!entries.isEmpty()) {
+                    write(entries);
+                }
+                spool.remove();
+                force();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                // the entries stay in the spool and are written again
+                log.error("Cannot write audit entries, retrying in " + flushInterval + "ms", e);
+                try {
+                    Thread.sleep(flushInterval);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    protected void forceIfDue() {
+        if (System.currentTimeMillis() - lastForce >= forceInterval) {
+            force();
+        }
+    }
+
+    protected void force() {
+        spool.force();
+        lastForce = System.currentTimeMillis();
+    }
+
+    protected void write(List<LogEntry> entries) {
+        boolean started = TransactionHelper.startTransaction();
+        try {
+            backend.addLogEntries(entries);
+        } catch (RuntimeException e) {
+            if (started) {
+                TransactionHelper.setTransactionRollbackOnly();
+            }
+            throw e;
+        } finally {
+            if (started) {
+                TransactionHelper.commitOrRollbackTransaction();
+            }
+        }
+    }
+
+    protected static byte[] serialize(LogEntry entry) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(entry);
+        } catch (IOException e) {
+            throw new AuditRuntimeException("Cannot serialize audit entry " + entry, e);
+        }
+        return out.toByteArray();
+    }
+
+    protected static LogEntry deserialize(byte[] record) {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(record))) {
+            return (LogEntry) ois.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            log.error("Skipping unreadable audit entry from the spool", e);
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,267 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.audit.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import org.nuxeo.ecm.platform.audit.api.LogEntry;
+import org.nuxeo.ecm.platform.audit.impl.LogEntryImpl;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * A bounded cache of the unfiltered history of the most recently read documents.
+ * <p>
+ * The history of a document is invalidated when entries for this document are written, and again when the transaction
+ * writing them completes. A history read while entries are being written for the same document is not cached: readers
+ * get the current generation before querying, and their result is dropped if the document was invalidated in between.
+ * The last invalidations are tracked per document, apart from the cached histories; once one is no longer tracked, the
+ * results read before it are dropped for all documents. For backends whose writes are not immediately searchable,
+ * histories read during a quiet period following the invalidation of their document are not cached either.
+ * <p>
+ * The cached entries are copies of the queried ones, and copies are returned, so that callers may modify them. The
+ * extended infos maps are not copied, as they may not be loaded yet.
+ * <p>
+ * The cache only sees the entries written by this server, so the cached histories also expire after a delay.
+ *
+ * @since 7.3
+ */
+public class AuditHistoryCache {
+
+    protected static class History {
+
+        protected List<LogEntry> sorted;
+
+        protected List<LogEntry> unsorted;
+
+        protected long loaded;
+
+        protected List<LogEntry> get(boolean sort) {
+            return sort ? sorted : unsorted;
+        }
+
+        protected void set(boolean sort, List<LogEntry> entries) {
+            if (sort) {
+                sorted = entries;
+            } else {
+                unsorted = entries;
+            }
+        }
+
+    }
+
+    /**
+     * The last invalidation of a document.
+     */
+    protected static class Invalidation {
+
+        protected final long generation;
+
+        protected final long time;
+
+        protected Invalidation(long generation, long time) {
+            this.generation = generation;
+            this.time = time;
+        }
+
+    }
+
+    protected final int maxSize;
+
+    protected final long ttl;
+
+    protected final long quietPeriod;
+
+    protected final Map<String, History> histories;
+
+    /** Last invalidations, oldest first. */
+    protected final Map<String, Invalidation> invalidations;
+
+    protected long generation;
+
+    /** Most recent of the invalidations no longer tracked. */
+    protected Invalidation forgotten = new Invalidation(0, 0);
+
+    /**
+     * @param maxSize the maximum number of documents whose history is cached
+     * @param ttl the delay in milliseconds after which a cached history expires
+     * @param quietPeriod the delay in milliseconds after an invalidation during which the history is not cached
+     */
+    public AuditHistoryCache(final int maxSize, long ttl, long quietPeriod) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.quietPeriod = quietPeriod;
+        histories = new LinkedHashMap<String, History>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, History> eldest) {
+                return size() > maxSize;
+            }
+        };
+        invalidations = new LinkedHashMap<String, Invalidation>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Invalidation> eldest) {
+                if (size() > maxSize) {
+                    forgotten = eldest.getValue();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the current generation, to be passed to {@link #put} once the history is read.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Gets the cached history of a document.
+     *
+     * @param sort whether the entries are sorted by descending event date
+     * @return a copy of the entries, or {@code null} if not cached
+     */
+    public synchronized List<LogEntry> get(String uuid, boolean sort) {
+        History history = histories.get(uuid);
+        if (history == null) {
+            return null;
+        }
+        List<LogEntry> entries = history.get(sort);
+        if (entries == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - history.loaded > ttl) {
+            histories.remove(uuid);
+            return null;
+        }
+        return copy(entries);
+    }
+
+    /**
+     * Caches the history of a document, unless the document was invalidated since the given generation was read.
+     */
+    public synchronized void put(String uuid, boolean sort, List<LogEntry> entries, long generation) {
+        Invalidation invalidation = invalidations.get(uuid);
+        if (invalidation == null) {
+            invalidation = forgotten;
+        }
+        long now = System.currentTimeMillis();
+        if (invalidation.generation > generation || now - invalidation.time < quietPeriod) {
+            return;
+        }
+        History history = histories.get(uuid);
+        if (history == null) {
+            history = new History();
+            histories.put(uuid, history);
+        }
+        if (history.get(!sort) == null) {
+            history.loaded = now;
+        }
+        history.set(sort, copy(entries));
+    }
+
+    /**
+     * Invalidates the history of the documents of the given entries, now and once the current transaction completes.
+     */
+    public void invalidate(Collection<LogEntry> entries) {
+        final List<String> uuids = new ArrayList<String>(entries.size());
+        for (LogEntry entry : entries) {
+            if (entry.getDocUUID() != null) {
+                uuids.add(entry.getDocUUID());
+            }
+        }
+        if (uuids.isEmpty()) {
+            return;
+        }
+        invalidateDocuments(uuids);
+        TransactionHelper.registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    invalidateDocuments(uuids);
+                }
+            }
+        });
+    }
+
+    protected synchronized void invalidateDocuments(List<String> uuids) {
+        Invalidation invalidation = new Invalidation(++generation, System.currentTimeMillis());
+        for (String uuid : uuids) {
+            histories.remove(uuid);
+            // re-inserted last
+            invalidations.remove(uuid);
+            invalidations.put(uuid, invalidation);
+        }
+    }
+
+    /**
+     * Invalidates all the cached histories.
+     */
+    public synchronized void clear() {
+        histories.clear();
+        invalidations.clear();
+        forgotten = new Invalidation(++generation, 0);
+    }
+
+    protected static List<LogEntry> copy(List<LogEntry> entries) {
+        List<LogEntry> copies = new ArrayList<LogEntry>(entries.size());
+        for (LogEntry entry : entries) {
+            copies.add(copy(entry));
+        }
+        return copies;
+    }
+
+    protected static LogEntry copy(LogEntry entry) {
+        LogEntry copy = new LogEntryImpl();
+        copy.setId(entry.getId());
+        copy.setPrincipalName(entry.getPrincipalName());
+        copy.setEventId(entry.getEventId());
+        copy.setLogDate(copy(entry.getLogDate()));
+        copy.setEventDate(copy(entry.getEventDate()));
+        copy.setDocUUID(entry.getDocUUID());
+        copy.setDocPath(entry.getDocPath());
+        copy.setDocType(entry.getDocType());
+        copy.setCategory(entry.getCategory());
+        copy.setComment(entry.getComment());
+        copy.setDocLifeCycle(entry.getDocLifeCycle());
+        copy.setRepositoryId(entry.getRepositoryId());
+        copy.setExtendedInfos(entry.getExtendedInfos());
+        copy.setPreprocessedComment(entry.getPreprocessedComment());
+        return copy;
+    }
+
+    protected static Date copy(Date date) {
+        return date == null ? null : new Date(date.getTime());
+    }
+
+}
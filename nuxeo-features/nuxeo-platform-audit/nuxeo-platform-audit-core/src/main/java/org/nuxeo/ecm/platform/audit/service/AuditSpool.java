@@ -0,0 +1,357 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.audit.service;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An append-only spool of records, kept in a memory-mapped file used as a circular buffer.
+ * <p>
+ * Records are appended by the producers and read in batches by a single consumer, which removes them once they have
+ * been processed. As the file is mapped, the records not yet removed when the process stops are found again when the
+ * spool is reopened.
+ * <p>
+ * The file starts with a header holding the offsets of the first record and of the end of the last one. Each record is
+ * written as its length followed by its bytes; a record that doesn't fit before the end of the file is written at its
+ * start, after a wrap marker.
+ *
+ * @since 7.3
+ */
+public class AuditSpool implements Closeable {
+
+    protected static final int MAGIC = 0x4e584153;
+
+    protected static final int HEAD_OFFSET = 8;
+
+    protected static final int TAIL_OFFSET = 16;
+
+    protected static final int HEADER_SIZE = 24;
+
+    protected static final int WRAP = -1;
+
+    protected final File file;
+
+    protected final MappedByteBuffer buffer;
+
+    /** The size of the records area. */
+    protected final int capacity;
+
+    protected final ReentrantLock lock = new ReentrantLock();
+
+    protected final Condition notFull = lock.newCondition();
+
+    protected final Condition notEmpty = lock.newCondition();
+
+    /** Offset of the first record, increasing since the creation of the file. */
+    protected long head;
+
+    /** Offset of the end of the last record, increasing since the creation of the file. */
+    protected long tail;
+
+    /** Offset of the end of the records returned by the last {@link #peek}. */
+    protected long peekEnd;
+
+    /** Number of records returned by the last {@link #peek}. */
+    protected int peekCount;
+
+    protected int count;
+
+    protected boolean closed;
+
+    /** Whether records were appended or removed since the last {@link #force}. */
+    protected volatile boolean dirty;
+
+    /**
+     * Opens the spool, creating the file with the given size if it doesn't exist. The records of an existing file are
+     * kept, the file keeping its size.
+     *
+     * @param size the size of the file in bytes, at most {@link Integer#MAX_VALUE} as the file is mapped
+     */
+    public AuditSpool(File file, long size) throws IOException {
+        if (size <= HEADER_SIZE + 4) {
+            throw new IllegalArgumentException("Spool size too small: " + size);
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Spool size too large: " + size);
+        }
+        this.file = file;
+        File dir = file.getParentFile();
+        if (dir != null) {
+            dir.mkdirs();
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() > HEADER_SIZE + 4 && raf.readInt() == MAGIC) {
+                size = Math.min(raf.length(), Integer.MAX_VALUE);
+            }
+            FileChannel channel = raf.getChannel();
+            // the mapping stays valid once the channel is closed
+            buffer = channel.map(MapMode.READ_WRITE, 0, size);
+        }
+        capacity = (int) size - HEADER_SIZE;
+        recover();
+    }
+
+    /**
+     * Reads the header and counts the records left by a previous run, resetting the spool if it's not consistent.
+     */
+    protected void recover() {
+        if (buffer.getInt(0) == MAGIC) {
+            head = buffer.getLong(HEAD_OFFSET);
+            tail = buffer.getLong(TAIL_OFFSET);
+            count = 0;
+            if (head >= 0 && head <= tail && tail - head <= capacity) {
+                long pos = head;
+                while (pos < tail) {
+                    pos = next(pos);
+                    if (pos < 0 || pos > tail) {
+                        break;
+                    }
+                    count++;
+                }
+                if (pos == tail) {
+                    peekEnd = head;
+                    return;
+                }
+            }
+        }
+        // new or corrupted spool
+        head = tail = peekEnd = 0;
+        count = 0;
+        buffer.putLong(HEAD_OFFSET, 0);
+        buffer.putLong(TAIL_OFFSET, 0);
+        buffer.putInt(0, MAGIC);
+    }
+
+    protected int position(long offset) {
+        return HEADER_SIZE + (int) (offset % capacity);
+    }
+
+    /**
+     * Gets the offset at which a record of the given length is written, if the record starts at the given offset.
+     */
+    protected long start(long offset, int length) {
+        int remaining = capacity - (int) (offset % capacity);
+        if (remaining < 4 + length) {
+            return offset + remaining;
+        }
+        return offset;
+    }
+
+    /**
+     * Gets the offset following the record found at the given offset, or -1 if the record is invalid.
+     */
+    protected long next(long offset) {
+        int remaining = capacity - (int) (offset % capacity);
+        if (remaining < 4 || buffer.getInt(position(offset)) == WRAP) {
+            offset += remaining;
+        }
+        int length = buffer.getInt(position(offset));
+        if (length < 0 || length > capacity - 4) {
+            return -1;
+        }
+        return offset + 4 + length;
+    }
+
+    /**
+     * Appends records, waiting for the consumer to make room if the spool is full. Either all the records are appended,
+     * or none is.
+     *
+     * @return {@code false} if the records couldn't be appended in time
+     * @throws IllegalArgumentException if the records can never fit in the spool
+     */
+    public boolean append(List<byte[]> records, long timeout, TimeUnit unit) throws InterruptedException {
+        lock.lock();
+        try {
+            long end = tail;
+            for (byte[] record : records) {
+                if (record.length > capacity - 4) {
+                    throw new IllegalArgumentException("Record too large for the spool: " + record.length);
+                }
+                end = start(end, record.length) + 4 + record.length;
+            }
+            if (end - tail > capacity) {
+                throw new IllegalArgumentException("Records too large for the spool: " + (end - tail));
+            }
+            long nanos = unit.toNanos(timeout);
+            while (end - head > capacity) {
+                if (closed || nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            if (closed) {
+                return false;
+            }
+            long offset = tail;
+            ByteBuffer buf = buffer.duplicate();
+            for (byte[] record : records) {
+                long start = start(offset, record.length);
+                if (start != offset && capacity - (int) (offset % capacity) >= 4) {
+                    buf.putInt(position(offset), WRAP);
+                }
+                buf.position(position(start));
+                buf.putInt(record.length);
+                buf.put(record);
+                offset = start + 4 + record.length;
+            }
+            // the records are visible once the tail is written
+            tail = offset;
+            buffer.putLong(TAIL_OFFSET, tail);
+            count += records.size();
+            dirty = true;
+            notEmpty.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the first records, up to the given number, without removing them. Waits until there are that many records,
+     * or until the timeout if there are less.
+     *
+     * @return the records, possibly empty
+     */
+    public List<byte[]> peek(int max, long timeout, TimeUnit unit) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = unit.toNanos(timeout);
+            while (count < max && !closed && nanos > 0) {
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            if (count == 0) {
+                peekEnd = head;
+                peekCount = 0;
+                return Collections.emptyList();
+            }
+            List<byte[]> records = new ArrayList<byte[]>(Math.min(count, max));
+            ByteBuffer buf = buffer.duplicate();
+            long offset = head;
+            while (offset < tail && records.size() < max) {
+                int remaining = capacity - (int) (offset % capacity);
+                if (remaining < 4 || buffer.getInt(position(offset)) == WRAP) {
+                    offset += remaining;
+                }
+                buf.position(position(offset));
+                byte[] record = new byte[buf.getInt()];
+                buf.get(record);
+                records.add(record);
+                offset += 4 + record.length;
+            }
+            peekEnd = offset;
+            peekCount = records.size();
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the records returned by the last {@link #peek}.
+     */
+    public void remove() {
+        lock.lock();
+        try {
+            head = peekEnd;
+            count -= peekCount;
+            peekCount = 0;
+            buffer.putLong(HEAD_OFFSET, head);
+            dirty = true;
+            notFull.signalAll();
+            if (count == 0) {
+                notEmpty.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until all the records have been removed.
+     *
+     * @return {@code true} if the spool is empty
+     */
+    public boolean awaitEmpty(long timeout, TimeUnit unit) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = unit.toNanos(timeout);
+            while (count > 0 && nanos > 0) {
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return count == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of records in the spool.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the spool to the disk, so that its records are not lost if the system stops. Until then, the appended
+     * records survive a crash of the process but not of the system.
+     */
+    public void force() {
+        if (dirty) {
+            dirty = false;
+            buffer.force();
+        }
+    }
+
+    /**
+     * Closes the spool, waking up the waiting threads.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        force();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+}
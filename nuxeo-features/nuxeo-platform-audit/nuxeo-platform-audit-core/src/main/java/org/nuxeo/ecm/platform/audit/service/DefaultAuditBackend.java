@@ -16,6 +16,7 @@
  */
 package org.nuxeo.ecm.platform.audit.service;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -73,6 +74,7 @@ public class DefaultAuditBackend extends AbstractAuditBackend implements AuditBa
 
     @Override
     public void deactivate() {
+        super.deactivate();
         deactivatePersistenceProvider();
     }
 
@@ -91,21 +93,25 @@ public class DefaultAuditBackend extends AbstractAuditBackend implements AuditBa
     }
 
     protected void addLogEntries(EntityManager em, List<LogEntry> entries) {
+        invalidateHistory(entries);
         LogEntryProvider.createProvider(em).addLogEntries(entries);
     }
 
     @Override
     public List<LogEntry> getLogEntriesFor(final String uuid) {
-        try {
-            return getOrCreatePersistenceProvider().run(false, new RunCallback<List<LogEntry>>() {
-                @Override
-                public List<LogEntry> runWith(EntityManager em) {
-                    return getLogEntriesFor(em, uuid);
-                }
-            });
-        } catch (ClientException e) {
-            throw new ClientRuntimeException(e);
-        }
+        // same entries as an unfiltered query sorted by date
+        return getCachedLogEntriesFor(uuid, null, true, () -> {
+            try {
+                return getOrCreatePersistenceProvider().run(false, new RunCallback<List<LogEntry>>() {
+                    @Override
+                    public List<LogEntry> runWith(EntityManager em) {
+                        return getLogEntriesFor(em, uuid);
+                    }
+                });
+            } catch (ClientException e) {
+                throw new ClientRuntimeException(e);
+            }
+        });
     }
 
     protected List<LogEntry> getLogEntriesFor(EntityManager em, String uuid) {
@@ -115,16 +121,18 @@ public class DefaultAuditBackend extends AbstractAuditBackend implements AuditBa
     @Override
     public List<LogEntry> getLogEntriesFor(final String uuid, final Map<String, FilterMapEntry> filterMap,
             final boolean doDefaultSort) {
-        try {
-            return getOrCreatePersistenceProvider().run(false, new RunCallback<List<LogEntry>>() {
-                @Override
-                public List<LogEntry> runWith(EntityManager em) {
-                    return getLogEntriesFor(em, uuid, filterMap, doDefaultSort);
-                }
-            });
-        } catch (ClientException e) {
-            throw new ClientRuntimeException(e);
-        }
+        return getCachedLogEntriesFor(uuid, filterMap, doDefaultSort, () -> {
+            try {
+                return getOrCreatePersistenceProvider().run(false, new RunCallback<List<LogEntry>>() {
+                    @Override
+                    public List<LogEntry> runWith(EntityManager em) {
+                        return getLogEntriesFor(em, uuid, filterMap, doDefaultSort);
+                    }
+                });
+            } catch (ClientException e) {
+                throw new ClientRuntimeException(e);
+            }
+        });
     }
 
     protected List<LogEntry> getLogEntriesFor(EntityManager em, String uuid, Map<String, FilterMapEntry> filterMap,
@@ -283,6 +291,7 @@ public class DefaultAuditBackend extends AbstractAuditBackend implements AuditBa
     }
 
     protected long syncLogCreationEntries(EntityManager em, String repoId, String path, Boolean recurs) {
+        invalidateHistory();
         LogEntryProvider provider = LogEntryProvider.createProvider(em);
         return syncLogCreationEntries(provider, repoId, path, recurs);
     }
@@ -302,6 +311,7 @@ public class DefaultAuditBackend extends AbstractAuditBackend implements AuditBa
     }
 
     public void addLogEntry(EntityManager em, LogEntry entry) {
+        invalidateHistory(Collections.singletonList(entry));
         LogEntryProvider.createProvider(em).addLogEntry(entry);
     }
 
@@ -344,6 +354,10 @@ public class DefaultAuditBackend extends AbstractAuditBackend implements AuditBa
 
     @Override
     public void logEvent(final Event event) {
+        if (bulker != null) {
+            super.logEvent(event);
+            return;
+        }
         try {
             getOrCreatePersistenceProvider().run(true, new RunVoid() {
                 @Override
@@ -358,6 +372,10 @@ public class DefaultAuditBackend extends AbstractAuditBackend implements AuditBa
 
     @Override
     public void logEvents(final EventBundle eventBundle) {
+        if (bulker != null) {
+            super.logEvents(eventBundle);
+            return;
+        }
         try {
             getOrCreatePersistenceProvider().run(true, new RunVoid() {
                 @Override
@@ -0,0 +1,175 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.audit.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.ecm.platform.audit.api.AuditRuntimeException;
+import org.nuxeo.ecm.platform.audit.api.LogEntry;
+import org.nuxeo.ecm.platform.audit.impl.LogEntryImpl;
+
+public class TestAuditBulker {
+
+    /**
+     * Backend keeping the written entries in memory.
+     */
+    protected static class MemoryAuditBackend extends DefaultAuditBackend {
+
+        protected final List<LogEntry> entries = Collections.synchronizedList(new ArrayList<LogEntry>());
+
+        protected int writes;
+
+        @Override
+        public void addLogEntries(List<LogEntry> entries) {
+            this.entries.addAll(entries);
+            writes++;
+        }
+
+    }
+
+    protected File file;
+
+    protected AuditSpool spool;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("audit-", ".spool");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (spool != null) {
+            spool.close();
+        }
+        file.delete();
+    }
+
+    protected static LogEntry newEntry(String eventId) {
+        LogEntry entry = new LogEntryImpl();
+        entry.setEventId(eventId);
+        entry.setDocUUID("uuid-" + eventId);
+        return entry;
+    }
+
+    protected static List<String> getEventIds(List<LogEntry> entries) {
+        List<String> ids = new ArrayList<String>(entries.size());
+        for (LogEntry entry : entries) {
+            ids.add(entry.getEventId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void testBatchedWrites() throws Exception {
+        spool = new AuditSpool(file, 1024 * 1024);
+        MemoryAuditBackend backend = new MemoryAuditBackend();
+        AuditBulker bulker = new AuditBulker(backend, spool, 100, 200, 1000);
+        for (int i = 0; i < 50; i++) {
+            bulker.offer(Arrays.asList(newEntry("a" + i), newEntry("b" + i)));
+        }
+        bulker.start();
+        assertTrue(bulker.await(10, TimeUnit.SECONDS));
+        bulker.stop();
+        assertEquals(100, backend.entries.size());
+        assertEquals("a0", backend.entries.get(0).getEventId());
+        assertEquals("uuid-b49", backend.entries.get(99).getDocUUID());
+        // written in one batch
+        assertEquals(1, backend.writes);
+    }
+
+    @Test
+    public void testRecovery() throws Exception {
+        spool = new AuditSpool(file, 1024 * 1024);
+        MemoryAuditBackend backend = new MemoryAuditBackend();
+        AuditBulker bulker = new AuditBulker(backend, spool, 100, 200, 1000);
+        bulker.offer(Arrays.asList(newEntry("a"), newEntry("b")));
+        // stopped before writing
+        spool.close();
+        assertTrue(backend.entries.isEmpty());
+
+        spool = new AuditSpool(file, 1024 * 1024);
+        assertEquals(2, spool.size());
+        bulker = new AuditBulker(backend, spool, 100, 200, 1000);
+        bulker.start();
+        assertTrue(bulker.await(10, TimeUnit.SECONDS));
+        bulker.stop();
+        assertEquals(Arrays.asList("a", "b"), getEventIds(backend.entries));
+    }
+
+    @Test
+    public void testFullSpool() throws Exception {
+        spool = new AuditSpool(file, 4096);
+        MemoryAuditBackend backend = new MemoryAuditBackend();
+        // not started, nothing is removed from the spool
+        AuditBulker bulker = new AuditBulker(backend, spool, 100, 200, 10);
+        int offered = 0;
+        while (backend.entries.isEmpty()) {
+            bulker.offer(Collections.singletonList(newEntry("e" + offered++)));
+        }
+        // the entry that didn't fit was written directly
+        assertEquals(Collections.singletonList("e" + (offered - 1)), getEventIds(backend.entries));
+        assertEquals(offered - 1, spool.size());
+        assertFalse(bulker.await(10, TimeUnit.MILLISECONDS));
+
+        bulker.start();
+        assertTrue(bulker.await(10, TimeUnit.SECONDS));
+        bulker.stop();
+        assertEquals(offered, backend.entries.size());
+    }
+
+    @Test
+    public void testForcedWhileBackendFails() throws Exception {
+        spool = new AuditSpool(file, 1024 * 1024);
+        MemoryAuditBackend backend = new MemoryAuditBackend() {
+            @Override
+            public void addLogEntries(List<LogEntry> entries) {
+                throw new AuditRuntimeException("Backend down");
+            }
+        };
+        AuditBulker bulker = new AuditBulker(backend, spool, 100, 200, 1000, 50);
+        bulker.offer(Collections.singletonList(newEntry("a")));
+        assertTrue(spool.dirty);
+        bulker.start();
+        for (int i = 0; i < 100 && spool.dirty; i++) {
+            Thread.sleep(50);
+        }
+        // written to the disk though not to the backend
+        assertFalse(spool.dirty);
+        bulker.stop();
+        assertEquals(1, spool.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSpoolSizeTooLarge() throws Exception {
+        // 4096 MB, which used to overflow an int
+        spool = new AuditSpool(file, 4096 * 1024L * 1024L);
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.audit.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.nuxeo.ecm.platform.audit.api.LogEntry;
+import org.nuxeo.ecm.platform.audit.impl.LogEntryImpl;
+
+public class TestAuditHistoryCache {
+
+    protected static List<String> eventIds(List<LogEntry> entries) {
+        List<String> eventIds = new ArrayList<String>();
+        for (LogEntry entry : entries) {
+            eventIds.add(entry.getEventId());
+        }
+        return eventIds;
+    }
+
+    protected static LogEntry newEntry(String uuid, String eventId) {
+        LogEntry entry = new LogEntryImpl();
+        entry.setDocUUID(uuid);
+        entry.setEventId(eventId);
+        return entry;
+    }
+
+    @Test
+    public void testGetAndInvalidate() {
+        AuditHistoryCache cache = new AuditHistoryCache(10, 60000, 0);
+        List<LogEntry> history = Arrays.asList(newEntry("doc1", "created"), newEntry("doc1", "modified"));
+        assertNull(cache.get("doc1", true));
+        cache.put("doc1", true, history, cache.getGeneration());
+        assertEquals(Arrays.asList("created", "modified"), eventIds(cache.get("doc1", true)));
+        // cached separately for each sort
+        assertNull(cache.get("doc1", false));
+
+        // copies are returned
+        cache.get("doc1", true).clear();
+        assertEquals(2, cache.get("doc1", true).size());
+        cache.get("doc1", true).get(0).setEventId("changed");
+        history.get(1).setEventId("changed");
+        assertEquals(Arrays.asList("created", "modified"), eventIds(cache.get("doc1", true)));
+
+        // other documents are not invalidated
+        cache.put("doc2", true, history, cache.getGeneration());
+        cache.invalidate(Collections.singletonList(newEntry("doc1", "modified")));
+        assertNull(cache.get("doc1", true));
+        assertNotNull(cache.get("doc2", true));
+
+        cache.clear();
+        assertNull(cache.get("doc2", true));
+    }
+
+    @Test
+    public void testConcurrentWrite() {
+        AuditHistoryCache cache = new AuditHistoryCache(10, 60000, 0);
+        long generation = cache.getGeneration();
+        // entries written while the history is read
+        cache.invalidate(Collections.singletonList(newEntry("doc1", "modified")));
+        cache.put("doc1", true, Collections.singletonList(newEntry("doc1", "created")), generation);
+        assertNull(cache.get("doc1", true));
+    }
+
+    @Test
+    public void testConcurrentWriteOfOtherDocument() {
+        AuditHistoryCache cache = new AuditHistoryCache(10, 60000, 0);
+        long generation = cache.getGeneration();
+        // entries written for another document while the history is read
+        cache.invalidate(Collections.singletonList(newEntry("doc2", "modified")));
+        cache.put("doc1", true, Collections.singletonList(newEntry("doc1", "created")), generation);
+        assertNotNull(cache.get("doc1", true));
+    }
+
+    @Test
+    public void testForgottenInvalidation() {
+        AuditHistoryCache cache = new AuditHistoryCache(2, 60000, 0);
+        long generation = cache.getGeneration();
+        cache.invalidate(Collections.singletonList(newEntry("doc1", "modified")));
+        // the invalidation of doc1 is no longer tracked
+        cache.invalidate(Collections.singletonList(newEntry("doc2", "modified")));
+        cache.invalidate(Collections.singletonList(newEntry("doc3", "modified")));
+        cache.put("doc1", true, Collections.singletonList(newEntry("doc1", "created")), generation);
+        assertNull(cache.get("doc1", true));
+        // read after all the invalidations
+        cache.put("doc1", true, Collections.singletonList(newEntry("doc1", "created")), cache.getGeneration());
+        assertNotNull(cache.get("doc1", true));
+    }
+
+    @Test
+    public void testQuietPeriod() {
+        AuditHistoryCache cache = new AuditHistoryCache(10, 60000, 60000);
+        cache.invalidate(Collections.singletonList(newEntry("doc1", "modified")));
+        // the written entries may not be searchable yet
+        cache.put("doc1", true, Collections.singletonList(newEntry("doc1", "created")), cache.getGeneration());
+        assertNull(cache.get("doc1", true));
+    }
+
+    @Test
+    public void testQuietPeriodKeepsOtherHistories() {
+        AuditHistoryCache cache = new AuditHistoryCache(2, 60000, 60000);
+        cache.put("doc1", true, Collections.singletonList(newEntry("doc1", "created")), cache.getGeneration());
+        cache.invalidate(Arrays.asList(newEntry("doc2", "modified"), newEntry("doc3", "modified")));
+        // the written documents do not take the place of the cached histories
+        assertNotNull(cache.get("doc1", true));
+    }
+
+    @Test
+    public void testBounded() {
+        AuditHistoryCache cache = new AuditHistoryCache(2, 60000, 0);
+        List<LogEntry> history = Collections.singletonList(newEntry("doc", "created"));
+        cache.put("doc1", true, history, cache.getGeneration());
+        cache.put("doc2", true, history, cache.getGeneration());
+        // doc1 becomes the most recently used
+        assertNotNull(cache.get("doc1", true));
+        cache.put("doc3", true, history, cache.getGeneration());
+        assertNotNull(cache.get("doc1", true));
+        assertNull(cache.get("doc2", true));
+        assertNotNull(cache.get("doc3", true));
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        AuditHistoryCache cache = new AuditHistoryCache(10, 0, 0);
+        cache.put("doc1", true, Collections.singletonList(newEntry("doc1", "created")), cache.getGeneration());
+        Thread.sleep(5);
+        assertNull(cache.get("doc1", true));
+    }
+
+}
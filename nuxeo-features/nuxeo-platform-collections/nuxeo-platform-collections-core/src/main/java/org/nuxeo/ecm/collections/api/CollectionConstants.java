@@ -88,4 +88,29 @@ public class CollectionConstants {
      */
     public static final String COLLECTION_REF_EVENT_CTX_PROP = "collectionRef";
 
+    /**
+     * Framework property selecting how the collection membership is stored, {@value #MEMBERSHIP_STORAGE_LISTS} by
+     * default.
+     *
+     * @since 7.3
+     */
+    public static final String MEMBERSHIP_STORAGE_PROPERTY = "org.nuxeo.collections.membership.storage";
+
+    /**
+     * The membership is stored both in the list of collection ids of each member and in the list of document ids of
+     * each collection.
+     *
+     * @since 7.3
+     */
+    public static final String MEMBERSHIP_STORAGE_LISTS = "lists";
+
+    /**
+     * The membership is only stored in the list of collection ids of each member, the list of document ids of the
+     * collections is not maintained. Adding or removing a member does not depend on the size of the collection, and
+     * the members of a collection are queried by pages.
+     *
+     * @since 7.3
+     */
+    public static final String MEMBERSHIP_STORAGE_MEMBERS = "members";
+
 }
@@ -177,6 +177,18 @@ public interface CollectionManager {
      */
     void processCopiedCollection(final DocumentModel collection) throws ClientException;
 
+    /**
+     * Update all documents referenced by a collection to add a reference back the collection. When the membership is
+     * only stored on the members, they are found from the collection the copy or version was made from.
+     *
+     * @param collection the collection
+     * @param sourceCollectionId the id of the collection the given one was copied from, or {@code null} if unknown
+     * @throws ClientException
+     * @since 7.3
+     */
+    void processCopiedCollection(final DocumentModel collection, final String sourceCollectionId)
+            throws ClientException;
+
     /**
      * Update all documents referenced by a collection to remove the reference to the collection. This is used after the
      * complete deletion of a collection.
@@ -259,4 +271,18 @@ public interface CollectionManager {
      * @since 6.0
      */
     void doRemoveFromCollection(DocumentModel documentToBeRemoved, String collectionId, CoreSession session);
+
+    /**
+     * Gets a page of the ids of the documents of a collection, read from the collection ids of the members and
+     * sorted by id. Versions and proxies are not returned.
+     *
+     * @param collection the collection
+     * @param offset the number of ids to skip
+     * @param limit the maximum number of ids to return, or 0 for all of them
+     * @param session the session, only the members it can read are returned
+     * @since 7.3
+     */
+    List<String> getCollectedDocumentIds(DocumentModel collection, long offset, long limit, CoreSession session)
+            throws ClientException;
+
 }
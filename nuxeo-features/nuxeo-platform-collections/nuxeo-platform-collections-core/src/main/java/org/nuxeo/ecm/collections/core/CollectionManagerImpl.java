@@ -33,6 +33,7 @@ import org.nuxeo.ecm.collections.api.CollectionManager;
 import org.nuxeo.ecm.collections.core.adapter.Collection;
 import org.nuxeo.ecm.collections.core.adapter.CollectionMember;
 import org.nuxeo.ecm.collections.core.listener.CollectionAsynchrnonousQuery;
+import org.nuxeo.ecm.collections.core.worker.CopyCollectionMembershipWork;
 import org.nuxeo.ecm.collections.core.worker.DuplicateCollectionMemberWork;
 import org.nuxeo.ecm.collections.core.worker.RemoveFromCollectionWork;
 import org.nuxeo.ecm.collections.core.worker.RemovedAbstractWork;
@@ -41,6 +42,7 @@ import org.nuxeo.ecm.collections.core.worker.RemovedCollectionWork;
 import org.nuxeo.ecm.core.api.ClientException;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentModelList;
 import org.nuxeo.ecm.core.api.DocumentRef;
 import org.nuxeo.ecm.core.api.DocumentSecurityException;
 import org.nuxeo.ecm.core.api.IdRef;
@@ -58,6 +60,7 @@ import org.nuxeo.ecm.core.api.security.impl.ACPImpl;
 import org.nuxeo.ecm.core.event.Event;
 import org.nuxeo.ecm.core.event.EventService;
 import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
+import org.nuxeo.ecm.core.query.sql.NXQL;
 import org.nuxeo.ecm.core.versioning.VersioningService;
 import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.ecm.platform.audit.service.NXAuditEventsService;
@@ -76,6 +79,9 @@ public class CollectionManagerImpl extends DefaultComponent implements Collectio
 
     private static final String PERMISSION_ERROR_MESSAGE = "Privilege '%s' is not granted to '%s'";
 
+    private static final String QUERY_COLLECTED_DOCUMENTS = "SELECT * FROM Document WHERE ecm:isProxy = 0"
+            + " AND ecm:isCheckedInVersion = 0 AND collectionMember:collectionIds/* = %s ORDER BY ecm:uuid";
+
     public static void disableEvents(final DocumentModel doc) {
         doc.putContextData(DublinCoreListener.DISABLE_DUBLINCORE_LISTENER, true);
         doc.putContextData(NotificationConstants.DISABLE_NOTIFICATION_SERVICE, true);
@@ -90,9 +96,11 @@ public class CollectionManagerImpl extends DefaultComponent implements Collectio
         final Map<String, Serializable> props = new HashMap<>();
         props.put(CollectionConstants.COLLECTION_REF_EVENT_CTX_PROP, collection.getRef());
         fireEvent(documentToBeAdded, session, CollectionConstants.BEFORE_ADDED_TO_COLLECTION, props);
-        Collection colAdapter = collection.getAdapter(Collection.class);
-        colAdapter.addDocument(documentToBeAdded.getId());
-        collection.getCoreSession().saveDocument(colAdapter.getDocument());
+        if (!isMembershipStoredOnMembers()) {
+            Collection colAdapter = collection.getAdapter(Collection.class);
+            colAdapter.addDocument(documentToBeAdded.getId());
+            collection.getCoreSession().saveDocument(colAdapter.getDocument());
+        }
 
         new UnrestrictedSessionRunner(session) {
 
@@ -305,6 +313,21 @@ public class CollectionManagerImpl extends DefaultComponent implements Collectio
 
     @Override
     public void processCopiedCollection(final DocumentModel collection) throws ClientException {
+        processCopiedCollection(collection, null);
+    }
+
+    @Override
+    public void processCopiedCollection(final DocumentModel collection, final String sourceCollectionId)
+            throws ClientException {
+        if (isMembershipStoredOnMembers()) {
+            if (sourceCollectionId != null) {
+                CopyCollectionMembershipWork work = new CopyCollectionMembershipWork(collection.getRepositoryName(),
+                        sourceCollectionId, collection.getId(), 0);
+                WorkManager workManager = Framework.getLocalService(WorkManager.class);
+                workManager.schedule(work, WorkManager.Scheduling.IF_NOT_SCHEDULED, true);
+            }
+            return;
+        }
         Collection collectionAdapter = collection.getAdapter(Collection.class);
         List<String> documentIds = collectionAdapter.getCollectedDocumentIds();
 
@@ -331,6 +354,10 @@ public class CollectionManagerImpl extends DefaultComponent implements Collectio
 
     @Override
     public void processRemovedCollectionMember(final DocumentModel collectionMember) {
+        if (isMembershipStoredOnMembers()) {
+            // the membership was removed with the member
+            return;
+        }
         final WorkManager workManager = Framework.getLocalService(WorkManager.class);
         final RemovedAbstractWork work = new RemovedCollectionMemberWork();
         work.setDocument(collectionMember.getRepositoryName(), collectionMember.getId());
@@ -338,14 +365,31 @@ public class CollectionManagerImpl extends DefaultComponent implements Collectio
     }
 
     @Override
-    public void processRestoredCollection(DocumentModel collection, DocumentModel version) throws ClientException {
-        final Set<String> collectionMemberIdsToBeRemoved = new TreeSet<String>(
-                collection.getAdapter(Collection.class).getCollectedDocumentIds());
-        collectionMemberIdsToBeRemoved.removeAll(version.getAdapter(Collection.class).getCollectedDocumentIds());
+    public void processRestoredCollection(final DocumentModel collection, final DocumentModel version)
+            throws ClientException {
+        final List<String> collectionMemberIds;
+        final List<String> versionMemberIds;
+        if (isMembershipStoredOnMembers()) {
+            collectionMemberIds = new ArrayList<String>();
+            versionMemberIds = new ArrayList<String>();
+            new UnrestrictedSessionRunner(collection.getCoreSession()) {
+
+                @Override
+                public void run() throws ClientException {
+                    collectionMemberIds.addAll(getCollectedDocumentIds(collection, 0, 0, session));
+                    versionMemberIds.addAll(getCollectedDocumentIds(version, 0, 0, session));
+                }
 
-        final Set<String> collectionMemberIdsToBeAdded = new TreeSet<String>(
-                version.getAdapter(Collection.class).getCollectedDocumentIds());
-        collectionMemberIdsToBeAdded.removeAll(collection.getAdapter(Collection.class).getCollectedDocumentIds());
+            }.runUnrestricted();
+        } else {
+            collectionMemberIds = collection.getAdapter(Collection.class).getCollectedDocumentIds();
+            versionMemberIds = version.getAdapter(Collection.class).getCollectedDocumentIds();
+        }
+        final Set<String> collectionMemberIdsToBeRemoved = new TreeSet<String>(collectionMemberIds);
+        collectionMemberIdsToBeRemoved.removeAll(versionMemberIds);
+
+        final Set<String> collectionMemberIdsToBeAdded = new TreeSet<String>(versionMemberIds);
+        collectionMemberIdsToBeAdded.removeAll(collectionMemberIds);
 
         int i = 0;
         while (i < collectionMemberIdsToBeRemoved.size()) {
@@ -386,9 +430,11 @@ public class CollectionManagerImpl extends DefaultComponent implements Collectio
         Map<String, Serializable> props = new HashMap<>();
         props.put(CollectionConstants.COLLECTION_REF_EVENT_CTX_PROP, new IdRef(collection.getId()));
         fireEvent(documentToBeRemoved, session, CollectionConstants.BEFORE_REMOVED_FROM_COLLECTION, props);
-        Collection colAdapter = collection.getAdapter(Collection.class);
-        colAdapter.removeDocument(documentToBeRemoved.getId());
-        collection.getCoreSession().saveDocument(colAdapter.getDocument());
+        if (!isMembershipStoredOnMembers()) {
+            Collection colAdapter = collection.getAdapter(Collection.class);
+            colAdapter.removeDocument(documentToBeRemoved.getId());
+            collection.getCoreSession().saveDocument(colAdapter.getDocument());
+        }
 
         new UnrestrictedSessionRunner(session) {
 
@@ -437,6 +483,30 @@ public class CollectionManagerImpl extends DefaultComponent implements Collectio
         return newCollection;
     }
 
+    @Override
+    public List<String> getCollectedDocumentIds(DocumentModel collection, long offset, long limit,
+            CoreSession session) throws ClientException {
+        String query = String.format(QUERY_COLLECTED_DOCUMENTS, NXQL.escapeString(collection.getId()));
+        // the limit and offset are applied by the database on the indexed collectionIds items
+        DocumentModelList members = session.query(query, null, limit, offset, false);
+        List<String> ids = new ArrayList<String>(members.size());
+        for (DocumentModel member : members) {
+            ids.add(member.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Checks if the membership is only stored on the collection members.
+     *
+     * @since 7.3
+     * @see CollectionConstants#MEMBERSHIP_STORAGE_PROPERTY
+     */
+    protected boolean isMembershipStoredOnMembers() {
+        return CollectionConstants.MEMBERSHIP_STORAGE_MEMBERS.equals(Framework.getProperty(
+                CollectionConstants.MEMBERSHIP_STORAGE_PROPERTY, CollectionConstants.MEMBERSHIP_STORAGE_LISTS));
+    }
+
     protected Locale getLocale(final CoreSession session) throws ClientException {
         Locale locale = null;
         locale = Framework.getLocalService(LocaleProvider.class).getLocale(session);
@@ -24,6 +24,8 @@ import org.nuxeo.ecm.collections.core.adapter.CollectionMember;
 import org.nuxeo.ecm.core.api.ClientException;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.api.event.CoreEventConstants;
 import org.nuxeo.ecm.core.api.event.DocumentEventTypes;
 import org.nuxeo.ecm.core.event.Event;
 import org.nuxeo.ecm.core.event.EventContext;
@@ -55,14 +57,17 @@ public class DuplicatedCollectionListener implements EventListener {
         final DocumentEventContext docCxt = (DocumentEventContext) event.getContext();
 
         DocumentModel doc = null;
+        DocumentRef sourceRef = null;
         if (eventId.equals(DocumentEventTypes.DOCUMENT_CREATED_BY_COPY)) {
             doc = docCxt.getSourceDocument();
+            sourceRef = (DocumentRef) ctx.getProperties().get(CoreEventConstants.SOURCE_REF);
         } else if (eventId.equals(DocumentEventTypes.DOCUMENT_CHECKEDIN)) {
             DocumentRef checkedInVersionRef = (DocumentRef) ctx.getProperties().get("checkedInVersionRef");
             doc = ctx.getCoreSession().getDocument(checkedInVersionRef);
             if (!doc.isVersion()) {
                 return;
             }
+            sourceRef = docCxt.getSourceDocument().getRef();
         } else {
             return;
         }
@@ -77,7 +82,13 @@ public class DuplicatedCollectionListener implements EventListener {
                 log.trace(String.format("Collection %s checked in", doc.getId()));
             }
 
-            collectionManager.processCopiedCollection(doc);
+            String sourceCollectionId = null;
+            if (sourceRef instanceof IdRef) {
+                sourceCollectionId = (String) sourceRef.reference();
+            } else if (sourceRef != null) {
+                sourceCollectionId = ctx.getCoreSession().getDocument(sourceRef).getId();
+            }
+            collectionManager.processCopiedCollection(doc, sourceCollectionId);
 
         } else if (collectionManager.isCollected(doc)) {
             doc.getAdapter(CollectionMember.class).setCollectionIds(null);
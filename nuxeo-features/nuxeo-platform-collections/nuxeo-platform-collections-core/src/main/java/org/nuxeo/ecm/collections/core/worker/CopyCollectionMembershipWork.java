@@ -0,0 +1,112 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.collections.core.worker;
+
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.collections.api.CollectionManager;
+import org.nuxeo.ecm.collections.core.CollectionManagerImpl;
+import org.nuxeo.ecm.collections.core.adapter.CollectionMember;
+import org.nuxeo.ecm.collections.core.listener.CollectionAsynchrnonousQuery;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.work.AbstractWork;
+import org.nuxeo.ecm.core.work.api.WorkManager;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Adds a collection copy or version to the members of the collection it was made from, when the membership is only
+ * stored on the members. Each work processes one page of members and schedules the work for the next page.
+ *
+ * @since 7.3
+ */
+public class CopyCollectionMembershipWork extends AbstractWork {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Log log = LogFactory.getLog(CopyCollectionMembershipWork.class);
+
+    public static final String CATEGORY = "copyCollectionMembership";
+
+    protected static final String TITLE = "Copy Collection Membership Work";
+
+    protected String sourceCollectionId;
+
+    protected String newCollectionId;
+
+    protected long offset;
+
+    public CopyCollectionMembershipWork(final String repoName, final String sourceCollectionId,
+            final String newCollectionId, final long offset) {
+        super(CATEGORY + ":" + repoName + ":" + newCollectionId + ":" + offset);
+        this.repositoryName = repoName;
+        this.sourceCollectionId = sourceCollectionId;
+        this.newCollectionId = newCollectionId;
+        this.offset = offset;
+    }
+
+    @Override
+    public String getCategory() {
+        return CATEGORY;
+    }
+
+    @Override
+    public String getTitle() {
+        return TITLE;
+    }
+
+    @Override
+    public void work() {
+        setStatus("Duplicating");
+        initSession();
+        DocumentRef sourceRef = new IdRef(sourceCollectionId);
+        if (!session.exists(sourceRef)) {
+            setStatus("Done");
+            return;
+        }
+        CollectionManager collectionManager = Framework.getLocalService(CollectionManager.class);
+        List<String> collectionMemberIds = collectionManager.getCollectedDocumentIds(session.getDocument(sourceRef),
+                offset, CollectionAsynchrnonousQuery.MAX_RESULT, session);
+        setProgress(new Progress(0, collectionMemberIds.size()));
+        for (int i = 0; i < collectionMemberIds.size(); i++) {
+            log.trace(String.format("Worker %s, populating Collection %s, processing CollectionMember %s", getId(),
+                    newCollectionId, collectionMemberIds.get(i)));
+            DocumentModel collectionMember = session.getDocument(new IdRef(collectionMemberIds.get(i)));
+            if (collectionManager.isCollectable(collectionMember)) {
+                // We want to disable the following listener on a
+                // collection member when it is added to a collection
+                CollectionManagerImpl.disableEvents(collectionMember);
+                CollectionMember collectionMemberAdapter = collectionMember.getAdapter(CollectionMember.class);
+                collectionMemberAdapter.addToCollection(newCollectionId);
+                session.saveDocument(collectionMember);
+            }
+            setProgress(new Progress(i + 1, collectionMemberIds.size()));
+        }
+        if (collectionMemberIds.size() == CollectionAsynchrnonousQuery.MAX_RESULT) {
+            setStatus("Rescheduling next work");
+            CopyCollectionMembershipWork nextWork = new CopyCollectionMembershipWork(repositoryName,
+                    sourceCollectionId, newCollectionId, offset + CollectionAsynchrnonousQuery.MAX_RESULT);
+            WorkManager workManager = Framework.getLocalService(WorkManager.class);
+            workManager.schedule(nextWork, WorkManager.Scheduling.IF_NOT_SCHEDULED, true);
+        }
+        setStatus("Done");
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.collections.core.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.ecm.collections.api.CollectionConstants;
+import org.nuxeo.ecm.collections.core.adapter.Collection;
+import org.nuxeo.ecm.collections.core.adapter.CollectionMember;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.PathRef;
+import org.nuxeo.ecm.core.api.VersioningOption;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * @since 7.3
+ */
+public class CollectionMembershipStorageTest extends CollectionTestCase {
+
+    @Before
+    public void setUp() {
+        Framework.getProperties().setProperty(CollectionConstants.MEMBERSHIP_STORAGE_PROPERTY,
+                CollectionConstants.MEMBERSHIP_STORAGE_MEMBERS);
+    }
+
+    @After
+    public void tearDown() {
+        Framework.getProperties().remove(CollectionConstants.MEMBERSHIP_STORAGE_PROPERTY);
+    }
+
+    @Test
+    public void testMembershipStoredOnMembers() throws Exception {
+        List<DocumentModel> files = createTestFiles(session, 5);
+        collectionManager.addToNewCollection(COLLECTION_NAME, COLLECTION_DESCRIPTION, files, session);
+        DocumentModel collection = session.getDocument(new PathRef(COLLECTION_FOLDER_PATH + "/" + COLLECTION_NAME));
+        String collectionId = collection.getId();
+
+        // the collection does not keep the ids of its members
+        assertTrue(collection.getAdapter(Collection.class).getCollectedDocumentIds().isEmpty());
+        List<String> ids = new ArrayList<String>();
+        for (DocumentModel file : files) {
+            ids.add(file.getId());
+            file = session.getDocument(file.getRef());
+            assertTrue(collectionManager.isInCollection(collection, file, session));
+        }
+        session.save();
+        Collections.sort(ids);
+        assertEquals(ids, collectionManager.getCollectedDocumentIds(collection, 0, 0, session));
+        assertEquals(ids.subList(0, 2), collectionManager.getCollectedDocumentIds(collection, 0, 2, session));
+        assertEquals(ids.subList(2, 4), collectionManager.getCollectedDocumentIds(collection, 2, 2, session));
+        assertEquals(ids.subList(4, 5), collectionManager.getCollectedDocumentIds(collection, 4, 2, session));
+
+        DocumentModel file = session.getDocument(files.get(0).getRef());
+        collectionManager.removeFromCollection(collection, file, session);
+        session.save();
+        file = session.getDocument(file.getRef());
+        assertFalse(file.getAdapter(CollectionMember.class).getCollectionIds().contains(collectionId));
+        assertEquals(4, collectionManager.getCollectedDocumentIds(collection, 0, 0, session).size());
+
+        // removing the collection still cleans up its members
+        List<DocumentRef> toBePurged = new ArrayList<DocumentRef>();
+        toBePurged.add(collection.getRef());
+        trashService.purgeDocuments(session, toBePurged);
+        awaitCollectionWorks();
+        for (DocumentModel member : files) {
+            member = session.getDocument(member.getRef());
+            assertFalse(member.getAdapter(CollectionMember.class).getCollectionIds().contains(collectionId));
+        }
+    }
+
+    @Test
+    public void testCopyWithMembershipStoredOnMembers() throws Exception {
+        List<DocumentModel> files = createTestFiles(session, MAX_CARDINALITY);
+        collectionManager.addToNewCollection(COLLECTION_NAME, COLLECTION_DESCRIPTION, files, session);
+        DocumentModel collection = session.getDocument(new PathRef(COLLECTION_FOLDER_PATH + "/" + COLLECTION_NAME));
+        session.save();
+
+        DocumentModel copy = session.copy(collection.getRef(), new PathRef(COLLECTION_FOLDER_PATH),
+                COLLECTION_NAME + "_BIS");
+        awaitCollectionWorks();
+
+        // the copy has the members of the original collection, across several pages
+        assertEquals(MAX_CARDINALITY, collectionManager.getCollectedDocumentIds(copy, 0, 0, session).size());
+        for (DocumentModel file : files) {
+            file = session.getDocument(file.getRef());
+            assertTrue(collectionManager.isInCollection(collection, file, session));
+            assertTrue(collectionManager.isInCollection(copy, file, session));
+        }
+    }
+
+    @Test
+    public void testCheckinAndRestoreWithMembershipStoredOnMembers() throws Exception {
+        List<DocumentModel> files = createTestFiles(session, 4);
+        List<DocumentModel> firstMembers = files.subList(0, 2);
+        List<DocumentModel> secondMembers = files.subList(2, 4);
+        collectionManager.addToNewCollection(COLLECTION_NAME, COLLECTION_DESCRIPTION, firstMembers, session);
+        DocumentRef collectionRef = new PathRef(COLLECTION_FOLDER_PATH + "/" + COLLECTION_NAME);
+        DocumentModel collection = session.getDocument(collectionRef);
+        session.save();
+
+        DocumentRef versionRef = collection.checkIn(VersioningOption.MAJOR, "a new version");
+        awaitCollectionWorks();
+        DocumentModel version = session.getDocument(versionRef);
+        assertEquals(2, collectionManager.getCollectedDocumentIds(version, 0, 0, session).size());
+
+        collection = session.getDocument(collectionRef);
+        collectionManager.addToCollection(collection, refresh(secondMembers), session);
+        collectionManager.removeAllFromCollection(collection, refresh(firstMembers), session);
+        session.save();
+
+        session.restoreToVersion(collectionRef, versionRef, true, true);
+        session.save();
+        awaitCollectionWorks();
+
+        collection = session.getDocument(collectionRef);
+        for (DocumentModel file : refresh(firstMembers)) {
+            assertTrue(collectionManager.isInCollection(collection, file, session));
+        }
+        for (DocumentModel file : refresh(secondMembers)) {
+            assertFalse(collectionManager.isInCollection(collection, file, session));
+        }
+    }
+
+    protected List<DocumentModel> refresh(List<DocumentModel> docs) {
+        List<DocumentModel> result = new ArrayList<DocumentModel>(docs.size());
+        for (DocumentModel doc : docs) {
+            result.add(session.getDocument(doc.getRef()));
+        }
+        return result;
+    }
+
+}
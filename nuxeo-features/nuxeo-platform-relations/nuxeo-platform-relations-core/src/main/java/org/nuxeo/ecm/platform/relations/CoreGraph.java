@@ -28,10 +28,13 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -99,6 +102,14 @@ public class CoreGraph implements Graph {
 
     public static final String DC_DESCRIPTION = "dc:description";
 
+    /**
+     * The columns from which statements are built.
+     *
+     * @since 7.3
+     */
+    protected static final String[] COLUMNS = { REL_PREDICATE, REL_SOURCE_ID, REL_SOURCE_URI, REL_TARGET_ID,
+            REL_TARGET_URI, REL_TARGET_STRING, DC_CREATED, DC_CREATOR, DC_MODIFIED, DC_DESCRIPTION };
+
     // avoid confusion with any legal uri
     public static String BLANK_NS = "-:";
 
@@ -248,18 +259,40 @@ public class CoreGraph implements Graph {
             this.statements = statements;
         }
 
+        protected List<Map<String, Serializable>> rows;
+
         @Override
         public void run() throws ClientException {
             now = new Date();
-            for (Statement statement : statements) {
-                add(statement);
+            CoreGraphIndex index = CoreGraphIndex.getInstance();
+            if (index.isEnabled()) {
+                rows = new ArrayList<Map<String, Serializable>>(statements.size());
+                index.setMaintaining(session.getRepositoryName(), docType);
+            }
+            try {
+                for (Statement statement : statements) {
+                    add(statement);
+                }
+            } finally {
+                if (rows != null) {
+                    index.setMaintaining(null, null);
+                    index.added(session.getRepositoryName(), docType, rows);
+                }
             }
         }
 
         protected void add(Statement statement) throws ClientException {
             DocumentModel rel = session.createDocumentModel(null, "relation", docType);
             rel = setRelationProperties(rel, statement);
-            session.createDocument(rel);
+            rel = session.createDocument(rel);
+            if (rows != null) {
+                Map<String, Serializable> row = new HashMap<String, Serializable>();
+                row.put(NXQL.ECM_UUID, rel.getId());
+                for (String column : COLUMNS) {
+                    row.put(column, rel.getPropertyValue(column));
+                }
+                rows.add(row);
+            }
         }
 
         protected DocumentModel setRelationProperties(DocumentModel rel, Statement statement) throws ClientException {
@@ -371,11 +404,25 @@ public class CoreGraph implements Graph {
             this.statements = statements;
         }
 
+        protected Set<String> ids;
+
         @Override
         public void run() throws ClientException {
             now = new Date();
-            for (Statement statement : statements) {
-                remove(statement);
+            CoreGraphIndex index = CoreGraphIndex.getInstance();
+            if (index.isEnabled()) {
+                ids = new HashSet<String>();
+                index.setMaintaining(session.getRepositoryName(), docType);
+            }
+            try {
+                for (Statement statement : statements) {
+                    remove(statement);
+                }
+            } finally {
+                if (ids != null) {
+                    index.setMaintaining(null, null);
+                    index.removed(session.getRepositoryName(), docType, ids);
+                }
             }
         }
 
@@ -390,6 +437,9 @@ public class CoreGraph implements Graph {
                 for (Map<String, Serializable> map : it) {
                     String id = (String) map.get(NXQL.ECM_UUID);
                     session.removeDocument(new IdRef(id));
+                    if (ids != null) {
+                        ids.add(id);
+                    }
                 }
             } finally {
                 it.close();
@@ -415,9 +465,12 @@ public class CoreGraph implements Graph {
 
         @Override
         public void run() throws ClientException {
-            String query = "SELECT " + REL_PREDICATE + ", " + REL_SOURCE_ID + ", " + REL_SOURCE_URI + ", "
-                    + REL_TARGET_ID + ", " + REL_TARGET_URI + ", " + REL_TARGET_STRING + ", " + DC_CREATED + ", "
-                    + DC_CREATOR + ", " + DC_MODIFIED + ", " + DC_DESCRIPTION + " FROM " + docType;
+            CoreGraphIndex index = CoreGraphIndex.getInstance();
+            if (index.isEnabled() && !index.isChanged(session.getRepositoryName(), docType)) {
+                statements = findInIndex(index);
+                return;
+            }
+            String query = "SELECT " + StringUtils.join(COLUMNS, ", ") + " FROM " + docType;
             query = whereBuilder(query, statement);
             if (query == null) {
                 statements = EMPTY_STATEMENTS;
@@ -427,44 +480,91 @@ public class CoreGraph implements Graph {
             IterableQueryResult it = session.queryAndFetch(query, NXQL.NXQL);
             try {
                 for (Map<String, Serializable> map : it) {
-                    String pred = (String) map.get(REL_PREDICATE);
-                    String source = (String) map.get(REL_SOURCE_ID);
-                    String sourceUri = (String) map.get(REL_SOURCE_URI);
-                    String target = (String) map.get(REL_TARGET_ID);
-                    String targetUri = (String) map.get(REL_TARGET_URI);
-                    String targetString = (String) map.get(REL_TARGET_STRING);
-                    Calendar created = (Calendar) map.get(DC_CREATED);
-                    String creator = (String) map.get(DC_CREATOR);
-                    Calendar modified = (Calendar) map.get(DC_MODIFIED);
-                    String comment = (String) map.get(DC_DESCRIPTION);
-
-                    Resource predicate = NodeFactory.createResource(pred);
-                    Node subject;
-                    if (source != null) {
-                        subject = createId(source);
-                    } else {
-                        subject = createUri(sourceUri);
-                    }
-                    Node object;
-                    if (target != null) {
-                        object = createId(target);
-                    } else if (targetUri != null) {
-                        object = createUri(targetUri);
-                    } else {
-                        object = NodeFactory.createLiteral(targetString);
-                    }
-                    Statement statement = new StatementImpl(subject, predicate, object);
-                    setCreationDate(statement, created);
-                    setAuthor(statement, creator);
-                    setModificationDate(statement, modified);
-                    setComment(statement, comment);
-                    statements.add(statement);
+                    statements.add(getStatement(map));
                 }
             } finally {
                 it.close();
             }
         }
 
+        protected List<Statement> findInIndex(CoreGraphIndex index) throws ClientException {
+            String repositoryName = session.getRepositoryName();
+            CoreGraphIndex.Triples triples = index.getTriples(repositoryName, docType);
+            if (triples == null) {
+                long generation = index.getGeneration();
+                List<Map<String, Serializable>> rows = new ArrayList<Map<String, Serializable>>();
+                String query = "SELECT " + NXQL.ECM_UUID + ", " + StringUtils.join(COLUMNS, ", ") + " FROM "
+                        + docType;
+                IterableQueryResult it = session.queryAndFetch(query, NXQL.NXQL);
+                try {
+                    for (Map<String, Serializable> map : it) {
+                        rows.add(new HashMap<String, Serializable>(map));
+                    }
+                } finally {
+                    it.close();
+                }
+                triples = index.putTriples(repositoryName, docType, rows, generation);
+            }
+            String predicate = null;
+            if (statement.getPredicate() != null) {
+                predicate = getNodeAsString(statement.getPredicate()).uri;
+                if (predicate == null) {
+                    return EMPTY_STATEMENTS;
+                }
+            }
+            String subject = null;
+            if (statement.getSubject() != null) {
+                NodeAsString sn = getNodeAsString(statement.getSubject());
+                subject = sn.id != null ? CoreGraphIndex.getIdKey(sn.id) : CoreGraphIndex.getUriKey(sn.uri);
+            }
+            String object = null;
+            if (statement.getObject() != null) {
+                NodeAsString on = getNodeAsString(statement.getObject());
+                object = on.id != null ? CoreGraphIndex.getIdKey(on.id)
+                        : on.uri != null ? CoreGraphIndex.getUriKey(on.uri) : CoreGraphIndex.getStringKey(on.string);
+            }
+            List<Statement> statements = new ArrayList<Statement>();
+            for (Map<String, Serializable> map : triples.find(subject, predicate, object)) {
+                statements.add(getStatement(map));
+            }
+            return statements;
+        }
+
+        protected Statement getStatement(Map<String, Serializable> map) {
+            String pred = (String) map.get(REL_PREDICATE);
+            String source = (String) map.get(REL_SOURCE_ID);
+            String sourceUri = (String) map.get(REL_SOURCE_URI);
+            String target = (String) map.get(REL_TARGET_ID);
+            String targetUri = (String) map.get(REL_TARGET_URI);
+            String targetString = (String) map.get(REL_TARGET_STRING);
+            Calendar created = (Calendar) map.get(DC_CREATED);
+            String creator = (String) map.get(DC_CREATOR);
+            Calendar modified = (Calendar) map.get(DC_MODIFIED);
+            String comment = (String) map.get(DC_DESCRIPTION);
+
+            Resource predicate = NodeFactory.createResource(pred);
+            Node subject;
+            if (source != null) {
+                subject = createId(source);
+            } else {
+                subject = createUri(sourceUri);
+            }
+            Node object;
+            if (target != null) {
+                object = createId(target);
+            } else if (targetUri != null) {
+                object = createUri(targetUri);
+            } else {
+                object = NodeFactory.createLiteral(targetString);
+            }
+            Statement statement = new StatementImpl(subject, predicate, object);
+            setCreationDate(statement, created);
+            setAuthor(statement, creator);
+            setModificationDate(statement, modified);
+            setComment(statement, comment);
+            return statement;
+        }
+
         protected QNameResource createId(String id) {
             return NodeFactory.createQNameResource(DOCUMENT_NAMESPACE, session.getRepositoryName() + '/' + id);
         }
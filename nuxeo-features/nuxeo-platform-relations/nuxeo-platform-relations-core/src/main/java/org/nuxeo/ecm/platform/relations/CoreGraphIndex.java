@@ -0,0 +1,407 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.relations;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import org.nuxeo.ecm.core.query.sql.NXQL;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * In-memory index of the relations of the core graphs, answering the statement patterns without querying the
+ * repository.
+ * <p>
+ * The relations of a document type in a repository are loaded on first use, as rows of the columns selected by
+ * {@link CoreGraph}, and indexed by subject, predicate and object (SPO, POS and OSP). They are then kept up to date by
+ * the statements added and removed through {@link CoreGraph}; the changes done in a transaction are applied when it
+ * commits, and until then the transaction queries the repository. The relation documents changed by other means
+ * invalidate the index through {@link CoreGraphIndexListener}.
+ * <p>
+ * The changes done by other servers are not seen, so the relations are reloaded periodically.
+ *
+ * @since 7.3
+ */
+public class CoreGraphIndex {
+
+    /** Property enabling the index. */
+    public static final String ENABLED_PROPERTY = "org.nuxeo.relations.core.index.enabled";
+
+    /** Property holding the delay in seconds after which the relations are reloaded, 300 by default. */
+    public static final String RELOAD_INTERVAL_PROPERTY = "org.nuxeo.relations.core.index.reloadInterval";
+
+    protected static final CoreGraphIndex INSTANCE = new CoreGraphIndex();
+
+    public static CoreGraphIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * The indexed relations of a document type in a repository.
+     */
+    protected static class Triples {
+
+        /** The rows by relation document id. */
+        protected final Map<String, Map<String, Serializable>> rows = new LinkedHashMap<String, Map<String, Serializable>>();
+
+        protected final Map<String, Set<String>> spo = new HashMap<String, Set<String>>();
+
+        protected final Map<String, Set<String>> pos = new HashMap<String, Set<String>>();
+
+        protected final Map<String, Set<String>> osp = new HashMap<String, Set<String>>();
+
+        protected final long loaded = System.currentTimeMillis();
+
+        protected synchronized void put(Map<String, Serializable> row) {
+            String id = (String) row.get(NXQL.ECM_UUID);
+            remove(id);
+            rows.put(id, row);
+            add(spo, getSubjectKey(row), id);
+            add(pos, getPredicateKey(row), id);
+            add(osp, getObjectKey(row), id);
+        }
+
+        protected synchronized void remove(String id) {
+            Map<String, Serializable> row = rows.remove(id);
+            if (row != null) {
+                remove(spo, getSubjectKey(row), id);
+                remove(pos, getPredicateKey(row), id);
+                remove(osp, getObjectKey(row), id);
+            }
+        }
+
+        /**
+         * Finds the rows matching a pattern, the {@code null} keys matching any value.
+         */
+        protected synchronized List<Map<String, Serializable>> find(String subject, String predicate, String object) {
+            Collection<String> ids;
+            if (subject != null) {
+                ids = get(spo, subject);
+            } else if (object != null) {
+                ids = get(osp, object);
+            } else if (predicate != null) {
+                ids = get(pos, predicate);
+            } else {
+                ids = rows.keySet();
+            }
+            List<Map<String, Serializable>> found = new ArrayList<Map<String, Serializable>>(ids.size());
+            for (String id : ids) {
+                Map<String, Serializable> row = rows.get(id);
+                if ((subject == null || subject.equals(getSubjectKey(row)))
+                        && (predicate == null || predicate.equals(getPredicateKey(row)))
+                        && (object == null || object.equals(getObjectKey(row)))) {
+                    found.add(row);
+                }
+            }
+            return found;
+        }
+
+        protected static Collection<String> get(Map<String, Set<String>> index, String key) {
+            Set<String> ids = index.get(key);
+            return ids == null ? Collections.<String> emptySet() : ids;
+        }
+
+        protected static void add(Map<String, Set<String>> index, String key, String id) {
+            Set<String> ids = index.get(key);
+            if (ids == null) {
+                index.put(key, ids = new HashSet<String>());
+            }
+            ids.add(id);
+        }
+
+        protected static void remove(Map<String, Set<String>> index, String key, String id) {
+            Set<String> ids = index.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * The changes done by a transaction, applied when it commits.
+     */
+    protected class Pending implements Synchronization {
+
+        protected final Map<String, List<Map<String, Serializable>>> added = new HashMap<String, List<Map<String, Serializable>>>();
+
+        protected final Map<String, Set<String>> removed = new HashMap<String, Set<String>>();
+
+        protected final Set<String> invalidated = new HashSet<String>();
+
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            pending.remove();
+            if (status == Status.STATUS_COMMITTED) {
+                for (String key : invalidated) {
+                    invalidateNow(key);
+                }
+                for (String key : removed.keySet()) {
+                    applyRemoved(key, removed.get(key));
+                }
+                for (String key : added.keySet()) {
+                    applyAdded(key, added.get(key));
+                }
+            }
+        }
+
+        protected boolean isChanged(String key) {
+            return added.containsKey(key) || removed.containsKey(key) || invalidated.contains(key);
+        }
+    }
+
+    protected final Map<String, Triples> triples = new ConcurrentHashMap<String, Triples>();
+
+    protected final AtomicLong generation = new AtomicLong();
+
+    protected final ThreadLocal<Pending> pending = new ThreadLocal<Pending>();
+
+    /** The relations being changed by {@link CoreGraph}, which maintains them itself. */
+    protected final ThreadLocal<String> maintaining = new ThreadLocal<String>();
+
+    public boolean isEnabled() {
+        if (!Framework.isBooleanPropertyTrue(ENABLED_PROPERTY)) {
+            if (!triples.isEmpty()) {
+                // not kept up to date, forget them
+                clear();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    protected long getReloadInterval() {
+        return TimeUnit.SECONDS.toMillis(Long.parseLong(Framework.getProperty(RELOAD_INTERVAL_PROPERTY, "300")));
+    }
+
+    protected static String getKey(String repositoryName, String docType) {
+        return repositoryName + '/' + docType;
+    }
+
+    /**
+     * Gets the current generation, to be passed to {@link #putTriples} when loading relations.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Checks whether the current transaction changed the relations, in which case it must query the repository.
+     */
+    protected boolean isChanged(String repositoryName, String docType) {
+        Pending p = pending.get();
+        return p != null && p.isChanged(getKey(repositoryName, docType));
+    }
+
+    /**
+     * Gets the loaded relations, or {@code null} if they must be loaded.
+     */
+    protected Triples getTriples(String repositoryName, String docType) {
+        String key = getKey(repositoryName, docType);
+        Triples t = triples.get(key);
+        if (t != null && System.currentTimeMillis() - t.loaded > getReloadInterval()) {
+            triples.remove(key);
+            return null;
+        }
+        return t;
+    }
+
+    /**
+     * Indexes the loaded relations, and stores them unless they were changed since the given generation.
+     */
+    protected Triples putTriples(String repositoryName, String docType, List<Map<String, Serializable>> rows,
+            long loadGeneration) {
+        Triples t = new Triples();
+        for (Map<String, Serializable> row : rows) {
+            t.put(row);
+        }
+        String key = getKey(repositoryName, docType);
+        synchronized (this) {
+            if (generation.get() == loadGeneration) {
+                triples.put(key, t);
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Records added relations, visible to others when the current transaction commits.
+     */
+    protected void added(String repositoryName, String docType, List<Map<String, Serializable>> rows) {
+        String key = getKey(repositoryName, docType);
+        Pending p = getPending();
+        if (p == null) {
+            applyAdded(key, rows);
+        } else {
+            List<Map<String, Serializable>> list = p.added.get(key);
+            if (list == null) {
+                p.added.put(key, list = new ArrayList<Map<String, Serializable>>());
+            }
+            list.addAll(rows);
+        }
+    }
+
+    /**
+     * Records removed relations, visible to others when the current transaction commits.
+     */
+    protected void removed(String repositoryName, String docType, Set<String> ids) {
+        String key = getKey(repositoryName, docType);
+        Pending p = getPending();
+        if (p == null) {
+            applyRemoved(key, ids);
+        } else {
+            Set<String> set = p.removed.get(key);
+            if (set == null) {
+                p.removed.put(key, set = new HashSet<String>());
+            }
+            set.addAll(ids);
+        }
+    }
+
+    /**
+     * Forgets the relations of the given document types changed without going through {@link CoreGraph}.
+     */
+    public void invalidate(String repositoryName, Collection<String> docTypes) {
+        Pending p = getPending();
+        for (String docType : docTypes) {
+            String key = getKey(repositoryName, docType);
+            if (key.equals(maintaining.get())) {
+                continue;
+            }
+            invalidateNow(key);
+            if (p != null) {
+                // loaded again before the commit, the relations miss the change
+                p.invalidated.add(key);
+            }
+        }
+    }
+
+    protected synchronized void invalidateNow(String key) {
+        generation.incrementAndGet();
+        triples.remove(key);
+    }
+
+    protected synchronized void applyAdded(String key, List<Map<String, Serializable>> rows) {
+        generation.incrementAndGet();
+        Triples t = triples.get(key);
+        if (t != null) {
+            for (Map<String, Serializable> row : rows) {
+                t.put(row);
+            }
+        }
+    }
+
+    protected synchronized void applyRemoved(String key, Set<String> ids) {
+        generation.incrementAndGet();
+        Triples t = triples.get(key);
+        if (t != null) {
+            for (String id : ids) {
+                t.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Gets the changes of the current transaction, or {@code null} if there is no transaction.
+     */
+    protected Pending getPending() {
+        if (!TransactionHelper.isTransactionActiveOrMarkedRollback()) {
+            return null;
+        }
+        Pending p = pending.get();
+        if (p == null) {
+            p = new Pending();
+            TransactionHelper.registerSynchronization(p);
+            pending.set(p);
+        }
+        return p;
+    }
+
+    /**
+     * Marks the relations of a document type as being changed by {@link CoreGraph}, or none if {@code null}.
+     */
+    protected void setMaintaining(String repositoryName, String docType) {
+        if (docType == null) {
+            maintaining.remove();
+        } else {
+            maintaining.set(getKey(repositoryName, docType));
+        }
+    }
+
+    /**
+     * Forgets all the relations.
+     */
+    public synchronized void clear() {
+        generation.incrementAndGet();
+        triples.clear();
+    }
+
+    protected static String getSubjectKey(Map<String, Serializable> row) {
+        String id = (String) row.get(CoreGraph.REL_SOURCE_ID);
+        return id != null ? getIdKey(id) : getUriKey((String) row.get(CoreGraph.REL_SOURCE_URI));
+    }
+
+    protected static String getPredicateKey(Map<String, Serializable> row) {
+        return (String) row.get(CoreGraph.REL_PREDICATE);
+    }
+
+    protected static String getObjectKey(Map<String, Serializable> row) {
+        String id = (String) row.get(CoreGraph.REL_TARGET_ID);
+        if (id != null) {
+            return getIdKey(id);
+        }
+        String uri = (String) row.get(CoreGraph.REL_TARGET_URI);
+        if (uri != null) {
+            return getUriKey(uri);
+        }
+        return getStringKey((String) row.get(CoreGraph.REL_TARGET_STRING));
+    }
+
+    protected static String getIdKey(String id) {
+        return "i" + id;
+    }
+
+    protected static String getUriKey(String uri) {
+        return "u" + uri;
+    }
+
+    protected static String getStringKey(String string) {
+        return "s" + string;
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.relations;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventContext;
+import org.nuxeo.ecm.core.event.EventListener;
+import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
+import org.nuxeo.ecm.core.schema.types.Type;
+
+/**
+ * Invalidates the {@link CoreGraphIndex} when relation documents are changed without going through {@link CoreGraph},
+ * for instance by the tag service.
+ *
+ * @since 7.3
+ */
+public class CoreGraphIndexListener implements EventListener {
+
+    public static final String RELATION_SCHEMA = "relation";
+
+    @Override
+    public void handleEvent(Event event) {
+        EventContext ctx = event.getContext();
+        if (!(ctx instanceof DocumentEventContext)) {
+            return;
+        }
+        DocumentModel doc = ((DocumentEventContext) ctx).getSourceDocument();
+        if (doc == null || !doc.hasSchema(RELATION_SCHEMA)) {
+            return;
+        }
+        CoreGraphIndex index = CoreGraphIndex.getInstance();
+        if (!index.isEnabled()) {
+            return;
+        }
+        // graphs are queried on a type and its subtypes
+        Set<String> docTypes = new HashSet<String>();
+        docTypes.add(doc.getType());
+        for (Type type : doc.getDocumentType().getTypeHierarchy()) {
+            docTypes.add(type.getName());
+        }
+        index.invalidate(doc.getRepositoryName(), docTypes);
+    }
+
+}
@@ -41,6 +41,7 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 
 import org.nuxeo.common.utils.FileUtils;
+import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.storage.sql.SQLRepositoryTestCase;
 import org.nuxeo.ecm.platform.relations.api.Literal;
 import org.nuxeo.ecm.platform.relations.api.Node;
@@ -307,6 +308,46 @@ public class TestCoreGraph extends SQLRepositoryTestCase {
         testGetStatementsPattern();
     }
 
+    @Test
+    public void testGetStatementsPatternIndexed() throws Exception {
+        Framework.getProperties().setProperty(CoreGraphIndex.ENABLED_PROPERTY, "true");
+        try {
+            testGetStatementsPattern();
+            assertFalse(CoreGraphIndex.getInstance().triples.isEmpty());
+        } finally {
+            Framework.getProperties().remove(CoreGraphIndex.ENABLED_PROPERTY);
+            CoreGraphIndex.getInstance().clear();
+        }
+    }
+
+    @Test
+    public void testIndexMaintenance() throws Exception {
+        Framework.getProperties().setProperty(CoreGraphIndex.ENABLED_PROPERTY, "true");
+        try {
+            graph.add(statements);
+            // loads the index
+            assertEquals(2, graph.getStatements(new StatementImpl(null, references, null)).size());
+
+            graph.remove(new StatementImpl(doc2, references, new LiteralImpl("NXRuntime")));
+            assertEquals(1, graph.getStatements(new StatementImpl(null, references, null)).size());
+            graph.add(new StatementImpl(doc2, references, doc1));
+            assertEquals(Collections.singletonList(doc2), graph.getSubjects(references, doc1));
+            assertTrue(graph.hasStatement(new StatementImpl(doc2, references, doc1)));
+
+            // relation created without the graph
+            DocumentModel rel = session.createDocumentModel(null, "relation", "DefaultRelation");
+            rel.setPropertyValue(CoreGraph.REL_PREDICATE, references.getUri());
+            rel.setPropertyValue(CoreGraph.REL_SOURCE_ID, "00010000-2c86-46fa-909e-02494bcb0001");
+            rel.setPropertyValue(CoreGraph.REL_TARGET_STRING, "NXCore");
+            session.createDocument(rel);
+            session.save();
+            assertEquals(3, graph.getStatements(new StatementImpl(null, references, null)).size());
+        } finally {
+            Framework.getProperties().remove(CoreGraphIndex.ENABLED_PROPERTY);
+            CoreGraphIndex.getInstance().clear();
+        }
+    }
+
     @Test
     public void testGetSubjects() {
         graph.add(statements);
@@ -19,6 +19,8 @@
 package org.nuxeo.ecm.platform.tag;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.nuxeo.ecm.core.api.ClientException;
 import org.nuxeo.ecm.core.api.CoreSession;
@@ -52,6 +54,19 @@ public interface TagService {
      */
     void tag(CoreSession session, String docId, String label, String username) throws ClientException;
 
+    /**
+     * Tags documents with given tags.
+     * <p>
+     * The existing tags are looked up and the missing tags and taggings are created by batches, and a single tag
+     * update event is fired for each document to which a tag was added.
+     *
+     * @param session the session
+     * @param docLabels the tags for each document id
+     * @param username the user associated to the taggings
+     * @since 7.3
+     */
+    void tag(CoreSession session, Map<String, Set<String>> docLabels, String username) throws ClientException;
+
     /**
      * Untags a document of the given tag
      *
@@ -0,0 +1,166 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.tag;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.nuxeo.ecm.core.api.CoreSession;
+
+/**
+ * In-memory index of the tag labels of each repository with their weight, the number of documents tagged with them.
+ * <p>
+ * The index serves the global tag cloud and the label prefix suggestions. It is loaded from the repository on first
+ * use and then updated incrementally by the tag service. As the changes done by other servers, by rolled back
+ * transactions or by direct removal of tagging documents are not seen, the index is reloaded periodically.
+ *
+ * @since 7.3
+ */
+public class TagCloudIndex {
+
+    protected static class Labels {
+
+        protected final ConcurrentNavigableMap<String, AtomicLong> weights = new ConcurrentSkipListMap<String, AtomicLong>();
+
+        protected final long loaded = System.currentTimeMillis();
+
+    }
+
+    protected final long reloadInterval;
+
+    protected final Map<String, Labels> repositories = new ConcurrentHashMap<String, Labels>();
+
+    /**
+     * @param reloadInterval the delay in milliseconds after which the index of a repository is reloaded
+     */
+    public TagCloudIndex(long reloadInterval) {
+        this.reloadInterval = reloadInterval;
+    }
+
+    /**
+     * Gets the labels of a repository, loading them if needed.
+     *
+     * @param session an unrestricted session
+     */
+    protected Labels getLabels(CoreSession session) {
+        String repositoryName = session.getRepositoryName();
+        Labels labels = repositories.get(repositoryName);
+        if (labels == null || System.currentTimeMillis() - labels.loaded > reloadInterval) {
+            synchronized (this) {
+                labels = repositories.get(repositoryName);
+                if (labels == null || System.currentTimeMillis() - labels.loaded > reloadInterval) {
+                    labels = load(session);
+                    repositories.put(repositoryName, labels);
+                }
+            }
+        }
+        return labels;
+    }
+
+    protected Labels load(CoreSession session) {
+        Labels labels = new Labels();
+        List<Map<String, Serializable>> res = TagServiceImpl.getItems(
+                TagServiceImpl.PAGE_PROVIDERS.GET_TAG_SUGGESTIONS.name(), session, "%");
+        if (res != null) {
+            for (Map<String, Serializable> map : res) {
+                labels.weights.put((String) map.get(TagConstants.TAG_LABEL_FIELD), new AtomicLong());
+            }
+        }
+        res = TagServiceImpl.getItems(TagServiceImpl.PAGE_PROVIDERS.GET_ALL_TAGS.name(), session);
+        if (res != null) {
+            for (Map<String, Serializable> map : res) {
+                String label = (String) map.get(TagConstants.TAG_LABEL_FIELD);
+                long weight = ((Long) map.get(TagConstants.TAGGING_SOURCE_FIELD)).longValue();
+                labels.weights.put(label, new AtomicLong(weight));
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * Gets the tags with a positive weight.
+     *
+     * @param session an unrestricted session
+     */
+    public List<Tag> getCloud(CoreSession session) {
+        List<Tag> cloud = new ArrayList<Tag>();
+        for (Entry<String, AtomicLong> es : getLabels(session).weights.entrySet()) {
+            long weight = es.getValue().get();
+            if (weight > 0) {
+                cloud.add(new Tag(es.getKey(), (int) weight));
+            }
+        }
+        return cloud;
+    }
+
+    /**
+     * Gets the tags whose label starts with the given prefix, sorted by label.
+     *
+     * @param session an unrestricted session
+     */
+    public List<Tag> getSuggestions(CoreSession session, String prefix) {
+        List<Tag> tags = new ArrayList<Tag>();
+        ConcurrentNavigableMap<String, AtomicLong> weights = getLabels(session).weights;
+        for (Entry<String, AtomicLong> es : weights.subMap(prefix, prefix + Character.MAX_VALUE).entrySet()) {
+            tags.add(new Tag(es.getKey(), (int) es.getValue().get()));
+        }
+        return tags;
+    }
+
+    /**
+     * Updates the weights of labels, the labels with a delta of 0 being added if missing.
+     *
+     * @param repositoryName the repository
+     * @param deltas the weight change for each label
+     */
+    public void update(String repositoryName, Map<String, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Labels labels = repositories.get(repositoryName);
+        if (labels == null) {
+            // loaded with the changes on first use
+            return;
+        }
+        for (Entry<String, Long> es : deltas.entrySet()) {
+            AtomicLong weight = labels.weights.get(es.getKey());
+            if (weight == null) {
+                AtomicLong newWeight = new AtomicLong();
+                weight = labels.weights.putIfAbsent(es.getKey(), newWeight);
+                if (weight == null) {
+                    weight = newWeight;
+                }
+            }
+            weight.addAndGet(es.getValue().longValue());
+        }
+    }
+
+    /**
+     * Forgets the loaded labels, which are reloaded on next use.
+     */
+    public void clear() {
+        repositories.clear();
+    }
+
+}
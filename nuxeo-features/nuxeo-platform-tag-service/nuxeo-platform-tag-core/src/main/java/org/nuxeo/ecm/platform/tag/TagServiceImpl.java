@@ -27,8 +27,11 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.lang.StringUtils;
 import org.nuxeo.ecm.core.api.ClientException;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
@@ -55,6 +58,22 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
 
     public static final String NXTAG = TagQueryMaker.NXTAG;
 
+    /**
+     * Property enabling the in-memory index serving the global tag cloud and the tag suggestions.
+     *
+     * @since 7.3
+     */
+    public static final String CLOUD_INDEX_PROPERTY = "org.nuxeo.tag.cloud.index.enabled";
+
+    /**
+     * Property holding the delay in seconds after which the tag cloud index is reloaded from the repository.
+     *
+     * @since 7.3
+     */
+    public static final String CLOUD_INDEX_RELOAD_INTERVAL_PROPERTY = "org.nuxeo.tag.cloud.index.reloadInterval";
+
+    protected volatile TagCloudIndex cloudIndex;
+
     protected enum PAGE_PROVIDERS {
         //
         GET_DOCUMENT_IDS_FOR_TAG,
@@ -97,6 +116,42 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
         return true;
     }
 
+    /**
+     * Gets the tag cloud index, or {@code null} if it's not enabled.
+     *
+     * @since 7.3
+     */
+    protected TagCloudIndex getCloudIndex() {
+        if (!Framework.isBooleanPropertyTrue(CLOUD_INDEX_PROPERTY)) {
+            // not kept up to date, forget it
+            cloudIndex = null;
+            return null;
+        }
+        TagCloudIndex index = cloudIndex;
+        if (index == null) {
+            long interval = Long.parseLong(Framework.getProperty(CLOUD_INDEX_RELOAD_INTERVAL_PROPERTY, "300"));
+            index = cloudIndex = new TagCloudIndex(TimeUnit.SECONDS.toMillis(interval));
+        }
+        return index;
+    }
+
+    /**
+     * Updates the tag cloud index with the weight changes computed by a tagging operation.
+     *
+     * @since 7.3
+     */
+    protected void updateCloudIndex(CoreSession session, Map<String, Long> weightDeltas) {
+        TagCloudIndex index = cloudIndex;
+        if (index != null) {
+            index.update(session.getRepositoryName(), weightDeltas);
+        }
+    }
+
+    protected static void addWeightDelta(Map<String, Long> weightDeltas, String label, long delta) {
+        Long previous = weightDeltas.get(label);
+        weightDeltas.put(label, Long.valueOf(previous == null ? delta : previous.longValue() + delta));
+    }
+
     protected static String cleanLabel(String label, boolean allowEmpty, boolean allowPercent) throws ClientException {
         if (label == null) {
             if (allowEmpty) {
@@ -122,8 +177,10 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
     }
 
     public void tag(CoreSession session, String docId, String label, String username) throws ClientException {
-        UnrestrictedAddTagging r = new UnrestrictedAddTagging(session, docId, label, username);
+        UnrestrictedAddTagging r = new UnrestrictedAddTagging(session, docId, label, username,
+                getCloudIndex() != null);
         r.runUnrestricted();
+        updateCloudIndex(session, r.weightDeltas);
         fireUpdateEvent(session, docId);
     }
 
@@ -144,12 +201,26 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
 
         private final String username;
 
+        protected final boolean computeWeights;
+
+        protected final Map<String, Long> weightDeltas = new HashMap<String, Long>();
+
         protected UnrestrictedAddTagging(CoreSession session, String docId, String label, String username)
                 throws ClientException {
+            this(session, docId, label, username, false);
+        }
+
+        /**
+         * @param computeWeights whether to compute the change of the tag weight
+         * @since 7.3
+         */
+        protected UnrestrictedAddTagging(CoreSession session, String docId, String label, String username,
+                boolean computeWeights) throws ClientException {
             super(session);
             this.docId = docId;
             this.label = cleanLabel(label, false, false);
             this.username = cleanUsername(username);
+            this.computeWeights = computeWeights;
         }
 
         @Override
@@ -166,6 +237,7 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
                 tag.setPropertyValue(TagConstants.TAG_LABEL_FIELD, label);
                 tag = session.createDocument(tag);
                 tagId = tag.getId();
+                addWeightDelta(weightDeltas, label, 0);
             }
             // Check if tagging already exists for user.
             if (username != null) {
@@ -178,6 +250,15 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
                 // tagging already exists
                 return;
             }
+            if (computeWeights) {
+                // the weight counts the documents, which may be already tagged by another user
+                if (username != null) {
+                    res = getItems(PAGE_PROVIDERS.GET_FIRST_TAGGING_FOR_DOC_AND_TAG.name(), session, docId, tagId);
+                }
+                if (username == null || res == null || res.isEmpty()) {
+                    addWeightDelta(weightDeltas, label, 1);
+                }
+            }
             // Add tagging to the document.
             DocumentModel tagging = session.createDocumentModel(null, label, TagConstants.TAGGING_DOCUMENT_TYPE);
             tagging.setPropertyValue("dc:created", date);
@@ -191,9 +272,185 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
         }
     }
 
+    @Override
+    public void tag(CoreSession session, Map<String, Set<String>> docLabels, String username) throws ClientException {
+        UnrestrictedAddTaggings r = new UnrestrictedAddTaggings(session, docLabels, username, getCloudIndex() != null);
+        r.runUnrestricted();
+        updateCloudIndex(session, r.weightDeltas);
+        for (String docId : r.taggedDocIds) {
+            fireUpdateEvent(session, docId);
+        }
+    }
+
+    /**
+     * Adds the taggings of several documents, looking up the existing tags and taggings by batches.
+     *
+     * @since 7.3
+     */
+    protected static class UnrestrictedAddTaggings extends UnrestrictedSessionRunner {
+
+        /** The number of values in the IN clauses of the queries, and the number of documents created per save. */
+        protected static final int BATCH_SIZE = 100;
+
+        protected final Map<String, Set<String>> docLabels = new HashMap<String, Set<String>>();
+
+        protected final String username;
+
+        protected final boolean computeWeights;
+
+        protected final Map<String, Long> weightDeltas = new HashMap<String, Long>();
+
+        protected final Set<String> taggedDocIds = new HashSet<String>();
+
+        protected int unsaved;
+
+        protected UnrestrictedAddTaggings(CoreSession session, Map<String, Set<String>> docLabels, String username,
+                boolean computeWeights) throws ClientException {
+            super(session);
+            for (Entry<String, Set<String>> es : docLabels.entrySet()) {
+                Set<String> labels = new HashSet<String>();
+                for (String label : es.getValue()) {
+                    labels.add(cleanLabel(label, false, false));
+                }
+                this.docLabels.put(es.getKey(), labels);
+            }
+            this.username = cleanUsername(username);
+            this.computeWeights = computeWeights;
+        }
+
+        @Override
+        public void run() throws ClientException {
+            Set<String> labels = new HashSet<String>();
+            for (Set<String> set : docLabels.values()) {
+                labels.addAll(set);
+            }
+            Calendar date = Calendar.getInstance();
+            Map<String, String> tagIds = getTagIds(labels);
+            for (String label : labels) {
+                if (!tagIds.containsKey(label)) {
+                    // no tag found, create it
+                    DocumentModel tag = session.createDocumentModel(null, label, TagConstants.TAG_DOCUMENT_TYPE);
+                    tag.setPropertyValue("dc:created", date);
+                    tag.setPropertyValue(TagConstants.TAG_LABEL_FIELD, label);
+                    tag = session.createDocument(tag);
+                    tagIds.put(label, tag.getId());
+                    addWeightDelta(weightDeltas, label, 0);
+                    saveByBatch();
+                }
+            }
+            List<String> docIds = new ArrayList<String>(docLabels.keySet());
+            for (int i = 0; i < docIds.size(); i += BATCH_SIZE) {
+                List<String> batch = docIds.subList(i, Math.min(i + BATCH_SIZE, docIds.size()));
+                Map<String, Set<String>> userTagIds = new HashMap<String, Set<String>>();
+                Map<String, Set<String>> allTagIds = new HashMap<String, Set<String>>();
+                getTaggings(batch, userTagIds, allTagIds);
+                for (String docId : batch) {
+                    addTaggings(docId, tagIds, userTagIds.get(docId), allTagIds.get(docId), date);
+                }
+            }
+            if (unsaved > 0) {
+                session.save();
+            }
+        }
+
+        /**
+         * Gets the ids of the existing tags.
+         */
+        protected Map<String, String> getTagIds(Set<String> labels) throws ClientException {
+            Map<String, String> tagIds = new HashMap<String, String>();
+            List<String> list = new ArrayList<String>(labels);
+            for (int i = 0; i < list.size(); i += BATCH_SIZE) {
+                String query = String.format("SELECT ecm:uuid, tag:label FROM Tag WHERE tag:label IN (%s)"
+                        + " AND ecm:isProxy = 0", escape(list.subList(i, Math.min(i + BATCH_SIZE, list.size()))));
+                IterableQueryResult res = session.queryAndFetch(query, NXQL.NXQL);
+                try {
+                    for (Map<String, Serializable> map : res) {
+                        tagIds.put((String) map.get(TagConstants.TAG_LABEL_FIELD), (String) map.get(NXQL.ECM_UUID));
+                    }
+                } finally {
+                    res.close();
+                }
+            }
+            return tagIds;
+        }
+
+        /**
+         * Gets the ids of the tags already applied to the given documents, by the user and by all users.
+         */
+        protected void getTaggings(List<String> docIds, Map<String, Set<String>> userTagIds,
+                Map<String, Set<String>> allTagIds) throws ClientException {
+            String query = String.format("SELECT relation:source, relation:target, dc:creator FROM Tagging"
+                    + " WHERE relation:source IN (%s)", escape(docIds));
+            IterableQueryResult res = session.queryAndFetch(query, NXQL.NXQL);
+            try {
+                for (Map<String, Serializable> map : res) {
+                    String docId = (String) map.get(TagConstants.TAGGING_SOURCE_FIELD);
+                    String tagId = (String) map.get(TagConstants.TAGGING_TARGET_FIELD);
+                    add(allTagIds, docId, tagId);
+                    if (username != null && username.equals(map.get("dc:creator"))) {
+                        add(userTagIds, docId, tagId);
+                    }
+                }
+            } finally {
+                res.close();
+            }
+        }
+
+        protected void addTaggings(String docId, Map<String, String> tagIds, Set<String> userTagIds,
+                Set<String> allTagIds, Calendar date) throws ClientException {
+            // same checks as a single tagging
+            Set<String> existing = username == null ? allTagIds : userTagIds;
+            for (String label : docLabels.get(docId)) {
+                String tagId = tagIds.get(label);
+                if (existing != null && existing.contains(tagId)) {
+                    // tagging already exists
+                    continue;
+                }
+                if (computeWeights && (allTagIds == null || !allTagIds.contains(tagId))) {
+                    addWeightDelta(weightDeltas, label, 1);
+                }
+                DocumentModel tagging = session.createDocumentModel(null, label, TagConstants.TAGGING_DOCUMENT_TYPE);
+                tagging.setPropertyValue("dc:created", date);
+                if (username != null) {
+                    tagging.setPropertyValue("dc:creator", username);
+                }
+                tagging.setPropertyValue(TagConstants.TAGGING_SOURCE_FIELD, docId);
+                tagging.setPropertyValue(TagConstants.TAGGING_TARGET_FIELD, tagId);
+                session.createDocument(tagging);
+                taggedDocIds.add(docId);
+                saveByBatch();
+            }
+        }
+
+        protected void saveByBatch() throws ClientException {
+            if (++unsaved >= BATCH_SIZE) {
+                session.save();
+                unsaved = 0;
+            }
+        }
+
+        protected static void add(Map<String, Set<String>> map, String key, String value) {
+            Set<String> set = map.get(key);
+            if (set == null) {
+                map.put(key, set = new HashSet<String>());
+            }
+            set.add(value);
+        }
+
+        protected static String escape(List<String> values) {
+            List<String> escaped = new ArrayList<String>(values.size());
+            for (String value : values) {
+                escaped.add(NXQL.escapeString(value));
+            }
+            return StringUtils.join(escaped, ", ");
+        }
+    }
+
     public void untag(CoreSession session, String docId, String label, String username) throws ClientException {
-        UnrestrictedRemoveTagging r = new UnrestrictedRemoveTagging(session, docId, label, username);
+        UnrestrictedRemoveTagging r = new UnrestrictedRemoveTagging(session, docId, label, username,
+                getCloudIndex() != null);
         r.runUnrestricted();
+        updateCloudIndex(session, r.weightDeltas);
         if (label != null) {
             fireUpdateEvent(session, docId);
         }
@@ -207,12 +464,26 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
 
         private final String username;
 
+        protected final boolean computeWeights;
+
+        protected final Map<String, Long> weightDeltas = new HashMap<String, Long>();
+
         protected UnrestrictedRemoveTagging(CoreSession session, String docId, String label, String username)
                 throws ClientException {
+            this(session, docId, label, username, false);
+        }
+
+        /**
+         * @param computeWeights whether to compute the change of the weights of the removed tags
+         * @since 7.3
+         */
+        protected UnrestrictedRemoveTagging(CoreSession session, String docId, String label, String username,
+                boolean computeWeights) throws ClientException {
             super(session);
             this.docId = docId;
             this.label = cleanLabel(label, true, false);
             this.username = cleanUsername(username);
+            this.computeWeights = computeWeights;
         }
 
         @Override
@@ -230,7 +501,9 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
             }
             // Find taggings for user.
             Set<String> taggingIds = new HashSet<String>();
-            String query = String.format("SELECT ecm:uuid FROM Tagging " + "WHERE relation:source = '%s'", docId);
+            Set<String> tagIds = new HashSet<String>();
+            String query = String.format("SELECT ecm:uuid, relation:target FROM Tagging "
+                    + "WHERE relation:source = '%s'", docId);
             if (tagId != null) {
                 query += String.format(" AND relation:target = '%s'", tagId);
             }
@@ -241,6 +514,7 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
             try {
                 for (Map<String, Serializable> map : res) {
                     taggingIds.add((String) map.get(NXQL.ECM_UUID));
+                    tagIds.add((String) map.get(TagConstants.TAGGING_TARGET_FIELD));
                 }
             } finally {
                 res.close();
@@ -251,6 +525,37 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
             }
             if (!taggingIds.isEmpty()) {
                 session.save();
+                if (computeWeights) {
+                    computeWeightDeltas(tagIds);
+                }
+            }
+        }
+
+        /**
+         * Decrements the weight of the tags no longer applied to the document by any user.
+         */
+        protected void computeWeightDeltas(Set<String> tagIds) throws ClientException {
+            Map<String, String> labels = new HashMap<String, String>();
+            if (label != null) {
+                labels.put(tagIds.iterator().next(), label);
+            } else {
+                String query = String.format("SELECT ecm:uuid, tag:label FROM Tag WHERE ecm:uuid IN ('%s')",
+                        StringUtils.join(tagIds, "', '"));
+                IterableQueryResult res = session.queryAndFetch(query, NXQL.NXQL);
+                try {
+                    for (Map<String, Serializable> map : res) {
+                        labels.put((String) map.get(NXQL.ECM_UUID), (String) map.get(TagConstants.TAG_LABEL_FIELD));
+                    }
+                } finally {
+                    res.close();
+                }
+            }
+            for (Entry<String, String> es : labels.entrySet()) {
+                List<Map<String, Serializable>> res = getItems(PAGE_PROVIDERS.GET_FIRST_TAGGING_FOR_DOC_AND_TAG.name(),
+                        session, docId, es.getKey());
+                if (res == null || res.isEmpty()) {
+                    addWeightDelta(weightDeltas, es.getValue(), -1);
+                }
             }
         }
     }
@@ -328,6 +633,7 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
 
         UnrestrictedCopyTags r = new UnrestrictedCopyTags(session, srcDocId, dstDocId);
         r.runUnrestricted();
+        updateCloudIndex(session, r.weightDeltas);
     }
 
     protected static class UnrestrictedCopyTags extends UnrestrictedSessionRunner {
@@ -336,6 +642,11 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
 
         protected final String dstDocId;
 
+        /**
+         * @since 7.3
+         */
+        protected final Map<String, Long> weightDeltas = new HashMap<String, Long>();
+
         protected UnrestrictedCopyTags(CoreSession session, String srcDocId, String dstDocId) throws ClientException {
             super(session);
             this.srcDocId = srcDocId;
@@ -345,11 +656,13 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
         @Override
         public void run() throws ClientException {
             Set<String> existingTags = new HashSet<>();
+            Set<String> existingLabels = new HashSet<>();
             List<Map<String, Serializable>> dstTagsRes = getItems(PAGE_PROVIDERS.GET_TAGS_TO_COPY_FOR_DOCUMENT.name(),
                     session, dstDocId);
             if (dstTagsRes != null) {
                 for (Map<String, Serializable> map : dstTagsRes) {
                     existingTags.add(String.format("%s/%s", map.get("tag:label"), map.get("dc:creator")));
+                    existingLabels.add((String) map.get("tag:label"));
                 }
             }
 
@@ -368,6 +681,9 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
                         tagging.setPropertyValue(TagConstants.TAGGING_TARGET_FIELD, map.get("relation:target"));
                         session.createDocument(tagging);
                         docCreated = true;
+                        if (existingLabels.add((String) map.get("tag:label"))) {
+                            addWeightDelta(weightDeltas, (String) map.get("tag:label"), 1);
+                        }
                     }
                 }
                 if (docCreated) {
@@ -422,7 +738,8 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
 
     public List<Tag> getTagCloud(CoreSession session, String docId, String username, Boolean normalize)
             throws ClientException {
-        UnrestrictedGetDocumentCloud r = new UnrestrictedGetDocumentCloud(session, docId, username, normalize);
+        UnrestrictedGetDocumentCloud r = new UnrestrictedGetDocumentCloud(session, docId, username, normalize,
+                getCloudIndex());
         r.runUnrestricted();
         return r.cloud;
     }
@@ -437,12 +754,24 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
 
         protected final Boolean normalize;
 
+        protected final TagCloudIndex cloudIndex;
+
         protected UnrestrictedGetDocumentCloud(CoreSession session, String docId, String username, Boolean normalize)
                 throws ClientException {
+            this(session, docId, username, normalize, null);
+        }
+
+        /**
+         * @param cloudIndex the index serving the global cloud, or {@code null}
+         * @since 7.3
+         */
+        protected UnrestrictedGetDocumentCloud(CoreSession session, String docId, String username,
+                Boolean normalize, TagCloudIndex cloudIndex) throws ClientException {
             super(session);
             this.docId = docId;
             this.username = cleanUsername(username);
             this.normalize = normalize;
+            this.cloudIndex = cloudIndex;
             cloud = new ArrayList<Tag>();
         }
 
@@ -450,6 +779,11 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
         public void run() throws ClientException {
             List<Map<String, Serializable>> res;
             if (docId == null) {
+                if (username == null && cloudIndex != null) {
+                    cloud.addAll(cloudIndex.getCloud(session));
+                    normalize();
+                    return;
+                }
                 if (username == null) {
                     res = getItems(PAGE_PROVIDERS.GET_ALL_TAGS.name(), session);
                 } else {
@@ -476,7 +810,6 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
                 }
             }
 
-            int min = 999999, max = 0;
             if (res != null) {
                 for (Map<String, Serializable> map : res) {
                     String label = (String) map.get(TagConstants.TAG_LABEL_FIELD);
@@ -485,19 +818,28 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
                         // shouldn't happen
                         continue;
                     }
-                    if (weight > max) {
-                        max = weight;
-                    }
-                    if (weight < min) {
-                        min = weight;
-                    }
                     Tag weightedTag = new Tag(label, weight);
                     cloud.add(weightedTag);
                 }
             }
-            if (normalize != null) {
-                normalizeCloud(cloud, min, max, !normalize.booleanValue());
+            normalize();
+        }
+
+        protected void normalize() {
+            if (normalize == null) {
+                return;
+            }
+            long min = 999999, max = 0;
+            for (Tag tag : cloud) {
+                long weight = tag.getWeight();
+                if (weight > max) {
+                    max = weight;
+                }
+                if (weight < min) {
+                    min = weight;
+                }
             }
+            normalizeCloud(cloud, (int) min, (int) max, !normalize.booleanValue());
         }
     }
 
@@ -530,7 +872,8 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
     }
 
     public List<Tag> getSuggestions(CoreSession session, String label, String username) throws ClientException {
-        UnrestrictedGetTagSuggestions r = new UnrestrictedGetTagSuggestions(session, label, username);
+        UnrestrictedGetTagSuggestions r = new UnrestrictedGetTagSuggestions(session, label, username,
+                getCloudIndex());
         r.runUnrestricted();
         return r.tags;
     }
@@ -543,8 +886,19 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
 
         protected final List<Tag> tags;
 
+        protected final TagCloudIndex cloudIndex;
+
         protected UnrestrictedGetTagSuggestions(CoreSession session, String label, String username)
                 throws ClientException {
+            this(session, label, username, null);
+        }
+
+        /**
+         * @param cloudIndex the index serving the suggestions for all users, or {@code null}
+         * @since 7.3
+         */
+        protected UnrestrictedGetTagSuggestions(CoreSession session, String label, String username,
+                TagCloudIndex cloudIndex) throws ClientException {
             super(session);
             label = cleanLabel(label, false, true);
             if (!label.contains("%")) {
@@ -552,11 +906,19 @@ public class TagServiceImpl extends DefaultComponent implements TagService {
             }
             this.label = label;
             this.username = cleanUsername(username);
+            this.cloudIndex = cloudIndex;
             tags = new ArrayList<Tag>();
         }
 
         @Override
         public void run() throws ClientException {
+            String prefix = label.substring(0, label.length() - 1);
+            if (username == null && cloudIndex != null && label.endsWith("%") && !prefix.contains("%")
+                    && !prefix.contains("_")) {
+                // a plain prefix, sorted by the index
+                tags.addAll(cloudIndex.getSuggestions(session, prefix));
+                return;
+            }
             List<Map<String, Serializable>> res;
             if (username == null) {
                 res = getItems(PAGE_PROVIDERS.GET_TAG_SUGGESTIONS.name(), session, label);
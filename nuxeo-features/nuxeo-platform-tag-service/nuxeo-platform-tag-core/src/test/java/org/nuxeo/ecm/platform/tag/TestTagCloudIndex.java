@@ -0,0 +1,193 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.tag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.storage.sql.ra.PoolingRepositoryFactory;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.TransactionalFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.test.runner.LocalDeploy;
+
+@RunWith(FeaturesRunner.class)
+@Features({ TransactionalFeature.class, CoreFeature.class })
+@RepositoryConfig(repositoryFactoryClass = PoolingRepositoryFactory.class, cleanup = Granularity.METHOD)
+@Deploy({ "org.nuxeo.runtime.datasource", "org.nuxeo.ecm.platform.tag", "org.nuxeo.ecm.platform.query.api",
+        "org.nuxeo.ecm.platform.ws" })
+@LocalDeploy("org.nuxeo.ecm.platform.tag:login-config.xml")
+public class TestTagCloudIndex {
+
+    @Inject
+    protected CoreSession session;
+
+    @Inject
+    protected TagService tagService;
+
+    @Before
+    public void setUp() {
+        Framework.getProperties().setProperty(TagServiceImpl.CLOUD_INDEX_PROPERTY, "true");
+    }
+
+    @After
+    public void tearDown() {
+        Framework.getProperties().remove(TagServiceImpl.CLOUD_INDEX_PROPERTY);
+        // forget the index of the removed repository
+        ((TagServiceImpl) tagService).getCloudIndex();
+    }
+
+    protected static Map<String, Long> weights(List<Tag> tags) {
+        Map<String, Long> weights = new HashMap<String, Long>();
+        for (Tag tag : tags) {
+            weights.put(tag.getLabel(), Long.valueOf(tag.getWeight()));
+        }
+        return weights;
+    }
+
+    protected static Map<String, Long> weights(Object... labelsAndWeights) {
+        Map<String, Long> weights = new HashMap<String, Long>();
+        for (int i = 0; i < labelsAndWeights.length; i += 2) {
+            weights.put((String) labelsAndWeights[i], Long.valueOf(((Integer) labelsAndWeights[i + 1]).longValue()));
+        }
+        return weights;
+    }
+
+    protected String createFile(String name) {
+        DocumentModel file = session.createDocumentModel("/", name, "File");
+        file = session.createDocument(file);
+        session.save();
+        return file.getId();
+    }
+
+    @Test
+    public void testCloud() throws Exception {
+        String file1Id = createFile("file1");
+        String file2Id = createFile("file2");
+        String file3Id = createFile("file3");
+
+        tagService.tag(session, file1Id, "mytag", "Administrator");
+        // loads the index
+        assertEquals(weights("mytag", 1), weights(tagService.getTagCloud(session, null, null, null)));
+        assertNotNull(((TagServiceImpl) tagService).cloudIndex);
+
+        // incremental updates
+        tagService.tag(session, file1Id, "othertag", "Administrator");
+        tagService.tag(session, file2Id, "mytag", "Administrator");
+        // same document tagged by another user
+        tagService.tag(session, file2Id, "mytag", "bob");
+        // already tagged
+        tagService.tag(session, file2Id, "mytag", "bob");
+        assertEquals(weights("mytag", 2, "othertag", 1),
+                weights(tagService.getTagCloud(session, null, null, null)));
+
+        // still tagged by bob
+        tagService.untag(session, file2Id, "mytag", "Administrator");
+        assertEquals(weights("mytag", 2, "othertag", 1),
+                weights(tagService.getTagCloud(session, null, null, null)));
+        tagService.untag(session, file2Id, "mytag", "bob");
+        assertEquals(weights("mytag", 1, "othertag", 1),
+                weights(tagService.getTagCloud(session, null, null, null)));
+
+        tagService.copyTags(session, file1Id, file3Id);
+        assertEquals(weights("mytag", 2, "othertag", 2),
+                weights(tagService.getTagCloud(session, null, null, null)));
+
+        tagService.removeTags(session, file1Id);
+        assertEquals(weights("mytag", 1, "othertag", 1),
+                weights(tagService.getTagCloud(session, null, null, null)));
+        tagService.untag(session, file3Id, "othertag", null);
+        assertEquals(weights("mytag", 1), weights(tagService.getTagCloud(session, null, null, null)));
+
+        // same as the queries
+        Framework.getProperties().remove(TagServiceImpl.CLOUD_INDEX_PROPERTY);
+        assertEquals(weights("mytag", 1), weights(tagService.getTagCloud(session, null, null, null)));
+    }
+
+    @Test
+    public void testBulkTag() throws Exception {
+        String file1Id = createFile("file1");
+        String file2Id = createFile("file2");
+        tagService.tag(session, file1Id, "mytag", "bob");
+        assertEquals(weights("mytag", 1), weights(tagService.getTagCloud(session, null, null, null)));
+
+        Map<String, Set<String>> docLabels = new HashMap<String, Set<String>>();
+        docLabels.put(file1Id, new HashSet<String>(Arrays.asList("mytag", "othertag")));
+        docLabels.put(file2Id, new HashSet<String>(Arrays.asList("mytag")));
+        tagService.tag(session, docLabels, "Administrator");
+        assertEquals(weights("mytag", 2, "othertag", 1),
+                weights(tagService.getTagCloud(session, null, null, null)));
+    }
+
+    @Test
+    public void testNormalizedCloud() throws Exception {
+        String file1Id = createFile("file1");
+        String file2Id = createFile("file2");
+        tagService.tag(session, file1Id, "mytag", null);
+        tagService.tag(session, file2Id, "mytag", null);
+        tagService.tag(session, file1Id, "othertag", null);
+        assertEquals(weights("mytag", 100, "othertag", 0),
+                weights(tagService.getTagCloud(session, null, null, Boolean.FALSE)));
+    }
+
+    @Test
+    public void testSuggestions() throws Exception {
+        String file1Id = createFile("file1");
+        String file2Id = createFile("file2");
+        tagService.tag(session, file1Id, "mytag", null);
+        assertEquals(weights("mytag", 1), weights(tagService.getSuggestions(session, "my", null)));
+
+        tagService.tag(session, file2Id, "mytag2", null);
+        tagService.tag(session, file2Id, "othertag", null);
+        List<Tag> tags = tagService.getSuggestions(session, "my", null);
+        assertEquals(2, tags.size());
+        // sorted by label
+        assertEquals("mytag", tags.get(0).getLabel());
+        assertEquals("mytag2", tags.get(1).getLabel());
+        assertTrue(tagService.getSuggestions(session, "foo", null).isEmpty());
+
+        // unused tags are still suggested
+        tagService.untag(session, file2Id, "mytag2", null);
+        assertEquals(weights("mytag", 1, "mytag2", 0), weights(tagService.getSuggestions(session, "my", null)));
+
+        // patterns are queried
+        assertEquals(weights("mytag", 0, "mytag2", 0, "othertag", 0),
+                weights(tagService.getSuggestions(session, "%tag%", null)));
+    }
+
+}
@@ -25,8 +25,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -316,6 +318,36 @@ public class TestTagService {
         assertEquals(0, tagService.getDocumentTags(session, fileId, null).size());
     }
 
+    @Test
+    public void testBulkTag() throws ClientException {
+        DocumentModel file1 = session.createDocumentModel("/", "foo", "File");
+        file1 = session.createDocument(file1);
+        DocumentModel file2 = session.createDocumentModel("/", "bar", "File");
+        file2 = session.createDocument(file2);
+        session.save();
+        String file1Id = file1.getId();
+        String file2Id = file2.getId();
+
+        tagService.tag(session, file1Id, "foo", "Administrator");
+        tagService.tag(session, file2Id, "foo", "leela");
+
+        Map<String, Set<String>> docLabels = new HashMap<String, Set<String>>();
+        docLabels.put(file1Id, new HashSet<String>(Arrays.asList("foo", "bar")));
+        docLabels.put(file2Id, new HashSet<String>(Arrays.asList("foo", "baz")));
+        tagService.tag(session, docLabels, "Administrator");
+        // already applied
+        tagService.tag(session, docLabels, "Administrator");
+
+        assertEquals(new HashSet<String>(Arrays.asList("foo", "bar")),
+                labels(tagService.getDocumentTags(session, file1Id, "Administrator")));
+        assertEquals(new HashSet<String>(Arrays.asList("foo", "baz")),
+                labels(tagService.getDocumentTags(session, file2Id, "Administrator")));
+        assertEquals(Collections.singleton("foo"), labels(tagService.getDocumentTags(session, file2Id, "leela")));
+        // no duplicate tag created
+        assertEquals(1, session.query("SELECT * FROM Tag WHERE tag:label = 'foo'").size());
+        assertEquals(5, session.query("SELECT * FROM Tagging").size());
+    }
+
     @Test
     public void testRemoveDoc() throws ClientException {
         DocumentModel file = session.createDocumentModel("/", "foo", "File");
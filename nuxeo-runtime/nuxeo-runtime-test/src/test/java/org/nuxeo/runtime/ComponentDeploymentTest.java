@@ -23,12 +23,15 @@ package org.nuxeo.runtime;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.management.Dummy;
 import org.nuxeo.runtime.model.ComponentInstance;
 import org.nuxeo.runtime.model.ComponentManager;
 import org.nuxeo.runtime.model.ComponentName;
@@ -68,4 +71,29 @@ public class ComponentDeploymentTest extends NXRuntimeTestCase {
         assertNotNull(co);
     }
 
+    @Test
+    public void testServiceLookup() throws Exception {
+        assertNull(Framework.getService(Dummy.class));
+        deployContrib("org.nuxeo.runtime.test.tests", "management-tests-service.xml");
+        Dummy dummy = Framework.getService(Dummy.class);
+        assertNotNull(dummy);
+        // served by the lookup table
+        assertSame(dummy, Framework.getService(Dummy.class));
+
+        // the lookup table is invalidated when the component goes away
+        undeployContrib("org.nuxeo.runtime.test.tests", "management-tests-service.xml");
+        assertNull(Framework.getService(Dummy.class));
+
+        deployContrib("org.nuxeo.runtime.test.tests", "management-tests-service.xml");
+        Dummy other = Framework.getService(Dummy.class);
+        assertNotNull(other);
+        assertTrue(dummy != other);
+
+        // adapters created on each call are not shared
+        deployContrib("org.nuxeo.runtime.test.tests", "per-call-service.xml");
+        PerCallService perCall = Framework.getService(PerCallService.class);
+        assertNotNull(perCall);
+        assertNotSame(perCall, Framework.getService(PerCallService.class));
+    }
+
 }
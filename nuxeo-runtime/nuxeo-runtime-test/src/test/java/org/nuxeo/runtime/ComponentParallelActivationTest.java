@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.model.ComponentContext;
+import org.nuxeo.runtime.model.ComponentName;
+import org.nuxeo.runtime.model.DefaultComponent;
+import org.nuxeo.runtime.model.RegistrationInfo;
+import org.nuxeo.runtime.model.impl.ComponentManagerImpl;
+import org.nuxeo.runtime.test.NXRuntimeTestCase;
+
+public class ComponentParallelActivationTest extends NXRuntimeTestCase {
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        runtime.getProperties().setProperty(ComponentManagerImpl.PARALLEL_ACTIVATION_PROPERTY, "true");
+        runtime.getProperties().setProperty(ComponentManagerImpl.ACTIVATION_THREADS_PROPERTY, "2");
+    }
+
+    @Test
+    public void testParallelActivation() throws Exception {
+        deployContrib("org.nuxeo.runtime.test.tests", "MyComp4.xml");
+        deployContrib("org.nuxeo.runtime.test.tests", "MyComp3.xml");
+
+        ComponentManagerImpl mgr = (ComponentManagerImpl) Framework.getRuntime().getComponentManager();
+        RegistrationInfo ri3 = mgr.getRegistrationInfo(new ComponentName("my.comp3"));
+        RegistrationInfo ri4 = mgr.getRegistrationInfo(new ComponentName("my.comp4"));
+        // resolved, activation deferred until the application is started
+        assertEquals(RegistrationInfo.RESOLVED, ri3.getState());
+        assertEquals(RegistrationInfo.RESOLVED, ri4.getState());
+
+        fireFrameworkStarted();
+
+        assertEquals(RegistrationInfo.ACTIVATED, ri3.getState());
+        assertEquals(RegistrationInfo.ACTIVATED, ri4.getState());
+        ComponentWithXPoint c = (ComponentWithXPoint) Framework.getRuntime().getComponent(
+                new ComponentName("my.comp3"));
+        DummyContribution[] contribs = c.getContributions();
+        assertEquals(3, contribs.length);
+        // contribution order kept
+        assertEquals("Using Canonical", contribs[0].message);
+        assertEquals("Using Alias", contribs[1].message);
+        assertEquals("Using Alias 2", contribs[2].message);
+
+        String report = mgr.getActivationReport();
+        assertTrue(report, report.contains("my.comp3"));
+        assertTrue(report, report.contains("my.comp4"));
+    }
+
+    @Test
+    public void testInvalidThreadsValue() throws Exception {
+        runtime.getProperties().setProperty(ComponentManagerImpl.ACTIVATION_THREADS_PROPERTY, "many");
+        deployContrib("org.nuxeo.runtime.test.tests", "MyComp4.xml");
+        deployContrib("org.nuxeo.runtime.test.tests", "MyComp3.xml");
+
+        // falls back to the number of processors
+        fireFrameworkStarted();
+
+        ComponentManagerImpl mgr = (ComponentManagerImpl) Framework.getRuntime().getComponentManager();
+        assertEquals(RegistrationInfo.ACTIVATED, mgr.getRegistrationInfo(new ComponentName("my.comp3")).getState());
+        assertEquals(RegistrationInfo.ACTIVATED, mgr.getRegistrationInfo(new ComponentName("my.comp4")).getState());
+    }
+
+    @Test
+    public void testOnDemandActivation() throws Exception {
+        deployContrib("org.nuxeo.runtime.test.tests", "MyComp3.xml");
+        // looking up the component activates it before startup
+        ComponentWithXPoint c = (ComponentWithXPoint) Framework.getRuntime().getComponent(
+                new ComponentName("my.comp3"));
+        assertEquals(0, c.getContributions().length);
+        deployContrib("org.nuxeo.runtime.test.tests", "MyComp4.xml");
+
+        fireFrameworkStarted();
+
+        // contributions registered once
+        assertEquals(3, c.getContributions().length);
+    }
+
+    @Test
+    public void testLookupsDuringParallelActivation() throws Exception {
+        deployContrib("org.nuxeo.runtime.test.tests", "LookupComp1.xml");
+        deployContrib("org.nuxeo.runtime.test.tests", "LookupComp2.xml");
+
+        // both components are in the same level and look each other up while activated, must not deadlock
+        fireFrameworkStarted();
+
+        ComponentManagerImpl mgr = (ComponentManagerImpl) Framework.getRuntime().getComponentManager();
+        assertEquals(RegistrationInfo.ACTIVATED, mgr.getRegistrationInfo(new ComponentName("my.lookup1")).getState());
+        assertEquals(RegistrationInfo.ACTIVATED, mgr.getRegistrationInfo(new ComponentName("my.lookup2")).getState());
+        // at least one of them got the other one, fully activated
+        LookupComponent1 c1 = Framework.getService(LookupComponent1.class);
+        LookupComponent2 c2 = Framework.getService(LookupComponent2.class);
+        assertNotNull(c1);
+        assertNotNull(c2);
+        assertTrue(c1.other != null || c2.other != null);
+        if (c1.other != null) {
+            assertTrue(((LookupComponent2) c1.other).activated);
+        }
+        if (c2.other != null) {
+            assertTrue(((LookupComponent1) c2.other).activated);
+        }
+    }
+
+    public static class LookupComponent1 extends DefaultComponent {
+
+        protected volatile Object other;
+
+        protected volatile boolean activated;
+
+        @Override
+        public void activate(ComponentContext context) {
+            other = Framework.getService(LookupComponent2.class);
+            activated = true;
+        }
+    }
+
+    public static class LookupComponent2 extends DefaultComponent {
+
+        protected volatile Object other;
+
+        protected volatile boolean activated;
+
+        @Override
+        public void activate(ComponentContext context) {
+            other = Framework.getService(LookupComponent1.class);
+            activated = true;
+        }
+    }
+
+}
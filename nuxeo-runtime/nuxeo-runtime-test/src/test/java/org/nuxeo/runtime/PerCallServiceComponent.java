@@ -0,0 +1,38 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+
+package org.nuxeo.runtime;
+
+import org.nuxeo.runtime.model.DefaultComponent;
+
+/**
+ * @since 7.3
+ */
+public class PerCallServiceComponent extends DefaultComponent {
+
+    @Override
+    public <T> T getAdapter(Class<T> adapter) {
+        if (adapter == PerCallService.class) {
+            return adapter.cast(new PerCallService() {
+            });
+        }
+        return super.getAdapter(adapter);
+    }
+
+}
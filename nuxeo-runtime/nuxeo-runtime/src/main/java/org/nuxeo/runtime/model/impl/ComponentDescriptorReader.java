@@ -22,6 +22,7 @@ import org.nuxeo.common.xmap.XValueFactory;
 import org.nuxeo.runtime.Version;
 import org.nuxeo.runtime.model.ComponentName;
 import org.nuxeo.runtime.model.RuntimeContext;
+import org.w3c.dom.Element;
 
 /**
  * @author <a href="mailto:bs@nuxeo.com">Bogdan Stefanescu</a>
@@ -71,4 +72,17 @@ public class ComponentDescriptorReader {
         return null;
     }
 
+    /**
+     * Reads the component from an already parsed XML file.
+     *
+     * @since 7.3
+     */
+    public RegistrationInfoImpl read(RuntimeContext ctx, Element root) {
+        Object[] result = xmap.loadAll(new XMapContext(ctx), root);
+        if (result.length > 0) {
+            return (RegistrationInfoImpl) result[0];
+        }
+        return null;
+    }
+
 }
@@ -19,9 +19,13 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -44,6 +48,20 @@ public class ComponentManagerImpl implements ComponentManager {
 
     private static final Log log = LogFactory.getLog(ComponentManagerImpl.class);
 
+    /**
+     * Property enabling the parallel activation of the components deployed at startup.
+     *
+     * @since 7.3
+     */
+    public static final String PARALLEL_ACTIVATION_PROPERTY = "org.nuxeo.runtime.component.activation.parallel";
+
+    /**
+     * Property giving the number of threads used by the parallel activation, defaults to the number of processors.
+     *
+     * @since 7.3
+     */
+    public static final String ACTIVATION_THREADS_PROPERTY = "org.nuxeo.runtime.component.activation.threads";
+
     // must use an ordered Set to avoid loosing the order of the pending
     // extensions
     protected final Map<ComponentName, Set<Extension>> pendingExtensions;
@@ -56,6 +74,28 @@ public class ComponentManagerImpl implements ComponentManager {
 
     protected ComponentRegistry reg;
 
+    // the services already looked up, immutable and replaced on each change
+    protected volatile ServiceTable serviceTable = new ServiceTable(0, Collections.<Class<?>, Object> emptyMap());
+
+    protected final Object serviceTableLock = new Object();
+
+    // the components resolved at startup whose activation is deferred, in resolution order
+    protected final List<RegistrationInfoImpl> deferredActivations = new ArrayList<RegistrationInfoImpl>();
+
+    // the deferred components not fully activated yet, their extensions are registered when removed from the set
+    protected final Set<RegistrationInfoImpl> pendingActivations = Collections.newSetFromMap(
+            new ConcurrentHashMap<RegistrationInfoImpl, Boolean>());
+
+    // the thread activating each deferred component, and the component each activation thread waits for
+    protected final Map<RegistrationInfoImpl, Thread> activatingThreads = new HashMap<RegistrationInfoImpl, Thread>();
+
+    protected final Map<Thread, RegistrationInfoImpl> activationWaits = new HashMap<Thread, RegistrationInfoImpl>();
+
+    protected boolean deferredActivationDone;
+
+    // true until the deferred components are activated, components are then activated through activateOnDemand
+    protected volatile boolean deferringActivations;
+
     public ComponentManagerImpl(RuntimeService runtime) {
         reg = new ComponentRegistry();
         pendingExtensions = new HashMap<ComponentName, Set<Extension>>();
@@ -99,14 +139,25 @@ public class ComponentManagerImpl implements ComponentManager {
     }
 
     @Override
-    public synchronized ComponentInstance getComponent(ComponentName name) {
-        RegistrationInfo ri = reg.getComponent(name);
-        return ri != null ? ri.getComponent() : null;
+    public ComponentInstance getComponent(ComponentName name) {
+        RegistrationInfoImpl ri;
+        synchronized (this) {
+            ri = reg.getComponent(name);
+        }
+        if (ri == null) {
+            return null;
+        }
+        if (deferringActivations) {
+            // activation deferred at startup, activate it on demand without holding the manager lock
+            activateOnDemand(ri);
+        }
+        return ri.getComponent();
     }
 
     @Override
     public synchronized void shutdown() {
         ShutdownTask.shutdown(this);
+        invalidateServiceTable();
         listeners = null;
         reg.destroy();
         reg = null;
@@ -204,7 +255,9 @@ public class ComponentManagerImpl implements ComponentManager {
         if (ri == null) {
             return null;
         }
-        if (ri.isResolved()) {
+        if (deferringActivations) {
+            activateOnDemand(ri);
+        } else if (ri.isResolved()) {
             // activate it first
             ri.activate();
         }
@@ -217,8 +270,63 @@ public class ComponentManagerImpl implements ComponentManager {
 
     @Override
     public <T> T getService(Class<T> serviceClass) {
+        ServiceTable table = serviceTable;
+        Object service = table.services.get(serviceClass);
+        if (service != null) {
+            return serviceClass.cast(service);
+        }
         ComponentInstance comp = getComponentProvidingService(serviceClass);
-        return comp != null ? comp.getAdapter(serviceClass) : null;
+        T res = comp != null ? comp.getAdapter(serviceClass) : null;
+        // adapters other than the component itself may be created on each call, they are not shared
+        if (res != null && res == comp.getInstance()) {
+            publishService(table, serviceClass, res);
+        }
+        return res;
+    }
+
+    /**
+     * Immutable service lookup table, its generation changes each time it is invalidated.
+     *
+     * @since 7.3
+     */
+    protected static final class ServiceTable {
+
+        protected final int generation;
+
+        protected final Map<Class<?>, Object> services;
+
+        protected ServiceTable(int generation, Map<Class<?>, Object> services) {
+            this.generation = generation;
+            this.services = services;
+        }
+    }
+
+    /**
+     * Adds a service of an activated component to the lookup table, unless the table was invalidated since the given
+     * one was read.
+     */
+    protected void publishService(ServiceTable seen, Class<?> serviceClass, Object service) {
+        synchronized (serviceTableLock) {
+            ServiceTable table = serviceTable;
+            if (table.generation != seen.generation || table.services.containsKey(serviceClass)) {
+                return;
+            }
+            Map<Class<?>, Object> services = new HashMap<Class<?>, Object>(table.services);
+            services.put(serviceClass, service);
+            serviceTable = new ServiceTable(table.generation, Collections.unmodifiableMap(services));
+        }
+    }
+
+    /**
+     * Clears the service lookup table, called when components or services are registered, unregistered or
+     * deactivated.
+     *
+     * @since 7.3
+     */
+    public void invalidateServiceTable() {
+        synchronized (serviceTableLock) {
+            serviceTable = new ServiceTable(serviceTable.generation + 1, Collections.<Class<?>, Object> emptyMap());
+        }
     }
 
     @Override
@@ -236,6 +344,277 @@ public class ComponentManagerImpl implements ComponentManager {
         return activating;
     }
 
+    /**
+     * Defers the activation of a resolved component to {@link #activateDeferredComponents()} if the parallel
+     * activation is enabled and the startup activation was not done yet.
+     *
+     * @return true if the activation was deferred
+     * @since 7.3
+     */
+    synchronized boolean deferActivation(RegistrationInfoImpl ri) {
+        if (deferredActivationDone || Framework.getRuntime() == null
+                || !Framework.isBooleanPropertyTrue(PARALLEL_ACTIVATION_PROPERTY)) {
+            return false;
+        }
+        deferredActivations.add(ri);
+        pendingActivations.add(ri);
+        deferringActivations = true;
+        return true;
+    }
+
+    /**
+     * Activates the components whose activation was deferred at startup.
+     * <p>
+     * The components are activated by levels: a component is activated after the components it requires. The
+     * component instances of a level are activated in parallel, then their extensions are registered sequentially
+     * under the manager lock, in the order in which the components were resolved, so that the contributions of
+     * components that declare their requirements keep their order. Components resolved meanwhile are deferred to a
+     * next round.
+     * <p>
+     * Components that are looked up meanwhile are fully activated on demand, see {@link #activateOnDemand}.
+     *
+     * @since 7.3
+     */
+    public void activateDeferredComponents() {
+        int parallelism = getActivationThreads();
+        ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        ForkJoinPool pool = null;
+        try {
+            for (;;) {
+                List<RegistrationInfoImpl> ris;
+                synchronized (this) {
+                    ris = new ArrayList<RegistrationInfoImpl>(deferredActivations);
+                    deferredActivations.clear();
+                    if (ris.isEmpty()) {
+                        break;
+                    }
+                }
+                List<List<RegistrationInfoImpl>> levels = getActivationLevels(ris);
+                log.info("Activating " + ris.size() + " components in " + levels.size() + " levels using "
+                        + parallelism + " threads");
+                if (pool == null) {
+                    pool = new ForkJoinPool(Math.max(1, parallelism));
+                }
+                for (List<RegistrationInfoImpl> level : levels) {
+                    List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(level.size());
+                    for (RegistrationInfoImpl ri : level) {
+                        tasks.add(pool.submit(() -> activateInstance(ri, cl)));
+                    }
+                    for (ForkJoinTask<?> task : tasks) {
+                        task.join();
+                    }
+                    for (RegistrationInfoImpl ri : level) {
+                        // components looked up meanwhile already had their extensions registered
+                        synchronized (this) {
+                            if (pendingActivations.remove(ri) && ri.isActivated()) {
+                                ri.registerExtensions();
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            synchronized (this) {
+                deferredActivationDone = true;
+                deferringActivations = false;
+                pendingActivations.clear();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of threads activating the deferred components, by default the number of processors.
+     */
+    protected int getActivationThreads() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        String threads = Framework.getProperty(ACTIVATION_THREADS_PROPERTY);
+        if (threads == null) {
+            return processors;
+        }
+        try {
+            return Integer.parseInt(threads.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value for " + ACTIVATION_THREADS_PROPERTY + ": " + threads + ", using " + processors
+                    + " threads");
+            return processors;
+        }
+    }
+
+    protected void activateInstance(RegistrationInfoImpl ri, ClassLoader cl) {
+        Thread thread = Thread.currentThread();
+        ClassLoader oldCl = thread.getContextClassLoader();
+        thread.setContextClassLoader(cl);
+        try {
+            if (claimActivation(ri)) {
+                try {
+                    ri.activateInstance();
+                } finally {
+                    releaseActivation(ri);
+                }
+            }
+        } catch (RuntimeException e) {
+            // isolate component errors from other components, as in register
+            String msg = "Failed to activate component: " + ri.getName();
+            log.error(msg, e);
+            msg += " (" + e.toString() + ')';
+            synchronized (this) {
+                Framework.getRuntime().getWarnings().add(msg);
+            }
+        } finally {
+            thread.setContextClassLoader(oldCl);
+        }
+    }
+
+    /**
+     * Activates a component looked up while the deferred components are activated, and registers its extensions
+     * without waiting for the end of its activation level.
+     * <p>
+     * No component monitor is held while the component is activated, the activation is claimed from the manager
+     * instead: if another thread is activating the component, this waits for it, unless that thread is itself waiting
+     * for a component activated by this one. In that case the component is left activating, as a circular lookup
+     * does with the sequential activation.
+     *
+     * @since 7.3
+     */
+    protected void activateOnDemand(RegistrationInfoImpl ri) {
+        if (!ri.isResolved() && !pendingActivations.contains(ri)) {
+            return;
+        }
+        boolean activated = false;
+        if (claimActivation(ri)) {
+            try {
+                activated = ri.activateInstance();
+            } finally {
+                releaseActivation(ri);
+            }
+        }
+        synchronized (this) {
+            if (!ri.isActivated()) {
+                // activating in a thread waiting for this one, or failed
+                return;
+            }
+            if (pendingActivations.remove(ri) || activated) {
+                ri.registerExtensions();
+            }
+        }
+    }
+
+    /**
+     * Claims the activation of a component for the current thread, waiting while another thread is activating it.
+     *
+     * @return false if the current thread must not activate the component: it is activated by this thread or by a
+     *         thread waiting for this one
+     */
+    protected synchronized boolean claimActivation(RegistrationInfoImpl ri) {
+        Thread current = Thread.currentThread();
+        for (;;) {
+            Thread owner = activatingThreads.get(ri);
+            if (owner == null) {
+                activatingThreads.put(ri, current);
+                return true;
+            }
+            if (isWaitingFor(owner, current)) {
+                return false;
+            }
+            activationWaits.put(current, ri);
+            try {
+                // releases the manager lock while waiting
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                activationWaits.remove(current);
+            }
+        }
+    }
+
+    /**
+     * Checks if a thread is the given one or waits, through the chain of activating threads, for the given one.
+     */
+    protected boolean isWaitingFor(Thread thread, Thread current) {
+        for (int i = 0; thread != null && i <= activationWaits.size(); i++) {
+            if (thread == current) {
+                return true;
+            }
+            RegistrationInfoImpl waited = activationWaits.get(thread);
+            thread = waited == null ? null : activatingThreads.get(waited);
+        }
+        return false;
+    }
+
+    protected synchronized void releaseActivation(RegistrationInfoImpl ri) {
+        activatingThreads.remove(ri);
+        notifyAll();
+    }
+
+    /**
+     * Groups the components by activation level: the level of a component is one more than the highest level of the
+     * components it requires among the given ones. The resolution order is kept in each level.
+     */
+    protected List<List<RegistrationInfoImpl>> getActivationLevels(List<RegistrationInfoImpl> ris) {
+        Map<ComponentName, RegistrationInfoImpl> byName = new HashMap<ComponentName, RegistrationInfoImpl>();
+        for (RegistrationInfoImpl ri : ris) {
+            byName.put(ri.getName(), ri);
+            for (ComponentName alias : ri.getAliases()) {
+                byName.put(alias, ri);
+            }
+        }
+        Map<ComponentName, Integer> levelByName = new HashMap<ComponentName, Integer>();
+        List<List<RegistrationInfoImpl>> levels = new ArrayList<List<RegistrationInfoImpl>>();
+        for (RegistrationInfoImpl ri : ris) {
+            int level = getActivationLevel(ri, byName, levelByName);
+            while (levels.size() <= level) {
+                levels.add(new ArrayList<RegistrationInfoImpl>());
+            }
+            levels.get(level).add(ri);
+        }
+        return levels;
+    }
+
+    protected int getActivationLevel(RegistrationInfoImpl ri, Map<ComponentName, RegistrationInfoImpl> byName,
+            Map<ComponentName, Integer> levelByName) {
+        Integer level = levelByName.get(ri.getName());
+        if (level != null) {
+            return level.intValue();
+        }
+        // requirements cannot be cyclic, otherwise the components would not have been resolved
+        int l = 0;
+        for (ComponentName name : ri.getRequiredComponents()) {
+            RegistrationInfoImpl required = byName.get(name);
+            if (required != null && required != ri) {
+                l = Math.max(l, getActivationLevel(required, byName, levelByName) + 1);
+            }
+        }
+        levelByName.put(ri.getName(), Integer.valueOf(l));
+        return l;
+    }
+
+    /**
+     * Gets a report of the time spent activating each component, slowest first.
+     *
+     * @since 7.3
+     */
+    public String getActivationReport() {
+        List<RegistrationInfoImpl> ris;
+        synchronized (this) {
+            ris = new ArrayList<RegistrationInfoImpl>(reg.getComponents());
+        }
+        Collections.sort(ris, (ri1, ri2) -> Long.compare(ri2.getActivationTime(), ri1.getActivationTime()));
+        long total = 0;
+        StringBuilder buf = new StringBuilder();
+        for (RegistrationInfoImpl ri : ris) {
+            long time = ri.getActivationTime();
+            total += time;
+            buf.append(String.format("%8.2f ms  %s%n", Double.valueOf(time / 1e6), ri.getName()));
+        }
+        return String.format("Activation of %d components: %d ms (cumulated)%n", Integer.valueOf(ris.size()),
+                Long.valueOf(TimeUnit.NANOSECONDS.toMillis(total))) + buf;
+    }
+
     void sendEvent(ComponentEvent event) {
         log.debug("Dispatching event: " + event);
         Object[] listeners = this.listeners.getListeners();
@@ -316,6 +695,7 @@ public class ComponentManagerImpl implements ComponentManager {
             services.put(service, ri);
             // TODO: send notifications
         }
+        invalidateServiceTable();
     }
 
     public synchronized void unregisterServices(RegistrationInfoImpl ri) {
@@ -326,6 +706,7 @@ public class ComponentManagerImpl implements ComponentManager {
             services.remove(service);
             // TODO: send notifications
         }
+        invalidateServiceTable();
     }
 
     @Override
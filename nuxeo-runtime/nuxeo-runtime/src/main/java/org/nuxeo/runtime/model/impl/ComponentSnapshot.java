@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.runtime.model.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.common.Environment;
+import org.nuxeo.common.xmap.XMap;
+import org.nuxeo.runtime.api.Framework;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+/**
+ * Binary snapshot of the parsed component XML files, reused on the next startup to avoid reading and parsing them
+ * again.
+ * <p>
+ * Each component is stored as a compact encoding of its DOM, keyed by its URL and stamped with the size and date of the
+ * bundle file (jar or directory file) it comes from: an entry is only reused while this stamp is unchanged. Variables
+ * are expanded on the raw text of a component before it is parsed, so the result depends on the configuration: files
+ * containing {@code $&#123;...&#125;} variables or {@code $$} escapes are never snapshotted and are always read and
+ * expanded as without a snapshot. Comments are kept, as they are part of the {@code @XContent} values.
+ * <p>
+ * The snapshot is enabled by setting {@value #ENABLED_PROPERTY} to true, is read at the first component deployment
+ * and is written once the application is started, keeping only the components deployed by this startup.
+ *
+ * @since 7.3
+ */
+public class ComponentSnapshot {
+
+    private static final Log log = LogFactory.getLog(ComponentSnapshot.class);
+
+    public static final String ENABLED_PROPERTY = "org.nuxeo.runtime.component.snapshot";
+
+    public static final String FILE_NAME = "component-snapshot.bin";
+
+    protected static final int MAGIC = 0x4e58434d;
+
+    protected static final int VERSION = 2;
+
+    protected static final byte ELEMENT = 1;
+
+    protected static final byte TEXT = 2;
+
+    protected static final byte CDATA = 3;
+
+    protected static final byte COMMENT = 4;
+
+    protected static final byte END = 0;
+
+    protected static volatile ComponentSnapshot instance;
+
+    protected final File file;
+
+    protected final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    protected final Set<String> used = ConcurrentHashMap.newKeySet();
+
+    protected volatile boolean dirty;
+
+    protected static class Entry {
+
+        protected final String stamp;
+
+        protected final byte[] data;
+
+        protected Entry(String stamp, byte[] data) {
+            this.stamp = stamp;
+            this.data = data;
+        }
+    }
+
+    public ComponentSnapshot(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Gets the snapshot of the runtime, loaded on first call, or {@code null} if not enabled.
+     */
+    public static ComponentSnapshot getDefault() {
+        if (instance == null) {
+            synchronized (ComponentSnapshot.class) {
+                if (instance == null && Framework.isBooleanPropertyTrue(ENABLED_PROPERTY)) {
+                    Environment env = Environment.getDefault();
+                    if (env != null && env.getData() != null) {
+                        ComponentSnapshot snapshot = new ComponentSnapshot(new File(env.getData(), FILE_NAME));
+                        snapshot.load();
+                        instance = snapshot;
+                    }
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Writes the snapshot of the runtime if it is enabled and changed.
+     */
+    public static void saveDefault() {
+        ComponentSnapshot snapshot = instance;
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            snapshot.save();
+        } catch (IOException e) {
+            log.error("Cannot write component snapshot " + snapshot.file, e);
+        }
+    }
+
+    /**
+     * Returns the stamp of the bundle file containing the resource, or {@code null} if it cannot be computed.
+     */
+    public static String getStamp(URL url) {
+        if (url == null) {
+            return null;
+        }
+        String spec = url.toExternalForm();
+        if (spec.startsWith("jar:")) {
+            int i = spec.indexOf("!/");
+            if (i < 0) {
+                return null;
+            }
+            spec = spec.substring("jar:".length(), i);
+        }
+        if (!spec.startsWith("file:")) {
+            return null;
+        }
+        File f;
+        try {
+            f = new File(new URL(spec).toURI());
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+        if (!f.isFile()) {
+            return null;
+        }
+        return f.length() + ":" + f.lastModified();
+    }
+
+    /**
+     * Gets the root element of the component stored under the given id, or {@code null} if missing or stale.
+     */
+    public Element get(String id, String stamp) {
+        Entry entry = entries.get(id);
+        if (entry == null || !entry.stamp.equals(stamp)) {
+            return null;
+        }
+        try {
+            Element root = decode(entry.data);
+            used.add(id);
+            return root;
+        } catch (IOException e) {
+            log.warn("Invalid component snapshot entry: " + id, e);
+            entries.remove(id);
+            dirty = true;
+            return null;
+        }
+    }
+
+    /**
+     * Stores the root element of the component with the given id, which must have been parsed from a source accepted
+     * by {@link #isSnapshottable}.
+     */
+    public void put(String id, String stamp, Element root) {
+        try {
+            entries.put(id, new Entry(stamp, encode(root)));
+            used.add(id);
+            dirty = true;
+        } catch (IOException e) {
+            log.warn("Cannot snapshot component: " + id, e);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Loads the snapshot file, if any. An unreadable file is ignored.
+     */
+    public synchronized void load() {
+        entries.clear();
+        if (!file.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.info("Ignoring component snapshot with another format: " + file);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                String stamp = in.readUTF();
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                entries.put(id, new Entry(stamp, data));
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring invalid component snapshot: " + file, e);
+            entries.clear();
+        }
+        dirty = false;
+    }
+
+    /**
+     * Writes the components used since the snapshot was loaded, if anything changed.
+     */
+    public synchronized void save() throws IOException {
+        if (!dirty && used.size() == entries.size()) {
+            return;
+        }
+        entries.keySet().retainAll(used);
+        file.getParentFile().mkdirs();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> es : entries.entrySet()) {
+                out.writeUTF(es.getKey());
+                out.writeUTF(es.getValue().stamp);
+                out.writeInt(es.getValue().data.length);
+                out.write(es.getValue().data);
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            file.delete();
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Cannot rename " + tmp + " to " + file);
+            }
+        }
+        dirty = false;
+    }
+
+    /**
+     * Checks whether the source of a component is unchanged by variable expansion whatever the configuration, and
+     * can therefore be snapshotted.
+     */
+    public static boolean isSnapshottable(String source) {
+        return !source.contains("${") && !source.contains("$$");
+    }
+
+    /**
+     * Parses the source of a component.
+     */
+    public static Element parse(String source) throws IOException {
+        try (InputStream in = new ByteArrayInputStream(source.getBytes(UTF_8))) {
+            DocumentBuilder builder = XMap.getFactory().newDocumentBuilder();
+            return builder.parse(in).getDocumentElement();
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException(e);
+        }
+    }
+
+    protected static byte[] encode(Element root) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeElement(out, root);
+        }
+        return bytes.toByteArray();
+    }
+
+    protected static void writeElement(DataOutputStream out, Element element) throws IOException {
+        out.writeByte(ELEMENT);
+        writeString(out, element.getNamespaceURI());
+        writeString(out, element.getNodeName());
+        NamedNodeMap attrs = element.getAttributes();
+        out.writeInt(attrs.getLength());
+        for (int i = 0; i < attrs.getLength(); i++) {
+            Attr attr = (Attr) attrs.item(i);
+            writeString(out, attr.getNamespaceURI());
+            writeString(out, attr.getName());
+            writeString(out, attr.getValue());
+        }
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            switch (child.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                writeElement(out, (Element) child);
+                break;
+            case Node.TEXT_NODE:
+                out.writeByte(TEXT);
+                writeString(out, child.getNodeValue());
+                break;
+            case Node.CDATA_SECTION_NODE:
+                out.writeByte(CDATA);
+                writeString(out, child.getNodeValue());
+                break;
+            case Node.COMMENT_NODE:
+                out.writeByte(COMMENT);
+                writeString(out, child.getNodeValue());
+                break;
+            default:
+                // processing instructions are not mapped
+                break;
+            }
+        }
+        out.writeByte(END);
+    }
+
+    protected static Element decode(byte[] data) throws IOException {
+        Document document;
+        try {
+            document = XMap.getFactory().newDocumentBuilder().newDocument();
+        } catch (ParserConfigurationException e) {
+            throw new IOException(e);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != ELEMENT) {
+                throw new IOException("Missing root element");
+            }
+            Element root = readElement(in, document);
+            document.appendChild(root);
+            return root;
+        }
+    }
+
+    protected static Element readElement(DataInputStream in, Document document) throws IOException {
+        Element element = document.createElementNS(readString(in), readString(in));
+        int nbAttrs = in.readInt();
+        for (int i = 0; i < nbAttrs; i++) {
+            element.setAttributeNS(readString(in), readString(in), readString(in));
+        }
+        byte type;
+        while ((type = in.readByte()) != END) {
+            switch (type) {
+            case ELEMENT:
+                element.appendChild(readElement(in, document));
+                break;
+            case TEXT:
+                element.appendChild(document.createTextNode(readString(in)));
+                break;
+            case CDATA:
+                element.appendChild(document.createCDATASection(readString(in)));
+                break;
+            case COMMENT:
+                element.appendChild(document.createComment(readString(in)));
+                break;
+            default:
+                throw new IOException("Invalid node type: " + type);
+            }
+        }
+        return element;
+    }
+
+    protected static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    protected static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+}
@@ -37,6 +37,7 @@ import org.nuxeo.runtime.model.URLStreamRef;
 import org.nuxeo.runtime.osgi.OSGiRuntimeActivator;
 import org.nuxeo.runtime.osgi.OSGiRuntimeContext;
 import org.osgi.framework.Bundle;
+import org.w3c.dom.Element;
 
 /**
  * @author <a href="mailto:bs@nuxeo.com">Bogdan Stefanescu</a>
@@ -201,7 +202,20 @@ public class DefaultRuntimeContext implements RuntimeContext {
     }
 
     public RegistrationInfoImpl createRegistrationInfo(StreamRef ref) throws IOException {
+        ComponentSnapshot snapshot = ComponentSnapshot.getDefault();
+        String stamp = snapshot == null ? null : ComponentSnapshot.getStamp(ref.asURL());
+        if (stamp != null) {
+            Element root = snapshot.get(ref.getId(), stamp);
+            if (root != null) {
+                return reader.read(this, root);
+            }
+        }
         String source = FileUtils.read(ref.getStream());
+        if (stamp != null && ComponentSnapshot.isSnapshottable(source)) {
+            Element root = ComponentSnapshot.parse(source);
+            snapshot.put(ref.getId(), stamp, root);
+            return reader.read(this, root);
+        }
         String expanded = Framework.expandVars(source);
         try (InputStream in = new ByteArrayInputStream(expanded.getBytes(UTF_8))) {
             return createRegistrationInfo(in);
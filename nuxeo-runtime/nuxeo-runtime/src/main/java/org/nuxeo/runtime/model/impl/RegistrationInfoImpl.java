@@ -71,7 +71,7 @@ public class RegistrationInfoImpl implements RegistrationInfo {
     ConfigurationDescriptor config;
 
     // the registration state
-    int state = UNREGISTERED;
+    volatile int state = UNREGISTERED;
 
     // my aliases
     @XNodeList(value = "alias", type = HashSet.class, componentType = ComponentName.class)
@@ -119,6 +119,9 @@ public class RegistrationInfoImpl implements RegistrationInfo {
     // the managed component
     transient ComponentInstance component;
 
+    // the time spent activating the component, in nanoseconds
+    transient volatile long activationTime;
+
     public RegistrationInfoImpl() {
     }
 
@@ -335,10 +338,35 @@ public class RegistrationInfoImpl implements RegistrationInfo {
         if (state != RESOLVED) {
             return;
         }
+        if (activateInstance()) {
+            registerExtensions();
+        }
+    }
 
-        component = createComponentInstance();
+    /**
+     * Creates and activates the component instance, without registering the extensions. Used along with
+     * {@link #registerExtensions()} by {@link ComponentManagerImpl#activateDeferredComponents()}.
+     * <p>
+     * Not synchronized, so that no monitor is held during the service lookups of the component activation: the
+     * activation is claimed under this monitor by moving the component to the activating state, so that a concurrent
+     * {@link #activate()} or activation by the manager does not activate it a second time.
+     *
+     * @return false if the component was not in the resolved state
+     * @since 7.3
+     */
+    boolean activateInstance() {
+        if (!claimActivation()) {
+            return false;
+        }
+        long t0 = System.nanoTime();
+
+        try {
+            component = createComponentInstance();
+        } catch (RuntimeException e) {
+            releaseActivation();
+            throw e;
+        }
 
-        state = ACTIVATING;
         manager.sendEvent(new ComponentEvent(ComponentEvent.ACTIVATING_COMPONENT, this));
 
         // activate component
@@ -347,6 +375,42 @@ public class RegistrationInfoImpl implements RegistrationInfo {
 
         state = ACTIVATED;
         manager.sendEvent(new ComponentEvent(ComponentEvent.COMPONENT_ACTIVATED, this));
+        activationTime = System.nanoTime() - t0;
+        return true;
+    }
+
+    protected synchronized boolean claimActivation() {
+        if (state != RESOLVED) {
+            return false;
+        }
+        state = ACTIVATING;
+        return true;
+    }
+
+    protected synchronized void releaseActivation() {
+        if (state == ACTIVATING) {
+            state = RESOLVED;
+        }
+    }
+
+    /**
+     * Registers the extensions contributed by the activated component, then the pending extensions contributed to it.
+     * <p>
+     * Serialized on the manager lock, which guards the pending extensions and the component registries.
+     *
+     * @since 7.3
+     */
+    void registerExtensions() {
+        synchronized (manager) {
+            if (state != ACTIVATED) {
+                return;
+            }
+            doRegisterExtensions();
+        }
+    }
+
+    protected void doRegisterExtensions() {
+        long t0 = System.nanoTime();
 
         // register contributed extensions if any
         if (extensions != null) {
@@ -389,6 +453,16 @@ public class RegistrationInfoImpl implements RegistrationInfo {
                 }
             }
         }
+        activationTime += System.nanoTime() - t0;
+    }
+
+    /**
+     * Gets the time spent activating the component and registering its extensions, in nanoseconds.
+     *
+     * @since 7.3
+     */
+    public long getActivationTime() {
+        return activationTime;
     }
 
     public synchronized void deactivate() {
@@ -397,6 +471,7 @@ public class RegistrationInfoImpl implements RegistrationInfo {
         }
 
         state = DEACTIVATING;
+        manager.invalidateServiceTable();
         manager.sendEvent(new ComponentEvent(ComponentEvent.DEACTIVATING_COMPONENT, this));
 
         // unregister contributed extensions if any
@@ -432,6 +507,9 @@ public class RegistrationInfoImpl implements RegistrationInfo {
         state = RESOLVED;
         manager.sendEvent(new ComponentEvent(ComponentEvent.COMPONENT_RESOLVED, this));
         // TODO lazy activation
+        if (manager.deferActivation(this)) {
+            return;
+        }
         activate();
     }
 
@@ -48,7 +48,9 @@ import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.model.ComponentName;
 import org.nuxeo.runtime.model.RegistrationInfo;
 import org.nuxeo.runtime.model.RuntimeContext;
+import org.nuxeo.runtime.model.impl.ComponentManagerImpl;
 import org.nuxeo.runtime.model.impl.ComponentPersistence;
+import org.nuxeo.runtime.model.impl.ComponentSnapshot;
 import org.nuxeo.runtime.model.impl.RegistrationInfoImpl;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
@@ -80,6 +82,16 @@ public class OSGiRuntimeService extends AbstractRuntimeService implements Framew
 
     public static final String PROP_NUXEO_BIND_ADDRESS = "nuxeo.bind.address";
 
+    /**
+     * Enables the startup report of the component activation times, written in the log directory.
+     *
+     * @since 7.3
+     */
+    public static final String STARTUP_REPORT_PROPERTY = "org.nuxeo.runtime.startup.report";
+
+    /** @since 7.3 */
+    public static final String STARTUP_REPORT_FILE = "startup-report.txt";
+
     public static final String NAME = "OSGi NXRuntime";
 
     public static final Version VERSION = Version.parseString("1.4.0");
@@ -510,6 +522,10 @@ public class OSGiRuntimeService extends AbstractRuntimeService implements Framew
             }
             appStarted = true;
         }
+        if (manager instanceof ComponentManagerImpl) {
+            // activate the components deferred by the parallel activation
+            ((ComponentManagerImpl) manager).activateDeferredComponents();
+        }
         try {
             persistence.loadPersistedComponents();
         } catch (RuntimeException | IOException e) {
@@ -521,8 +537,39 @@ public class OSGiRuntimeService extends AbstractRuntimeService implements Framew
         // on this marker component
         deployFrameworkStartedComponent();
         notifyComponentsOnStarted();
+        // keep the parsed components for the next startup
+        ComponentSnapshot.saveDefault();
         // print the startup message
         printStatusMessage();
+        writeStartupReport();
+    }
+
+    /**
+     * Writes the time spent activating each component to the startup report, if enabled or if the parallel activation
+     * is enabled.
+     *
+     * @since 7.3
+     */
+    protected void writeStartupReport() {
+        if (!(manager instanceof ComponentManagerImpl)) {
+            return;
+        }
+        if (!Framework.isBooleanPropertyTrue(STARTUP_REPORT_PROPERTY)
+                && !Framework.isBooleanPropertyTrue(ComponentManagerImpl.PARALLEL_ACTIVATION_PROPERTY)) {
+            return;
+        }
+        String report = ((ComponentManagerImpl) manager).getActivationReport();
+        Environment env = Environment.getDefault();
+        if (env == null || env.getLog() == null) {
+            log.info(report);
+            return;
+        }
+        File file = new File(env.getLog(), STARTUP_REPORT_FILE);
+        try {
+            FileUtils.writeFile(file, report);
+        } catch (IOException e) {
+            log.error("Cannot write startup report " + file, e);
+        }
     }
 
     /* --------------- FrameworkListener API ------------------ */
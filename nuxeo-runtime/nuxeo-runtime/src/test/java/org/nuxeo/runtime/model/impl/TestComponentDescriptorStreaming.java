@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.runtime.model.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Test;
+import org.nuxeo.common.xmap.XMap;
+import org.nuxeo.runtime.model.Property;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Reads the runtime component files through the DOM and the streaming mappings and checks they give the same
+ * registration infos.
+ */
+public class TestComponentDescriptorStreaming {
+
+    protected static final String[] COMPONENTS = { "OSGI-INF/ContributionPersistence.xml",
+            "OSGI-INF/EventService.xml", "OSGI-INF/FileEventTracker.xml", "OSGI-INF/FileEventTrackerConfig.xml",
+            "OSGI-INF/LoginComponent.xml", "OSGI-INF/ResourceService.xml", "MyComp1.xml", "ListenerExtension.xml" };
+
+    @After
+    public void tearDown() {
+        System.clearProperty(XMap.STREAMING_PROPERTY);
+    }
+
+    @Test
+    public void testSameRegistrationInfos() throws Exception {
+        DefaultRuntimeContext ctx = new DefaultRuntimeContext(null);
+        ComponentDescriptorReader reader = new ComponentDescriptorReader();
+        ClassLoader cl = getClass().getClassLoader();
+        for (String component : COMPONENTS) {
+            RegistrationInfoImpl expected;
+            try (InputStream in = cl.getResourceAsStream(component)) {
+                assertNotNull(component, in);
+                Element root = XMap.getFactory().newDocumentBuilder().parse(in).getDocumentElement();
+                expected = reader.read(ctx, root);
+            }
+            RegistrationInfoImpl actual;
+            System.setProperty(XMap.STREAMING_PROPERTY, "true");
+            try (InputStream in = cl.getResourceAsStream(component)) {
+                actual = reader.read(ctx, in);
+            } finally {
+                System.clearProperty(XMap.STREAMING_PROPERTY);
+            }
+            assertSameInfo(component, expected, actual);
+        }
+    }
+
+    protected static void assertSameInfo(String where, RegistrationInfoImpl expected, RegistrationInfoImpl actual)
+            throws Exception {
+        assertEquals(where, expected.name, actual.name);
+        assertEquals(where, expected.disabled, actual.disabled);
+        assertEquals(where, expected.implementation, actual.implementation);
+        assertEquals(where, expected.aliases, actual.aliases);
+        assertEquals(where, expected.requires, actual.requires);
+        assertEquals(where, expected.version, actual.version);
+        assertEquals(where, expected.bundle, actual.bundle);
+        assertEquals(where, expected.documentation, actual.documentation);
+        assertEquals(where, expected.config == null, actual.config == null);
+        assertEquals(where, expected.serviceDescriptor == null, actual.serviceDescriptor == null);
+        if (expected.serviceDescriptor != null) {
+            assertEquals(where, expected.serviceDescriptor.isFactory, actual.serviceDescriptor.isFactory);
+            assertArrayEquals(where, expected.serviceDescriptor.services, actual.serviceDescriptor.services);
+        }
+        assertEquals(where, expected.properties.keySet(), actual.properties.keySet());
+        for (Map.Entry<String, Property> es : expected.properties.entrySet()) {
+            Property property = actual.properties.get(es.getKey());
+            assertEquals(where, es.getValue().getType(), property.getType());
+            assertEquals(where, es.getValue().getValue(), property.getValue());
+        }
+        assertEquals(where, expected.extensionPoints.length, actual.extensionPoints.length);
+        for (int i = 0; i < expected.extensionPoints.length; i++) {
+            ExtensionPointImpl e = expected.extensionPoints[i];
+            ExtensionPointImpl a = actual.extensionPoints[i];
+            assertEquals(where, e.name, a.name);
+            assertEquals(where, e.superComponent, a.superComponent);
+            assertEquals(where, e.documentation, a.documentation);
+            assertArrayEquals(where, e.contributions, a.contributions);
+            assertSame(where, actual, a.ri);
+        }
+        assertEquals(where, expected.extensions.length, actual.extensions.length);
+        for (int i = 0; i < expected.extensions.length; i++) {
+            ExtensionImpl e = expected.extensions[i];
+            ExtensionImpl a = actual.extensions[i];
+            assertEquals(where, e.target, a.target);
+            assertEquals(where, e.extensionPoint, a.extensionPoint);
+            assertEquals(where, e.getId(), a.getId());
+            assertEquals(where, e.documentation, a.documentation);
+            assertEquals(where, toCanonicalString(e.element), toCanonicalString(a.element));
+        }
+    }
+
+    protected static String toCanonicalString(Node node) {
+        StringBuilder buf = new StringBuilder();
+        appendCanonical(node, buf);
+        return buf.toString();
+    }
+
+    protected static void appendCanonical(Node node, StringBuilder buf) {
+        switch (node.getNodeType()) {
+        case Node.ELEMENT_NODE:
+            buf.append('<').append(node.getNodeName());
+            NamedNodeMap attributes = node.getAttributes();
+            Map<String, String> sorted = new TreeMap<String, String>();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Node attr = attributes.item(i);
+                if (!attr.getNodeName().startsWith("xmlns")) {
+                    sorted.put(attr.getNodeName(), attr.getNodeValue());
+                }
+            }
+            for (Map.Entry<String, String> es : sorted.entrySet()) {
+                buf.append(' ').append(es.getKey()).append("=\"").append(es.getValue()).append('"');
+            }
+            buf.append('>');
+            appendChildren(node, buf);
+            buf.append("</").append(node.getNodeName()).append('>');
+            break;
+        case Node.TEXT_NODE:
+        case Node.CDATA_SECTION_NODE:
+            buf.append(node.getNodeValue());
+            break;
+        case Node.COMMENT_NODE:
+            buf.append("<!--").append(node.getNodeValue()).append("-->");
+            break;
+        default:
+            appendChildren(node, buf);
+            break;
+        }
+    }
+
+    protected static void appendChildren(Node node, StringBuilder buf) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            appendCanonical(child, buf);
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2015 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.runtime.model.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Element;
+
+public class TestComponentSnapshot {
+
+    private static final String XML = "<?xml version=\"1.0\"?>\n" //
+            + "<component name=\"my.comp\" xmlns:x=\"urn:test\">\n" //
+            + "  <!-- a comment -->\n" //
+            + "  <implementation class=\"org.nuxeo.MyComp\"/>\n" //
+            + "  <extension target=\"other\" point=\"xp\">\n" //
+            + "    <!-- kept in the extension content -->\n" //
+            + "    <x:item id=\"a\">text &amp; more</x:item>\n" //
+            + "    <script><![CDATA[if (a < b) {}]]></script>\n" //
+            + "  </extension>\n" //
+            + "</component>\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    protected static Element parse(String xml) throws Exception {
+        return ComponentSnapshot.parse(xml);
+    }
+
+    @Test
+    public void testEncodeDecode() throws Exception {
+        Element root = parse(XML);
+        Element decoded = ComponentSnapshot.decode(ComponentSnapshot.encode(root));
+        assertEquals("component", decoded.getNodeName());
+        assertEquals("my.comp", decoded.getAttribute("name"));
+        Element item = (Element) decoded.getElementsByTagNameNS("urn:test", "item").item(0);
+        assertNotNull(item);
+        assertEquals("text & more", item.getTextContent());
+        assertEquals("if (a < b) {}", decoded.getElementsByTagName("script").item(0).getTextContent());
+        assertEquals(TestComponentDescriptorStreaming.toCanonicalString(root),
+                TestComponentDescriptorStreaming.toCanonicalString(decoded));
+    }
+
+    @Test
+    public void testSameRegistrationInfos() throws Exception {
+        DefaultRuntimeContext ctx = new DefaultRuntimeContext(null);
+        ComponentDescriptorReader reader = new ComponentDescriptorReader();
+        ClassLoader cl = getClass().getClassLoader();
+        for (String component : TestComponentDescriptorStreaming.COMPONENTS) {
+            String source;
+            try (InputStream in = cl.getResourceAsStream(component)) {
+                assertNotNull(component, in);
+                source = IOUtils.toString(in, "UTF-8");
+            }
+            RegistrationInfoImpl expected = reader.read(ctx, new ByteArrayInputStream(source.getBytes(UTF_8)));
+            Element root = ComponentSnapshot.decode(ComponentSnapshot.encode(ComponentSnapshot.parse(source)));
+            RegistrationInfoImpl actual = reader.read(ctx, root);
+            TestComponentDescriptorStreaming.assertSameInfo(component, expected, actual);
+        }
+    }
+
+    @Test
+    public void testSourceWithVariablesIsNotSnapshotted() throws Exception {
+        assertTrue(ComponentSnapshot.isSnapshottable(XML));
+        assertFalse(ComponentSnapshot.isSnapshottable("<component name=\"${my.name}\"/>"));
+        assertFalse(ComponentSnapshot.isSnapshottable("<component name=\"a$${b}\"/>"));
+        assertFalse(ComponentSnapshot.isSnapshottable("<component name=\"a$$b\"/>"));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        File file = new File(folder.getRoot(), "snapshot.bin");
+        ComponentSnapshot snapshot = new ComponentSnapshot(file);
+        snapshot.put("comp1", "1:1", parse(XML));
+        snapshot.put("comp2", "2:2", parse("<component name=\"other\"/>"));
+        snapshot.save();
+        assertTrue(file.isFile());
+
+        snapshot = new ComponentSnapshot(file);
+        snapshot.load();
+        assertEquals(2, snapshot.size());
+        assertNull(snapshot.get("comp1", "1:2"));
+        Element root = snapshot.get("comp1", "1:1");
+        assertNotNull(root);
+        assertEquals("my.comp", root.getAttribute("name"));
+
+        // only the components used since loading are kept
+        snapshot.save();
+        snapshot = new ComponentSnapshot(file);
+        snapshot.load();
+        assertEquals(1, snapshot.size());
+        assertNull(snapshot.get("comp2", "2:2"));
+    }
+
+    @Test
+    public void testInvalidFileIsIgnored() throws Exception {
+        File file = folder.newFile("snapshot.bin");
+        FileUtils.writeStringToFile(file, "garbage");
+        ComponentSnapshot snapshot = new ComponentSnapshot(file);
+        snapshot.load();
+        assertEquals(0, snapshot.size());
+    }
+
+    @Test
+    public void testStamp() throws Exception {
+        File file = folder.newFile("comp.xml");
+        FileUtils.writeStringToFile(file, XML);
+        URL url = file.toURI().toURL();
+        assertEquals(file.length() + ":" + file.lastModified(), ComponentSnapshot.getStamp(url));
+        URL jarUrl = new URL("jar:" + url + "!/OSGI-INF/comp.xml");
+        assertEquals(ComponentSnapshot.getStamp(url), ComponentSnapshot.getStamp(jarUrl));
+        assertNull(ComponentSnapshot.getStamp(new URL("http://localhost/comp.xml")));
+    }
+
+}
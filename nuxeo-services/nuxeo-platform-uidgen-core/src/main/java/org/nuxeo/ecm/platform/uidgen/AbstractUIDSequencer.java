@@ -0,0 +1,110 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.uidgen;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Base class for sequencers able to reserve blocks of values.
+ * <p>
+ * With a block size of 1, the default, each value is reserved from the storage, and the values of a key have no gaps.
+ * With a larger block size, the values are reserved from the storage by blocks and then handed out locally, without
+ * locking. The values not handed out when the server stops are lost, and with several servers the values of a key are
+ * not allocated in order.
+ *
+ * @since 7.3
+ */
+public abstract class AbstractUIDSequencer implements UIDSequencer {
+
+    /**
+     * A block of reserved values.
+     */
+    protected static class Block {
+
+        protected final AtomicLong next;
+
+        protected final long last;
+
+        protected Block(long first, long last) {
+            next = new AtomicLong(first);
+            this.last = last;
+        }
+
+    }
+
+    protected int blockSize = 1;
+
+    protected final ConcurrentMap<String, AtomicReference<Block>> blocks = new ConcurrentHashMap<String, AtomicReference<Block>>();
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public void setBlockSize(int blockSize) {
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    @Override
+    public int getNext(String key) {
+        if (blockSize <= 1) {
+            return reserve(key, 1);
+        }
+        AtomicReference<Block> current = blocks.get(key);
+        if (current == null) {
+            AtomicReference<Block> ref = new AtomicReference<Block>();
+            current = blocks.putIfAbsent(key, ref);
+            if (current == null) {
+                current = ref;
+            }
+        }
+        for (;;) {
+            Block block = current.get();
+            if (block != null) {
+                long value = block.next.getAndIncrement();
+                if (value <= block.last) {
+                    return (int) value;
+                }
+            }
+            synchronized (current) {
+                // another thread may have reserved a new block meanwhile
+                if (current.get() == block) {
+                    int size = blockSize;
+                    long last = reserve(key, size);
+                    current.set(new Block(last - size + 1, last));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reserves consecutive values for the given key in the storage.
+     *
+     * @param key the sequence key
+     * @param count the number of values to reserve
+     * @return the last reserved value
+     */
+    protected abstract int reserve(String key, int count);
+
+    @Override
+    public void dispose() {
+        blocks.clear();
+    }
+
+}
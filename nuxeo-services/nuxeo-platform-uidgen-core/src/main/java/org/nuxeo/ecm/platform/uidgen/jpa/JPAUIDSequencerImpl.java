@@ -31,7 +31,7 @@ import org.nuxeo.ecm.core.api.ClientRuntimeException;
 import org.nuxeo.ecm.core.persistence.PersistenceProvider;
 import org.nuxeo.ecm.core.persistence.PersistenceProvider.RunCallback;
 import org.nuxeo.ecm.core.persistence.PersistenceProviderFactory;
-import org.nuxeo.ecm.platform.uidgen.UIDSequencer;
+import org.nuxeo.ecm.platform.uidgen.AbstractUIDSequencer;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.transaction.TransactionHelper;
 
@@ -42,7 +42,7 @@ import org.nuxeo.runtime.transaction.TransactionHelper;
  *
  * @author <a href="mailto:bs@nuxeo.com">Bogdan Stefanescu</a>
  */
-public class JPAUIDSequencerImpl implements UIDSequencer {
+public class JPAUIDSequencerImpl extends AbstractUIDSequencer {
 
     private static volatile PersistenceProvider persistenceProvider;
 
@@ -63,6 +63,7 @@ public class JPAUIDSequencerImpl implements UIDSequencer {
      */
     @Override
     public void dispose() {
+        super.dispose();
         deactivatePersistenceProvider();
         tpe.shutdownNow();
     }
@@ -106,19 +107,29 @@ public class JPAUIDSequencerImpl implements UIDSequencer {
 
         protected final String key;
 
+        protected final int count;
+
         protected int result;
 
         protected boolean completed = false;
 
         public SeqRunner(final String key) {
+            this(key, 1);
+        }
+
+        /**
+         * @since 7.3
+         */
+        public SeqRunner(final String key, final int count) {
             this.key = key;
+            this.count = count;
         }
 
         @Override
         public void run() {
             TransactionHelper.startTransaction();
             try {
-                result = doGetNext(key);
+                result = doGetNext(key, count);
                 completed = true;
             } finally {
                 TransactionHelper.commitOrRollbackTransaction();
@@ -137,9 +148,9 @@ public class JPAUIDSequencerImpl implements UIDSequencer {
     }
 
     @Override
-    public int getNext(final String key) {
+    protected int reserve(final String key, final int count) {
 
-        SeqRunner runner = new SeqRunner(key);
+        SeqRunner runner = new SeqRunner(key, count);
 
         Future<?> future = tpe.submit(runner);
 
@@ -155,11 +166,18 @@ public class JPAUIDSequencerImpl implements UIDSequencer {
     }
 
     protected int doGetNext(final String key) {
+        return doGetNext(key, 1);
+    }
+
+    /**
+     * @since 7.3
+     */
+    protected int doGetNext(final String key, final int count) {
         try {
             return getOrCreatePersistenceProvider().run(true, new RunCallback<Integer>() {
                 @Override
                 public Integer runWith(EntityManager em) {
-                    return getNext(em, key);
+                    return getNext(em, key, count);
                 }
             });
         } catch (ClientException e) {
@@ -168,6 +186,16 @@ public class JPAUIDSequencerImpl implements UIDSequencer {
     }
 
     protected int getNext(EntityManager em, String key) {
+        return getNext(em, key, 1);
+    }
+
+    /**
+     * Increments the sequence of the given key by the given count in one update.
+     *
+     * @return the last reserved value
+     * @since 7.3
+     */
+    protected int getNext(EntityManager em, String key, int count) {
         UIDSequenceBean seq;
         try {
             seq = (UIDSequenceBean) em.createNamedQuery("UIDSequence.findByKey").setParameter("key", key).getSingleResult();
@@ -176,7 +204,7 @@ public class JPAUIDSequencerImpl implements UIDSequencer {
             seq = new UIDSequenceBean(key);
             em.persist(seq);
         }
-        return seq.nextIndex();
+        return seq.nextIndex(count);
     }
 
 }
@@ -105,4 +105,16 @@ public class UIDSequenceBean {
         return index;
     }
 
+    /**
+     * Increments the index by the given count, reserving as many values.
+     *
+     * @return the last reserved value
+     * @since 7.3
+     */
+    public int nextIndex(int count) {
+        index += count;
+        log.debug("updated to " + this);
+        return index;
+    }
+
 }
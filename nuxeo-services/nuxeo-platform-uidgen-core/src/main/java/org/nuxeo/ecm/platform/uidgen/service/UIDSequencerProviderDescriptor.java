@@ -20,6 +20,7 @@ package org.nuxeo.ecm.platform.uidgen.service;
 
 import org.nuxeo.common.xmap.annotation.XNode;
 import org.nuxeo.common.xmap.annotation.XObject;
+import org.nuxeo.ecm.platform.uidgen.AbstractUIDSequencer;
 import org.nuxeo.ecm.platform.uidgen.UIDSequencer;
 
 /**
@@ -37,10 +38,20 @@ public class UIDSequencerProviderDescriptor {
     @XNode("@class")
     protected Class<? extends UIDSequencer> sequencerClass;
 
+    /**
+     * Number of values reserved at once by sequencers supporting it, 1 keeping the values without gaps.
+     */
+    @XNode("@blockSize")
+    protected int blockSize = 1;
+
     public UIDSequencer getSequencer() throws Exception {
 
         if (sequencerClass != null) {
-            return sequencerClass.newInstance();
+            UIDSequencer sequencer = sequencerClass.newInstance();
+            if (sequencer instanceof AbstractUIDSequencer) {
+                ((AbstractUIDSequencer) sequencer).setBlockSize(blockSize);
+            }
+            return sequencer;
         }
 
         return null;
@@ -57,4 +68,8 @@ public class UIDSequencerProviderDescriptor {
         return isdefault;
     }
 
+    public int getBlockSize() {
+        return blockSize;
+    }
+
 }
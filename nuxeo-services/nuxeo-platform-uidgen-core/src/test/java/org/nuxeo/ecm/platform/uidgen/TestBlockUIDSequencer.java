@@ -0,0 +1,104 @@
+/*
+ * (C) Copyright 2015 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.uidgen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TestBlockUIDSequencer {
+
+    /**
+     * Sequencer keeping its sequences in memory and counting the reservations.
+     */
+    protected static class MemoryUIDSequencer extends AbstractUIDSequencer {
+
+        protected final Map<String, Integer> sequences = new HashMap<String, Integer>();
+
+        protected final AtomicInteger reservations = new AtomicInteger();
+
+        @Override
+        public void init() {
+        }
+
+        @Override
+        protected synchronized int reserve(String key, int count) {
+            reservations.incrementAndGet();
+            Integer last = sequences.get(key);
+            int value = (last == null ? 0 : last.intValue()) + count;
+            sequences.put(key, Integer.valueOf(value));
+            return value;
+        }
+
+    }
+
+    @Test
+    public void testGapFree() {
+        MemoryUIDSequencer seq = new MemoryUIDSequencer();
+        assertEquals(1, seq.getNext("a"));
+        assertEquals(2, seq.getNext("a"));
+        assertEquals(1, seq.getNext("b"));
+        assertEquals(3, seq.reservations.get());
+    }
+
+    @Test
+    public void testBlocks() {
+        MemoryUIDSequencer seq = new MemoryUIDSequencer();
+        seq.setBlockSize(10);
+        for (int i = 1; i <= 25; i++) {
+            assertEquals(i, seq.getNext("a"));
+        }
+        assertEquals(1, seq.getNext("b"));
+        assertEquals(4, seq.reservations.get());
+        assertEquals(30, seq.sequences.get("a").intValue());
+    }
+
+    @Test
+    public void testConcurrentBlocks() throws Exception {
+        final MemoryUIDSequencer seq = new MemoryUIDSequencer();
+        seq.setBlockSize(100);
+        final int nbCalls = 10000;
+        final Set<Integer> values = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < nbCalls; i++) {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    values.add(Integer.valueOf(seq.getNext("mt")));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue("timeout", executor.awaitTermination(20, TimeUnit.SECONDS));
+        // all the values are distinct, and no block was wasted
+        assertEquals(nbCalls, values.size());
+        assertEquals(nbCalls / 100, seq.reservations.get());
+        assertEquals(nbCalls + 1, seq.getNext("mt"));
+    }
+
+}